@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.index;
+
+import static org.apache.solr.bench.Docs.docs;
+import static org.apache.solr.bench.generators.SourceDSL.dates;
+import static org.apache.solr.bench.generators.SourceDSL.integers;
+import static org.apache.solr.bench.generators.SourceDSL.longs;
+import static org.apache.solr.bench.generators.SourceDSL.strings;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.document.Document;
+import org.apache.solr.bench.Docs;
+import org.apache.solr.bench.MiniClusterState;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.core.SolrConfig;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.IndexSchemaFactory;
+import org.apache.solr.update.DocumentBuilder;
+import org.apache.solr.update.ReusableFields;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Converts documents with point, docValues and string fields to Lucene documents, with and without
+ * {@link ReusableFields}. Run with {@code -prof gc} to compare the bytes allocated per document
+ * ({@code gc.alloc.rate.norm}).
+ */
+@Fork(value = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(time = 5, iterations = 3)
+@Measurement(time = 10, iterations = 5)
+@Threads(value = 1)
+public class DocumentBuilding {
+
+  @State(Scope.Thread)
+  public static class BenchState {
+
+    @Param({"false", "true"})
+    boolean reuseFields;
+
+    @Param("10000")
+    int numDocs;
+
+    IndexSchema schema;
+    Iterator<SolrInputDocument> docIterator;
+    ReusableFields reusableFields;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+      SolrConfig config =
+          new SolrConfig(
+              MiniClusterState.getFile("src/resources/configs/cloud-minimal"), "solrconfig.xml");
+      schema = IndexSchemaFactory.buildIndexSchema("schema.xml", config);
+
+      Docs docs =
+          docs()
+              .field("id", integers().incrementing())
+              .field("int1_i", integers().all())
+              .field("int2_i_dv", integers().all())
+              .field("long1_l", longs().all())
+              .field("long2_l_dv", longs().all())
+              .field("date1_dt_dv", dates().all())
+              .field("string1_s_dv", strings().basicLatinAlphabet().ofLengthBetween(8, 16));
+      docs.preGenerate(numDocs);
+      docIterator = docs.generatedDocsCircularIterator();
+
+      reusableFields = reuseFields ? new ReusableFields() : null;
+    }
+  }
+
+  @Benchmark
+  public Document toDocument(BenchState state) {
+    return DocumentBuilder.toDocument(
+        state.docIterator.next(), state.schema, false, true, state.reusableFields);
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.index;
+
+import static org.apache.solr.bench.Docs.docs;
+import static org.apache.solr.bench.generators.SourceDSL.integers;
+import static org.apache.solr.bench.generators.SourceDSL.longs;
+import static org.apache.solr.bench.generators.SourceDSL.strings;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.solr.bench.BaseBenchState;
+import org.apache.solr.bench.Docs;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.CommitUpdateCommand;
+import org.apache.solr.update.TransactionLog;
+import org.apache.solr.update.UpdateLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the plain and the LZ4 compressed transaction log formats. {@code write} appends
+ * documents like indexing does, and {@code replay} reads a capped log from start to end like log
+ * replay and recovery do. The size of the replayed log is logged at the end of each trial.
+ */
+@Fork(value = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(time = 5, iterations = 3)
+@Measurement(time = 10, iterations = 5)
+@Threads(value = 4)
+public class TransactionLogFormat {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param({"false", "true"})
+    boolean compressed;
+
+    @Param({"true", "false"})
+    boolean useSmallDocs;
+
+    @Param("10000")
+    int numDocs;
+
+    Path dir;
+    Iterator<SolrInputDocument> docIterator;
+    TransactionLog writeLog;
+    TransactionLog replayLog;
+    final AtomicLong version = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+      Docs docs =
+          useSmallDocs
+              ? docs()
+                  .field("id", integers().incrementing())
+                  .field("text", strings().basicLatinAlphabet().multi(2).ofLengthBetween(20, 32))
+                  .field("int1_i", integers().all())
+                  .field("long1_l", longs().all())
+              : docs()
+                  .field("id", integers().incrementing())
+                  .field(strings().basicLatinAlphabet().multi(312).ofLengthBetween(30, 64))
+                  .field(integers().all())
+                  .field(longs().all());
+      docs.preGenerate(numDocs);
+      docIterator = docs.generatedDocsCircularIterator();
+
+      dir = Files.createTempDirectory("tlog-bench");
+      replayLog = newLog(0);
+      for (int i = 0; i < numDocs; i++) {
+        replayLog.write(newCommand());
+      }
+      replayLog.writeCommit(new CommitUpdateCommand(null, false));
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+      writeLog = newLog(version.get());
+    }
+
+    @TearDown(Level.Iteration)
+    public void teardownIteration() {
+      writeLog.decref();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardownTrial() throws Exception {
+      BaseBenchState.log("replayed log size: " + replayLog.getLogSize() + " bytes");
+      replayLog.decref();
+      Files.deleteIfExists(dir);
+    }
+
+    TransactionLog newLog(long id) {
+      String name =
+          String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, id);
+      TransactionLog tlog = new UpdateLog().newTransactionLog(dir.resolve(name), null, false);
+      tlog.setCompressDocuments(compressed);
+      return tlog;
+    }
+
+    synchronized AddUpdateCommand newCommand() {
+      AddUpdateCommand cmd = new AddUpdateCommand(null);
+      cmd.solrDoc = docIterator.next();
+      cmd.setVersion(version.incrementAndGet());
+      return cmd;
+    }
+  }
+
+  @Benchmark
+  public long write(BenchState state) {
+    return state.writeLog.write(state.newCommand());
+  }
+
+  @Benchmark
+  public int replay(BenchState state) throws Exception {
+    TransactionLog.LogReader reader = state.replayLog.getReader(0);
+    try {
+      int count = 0;
+      while (reader.next() != null) {
+        count++;
+      }
+      return count;
+    } finally {
+      reader.close();
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.index;
+
+import static org.apache.solr.bench.Docs.docs;
+import static org.apache.solr.bench.generators.SourceDSL.integers;
+import static org.apache.solr.bench.generators.SourceDSL.longs;
+import static org.apache.solr.bench.generators.SourceDSL.strings;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.bench.Docs;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.CommitUpdateCommand;
+import org.apache.solr.update.TransactionLog;
+import org.apache.solr.update.UpdateLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares reading a capped transaction log through its file channel and through a memory mapping.
+ * {@code lookup} reads random records like real-time get does, {@code replay} reads the log from
+ * start to end like log replay and recovery do, and {@code reverseRead} reads it from the end like
+ * peer sync does when collecting recent versions.
+ */
+@Fork(value = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(time = 5, iterations = 3)
+@Measurement(time = 10, iterations = 5)
+@Threads(value = 4)
+public class TransactionLogReads {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param({"false", "true"})
+    boolean mapped;
+
+    @Param("20000")
+    int numDocs;
+
+    Path dir;
+    TransactionLog tlog;
+    long[] positions;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+      Docs docs =
+          docs()
+              .field("id", integers().incrementing())
+              .field("text", strings().basicLatinAlphabet().multi(20).ofLengthBetween(20, 32))
+              .field("int1_i", integers().all())
+              .field("long1_l", longs().all());
+      Iterator<SolrInputDocument> docIterator = docs.preGenerate(numDocs);
+
+      dir = Files.createTempDirectory("tlog-bench");
+      String name =
+          String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, 0L);
+      tlog = new UpdateLog().newTransactionLog(dir.resolve(name), null, false);
+      positions = new long[numDocs];
+      for (int i = 0; i < numDocs; i++) {
+        AddUpdateCommand cmd = new AddUpdateCommand(null);
+        cmd.solrDoc = docIterator.next();
+        cmd.setVersion(i + 1);
+        positions[i] = tlog.write(cmd);
+      }
+      tlog.writeCommit(new CommitUpdateCommand(null, false));
+      if (mapped) {
+        tlog.mapForReads();
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardownTrial() throws Exception {
+      tlog.decref();
+      Files.deleteIfExists(dir);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    final SplittableRandom random = new SplittableRandom();
+  }
+
+  @Benchmark
+  public Object lookup(BenchState state, ThreadState threadState) {
+    return state.tlog.lookup(state.positions[threadState.random.nextInt(state.numDocs)]);
+  }
+
+  @Benchmark
+  public int replay(BenchState state) throws Exception {
+    TransactionLog.LogReader reader = state.tlog.getReader(0);
+    try {
+      int count = 0;
+      while (reader.next() != null) {
+        count++;
+      }
+      return count;
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Benchmark
+  public int reverseRead(BenchState state) throws Exception {
+    TransactionLog.ReverseReader reader = state.tlog.getReverseReader();
+    try {
+      int count = 0;
+      while (reader.next() != null) {
+        count++;
+      }
+      return count;
+    } finally {
+      reader.close();
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares platform and virtual threads for the executor that sends shard requests. Every operation
+ * is one distributed request fanning out to {@code fanOut} shards, each of which blocks for {@code
+ * shardLatencyMs} as if waiting on the network. Run with {@code -prof gc} to compare the memory
+ * footprint of both thread types.
+ */
+@Fork(value = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(time = 5, iterations = 3)
+@Measurement(time = 10, iterations = 5)
+@Threads(value = 16)
+public class ShardFanOutThreads {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param({"false", "true"})
+    boolean virtual;
+
+    @Param({"8", "64", "256"})
+    int fanOut;
+
+    @Param("5")
+    int shardLatencyMs;
+
+    ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+      if (virtual && !ExecutorUtil.isVirtualThreadsSupported()) {
+        throw new IllegalStateException("This JVM does not support virtual threads");
+      }
+      // same configuration as the default httpShardExecutor
+      executor =
+          new ExecutorUtil.MDCAwareThreadPoolExecutor(
+              0,
+              Integer.MAX_VALUE,
+              5,
+              TimeUnit.SECONDS,
+              new SynchronousQueue<>(),
+              new SolrNamedThreadFactory("benchShardExecutor", virtual),
+              false);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardownTrial() {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+  }
+
+  @Benchmark
+  public long distributedRequest(BenchState state) throws Exception {
+    List<Future<Long>> responses = new ArrayList<>(state.fanOut);
+    for (int i = 0; i < state.fanOut; i++) {
+      responses.add(
+          state.executor.submit(
+              () -> {
+                Thread.sleep(state.shardLatencyMs);
+                return System.nanoTime();
+              }));
+    }
+    long sum = 0;
+    for (Future<Long> response : responses) {
+      sum += response.get();
+    }
+    return sum;
+  }
+}
@@ -180,6 +180,11 @@ IF "%SOLR_SSL_ENABLED%"=="true" (
   set SOLR_SSL_OPTS=
 )
 
+REM Run Jetty request handling on virtual threads
+IF "%SOLR_THREADS_VIRTUAL_ENABLED%"=="true" (
+  set "SOLR_JETTY_CONFIG=!SOLR_JETTY_CONFIG! --module=virtual-threads"
+)
+
 REM Requestlog options
 IF NOT DEFINED SOLR_LOGS_REQUESTLOG_ENABLED (
   set SOLR_LOGS_REQUESTLOG_ENABLED=true
@@ -740,6 +745,11 @@ IF DEFINED SOLR_PLACEMENTPLUGIN_DEFAULT (
   set "SCRIPT_SOLR_OPTS=%SCRIPT_SOLR_OPTS% -Dsolr.placementplugin.default=%SOLR_PLACEMENTPLUGIN_DEFAULT%"
 )
 
+REM Virtual threads for shard requests and update forwarding
+IF "%SOLR_THREADS_VIRTUAL_ENABLED%"=="true" (
+  set "SCRIPT_SOLR_OPTS=%SCRIPT_SOLR_OPTS% -Dsolr.threads.virtual.enabled=true"
+)
+
 IF "%SOLR_SERVER_DIR%"=="" set "SOLR_SERVER_DIR=%DEFAULT_SERVER_DIR%"
 
 IF NOT EXIST "%SOLR_SERVER_DIR%" (
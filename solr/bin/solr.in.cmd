@@ -199,6 +199,11 @@ REM ...
 REM Jetty GZIP module enabled by default
 REM set SOLR_GZIP_ENABLED=true
 
+REM Run Jetty request handling, shard requests and update forwarding on virtual threads.
+REM This helps nodes that fan out to many shards or replicas, as blocked requests no longer pin
+REM platform threads. Disabled by default.
+REM set SOLR_THREADS_VIRTUAL_ENABLED=false
+
 REM When running Solr in non-cloud mode and if planning to do distributed search (using the "shards" parameter), the
 REM list of hosts needs to be defined in an allow-list or Solr will forbid the request. The allow-list can be configured
 REM in solr.xml, or if you are using the OOTB solr.xml, can be specified using the system property "solr.security.allow.urls".
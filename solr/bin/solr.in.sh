@@ -215,6 +215,11 @@
 # Jetty GZIP module enabled by default
 #SOLR_GZIP_ENABLED=true
 
+# Run Jetty request handling, shard requests and update forwarding on virtual threads.
+# This helps nodes that fan out to many shards or replicas, as blocked requests no longer pin
+# platform threads. Disabled by default.
+#SOLR_THREADS_VIRTUAL_ENABLED=false
+
 # Settings for common system values that may cause operational imparement when system defaults are used.
 # Solr can use many processes and many file handles. On modern operating systems the savings by leaving
 # these settings low is minuscule, while the consequence can be Solr instability. To turn these checks off, set
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.cloud;
+
+import static org.apache.solr.handler.ReplicationHandler.CMD_INDEX_VERSION;
+import static org.apache.solr.handler.ReplicationHandler.CMD_NOTIFY_COMMIT;
+import static org.apache.solr.handler.ReplicationHandler.COMMAND;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.EnumSet;
+import java.util.Set;
+import org.apache.lucene.index.IndexCommit;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.request.GenericSolrRequest;
+import org.apache.solr.common.cloud.ClusterState;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.Slice;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.EnvUtils;
+import org.apache.solr.core.IndexDeletionPolicyWrapper;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.core.SolrEventListener;
+import org.apache.solr.handler.ReplicationHandler;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.update.UpdateShardHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tells the TLOG and PULL replicas of a shard about each new commit on its leader, so that they
+ * fetch the new segments right away rather than at their next poll. The replicas are told the
+ * version of the commit through the {@link ReplicationHandler#CMD_NOTIFY_COMMIT} command of their
+ * replication handler; nothing is sent while this core isn't the leader.
+ *
+ * <p>Notifications are best effort: a replica that misses one still polls the leader, only less
+ * often, see {@link ReplicateFromLeader}.
+ */
+public class LeaderCommitNotifier implements SolrEventListener {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final SolrCore core;
+
+  public LeaderCommitNotifier(SolrCore core) {
+    this.core = core;
+  }
+
+  /** Whether leaders notify their replicas of commits, and replicas poll less often. */
+  public static boolean isEnabled() {
+    return EnvUtils.getPropertyAsBool("solr.replication.notifyOnCommit", false);
+  }
+
+  @Override
+  public void postCommit() {
+    CloudDescriptor cloudDesc = core.getCoreDescriptor().getCloudDescriptor();
+    ZkController zkController = core.getCoreContainer().getZkController();
+    if (cloudDesc == null || zkController == null || !cloudDesc.isLeader()) {
+      return;
+    }
+    IndexCommit commit = core.getDeletionPolicy().getLatestCommit();
+    if (commit == null) {
+      return;
+    }
+
+    ClusterState clusterState = zkController.getClusterState();
+    DocCollection collection = clusterState.getCollectionOrNull(cloudDesc.getCollectionName());
+    Slice slice = collection == null ? null : collection.getSlice(cloudDesc.getShardId());
+    if (slice == null) {
+      return;
+    }
+
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.set(COMMAND, CMD_NOTIFY_COMMIT);
+    try {
+      params.set(CMD_INDEX_VERSION, IndexDeletionPolicyWrapper.getCommitTimestamp(commit));
+    } catch (IOException e) {
+      log.warn("Could not read the timestamp of commit {}", commit.getGeneration(), e);
+    }
+
+    Set<String> liveNodes = clusterState.getLiveNodes();
+    UpdateShardHandler updateShardHandler = core.getCoreContainer().getUpdateShardHandler();
+    for (Replica replica : slice.getReplicas(EnumSet.of(Replica.Type.TLOG, Replica.Type.PULL))) {
+      if (replica.getName().equals(cloudDesc.getCoreNodeName()) || !replica.isActive(liveNodes)) {
+        continue;
+      }
+      updateShardHandler.getUpdateExecutor().execute(() -> notifyReplica(replica, params));
+    }
+  }
+
+  private void notifyReplica(Replica replica, ModifiableSolrParams params) {
+    try {
+      var request =
+          new GenericSolrRequest(
+                  SolrRequest.METHOD.GET,
+                  ReplicationHandler.PATH,
+                  SolrRequest.SolrRequestType.ADMIN,
+                  params)
+              .setRequiresCollection(true);
+      request.processWithBaseUrl(
+          core.getCoreContainer().getUpdateShardHandler().getUpdateOnlyHttpClient(),
+          replica.getBaseUrl(),
+          replica.getCoreName());
+    } catch (Exception e) {
+      // the replica will catch up at its next poll
+      log.warn("Could not notify {} of a new commit", replica.getCoreUrl(), e);
+    }
+  }
+
+  @Override
+  public void postSoftCommit() {}
+
+  @Override
+  public void newSearcher(SolrIndexSearcher newSearcher, SolrIndexSearcher currentSearcher) {}
+}
@@ -18,6 +18,7 @@
 package org.apache.solr.cloud;
 
 import java.lang.invoke.MethodHandles;
+import java.util.concurrent.TimeUnit;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.ModifiableSolrParams;
@@ -77,7 +78,13 @@ public class ReplicateFromLeader {
       }
 
       final SolrConfig.UpdateHandlerInfo uinfo = core.getSolrConfig().getUpdateHandlerInfo();
-      final String pollIntervalStr = determinePollInterval(uinfo);
+      String pollIntervalStr = determinePollInterval(uinfo);
+      if (LeaderCommitNotifier.isEnabled()) {
+        // the leader tells us about new commits; polling only catches up on missed notifications
+        long pollIntervalMs =
+            TimeUnit.NANOSECONDS.toMillis(ReplicationHandler.readIntervalNs(pollIntervalStr));
+        pollIntervalStr = toPollIntervalStr((int) Math.min(Integer.MAX_VALUE, 10 * pollIntervalMs));
+      }
       log.info("Will start replication from leader with poll interval: {}", pollIntervalStr);
 
       NamedList<Object> followerConfig = new NamedList<>();
@@ -114,6 +121,11 @@ public class ReplicateFromLeader {
     }
   }
 
+  /** The handler that polls the leader, or null if replication wasn't started */
+  public ReplicationHandler getReplicationHandler() {
+    return replicationProcess;
+  }
+
   public static String getCommitVersion(SolrCore solrCore) {
     IndexCommit commit = solrCore.getDeletionPolicy().getLatestCommit();
     try {
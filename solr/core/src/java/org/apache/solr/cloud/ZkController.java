@@ -1595,6 +1595,11 @@ public class ZkController implements Closeable {
     }
   }
 
+  /** The background replication from the leader of the given core, or null if there is none */
+  public ReplicateFromLeader getReplicateFromLeader(String coreName) {
+    return replicateFromLeaders.get(coreName);
+  }
+
   public void stopReplicationFromLeader(String coreName) {
     log.info("{} stopping background replication from leader", coreName);
     ReplicateFromLeader replicateFromLeader = replicateFromLeaders.remove(coreName);
@@ -184,7 +184,7 @@ public class DeleteBackupCmd implements CollApiCmds.CollectionApiCommand {
     }
 
     Map<BackupId, AggregateBackupStats> backupIdToCollectionBackupPoint = new HashMap<>();
-    List<String> unusedFiles = new ArrayList<>();
+    Set<String> unusedFiles = new HashSet<>();
     for (ShardBackupId shardBackupIdToDelete : shardBackupIdFileDeletes) {
       BackupId backupId = shardBackupIdToDelete.getContainingBackupId();
       ShardBackupMetadata shardBackupMetadata =
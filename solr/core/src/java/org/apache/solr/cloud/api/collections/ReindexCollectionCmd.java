@@ -20,12 +20,15 @@ package org.apache.solr.cloud.api.collections;
 import static org.apache.solr.common.params.CollectionAdminParams.FOLLOW_ALIASES;
 
 import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -34,11 +37,11 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.solr.client.solrj.SolrRequest;
-import org.apache.solr.client.solrj.SolrResponse;
+import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.cloud.DistribStateManager;
 import org.apache.solr.client.solrj.request.CollectionAdminRequest;
 import org.apache.solr.client.solrj.request.GenericSolrRequest;
-import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.request.schema.SchemaRequest;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.cloud.DistributedClusterStateUpdater;
 import org.apache.solr.cloud.Overseer;
@@ -48,6 +51,7 @@ import org.apache.solr.common.cloud.DocCollection;
 import org.apache.solr.common.cloud.DocRouter;
 import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.cloud.ReplicaCount;
+import org.apache.solr.common.cloud.Slice;
 import org.apache.solr.common.cloud.ZkNodeProps;
 import org.apache.solr.common.cloud.ZkStateReader;
 import org.apache.solr.common.params.CollectionAdminParams;
@@ -56,6 +60,7 @@ import org.apache.solr.common.params.CommonAdminParams;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.TimeSource;
 import org.apache.solr.common.util.Utils;
 import org.apache.solr.util.TestInjection;
 import org.apache.solr.util.TimeOut;
@@ -79,7 +84,10 @@ import org.slf4j.LoggerFactory;
  *       original collection, unless overridden by parameters.
  *   <li>copy the source documents to the temporary collection, using their stored fields and
  *       reindexing them using the specified schema. NOTE: some data loss may occur if the original
- *       stored field data is not available!
+ *       stored field data is not available! The documents are copied by several workers in
+ *       parallel, by default one per source shard, each copying the documents whose unique key
+ *       hashes to its partition. This needs docValues on the unique key, otherwise a single worker
+ *       copies all the documents.
  *   <li>create the target collection from scratch with the specified name (or the same as source if
  *       not specified) and the specified parameters. NOTE: if the target name was not specified or
  *       is the same as the source collection then a unique sequential collection name will be used.
@@ -100,9 +108,15 @@ public class ReindexCollectionCmd implements CollApiCmds.CollectionApiCommand {
   public static final String CHK_COL_PREFIX = ".rx_ck_";
   public static final String REINDEXING_STATE = CollectionAdminRequest.PROPERTY_PREFIX + "rx";
 
+  public static final String WORKERS = "workers";
+  public static final String MAX_DOCS_PER_SECOND = "maxDocsPerSecond";
+
   public static final String STATE = "state";
   public static final String PHASE = "phase";
 
+  // how many times a worker may be restarted after its daemon or replica went away
+  private static final int MAX_WORKER_RESTARTS = 3;
+
   private static final List<String> COLLECTION_PARAMS =
       Stream.concat(
               CollectionHandlingUtils.numReplicasProperties().stream(),
@@ -164,6 +178,32 @@ public class ReindexCollectionCmd implements CollApiCmds.CollectionApiCommand {
             .collect(Collectors.toUnmodifiableMap(Cmd::toLower, Function.identity()));
   }
 
+  /**
+   * A daemon copying the documents of one partition. It keeps its own topic checkpoints, so that it
+   * can be restarted on another replica of the source collection and resume where it stopped.
+   */
+  private static class Worker {
+    final int id;
+    final String daemonName;
+    Replica replica;
+    int restarts;
+    boolean finished;
+
+    Worker(int id, String daemonName) {
+      this.id = id;
+      this.daemonName = daemonName;
+    }
+
+    Map<String, Object> getStatus() {
+      Map<String, Object> status = new HashMap<>();
+      status.put("daemonName", daemonName);
+      status.put("daemonUrl", replica == null ? null : replica.getCoreUrl());
+      status.put("restarts", restarts);
+      status.put(STATE, finished ? State.FINISHED.toLower() : State.RUNNING.toLower());
+      return status;
+    }
+  }
+
   public ReindexCollectionCmd(CollectionCommandContext ccc) {
     this.ccc = ccc;
   }
@@ -246,6 +286,46 @@ public class ReindexCollectionCmd implements CollApiCmds.CollectionApiCommand {
     int batchSize = message.getInt(CommonParams.ROWS, 100);
     String query = message.getStr(CommonParams.Q, "*:*");
     String fl = message.getStr(CommonParams.FL, "*");
+    int maxDocsPerSecond = message.getInt(MAX_DOCS_PER_SECOND, 0);
+    if (maxDocsPerSecond < 0) {
+      throw new SolrException(
+          SolrException.ErrorCode.BAD_REQUEST,
+          MAX_DOCS_PER_SECOND + " must not be negative: " + maxDocsPerSecond);
+    }
+    // the workers partition the documents by hashing the docValues of their unique key
+    String uniqueKey = getUniqueKey(collection);
+    boolean partitionable = hasDocValues(collection, uniqueKey);
+    Integer requestedWorkers = message.getInt(WORKERS, null);
+    int numWorkers;
+    if (requestedWorkers == null) {
+      numWorkers = partitionable ? coll.getActiveSlices().size() : 1;
+    } else {
+      numWorkers = requestedWorkers;
+      if (numWorkers < 1) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST, WORKERS + " must be positive: " + numWorkers);
+      }
+      if (numWorkers > 1 && !partitionable) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST,
+            "Several "
+                + WORKERS
+                + " need docValues on the unique key "
+                + uniqueKey
+                + " of "
+                + collection);
+      }
+    }
+    if (maxDocsPerSecond > 0 && numWorkers > maxDocsPerSecond) {
+      // each worker copies at least one document per second
+      log.info(
+          "Reducing {} from {} to {}={}",
+          WORKERS,
+          numWorkers,
+          MAX_DOCS_PER_SECOND,
+          maxDocsPerSecond);
+      numWorkers = maxDocsPerSecond;
+    }
     Integer rf = message.getInt(ZkStateReader.REPLICATION_FACTOR, coll.getReplicationFactor());
     ReplicaCount numReplicas = ReplicaCount.fromMessage(message, coll);
     int numShards = message.getInt(ZkStateReader.NUM_SHARDS_PROP, coll.getActiveSlices().size());
@@ -269,8 +349,7 @@ public class ReindexCollectionCmd implements CollApiCmds.CollectionApiCommand {
       targetCollection = target;
     }
     String chkCollection = CHK_COL_PREFIX + extCollection;
-    String daemonUrl = null;
-    Replica daemonReplica = null;
+    List<Worker> workers = new ArrayList<>();
     Exception exc = null;
     boolean createdTarget = false;
     try {
@@ -403,70 +482,49 @@ public class ReindexCollectionCmd implements CollApiCmds.CollectionApiCommand {
       // 2. copy the documents to target
       // Recipe taken from:
       // http://joelsolr.blogspot.com/2016/10/solr-63-batch-jobs-parallel-etl-and.html
-      ModifiableSolrParams q = new ModifiableSolrParams();
-      q.set(CommonParams.QT, "/stream");
-      q.set("collection", collection);
-      q.set(
-          "expr",
-          "daemon(id=\""
-              + targetCollection
-              + "\","
-              + "terminate=\"true\","
-              + "commit("
-              + targetCollection
-              + ","
-              + "update("
-              + targetCollection
-              + ","
-              + "batchSize="
-              + batchSize
-              + ","
-              + "topic("
-              + chkCollection
-              + ","
-              + collection
-              + ","
-              + "q=\""
-              + query
-              + "\","
-              + "fl=\""
-              + fl
-              + "\","
-              + "id=\"topic_"
-              + targetCollection
-              + "\","
-              + "rows=\""
-              + batchSize
-              + "\","
-              + "initialCheckpoint=\"0\"))))");
-      log.debug("- starting copying documents from {} to {}", collection, targetCollection);
-      SolrResponse rsp;
-      try {
-        rsp = new QueryRequest(q).process(ccc.getSolrCloudManager().getSolrClient());
-      } catch (Exception e) {
-        throw new SolrException(
-            SolrException.ErrorCode.SERVER_ERROR,
-            "Unable to copy documents from " + collection + " to " + targetCollection,
-            e);
+      StringBuilder update = new StringBuilder();
+      update.append("update(").append(targetCollection).append(",");
+      update.append("batchSize=").append(batchSize).append(",");
+      if (maxDocsPerSecond > 0) {
+        // each worker gets its share of the limit, rounded down so that the sum stays below it
+        update.append("maxDocsPerSecond=");
+        update.append(maxDocsPerSecond / numWorkers).append(",");
       }
-      daemonReplica = getReplicaForDaemon(rsp, coll);
-      if (daemonReplica == null) {
-        throw new SolrException(
-            SolrException.ErrorCode.SERVER_ERROR,
-            "Unable to copy documents from "
-                + collection
-                + " to "
-                + targetCollection
-                + ": "
-                + Utils.toJSONString(rsp));
-      }
-      reindexingState.put("daemonUrl", daemonReplica.getCoreUrl());
-      reindexingState.put("daemonName", targetCollection);
+      update.append("topic(").append(chkCollection).append(",").append(collection).append(",");
+      update.append("q=\"").append(query).append("\",");
+      update.append("fl=\"").append(fl).append("\",");
+      // with several workers the topic keeps checkpoints per worker
+      update.append("id=\"topic_").append(targetCollection).append("\",");
+      if (numWorkers > 1) {
+        update.append("partitionKeys=\"").append(uniqueKey).append("\",");
+      }
+      update.append("rows=\"").append(batchSize).append("\",");
+      update.append("initialCheckpoint=\"0\"))");
+      String copyExpr = "commit(" + targetCollection + "," + update + ")";
+      log.debug(
+          "- starting copying documents from {} to {} with {} workers",
+          collection,
+          targetCollection,
+          numWorkers);
+      for (int i = 0; i < numWorkers; i++) {
+        Worker worker =
+            new Worker(i, numWorkers == 1 ? targetCollection : targetCollection + "_" + i);
+        workers.add(worker);
+        try {
+          startWorker(worker, numWorkers, collection, copyExpr);
+        } catch (Exception e) {
+          throw new SolrException(
+              SolrException.ErrorCode.SERVER_ERROR,
+              "Unable to copy documents from " + collection + " to " + targetCollection,
+              e);
+        }
+      }
+      reindexingState.put(WORKERS, getWorkerStatus(workers));
       reindexingState.put(PHASE, "copying documents");
       setReindexingState(collection, State.RUNNING, reindexingState);
 
-      // wait for the daemon to finish
-      waitForDaemon(targetCollection, daemonReplica, collection, targetCollection, reindexingState);
+      // wait for the daemons to finish
+      waitForDaemons(workers, numWorkers, copyExpr, collection, targetCollection, reindexingState);
       if (maybeAbort(collection)) {
         aborted = true;
         return;
@@ -486,8 +544,9 @@ public class ReindexCollectionCmd implements CollApiCmds.CollectionApiCommand {
         reindexingState.put("alias", extCollection + " -> " + targetCollection);
       }
 
-      reindexingState.remove("daemonUrl");
-      reindexingState.remove("daemonName");
+      // where each worker ended, and how many times it was restarted
+      reindexingState.put(WORKERS, getWorkerStatus(workers));
+      reindexingState.remove("docsPerSecond");
       reindexingState.put("processedDocs", getNumberOfDocs(targetCollection));
       reindexingState.put(PHASE, "copying done, finalizing");
       setReindexingState(collection, State.RUNNING, reindexingState);
@@ -574,13 +633,7 @@ public class ReindexCollectionCmd implements CollApiCmds.CollectionApiCommand {
       aborted = true;
     } finally {
       if (aborted) {
-        cleanup(
-            collection,
-            targetCollection,
-            chkCollection,
-            daemonReplica,
-            targetCollection,
-            createdTarget);
+        cleanup(collection, targetCollection, chkCollection, workers, createdTarget);
         if (exc != null) {
           results.add("error", exc.toString());
         }
@@ -656,112 +709,244 @@ public class ReindexCollectionCmd implements CollApiCmds.CollectionApiCommand {
     return true;
   }
 
-  // XXX see #waitForDaemon() for why we need this
-  private Replica getReplicaForDaemon(SolrResponse rsp, DocCollection coll) {
-    @SuppressWarnings({"unchecked"})
-    Map<String, Object> rs = (Map<String, Object>) rsp.getResponse().get("result-set");
-    if (rs == null || rs.isEmpty()) {
-      if (log.isDebugEnabled()) {
-        log.debug(" -- Missing daemon information in response: {}", Utils.toJSONString(rsp));
+  private String getUniqueKey(String collection) {
+    var solrClient = ccc.getCoreContainer().getZkController().getSolrClient();
+    try {
+      return new SchemaRequest.UniqueKey().process(solrClient, collection).getUniqueKey();
+    } catch (Exception e) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR,
+          "Unable to get the unique key of " + collection + " to partition the documents",
+          e);
+    }
+  }
+
+  private boolean hasDocValues(String collection, String fieldName) {
+    var solrClient = ccc.getCoreContainer().getZkController().getSolrClient();
+    try {
+      ModifiableSolrParams params = new ModifiableSolrParams();
+      // the properties of the field type too
+      params.set("showDefaults", true);
+      Map<String, Object> field =
+          new SchemaRequest.Field(fieldName, params).process(solrClient, collection).getField();
+      return Boolean.TRUE.equals(field.get("docValues"));
+    } catch (Exception e) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR,
+          "Unable to get the field "
+              + fieldName
+              + " of "
+              + collection
+              + " to partition the documents",
+          e);
+    }
+  }
+
+  private static List<Map<String, Object>> getWorkerStatus(List<Worker> workers) {
+    return workers.stream().map(Worker::getStatus).collect(Collectors.toList());
+  }
+
+  /**
+   * Starts the daemon of a worker on a replica of the source collection, preferring a different
+   * shard for each worker, and another replica than the one it ran on if it is restarted.
+   */
+  private void startWorker(Worker worker, int numWorkers, String sourceCollection, String copyExpr)
+      throws Exception {
+    ClusterState clusterState = ccc.getSolrCloudManager().getClusterState();
+    Set<String> liveNodes = clusterState.getLiveNodes();
+    List<Slice> slices =
+        new ArrayList<>(clusterState.getCollection(sourceCollection).getActiveSlices());
+    Replica replica = null;
+    Replica previous = worker.replica;
+    String previousName = previous == null ? null : previous.getName();
+    for (int i = 0; i < slices.size() && replica == null; i++) {
+      Slice slice = slices.get((worker.id + i) % slices.size());
+      List<Replica> replicas =
+          slice.getReplicas(r -> r.isActive(liveNodes) && !r.getName().equals(previousName));
+      if (!replicas.isEmpty()) {
+        replica = replicas.get((worker.id / slices.size() + worker.restarts) % replicas.size());
       }
     }
-    @SuppressWarnings({"unchecked"})
-    List<Object> list = (List<Object>) rs.get("docs");
-    if (list == null) {
-      if (log.isDebugEnabled()) {
-        log.debug(" -- Missing daemon information in response: {}", Utils.toJSONString(rsp));
+    if (replica == null) {
+      if (previous == null || !previous.isActive(liveNodes)) {
+        throw new SolrException(
+            SolrException.ErrorCode.SERVER_ERROR,
+            "No active replica of " + sourceCollection + " to run " + worker.daemonName);
       }
-      return null;
+      replica = previous;
     }
-    String replicaName = null;
-    for (Object o : list) {
-      @SuppressWarnings({"unchecked"})
-      Map<String, Object> map = (Map<String, Object>) o;
-      String op = (String) map.get("DaemonOp");
-      if (op == null) {
-        continue;
+
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.set(
+        "expr", "daemon(id=\"" + worker.daemonName + "\",terminate=\"true\"," + copyExpr + ")");
+    params.set("numWorkers", numWorkers);
+    params.set("workerID", worker.id);
+    params.set(CommonParams.DISTRIB, false);
+    worker.replica = replica;
+    worker.finished = false;
+    NamedList<Object> rsp = requestStream(replica, params);
+    // /result-set/docs/[0]/DaemonOp : Daemon:id started on coreName
+    @SuppressWarnings({"unchecked"})
+    Map<String, Object> rs = (Map<String, Object>) rsp.get("result-set");
+    @SuppressWarnings({"unchecked"})
+    List<Object> list = rs == null ? null : (List<Object>) rs.get("docs");
+    if (list != null) {
+      for (Object o : list) {
+        @SuppressWarnings({"unchecked"})
+        Map<String, Object> map = (Map<String, Object>) o;
+        String op = (String) map.get("DaemonOp");
+        if (op != null && op.contains(worker.daemonName) && op.contains("started")) {
+          log.debug(" -- started daemon {} at {}", worker.daemonName, replica.getCoreUrl());
+          return;
+        }
       }
-      String[] parts = op.split("\\s+");
-      if (parts.length != 4) {
-        log.debug(" -- Invalid daemon location info, expected 4 tokens: {}", op);
-        return null;
+    }
+    throw new SolrException(
+        SolrException.ErrorCode.SERVER_ERROR,
+        "Unable to start daemon "
+            + worker.daemonName
+            + " at "
+            + replica.getCoreUrl()
+            + ": "
+            + Utils.toJSONString(rsp));
+  }
+
+  /**
+   * Starts a worker again, on another replica if possible. It resumes from its last checkpoint, so
+   * that some documents may be copied twice, which only overwrites them.
+   */
+  private void restartWorker(
+      Worker worker, int numWorkers, String sourceCollection, String copyExpr, Exception cause)
+      throws Exception {
+    while (true) {
+      if (worker.restarts >= MAX_WORKER_RESTARTS) {
+        throw new SolrException(
+            SolrException.ErrorCode.SERVER_ERROR,
+            "Daemon " + worker.daemonName + " failed too many times",
+            cause);
       }
-      // check if it's plausible
-      if (parts[3].contains("shard") && parts[3].contains("replica")) {
-        replicaName = parts[3];
-        break;
-      } else {
-        log.debug(" -- daemon location info likely invalid: {}", op);
-        return null;
+      worker.restarts++;
+      log.warn(
+          "Daemon {} at {} failed, restarting it from its last checkpoint",
+          worker.daemonName,
+          worker.replica.getCoreUrl(),
+          cause);
+      try {
+        // in case it is still running there
+        executeDaemonAction("kill", worker.daemonName, worker.replica);
+      } catch (Exception e) {
+        log.debug(" -- could not kill daemon {}", worker.daemonName, e);
       }
-    }
-    if (replicaName == null) {
-      return null;
-    }
-    // build a baseUrl of the replica
-    for (Replica r : coll.getReplicas()) {
-      if (replicaName.equals(r.getCoreName())) {
-        return r;
+      try {
+        startWorker(worker, numWorkers, sourceCollection, copyExpr);
+        return;
+      } catch (SolrServerException | IOException e) {
+        cause = e;
       }
     }
-    return null;
   }
 
   // XXX currently this is complicated to due a bug in the way the daemon 'list'
   // XXX operation is implemented - see SOLR-13245. We need to query the actual
   // XXX SolrCore where the daemon is running
   @SuppressWarnings({"unchecked"})
-  private void waitForDaemon(
-      String daemonName,
-      Replica daemonReplica,
+  private boolean isWorkerRunning(
+      Worker worker, int numWorkers, String sourceCollection, String copyExpr) throws Exception {
+    NamedList<Object> rsp;
+    try {
+      rsp = executeDaemonAction("list", worker.daemonName, worker.replica);
+    } catch (SolrServerException | IOException e) {
+      // most likely the node of the replica is gone
+      restartWorker(worker, numWorkers, sourceCollection, copyExpr, e);
+      return true;
+    }
+    Map<String, Object> rs = (Map<String, Object>) rsp.get("result-set");
+    if (rs == null || rs.isEmpty()) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR,
+          "Can't find daemon list: missing result-set: " + Utils.toJSONString(rsp));
+    }
+    List<Object> list = (List<Object>) rs.get("docs");
+    if (list == null) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR,
+          "Can't find daemon list: missing result-set: " + Utils.toJSONString(rsp));
+    }
+    for (Object o : list) {
+      Map<String, Object> map = (Map<String, Object>) o;
+      if (worker.daemonName.equals(map.get("id"))) {
+        // a daemon that completes removes itself from the list, this one stopped on errors
+        if (Thread.State.TERMINATED.toString().equals(map.get("state"))) {
+          restartWorker(
+              worker,
+              numWorkers,
+              sourceCollection,
+              copyExpr,
+              new SolrException(
+                  SolrException.ErrorCode.SERVER_ERROR,
+                  "Daemon " + worker.daemonName + " stopped: " + map.get("exception")));
+        }
+        return true;
+      }
+    }
+    worker.finished = true;
+    return false;
+  }
+
+  private void waitForDaemons(
+      List<Worker> workers,
+      int numWorkers,
+      String copyExpr,
       String sourceCollection,
       String targetCollection,
       Map<String, Object> reindexingState)
       throws Exception {
 
+    TimeSource timeSource = ccc.getSolrCloudManager().getTimeSource();
+    long lastProcessedDocs = 0;
+    long lastTime = timeSource.getTimeNs();
     boolean isRunning;
     int statusCheck = 0;
     do {
       isRunning = false;
       statusCheck++;
-      try {
-        NamedList<Object> rsp = executeDaemonAction("list", daemonName, daemonReplica);
-        Map<String, Object> rs = (Map<String, Object>) rsp.get("result-set");
-        if (rs == null || rs.isEmpty()) {
-          throw new SolrException(
-              SolrException.ErrorCode.SERVER_ERROR,
-              "Can't find daemon list: missing result-set: " + Utils.toJSONString(rsp));
-        }
-        List<Object> list = (List<Object>) rs.get("docs");
-        if (list == null) {
-          throw new SolrException(
-              SolrException.ErrorCode.SERVER_ERROR,
-              "Can't find daemon list: missing result-set: " + Utils.toJSONString(rsp));
-        }
-        if (list.isEmpty()) { // finished?
-          break;
+      for (Worker worker : workers) {
+        if (worker.finished) {
+          continue;
         }
-        for (Object o : list) {
-          Map<String, Object> map = (Map<String, Object>) o;
-          String id = (String) map.get("id");
-          if (daemonName.equals(id)) {
+        try {
+          if (isWorkerRunning(worker, numWorkers, sourceCollection, copyExpr)) {
             isRunning = true;
             // fail here
             TestInjection.injectReindexFailure();
-            break;
           }
+        } catch (Exception e) {
+          throw new SolrException(
+              SolrException.ErrorCode.SERVER_ERROR,
+              "Exception waiting for daemon "
+                  + worker.daemonName
+                  + " at "
+                  + worker.replica.getCoreUrl(),
+              e);
         }
-      } catch (Exception e) {
-        throw new SolrException(
-            SolrException.ErrorCode.SERVER_ERROR,
-            "Exception waiting for daemon " + daemonName + " at " + daemonReplica.getCoreUrl(),
-            e);
       }
       if (statusCheck % 5 == 0) {
-        reindexingState.put("processedDocs", getNumberOfDocs(targetCollection));
+        long processedDocs = getNumberOfDocs(targetCollection);
+        long now = timeSource.getTimeNs();
+        reindexingState.put("processedDocs", processedDocs);
+        reindexingState.put(
+            "docsPerSecond",
+            (processedDocs - lastProcessedDocs)
+                * TimeUnit.SECONDS.toNanos(1)
+                / Math.max(1, now - lastTime));
+        reindexingState.put(WORKERS, getWorkerStatus(workers));
         setReindexingState(sourceCollection, State.RUNNING, reindexingState);
+        lastProcessedDocs = processedDocs;
+        lastTime = now;
+      }
+      if (isRunning) {
+        timeSource.sleep(2000);
       }
-      ccc.getSolrCloudManager().getTimeSource().sleep(2000);
     } while (isRunning && !maybeAbort(sourceCollection));
   }
 
@@ -852,37 +1037,47 @@ public class ReindexCollectionCmd implements CollApiCmds.CollectionApiCommand {
   }
 
   private NamedList<Object> executeDaemonAction(
-      String action, String daemonName, Replica daemonReplica) throws Exception {
-    final var solrClient = ccc.getCoreContainer().getDefaultHttpSolrClient();
-
+      String action, String daemonName, Replica daemonReplica)
+      throws SolrServerException, IOException {
     final var solrParams = new ModifiableSolrParams();
     solrParams.set("action", action);
     solrParams.set(CommonParams.ID, daemonName);
     solrParams.set(CommonParams.DISTRIB, false);
+    return requestStream(daemonReplica, solrParams);
+  }
 
+  private NamedList<Object> requestStream(Replica replica, ModifiableSolrParams solrParams)
+      throws SolrServerException, IOException {
+    final var solrClient = ccc.getCoreContainer().getDefaultHttpSolrClient();
     final var req =
         new GenericSolrRequest(
                 SolrRequest.METHOD.POST, "/stream", SolrRequest.SolrRequestType.ADMIN, solrParams)
             .setRequiresCollection(true);
-    return solrClient.requestWithBaseUrl(
-        daemonReplica.getBaseUrl(), req, daemonReplica.getCoreName());
+    return solrClient.requestWithBaseUrl(replica.getBaseUrl(), req, replica.getCoreName());
   }
 
   private void cleanup(
       String collection,
       String targetCollection,
       String chkCollection,
-      Replica daemonReplica,
-      String daemonName,
+      List<Worker> workers,
       boolean createdTarget)
       throws Exception {
     log.info("## Cleaning up after abort or error");
-    // 1. kill the daemon
+    // 1. kill the daemons
     // 2. cleanup target / chk collections IFF the source collection still exists and is not empty
     // 3. cleanup collection state
 
-    if (daemonReplica != null) {
-      killDaemon(daemonName, daemonReplica);
+    for (Worker worker : workers) {
+      if (worker.replica == null || worker.finished) {
+        continue;
+      }
+      try {
+        killDaemon(worker.daemonName, worker.replica);
+      } catch (Exception e) {
+        // its replica may be gone, go on with the others
+        log.warn("Problem killing daemon {}", worker.daemonName, e);
+      }
     }
     ClusterState clusterState = ccc.getSolrCloudManager().getClusterState();
     NamedList<Object> cmdResults = new NamedList<>();
@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
@@ -40,6 +41,7 @@ import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.ObjectReleaseTracker;
+import org.apache.solr.core.backup.LazyRestoreDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -95,6 +97,9 @@ public abstract class CachingDirectoryFactory extends DirectoryFactory {
 
   protected Set<CacheValue> removeEntries = new HashSet<>();
 
+  // wrappers of the directories to be created for these paths
+  private final Map<String, UnaryOperator<Directory>> wrappersOnCreate = new HashMap<>();
+
   private Double maxWriteMBPerSecFlush;
 
   private Double maxWriteMBPerSecMerge;
@@ -402,6 +407,10 @@ public abstract class CachingDirectoryFactory extends DirectoryFactory {
       cacheValue = byPathCache.get(fullPath);
       if (cacheValue == null) {
         directory = create(fullPath, createLockFactory(rawLockType));
+        UnaryOperator<Directory> wrapper = wrappersOnCreate.remove(fullPath);
+        if (wrapper != null) {
+          directory = wrapper.apply(directory);
+        }
         assert ObjectReleaseTracker.track(directory);
         boolean success = false;
         try {
@@ -428,6 +437,20 @@ public abstract class CachingDirectoryFactory extends DirectoryFactory {
     return filteredDir == directory ? directory : new ReleasableDirectory(filteredDir, cacheValue);
   }
 
+  /**
+   * Wraps the {@link Directory} that the next {@link #get} of this path creates, which is then
+   * cached and closed like any other. This is for directories that are not open yet, e.g. the
+   * index directory of a restore.
+   */
+  public synchronized void wrapOnCreate(String path, UnaryOperator<Directory> wrapper)
+      throws IOException {
+    String fullPath = normalize(path);
+    if (byPathCache.containsKey(fullPath)) {
+      throw new IllegalStateException("Directory is already open: " + fullPath);
+    }
+    wrappersOnCreate.put(fullPath, wrapper);
+  }
+
   /**
    * Potentially filters or unwraps the cached {@link Directory} depending on the intended use
    * defined by the {@link org.apache.solr.core.DirectoryFactory.DirContext}.
@@ -440,7 +463,10 @@ public abstract class CachingDirectoryFactory extends DirectoryFactory {
   protected Directory filterDirectory(Directory dir, DirContext dirContext) {
     // If the DirContext is REPLICATION or BACKUP, then unwrap the Directory to allow the caller to
     // copy raw bytes, skipping any additional logic that would be added by a FilterDirectory on top
-    // of the raw Directory.
+    // of the raw Directory. A directory still being restored has files that aren't there yet.
+    if (dir instanceof LazyRestoreDirectory lazyDir && !lazyDir.isHydrated()) {
+      return dir;
+    }
     return dirContext == DirContext.REPLICATION || dirContext == DirContext.BACKUP
         ? FilterDirectory.unwrap(dir)
         : dir;
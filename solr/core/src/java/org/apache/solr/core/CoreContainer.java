@@ -94,6 +94,7 @@ import org.apache.solr.common.cloud.SolrZkClient;
 import org.apache.solr.common.cloud.ZkStateReader;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.CollectionUtil;
+import org.apache.solr.common.util.EnvUtils;
 import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.IOUtils;
 import org.apache.solr.common.util.ObjectCache;
@@ -191,6 +192,23 @@ public class CoreContainer {
     return indexFingerprintExecutor;
   }
 
+  /**
+   * The pool shared by all cores on which update loaders parse the documents of large requests, or
+   * null if this container was created for tests without one.
+   */
+  public ExecutorService getUpdateParseExecutor() {
+    return updateParseExecutor;
+  }
+
+  /**
+   * The number of threads of {@link #getUpdateParseExecutor()}, which is also the most a single
+   * request may parse on. Set with the system property {@code solr.update.parseThreads.max},
+   * defaults to the number of processors.
+   */
+  public int getUpdateParseThreads() {
+    return updateParseThreads;
+  }
+
   public static class CoreLoadFailure {
 
     public final CoreDescriptor cd;
@@ -295,6 +313,10 @@ public class CoreContainer {
 
   private final ExecutorService indexFingerprintExecutor;
 
+  private final int updateParseThreads;
+
+  private final ExecutorService updateParseExecutor;
+
   private final ClusterSingletons clusterSingletons =
       new ClusterSingletons(
           () ->
@@ -454,6 +476,13 @@ public class CoreContainer {
             EXECUTOR_MAX_CPU_THREADS,
             Integer.MAX_VALUE,
             new SolrNamedThreadFactory("IndexFingerprintPool"));
+
+    int parseThreads =
+        EnvUtils.getPropertyAsInteger("solr.update.parseThreads.max", EXECUTOR_MAX_CPU_THREADS);
+    this.updateParseThreads = Math.max(1, parseThreads);
+    this.updateParseExecutor =
+        ExecutorUtil.newMDCAwareCachedThreadPool(
+            updateParseThreads, Integer.MAX_VALUE, new SolrNamedThreadFactory("updateParse"));
   }
 
   @SuppressWarnings({"unchecked"})
@@ -637,6 +666,8 @@ public class CoreContainer {
     allowListUrlChecker = null;
     indexSearcherExecutor = null;
     indexFingerprintExecutor = null;
+    updateParseThreads = 1;
+    updateParseExecutor = null;
   }
 
   public static CoreContainer createAndLoad(Path solrHome) {
@@ -1231,6 +1262,7 @@ public class CoreContainer {
     ExecutorUtil.shutdownAndAwaitTermination(coreContainerAsyncTaskExecutor);
     ExecutorUtil.shutdownAndAwaitTermination(indexSearcherExecutor);
     ExecutorUtil.shutdownNowAndAwaitTermination(indexFingerprintExecutor);
+    ExecutorUtil.shutdownNowAndAwaitTermination(updateParseExecutor);
     ExecutorService customThreadPool =
         ExecutorUtil.newMDCAwareCachedThreadPool(new SolrNamedThreadFactory("closeThreadPool"));
 
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the time taken by the search requests of a core since it was last sampled. The request
+ * time histograms of the handlers are exported to the metrics backend and can't be read back, so
+ * this is what consumers within the core, such as {@link
+ * org.apache.solr.update.LatencyAwareMergeScheduler}, use instead.
+ */
+public class SearchLatencyTracker {
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+
+  /** Records a search request that took the given time. */
+  public void record(long elapsedNanos) {
+    count.increment();
+    totalNanos.add(elapsedNanos);
+  }
+
+  /**
+   * Returns the mean time of the search requests recorded since the previous call, and starts over.
+   * This is meant to be called by a single consumer, periodically.
+   *
+   * @return the mean time in milliseconds, or -1 if there weren't any requests
+   */
+  public double sampleMeanMillis() {
+    // requests recorded in between are counted in the next sample, or dropped from the mean
+    long n = count.sumThenReset();
+    long nanos = totalNanos.sumThenReset();
+    if (n == 0) {
+      return -1;
+    }
+    return (double) nanos / n / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+}
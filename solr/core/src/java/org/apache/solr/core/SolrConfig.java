@@ -788,6 +788,8 @@ public class SolrConfig implements MapSerializable {
         autoCommmitMaxTime,
         autoSoftCommmitMaxDocs,
         autoSoftCommmitMaxTime;
+    // if set, the soft commit time adapts to how long soft commits take, down to this
+    public final int autoSoftCommitMinTime;
     public final long autoCommitMaxSizeBytes;
     public final boolean openSearcher; // is opening a new searcher part of hard autocommit?
     public final boolean commitWithinSoftCommit;
@@ -817,6 +819,7 @@ public class SolrConfig implements MapSerializable {
 
       this.autoSoftCommmitMaxDocs = autoSoftCommmitMaxDocs;
       this.autoSoftCommmitMaxTime = autoSoftCommmitMaxTime;
+      this.autoSoftCommitMinTime = -1;
 
       this.commitWithinSoftCommit = commitWithinSoftCommit;
       this.commitPollInterval = commitPollInterval;
@@ -833,6 +836,7 @@ public class SolrConfig implements MapSerializable {
       this.openSearcher = autoCommit.get("openSearcher").boolVal(true);
       this.autoSoftCommmitMaxDocs = updateHandler.get("autoSoftCommit").get("maxDocs").intVal(-1);
       this.autoSoftCommmitMaxTime = updateHandler.get("autoSoftCommit").get("maxTime").intVal(-1);
+      this.autoSoftCommitMinTime = updateHandler.get("autoSoftCommit").get("minTime").intVal(-1);
       this.commitWithinSoftCommit =
           updateHandler.get("commitWithin").get("softCommit").boolVal(true);
       this.commitPollInterval = updateHandler.get("commitPollInterval").txt();
@@ -851,7 +855,10 @@ public class SolrConfig implements MapSerializable {
               "openSearcher", openSearcher));
       map.put(
           "autoSoftCommit",
-          Map.of("maxDocs", autoSoftCommmitMaxDocs, "maxTime", autoSoftCommmitMaxTime));
+          Map.of(
+              "maxDocs", autoSoftCommmitMaxDocs,
+              "maxTime", autoSoftCommmitMaxTime,
+              "minTime", autoSoftCommitMinTime));
       map.put("commitPollInterval", commitPollInterval);
       return map;
     }
@@ -218,6 +218,8 @@ public class SolrCore implements SolrInfoBean, Closeable {
 
   private final CancellableQueryTracker cancellableQueryTracker = new CancellableQueryTracker();
 
+  private final SearchLatencyTracker searchLatencyTracker = new SearchLatencyTracker();
+
   private boolean isReloaded = false;
 
   private final CoreDescriptor coreDescriptor;
@@ -3646,6 +3648,11 @@ public class SolrCore implements SolrInfoBean, Closeable {
     return cancellableQueryTracker;
   }
 
+  /** The time taken by recent search requests to this core. */
+  public SearchLatencyTracker getSearchLatencyTracker() {
+    return searchLatencyTracker;
+  }
+
   /**
    * Run an arbitrary task in its own thread. This is an expert option and is a method you should
    * use with great care. It would be bad to run something that never stopped or run something that
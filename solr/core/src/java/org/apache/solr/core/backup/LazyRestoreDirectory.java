@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.core.backup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import org.apache.lucene.store.BufferedChecksumIndexInput;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.util.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Directory} for an index being restored, some of whose files are still only in the
+ * backup. Those files are read from the backup repository until they are copied, so that the core
+ * can open its index right away; {@link #hydrate} copies them in the background.
+ *
+ * <p>A copied file is only renamed to its index file name once complete, and readers that opened
+ * it from the backup keep reading it from there: the core has to open a new index writer and
+ * searcher to read all its files locally.
+ */
+public class LazyRestoreDirectory extends FilterDirectory {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  // not an index file name, so that IndexWriter leaves the files being copied alone
+  private static final String TEMP_PREFIX = "lazyrestore.";
+  private static final int MAX_COPY_ATTEMPTS = 3;
+
+  /** The files of the backup. */
+  public interface RemoteFiles extends Closeable {
+    IndexInput openInput(String fileName) throws IOException;
+
+    void copy(String fileName, Directory dest, String destFileName) throws IOException;
+  }
+
+  private final RemoteFiles remoteFiles;
+  // the files that are still only in the backup, with their length
+  private final Map<String, Long> pendingFiles = new ConcurrentHashMap<>();
+  private volatile boolean closed;
+
+  public LazyRestoreDirectory(Directory in, RemoteFiles remoteFiles) {
+    super(in);
+    this.remoteFiles = remoteFiles;
+  }
+
+  /** Adds a file of the backup, to be read from there until it is copied. */
+  public void addRemoteFile(String fileName) throws IOException {
+    try (IndexInput input = remoteFiles.openInput(fileName)) {
+      pendingFiles.put(fileName, input.length());
+    }
+  }
+
+  /** The number of files that are not copied yet. */
+  public int getRemoteFileCount() {
+    return pendingFiles.size();
+  }
+
+  /** Whether all the files are local. */
+  public boolean isHydrated() {
+    return pendingFiles.isEmpty();
+  }
+
+  /**
+   * Copies the files that are still only in the backup, in parallel on the given executor. The
+   * copies stop when their threads are interrupted.
+   *
+   * @return completes once all the files are local, or exceptionally if any of them could not be
+   *     copied; those are still read from the backup.
+   */
+  public CompletableFuture<Void> hydrate(Executor executor) {
+    List<CompletableFuture<Void>> copies = new ArrayList<>();
+    for (String fileName : pendingFiles.keySet()) {
+      copies.add(CompletableFuture.runAsync(() -> copyWithRetries(fileName), executor));
+    }
+    return CompletableFuture.allOf(copies.toArray(new CompletableFuture<?>[0]));
+  }
+
+  private void copyWithRetries(String fileName) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        copy(fileName);
+        return;
+      } catch (IOException e) {
+        if (closed || Thread.currentThread().isInterrupted() || attempt >= MAX_COPY_ATTEMPTS) {
+          throw new UncheckedIOException("Could not copy " + fileName + " from the backup", e);
+        }
+        log.warn("Could not copy {} from the backup, trying again", fileName, e);
+      }
+    }
+  }
+
+  private void copy(String fileName) throws IOException {
+    if (closed || !pendingFiles.containsKey(fileName)) {
+      return;
+    }
+    String tempName = TEMP_PREFIX + fileName;
+    deleteIfExists(tempName);
+    remoteFiles.copy(fileName, in, tempName);
+    in.sync(List.of(tempName));
+    synchronized (this) {
+      if (pendingFiles.containsKey(fileName)) {
+        in.rename(tempName, fileName);
+        pendingFiles.remove(fileName);
+      } else {
+        // deleted by the index writer in the meantime
+        in.deleteFile(tempName);
+        return;
+      }
+    }
+    in.syncMetaData();
+  }
+
+  private void deleteIfExists(String fileName) throws IOException {
+    try {
+      in.deleteFile(fileName);
+    } catch (NoSuchFileException e) {
+      // expected, unless a previous attempt failed
+    }
+  }
+
+  @Override
+  public String[] listAll() throws IOException {
+    if (pendingFiles.isEmpty()) {
+      return in.listAll();
+    }
+    Set<String> files = new TreeSet<>(List.of(in.listAll()));
+    files.addAll(pendingFiles.keySet());
+    return files.toArray(new String[0]);
+  }
+
+  @Override
+  public long fileLength(String name) throws IOException {
+    Long length = pendingFiles.get(name);
+    return length == null ? in.fileLength(name) : length;
+  }
+
+  @Override
+  public IndexInput openInput(String name, IOContext context) throws IOException {
+    if (pendingFiles.containsKey(name)) {
+      return remoteFiles.openInput(name);
+    }
+    return in.openInput(name, context);
+  }
+
+  @Override
+  public ChecksumIndexInput openChecksumInput(String name) throws IOException {
+    if (pendingFiles.containsKey(name)) {
+      return new BufferedChecksumIndexInput(remoteFiles.openInput(name));
+    }
+    return in.openChecksumInput(name);
+  }
+
+  @Override
+  public void deleteFile(String name) throws IOException {
+    synchronized (this) {
+      if (pendingFiles.remove(name) != null) {
+        return;
+      }
+    }
+    in.deleteFile(name);
+  }
+
+  @Override
+  public void sync(Collection<String> names) throws IOException {
+    // the files still in the backup are synced once copied
+    List<String> localNames = new ArrayList<>(names);
+    localNames.removeAll(pendingFiles.keySet());
+    in.sync(localNames);
+  }
+
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    IOUtils.close(remoteFiles, in);
+  }
+}
@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.core.backup.repository;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.BufferedIndexInput;
+
+/**
+ * An {@link org.apache.lucene.store.IndexInput} over a remote file that can only be read by ranges
+ * of bytes, such as a file in an object store. The file is read in blocks of a fixed size, which
+ * are kept in a {@link BlockCache}, shared with the clones and slices of the input and by default
+ * with all the other inputs of the node.
+ *
+ * <p>While the file is read sequentially, the next blocks are fetched ahead of time on the given
+ * executor, so that several range requests are in flight at once; their number doubles with each
+ * block read in order, up to the configured maximum, and drops back to none on a random seek.
+ * Reading a few bytes at the end of a file, e.g. to check its footer, thus only fetches the last
+ * block, and seeking backward is cheap when the block is still cached. Closing the input cancels
+ * the requests still pending and drops its blocks from the cache.
+ */
+public class ReadAheadIndexInput extends BufferedIndexInput {
+
+  public static final int DEFAULT_BLOCK_SIZE = 2 * 1024 * 1024;
+  public static final int DEFAULT_READ_AHEAD_BLOCKS = 8;
+
+  /**
+   * The cache of the inputs that aren't given one, which holds up to {@code
+   * solr.backup.readCacheMB} megabytes of blocks (default 64) for all of them.
+   */
+  public static final BlockCache SHARED_CACHE =
+      new BlockCache(Math.max(1, Long.getLong("solr.backup.readCacheMB", 64)) * 1024 * 1024);
+
+  /** Reads a range of bytes of a file. */
+  @FunctionalInterface
+  public interface RangeReader {
+    /** Reads {@code length} bytes from {@code offset}, all of which are within the file. */
+    byte[] read(long offset, int length) throws IOException;
+  }
+
+  private final RangeReader reader;
+  private final Executor executor;
+  private final BlockCache cache;
+  private final long length;
+  private final int blockSize;
+  private final int maxReadAheadBlocks;
+  // shared with the clones
+  private final OpenFile file;
+
+  private boolean isClone;
+  private long position;
+  private long currentBlock = -1;
+  private int readAheadBlocks;
+
+  /**
+   * @param executor runs the read-ahead requests, or null to only read the blocks when needed
+   */
+  public ReadAheadIndexInput(
+      String resourceDesc,
+      RangeReader reader,
+      long length,
+      int blockSize,
+      int maxReadAheadBlocks,
+      Executor executor) {
+    this(resourceDesc, reader, length, blockSize, maxReadAheadBlocks, executor, SHARED_CACHE);
+  }
+
+  /**
+   * @param executor runs the read-ahead requests, or null to only read the blocks when needed
+   * @param cache caches the blocks of this input, and possibly of others
+   */
+  public ReadAheadIndexInput(
+      String resourceDesc,
+      RangeReader reader,
+      long length,
+      int blockSize,
+      int maxReadAheadBlocks,
+      Executor executor,
+      BlockCache cache) {
+    super(resourceDesc);
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+    }
+    this.reader = reader;
+    this.executor = executor;
+    this.cache = cache;
+    this.length = length;
+    this.blockSize = blockSize;
+    // don't read so far ahead that the blocks push each other out of the cache
+    this.maxReadAheadBlocks =
+        executor == null
+            ? 0
+            : (int) Math.max(0, Math.min(maxReadAheadBlocks, cache.maxBytes / blockSize / 2));
+    this.file = new OpenFile();
+  }
+  @Override
+  protected void readInternal(ByteBuffer b) throws IOException {
+    if (file.closed) {
+      throw new AlreadyClosedException("Already closed: " + this);
+    }
+    if (position + b.remaining() > length) {
+      throw new EOFException("read past EOF: " + this);
+    }
+    while (b.hasRemaining()) {
+      long block = position / blockSize;
+      if (block != currentBlock) {
+        readAhead(block);
+        currentBlock = block;
+      }
+      byte[] bytes = getBlock(block);
+      int offsetInBlock = (int) (position - block * blockSize);
+      int len = Math.min(b.remaining(), bytes.length - offsetInBlock);
+      b.put(bytes, offsetInBlock, len);
+      position += len;
+    }
+  }
+
+  @Override
+  protected void seekInternal(long pos) throws IOException {
+    if (pos > length) {
+      throw new EOFException("read past EOF: pos=" + pos + " vs length=" + length + ": " + this);
+    }
+    position = pos;
+  }
+
+  @Override
+  public final long length() {
+    return length;
+  }
+
+  @Override
+  public ReadAheadIndexInput clone() {
+    ReadAheadIndexInput clone = (ReadAheadIndexInput) super.clone();
+    clone.isClone = true;
+    return clone;
+  }
+
+  @Override
+  public void close() {
+    if (!isClone) {
+      file.closed = true;
+      for (FutureTask<?> load : file.loads) {
+        load.cancel(true);
+      }
+      AlreadyClosedException closed = new AlreadyClosedException("Already closed: " + this);
+      for (CompletableFuture<byte[]> block : cache.removeAll(file)) {
+        block.completeExceptionally(closed);
+      }
+    }
+  }
+
+  /** Fetches the blocks after this one ahead of time, if it is read right after the previous. */
+  private void readAhead(long block) {
+    if (block == currentBlock + 1) {
+      readAheadBlocks = Math.min(maxReadAheadBlocks, Math.max(1, 2 * readAheadBlocks));
+    } else {
+      readAheadBlocks = 0;
+    }
+    for (long next = block + 1; next <= block + readAheadBlocks; next++) {
+      if (next * blockSize >= length) {
+        break;
+      }
+      BlockKey key = new BlockKey(file, next);
+      CompletableFuture<byte[]> future = new CompletableFuture<>();
+      if (cache.putIfAbsent(key, blockLength(next), future) != null) {
+        continue;
+      }
+      FutureTask<Void> load =
+          new FutureTask<>(() -> load(key, future), null) {
+            @Override
+            protected void done() {
+              file.loads.remove(this);
+              if (isCancelled()) {
+                cache.remove(key, future);
+                future.completeExceptionally(new CancellationException());
+              }
+            }
+          };
+      file.loads.add(load);
+      try {
+        executor.execute(load);
+      } catch (RejectedExecutionException e) {
+        // the executor is busy, the block is read when needed
+        load.cancel(false);
+        return;
+      }
+    }
+  }
+
+  private byte[] getBlock(long block) throws IOException {
+    BlockKey key = new BlockKey(file, block);
+    CompletableFuture<byte[]> future = new CompletableFuture<>();
+    CompletableFuture<byte[]> cached = cache.putIfAbsent(key, blockLength(block), future);
+    if (cached == null) {
+      load(key, future);
+    } else {
+      future = cached;
+    }
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while reading " + this);
+    } catch (ExecutionException | CancellationException e) {
+      Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+      if (cause instanceof IOException ioe) {
+        throw ioe;
+      }
+      if (cause instanceof AlreadyClosedException ace) {
+        throw ace;
+      }
+      throw new IOException("Failed to read " + this, cause);
+    }
+  }
+
+  private int blockLength(long block) {
+    return (int) Math.min(blockSize, length - block * blockSize);
+  }
+
+  private void load(BlockKey key, CompletableFuture<byte[]> future) {
+    long offset = key.block() * blockSize;
+    try {
+      future.complete(reader.read(offset, blockLength(key.block())));
+    } catch (Throwable t) {
+      // don't cache failures, the next read of this block tries again
+      cache.remove(key, future);
+      future.completeExceptionally(t);
+    }
+  }
+
+  /** What the clones of an input share, which identifies its blocks in the cache. */
+  private static final class OpenFile {
+    final Set<FutureTask<?>> loads = ConcurrentHashMap.newKeySet();
+    volatile boolean closed;
+  }
+
+  private record BlockKey(OpenFile file, long block) {}
+
+  /**
+   * The blocks read by one or more inputs, including those being fetched, up to a total size; the
+   * least recently used are evicted first. Evicting a block being fetched doesn't cancel the
+   * request, but its result isn't kept.
+   */
+  public static final class BlockCache {
+    private final long maxBytes;
+    // guarded by this
+    private final LinkedHashMap<BlockKey, Block> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    public BlockCache(long maxBytes) {
+      if (maxBytes <= 0) {
+        throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+      }
+      this.maxBytes = maxBytes;
+    }
+
+    /** The size of the blocks in the cache, in bytes. */
+    public synchronized long sizeInBytes() {
+      return bytes;
+    }
+
+    /** Returns the cached block, or caches the given one and returns null. */
+    synchronized CompletableFuture<byte[]> putIfAbsent(
+        BlockKey key, int length, CompletableFuture<byte[]> future) {
+      Block block = blocks.get(key);
+      if (block != null) {
+        return block.future();
+      }
+      Iterator<Block> eldest = blocks.values().iterator();
+      while (bytes + length > maxBytes && eldest.hasNext()) {
+        bytes -= eldest.next().length();
+        eldest.remove();
+      }
+      blocks.put(key, new Block(length, future));
+      bytes += length;
+      return null;
+    }
+
+    synchronized void remove(BlockKey key, CompletableFuture<byte[]> future) {
+      Block block = blocks.get(key);
+      if (block != null && block.future() == future) {
+        blocks.remove(key);
+        bytes -= block.length();
+      }
+    }
+
+    /** Removes the blocks of a file, returning them. */
+    synchronized List<CompletableFuture<byte[]>> removeAll(OpenFile file) {
+      List<CompletableFuture<byte[]>> removed = new ArrayList<>();
+      for (Iterator<Map.Entry<BlockKey, Block>> it = blocks.entrySet().iterator(); it.hasNext(); ) {
+        Map.Entry<BlockKey, Block> entry = it.next();
+        if (entry.getKey().file() == file) {
+          removed.add(entry.getValue().future());
+          bytes -= entry.getValue().length();
+          it.remove();
+        }
+      }
+      return removed;
+    }
+
+    private record Block(int length, CompletableFuture<byte[]> future) {}
+  }
+}
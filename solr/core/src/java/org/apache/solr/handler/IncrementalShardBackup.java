@@ -22,20 +22,37 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import org.apache.commons.math3.util.Precision;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.apache.solr.client.api.model.SolrJerseyResponse;
 import org.apache.solr.cloud.CloudDescriptor;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.core.DirectoryFactory;
 import org.apache.solr.core.IndexDeletionPolicyWrapper;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.core.backup.BackupFilePaths;
+import org.apache.solr.core.backup.BackupId;
 import org.apache.solr.core.backup.Checksum;
 import org.apache.solr.core.backup.ShardBackupId;
 import org.apache.solr.core.backup.ShardBackupMetadata;
@@ -52,6 +69,15 @@ import org.slf4j.LoggerFactory;
  */
 public class IncrementalShardBackup {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /** The most index files uploaded at the same time by all the backups on this node. */
+  private static final int MAX_CONCURRENT_UPLOADS =
+      Math.max(1, Integer.getInteger("solr.backup.maxConcurrentUploads", 4));
+
+  private static final Semaphore UPLOAD_PERMITS = new Semaphore(MAX_CONCURRENT_UPLOADS);
+  // so that backups of shards with the same files don't upload them both at once
+  private static final Map<String, Object> UPLOAD_LOCKS = new ConcurrentHashMap<>();
+
   private SolrCore solrCore;
 
   private BackupFilePaths incBackupFiles;
@@ -60,6 +86,7 @@ public class IncrementalShardBackup {
   private ShardBackupId prevShardBackupId;
   private ShardBackupId shardBackupId;
   private Optional<String> commitNameOption;
+  private volatile boolean cancelUploads;
 
   /**
    * @param prevShardBackupId previous ShardBackupMetadata file which will be used for skipping
@@ -184,39 +211,188 @@ public class IncrementalShardBackup {
         backupRepo, incBackupFiles.getShardBackupMetadataDir(), prevShardBackupId);
   }
 
-  private BackupStats incrementalCopy(Collection<String> indexFiles, Directory dir)
-      throws IOException {
+  BackupStats incrementalCopy(Collection<String> indexFiles, Directory dir) throws Exception {
     ShardBackupMetadata oldBackupPoint = getPrevBackupPoint();
+    Map<String, Checksum> reusableFiles = getReusableFiles();
     ShardBackupMetadata currentBackupPoint = ShardBackupMetadata.empty();
     URI indexDir = incBackupFiles.getIndexDir();
     BackupStats backupStats = new BackupStats();
 
-    for (String fileName : indexFiles) {
-      Optional<ShardBackupMetadata.BackedFile> opBackedFile = oldBackupPoint.getFile(fileName);
-      Checksum originalFileCS = backupRepo.checksum(dir, fileName);
-
-      if (opBackedFile.isPresent()) {
-        ShardBackupMetadata.BackedFile backedFile = opBackedFile.get();
-        Checksum existedFileCS = backedFile.fileChecksum;
-        if (existedFileCS.equals(originalFileCS)) {
-          currentBackupPoint.addBackedFile(opBackedFile.get());
-          backupStats.skippedUploadingFile(existedFileCS);
-          continue;
+    List<BackedUpFile> backedUpFiles = new ArrayList<>(indexFiles.size());
+    if (MAX_CONCURRENT_UPLOADS == 1 || indexFiles.size() <= 1) {
+      for (String fileName : indexFiles) {
+        backedUpFiles.add(backupFile(fileName, dir, indexDir, oldBackupPoint, reusableFiles));
+      }
+    } else {
+      ExecutorService executor =
+          ExecutorUtil.newMDCAwareFixedThreadPool(
+              Math.min(MAX_CONCURRENT_UPLOADS, indexFiles.size()),
+              new SolrNamedThreadFactory("incrementalShardBackup"));
+      try {
+        List<Future<BackedUpFile>> futures = new ArrayList<>(indexFiles.size());
+        for (String fileName : indexFiles) {
+          futures.add(
+              executor.submit(
+                  () -> backupFile(fileName, dir, indexDir, oldBackupPoint, reusableFiles)));
+        }
+        Exception failure = null;
+        for (Future<BackedUpFile> future : futures) {
+          try {
+            backedUpFiles.add(future.get());
+          } catch (ExecutionException e) {
+            if (failure == null) {
+              // the first failure is the one to report, the others are likely because of it
+              failure = e.getCause() instanceof Exception cause ? cause : e;
+              cancelUploads = true;
+            }
+          }
+        }
+        if (failure != null) {
+          throw failure;
         }
+      } finally {
+        ExecutorUtil.shutdownAndAwaitTermination(executor);
       }
+    }
 
-      String backedFileName = UUID.randomUUID().toString();
-      backupRepo.copyIndexFileFrom(dir, fileName, indexDir, backedFileName);
-
-      currentBackupPoint.addBackedFile(backedFileName, fileName, originalFileCS);
-      backupStats.uploadedFile(originalFileCS);
+    for (BackedUpFile file : backedUpFiles) {
+      currentBackupPoint.addBackedFile(file.uniqueFileName, file.fileName, file.checksum);
+      if (file.uploaded) {
+        backupStats.uploadedFile(file.checksum);
+      } else {
+        backupStats.skippedUploadingFile(file.checksum);
+      }
     }
 
     currentBackupPoint.store(backupRepo, incBackupFiles.getShardBackupMetadataDir(), shardBackupId);
     return backupStats;
   }
 
-  private static class BackupStats {
+  /**
+   * Returns the checksums of the files that the most recent complete backup holds, and of those
+   * that the shards of this backup that are done already hold. Other files in the repository aren't
+   * reused: they may be left by a backup that was interrupted, and so be deleted by a purge.
+   */
+  private Map<String, Checksum> getReusableFiles() throws IOException {
+    BackupId backupId = shardBackupId.getContainingBackupId();
+    Optional<BackupId> lastBackupId =
+        BackupFilePaths.findMostRecentBackupIdFromFileListing(
+            backupRepo.listAllOrEmpty(incBackupFiles.getBackupLocation()));
+    URI metadataDir = incBackupFiles.getShardBackupMetadataDir();
+    Map<String, Checksum> reusableFiles = new HashMap<>();
+    for (String metadataFile : backupRepo.listAllOrEmpty(metadataDir)) {
+      ShardBackupId id;
+      try {
+        id = ShardBackupId.fromShardMetadataFilename(metadataFile);
+      } catch (IllegalArgumentException e) {
+        continue;
+      }
+      BackupId containingBackupId = id.getContainingBackupId();
+      if (!containingBackupId.equals(backupId)
+          && !lastBackupId.map(containingBackupId::equals).orElse(false)) {
+        continue;
+      }
+      ShardBackupMetadata metadata = ShardBackupMetadata.from(backupRepo, metadataDir, id);
+      if (metadata == null) {
+        continue;
+      }
+      for (String fileName : metadata.listOriginalFileNames()) {
+        metadata
+            .getFile(fileName)
+            .ifPresent(file -> reusableFiles.put(file.uniqueFileName, file.fileChecksum));
+      }
+    }
+    return reusableFiles;
+  }
+
+  /**
+   * Uploads an index file unless it was in the previous backup of the shard, or another backup
+   * that may be reused has the same file.
+   */
+  private BackedUpFile backupFile(
+      String fileName,
+      Directory dir,
+      URI indexDir,
+      ShardBackupMetadata oldBackupPoint,
+      Map<String, Checksum> reusableFiles)
+      throws IOException, InterruptedException {
+    if (cancelUploads) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR, "Backing up another file failed");
+    }
+    Checksum originalFileCS = backupRepo.checksum(dir, fileName);
+
+    Optional<ShardBackupMetadata.BackedFile> opBackedFile = oldBackupPoint.getFile(fileName);
+    if (opBackedFile.isPresent()) {
+      ShardBackupMetadata.BackedFile backedFile = opBackedFile.get();
+      if (backedFile.fileChecksum.equals(originalFileCS)) {
+        return new BackedUpFile(backedFile.uniqueFileName, fileName, originalFileCS, false);
+      }
+    }
+
+    // the file is stored under a name derived from its content, so that it is stored once however
+    // many backups and shards have it, e.g. the sub-shards of a shard split by hard-linking
+    String contentName = contentName(dir, fileName, originalFileCS);
+    if (contentName != null && originalFileCS.equals(reusableFiles.get(contentName))) {
+      return new BackedUpFile(contentName, fileName, originalFileCS, false);
+    }
+    if (contentName == null) {
+      String backedFileName = UUID.randomUUID().toString();
+      uploadFile(dir, fileName, indexDir, backedFileName);
+      return new BackedUpFile(backedFileName, fileName, originalFileCS, true);
+    }
+
+    String lockKey = indexDir + contentName;
+    Object lock = UPLOAD_LOCKS.computeIfAbsent(lockKey, k -> new Object());
+    try {
+      synchronized (lock) {
+        // never replace a stored file, another backup may need it; two backups on different nodes
+        // may still both upload a new file, but with the same content
+        String backedFileName =
+            backupRepo.exists(backupRepo.resolve(indexDir, contentName))
+                ? UUID.randomUUID().toString()
+                : contentName;
+        uploadFile(dir, fileName, indexDir, backedFileName);
+        return new BackedUpFile(backedFileName, fileName, originalFileCS, true);
+      }
+    } finally {
+      UPLOAD_LOCKS.remove(lockKey, lock);
+    }
+  }
+
+  private void uploadFile(Directory dir, String fileName, URI indexDir, String backedFileName)
+      throws IOException, InterruptedException {
+    UPLOAD_PERMITS.acquire();
+    try {
+      backupRepo.copyIndexFileFrom(dir, fileName, indexDir, backedFileName);
+    } finally {
+      UPLOAD_PERMITS.release();
+    }
+  }
+
+  /**
+   * Names the content of an index file by its header, which has the random id of the segment (or
+   * commit) that it belongs to, and its length and checksum, since files such as live docs keep the
+   * same header when the indexes that share a segment diverge. Returns null for files without an
+   * index header.
+   */
+  private static String contentName(Directory dir, String fileName, Checksum checksum)
+      throws IOException {
+    byte[] header;
+    try (IndexInput in = dir.openInput(fileName, IOContext.READONCE)) {
+      header = CodecUtil.readIndexHeader(in);
+    } catch (CorruptIndexException e) {
+      return null;
+    }
+    ByteBuffer key = ByteBuffer.allocate(header.length + 2 * Long.BYTES);
+    key.put(header).putLong(checksum.size).putLong(checksum.checksum);
+    return fileName + "." + UUID.nameUUIDFromBytes(key.array());
+  }
+
+  private record BackedUpFile(
+      String uniqueFileName, String fileName, Checksum checksum, boolean uploaded) {}
+
+  static class BackupStats {
     private int fileCount;
     private int uploadedFileCount;
     private long indexSize;
@@ -26,6 +26,7 @@ import static org.apache.solr.handler.ReplicationHandler.CMD_INDEX_VERSION;
 import static org.apache.solr.handler.ReplicationHandler.COMMAND;
 import static org.apache.solr.handler.ReplicationHandler.CONF_FILES;
 import static org.apache.solr.handler.ReplicationHandler.FETCH_FROM_LEADER;
+import static org.apache.solr.handler.ReplicationHandler.FETCH_THREADS;
 import static org.apache.solr.handler.ReplicationHandler.LEADER_URL;
 import static org.apache.solr.handler.ReplicationHandler.SIZE;
 import static org.apache.solr.handler.ReplicationHandler.SKIP_COMMIT_ON_LEADER_VERSION_ZERO;
@@ -58,6 +59,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -66,6 +68,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -75,6 +78,7 @@ import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.zip.Adler32;
+import java.util.zip.CRC32;
 import java.util.zip.Checksum;
 import java.util.zip.InflaterInputStream;
 import org.apache.lucene.codecs.CodecUtil;
@@ -163,9 +167,7 @@ public class IndexFetcher {
 
   private volatile List<Map<String, Object>> confFilesDownloaded;
 
-  private volatile Map<String, Object> currentFile;
-
-  private volatile DirectoryFileFetcher dirFileFetcher;
+  private final Set<DirectoryFileFetcher> activeFileFetchers = ConcurrentHashMap.newKeySet();
 
   private volatile LocalFsFileFetcher localFileFetcher;
 
@@ -173,6 +175,14 @@ public class IndexFetcher {
 
   private volatile boolean stop = false;
 
+  // set when fetching one of the files failed, so that the others stop too
+  private volatile boolean cancelFileFetches = false;
+
+  private final int fetchThreads;
+
+  // the index version of the leader as of the last time we asked
+  private volatile long leaderIndexVersion;
+
   private boolean useInternalCompression = false;
 
   private boolean useExternalCompression = false;
@@ -287,6 +297,13 @@ public class IndexFetcher {
     useInternalCompression = ReplicationHandler.INTERNAL.equals(compress);
     useExternalCompression = ReplicationHandler.EXTERNAL.equals(compress);
     soTimeout = getParameter(initArgs, SolrHttpConstants.PROP_SO_TIMEOUT, 120000, null);
+    Object fetchThreads = initArgs.get(FETCH_THREADS);
+    this.fetchThreads =
+        Math.max(
+            1,
+            fetchThreads == null
+                ? Integer.getInteger("solr.replication.fetchThreads", 1)
+                : Integer.parseInt(fetchThreads.toString()));
 
     String httpBasicAuthUser = (String) initArgs.get(SolrHttpConstants.PROP_BASIC_AUTH_USER);
     String httpBasicAuthPassword = (String) initArgs.get(SolrHttpConstants.PROP_BASIC_AUTH_PASS);
@@ -488,6 +505,7 @@ public class IndexFetcher {
 
       long latestVersion = (Long) response.get(CMD_INDEX_VERSION);
       long latestGeneration = (Long) response.get(GENERATION);
+      leaderIndexVersion = latestVersion;
 
       log.info("Leader's generation: {}", latestGeneration);
       log.info("Leader's version: {}", latestVersion);
@@ -820,7 +838,6 @@ public class IndexFetcher {
 
       filesToDownload = filesDownloaded = confFilesDownloaded = confFilesToDownload = null;
       markReplicationStop();
-      dirFileFetcher = null;
       localFileFetcher = null;
       if (fsyncService != null && !ExecutorUtil.isShutdown(fsyncService)) fsyncService.shutdown();
       fsyncService = null;
@@ -981,12 +998,9 @@ public class IndexFetcher {
       bytesDownloaded += (Long) file.get(SIZE);
     }
 
-    // get size from current file being downloaded
-    Map<String, Object> currentFile = getCurrentFile();
-    if (currentFile != null) {
-      if (currentFile.containsKey("bytesDownloaded")) {
-        bytesDownloaded += (Long) currentFile.get("bytesDownloaded");
-      }
+    // get size from the files being downloaded
+    for (DirectoryFileFetcher fileFetcher : activeFileFetchers) {
+      bytesDownloaded += fileFetcher.getBytesDownloaded();
     }
     return bytesDownloaded;
   }
@@ -1080,7 +1094,6 @@ public class IndexFetcher {
         String saveAs = (String) (file.get(ALIAS) == null ? file.get(NAME) : file.get(ALIAS));
         localFileFetcher =
             new LocalFsFileFetcher(tmpConfDir, file, saveAs, CONF_FILE_SHORT, latestGeneration);
-        currentFile = file;
         localFileFetcher.fetchFile();
         confFilesDownloaded.add(new HashMap<>(file));
       }
@@ -1145,6 +1158,7 @@ public class IndexFetcher {
       deleteFilesInAdvance(indexDir, indexDirPath, totalSpaceRequired, usableSpace);
     }
 
+    List<Map<String, Object>> filesToFetch = new ArrayList<>();
     for (Map<String, Object> file : filesToDownload) {
       String filename = (String) file.get(NAME);
       long size = (Long) file.get(SIZE);
@@ -1176,21 +1190,17 @@ public class IndexFetcher {
           // efficient as compared to a file copy. TODO: Maybe we could do a move safely here?
           Files.createLink(Path.of(tmpIndexDirPath, filename), localFile);
           bytesSkippedCopying += Files.size(localFile);
+          filesDownloaded.add(new HashMap<>(file));
         } else {
-          dirFileFetcher =
-              new DirectoryFileFetcher(
-                  tmpIndexDir, file, (String) file.get(NAME), FILE, latestGeneration);
-          currentFile = file;
-          dirFileFetcher.fetchFile();
-          bytesDownloaded += dirFileFetcher.getBytesDownloaded();
+          filesToFetch.add(file);
         }
-        filesDownloaded.add(new HashMap<>(file));
       } else {
         if (log.isDebugEnabled()) {
           log.debug("Skipping download for {} because it already exists", file.get(NAME));
         }
       }
     }
+    bytesDownloaded = fetchIndexFiles(filesToFetch, tmpIndexDir, latestGeneration);
     log.info(
         "Bytes downloaded: {}, Bytes skipped downloading: {}",
         bytesDownloaded,
@@ -1198,11 +1208,88 @@ public class IndexFetcher {
     return bytesDownloaded;
   }
 
+  /**
+   * Fetches the given index files, on {@link #fetchThreads} threads. The biggest files are fetched
+   * first, so that they don't end up being fetched on their own at the end.
+   *
+   * @return number of bytes downloaded
+   */
+  private long fetchIndexFiles(
+      List<Map<String, Object>> files, Directory tmpIndexDir, long latestGeneration)
+      throws Exception {
+    if (fetchThreads == 1 || files.size() <= 1) {
+      long bytesDownloaded = 0;
+      for (Map<String, Object> file : files) {
+        bytesDownloaded += fetchIndexFile(file, tmpIndexDir, latestGeneration);
+      }
+      return bytesDownloaded;
+    }
+
+    List<Map<String, Object>> bySize = new ArrayList<>(files);
+    bySize.sort(
+        Comparator.comparing((Map<String, Object> file) -> (Long) file.get(SIZE)).reversed());
+    ExecutorService executor =
+        ExecutorUtil.newMDCAwareFixedThreadPool(
+            Math.min(fetchThreads, files.size()), new SolrNamedThreadFactory("indexFetcher"));
+    try {
+      List<Future<Long>> futures = new ArrayList<>(bySize.size());
+      for (Map<String, Object> file : bySize) {
+        futures.add(executor.submit(() -> fetchIndexFile(file, tmpIndexDir, latestGeneration)));
+      }
+      long bytesDownloaded = 0;
+      Exception failure = null;
+      for (Future<Long> future : futures) {
+        try {
+          bytesDownloaded += future.get();
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            // the first failure is the one to report, the others are likely because of it
+            failure = e.getCause() instanceof Exception cause ? cause : e;
+            cancelFileFetches = true;
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      return bytesDownloaded;
+    } finally {
+      cancelFileFetches = true; // in case this thread was interrupted
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+      cancelFileFetches = false;
+    }
+  }
+
+  private long fetchIndexFile(
+      Map<String, Object> file, Directory tmpIndexDir, long latestGeneration) throws Exception {
+    if (cancelFileFetches) {
+      throw new ReplicationHandlerException("Fetching another file failed");
+    }
+    DirectoryFileFetcher fileFetcher =
+        new DirectoryFileFetcher(
+            tmpIndexDir, file, (String) file.get(NAME), FILE, latestGeneration);
+    activeFileFetchers.add(fileFetcher);
+    try {
+      fileFetcher.fetchFile();
+      filesDownloaded.add(new HashMap<>(file));
+    } finally {
+      activeFileFetchers.remove(fileFetcher);
+    }
+    return fileFetcher.getBytesDownloaded();
+  }
+
   // only for testing purposes. do not use this anywhere else
   // -----------START----------------------
   static BooleanSupplier testWait = () -> true;
   static Function<String, Long> usableDiskSpaceProvider = dir -> getUsableSpace(dir);
 
+  /** Wraps the packet stream of a file fetched from the leader, which starts at the offset */
+  interface FileStreamWrapper {
+    InputStream wrap(String fileName, long offset, InputStream in) throws IOException;
+  }
+
+  static FileStreamWrapper fileStreamWrapper = (fileName, offset, in) -> in;
+
   // ------------ END---------------------
 
   private static Long getUsableSpace(String dir) {
@@ -1588,6 +1675,10 @@ public class IndexFetcher {
     return replicationStartTimeStamp;
   }
 
+  long getLeaderIndexVersion() {
+    return leaderIndexVersion;
+  }
+
   long getReplicationTimeElapsed() {
     long timeElapsed = 0;
     if (replicationStartTimeStamp != null)
@@ -1621,14 +1712,21 @@ public class IndexFetcher {
     return tmp == null ? Collections.emptyList() : new ArrayList<>(tmp);
   }
 
+  /**
+   * The index files being downloaded, several of them when fetching on several threads, with the
+   * bytes downloaded so far of each.
+   */
   // TODO: currently does not reflect conf files
-  Map<String, Object> getCurrentFile() {
-    Map<String, Object> tmp = currentFile;
-    DirectoryFileFetcher tmpFileFetcher = dirFileFetcher;
-    if (tmp == null) return null;
-    tmp = new HashMap<>(tmp);
-    if (tmpFileFetcher != null) tmp.put("bytesDownloaded", tmpFileFetcher.getBytesDownloaded());
-    return tmp;
+  List<Map<String, Object>> getCurrentFiles() {
+    List<Map<String, Object>> currentFiles = new ArrayList<>();
+    for (DirectoryFileFetcher fileFetcher : activeFileFetchers) {
+      Map<String, Object> file = new HashMap<>();
+      file.put(NAME, fileFetcher.getFileName());
+      file.put(SIZE, fileFetcher.getSize());
+      file.put("bytesDownloaded", fileFetcher.getBytesDownloaded());
+      currentFiles.add(file);
+    }
+    return currentFiles;
   }
 
   private static class ReplicationHandlerException extends InterruptedException {
@@ -1662,9 +1760,14 @@ public class IndexFetcher {
     private final Long indexGen;
 
     private final long size;
-    private long bytesDownloaded = 0;
+    private volatile long bytesDownloaded = 0;
     private byte[] buf;
     private final Checksum checksum;
+    // of the whole file as it is written, to compare with the checksum in its footer
+    private final CRC32 fileChecksum;
+    private final Long expectedFileChecksum;
+    // the last bytes of the file as written, the footer holding its checksum
+    private final byte[] footer;
     private int errorCount = 0;
     private boolean aborted = false;
 
@@ -1673,10 +1776,17 @@ public class IndexFetcher {
         Map<String, Object> fileDetails,
         String saveAs,
         String solrParamOutput,
-        long latestGen) {
+        long latestGen,
+        boolean verifyFileChecksum) {
       this.file = file;
       this.fileName = (String) fileDetails.get(NAME);
       this.size = (Long) fileDetails.get(SIZE);
+      this.expectedFileChecksum =
+          verifyFileChecksum && size >= CodecUtil.footerLength()
+              ? (Long) fileDetails.get(CHECKSUM)
+              : null;
+      this.fileChecksum = expectedFileChecksum != null ? new CRC32() : null;
+      this.footer = expectedFileChecksum != null ? new byte[CodecUtil.footerLength()] : null;
       buf = new byte[(int) Math.min(this.size, ReplicationAPIBase.PACKET_SZ)];
       this.solrParamOutput = solrParamOutput;
       this.saveAs = saveAs;
@@ -1688,38 +1798,42 @@ public class IndexFetcher {
       }
     }
 
+    public String getFileName() {
+      return fileName;
+    }
+
+    public long getSize() {
+      return size;
+    }
+
     public long getBytesDownloaded() {
       return bytesDownloaded;
     }
 
-    /** The main method which downloads file */
+    /**
+     * The main method which downloads file. After an error, the download continues from where it
+     * broke off, unless it keeps failing without progress.
+     */
     public void fetchFile() throws Exception {
       bytesDownloaded = 0;
-      try {
-        fetch();
-      } catch (Exception e) {
-        if (!aborted) {
-          IndexFetcher.log.error("Error fetching file, doing one retry...", e);
-          // one retry
-          fetch();
-        } else {
-          throw e;
-        }
-      }
+      fetch();
     }
 
     private void fetch() throws Exception {
       try {
         while (true) {
+          int result;
           try (FastInputStream fis = getStream()) {
-            int result;
             // fetch packets one by one in a single request
             result = fetchPackets(fis);
-            if (result == 0 || result == NO_CONTENT) {
-              return;
-            }
-            // if there is an error continue. But continue from the point where it got broken
+          } catch (IOException e) {
+            result = onError(e);
+          }
+          if (result == 0 || result == NO_CONTENT) {
+            return;
           }
+          // if there is an error continue. But continue from the point where it got broken
+          Thread.sleep(RETRY_PAUSE_MS * errorCount);
         }
       } finally {
         cleanup();
@@ -1748,10 +1862,14 @@ public class IndexFetcher {
             return 0;
           }
           if (stop) {
-            stop = false;
+            // reset once the whole fetch is over, as other files may be fetched at the same time
             aborted = true;
             throw new ReplicationHandlerException("User aborted replication");
           }
+          if (cancelFileFetches) {
+            aborted = true;
+            throw new ReplicationHandlerException("Fetching another file failed");
+          }
           long checkSumServer = -1;
 
           fis.readFully(intbytes);
@@ -1780,14 +1898,27 @@ public class IndexFetcher {
             checksum.update(buf, 0, packetSize);
             long checkSumClient = checksum.getValue();
             if (checkSumClient != checkSumServer) {
-              log.error("Checksum not matched between client and server for file: {}", fileName);
-              // if checksum is wrong it is a problem return (there doesn't seem to be a retry in
-              // this case.)
-              return 1;
+              // the packet wasn't written, so fetch it again
+              return onError(
+                  new IOException(
+                      "Checksum not matched between client and server for file: " + fileName));
             }
           }
           // if everything is fine, write down the packet to the file
           file.write(buf, packetSize);
+          if (fileChecksum != null) {
+            // the checksum in the footer is of everything before it
+            long checksummed = Math.min(packetSize, size - Long.BYTES - bytesDownloaded);
+            if (checksummed > 0) {
+              fileChecksum.update(buf, 0, (int) checksummed);
+            }
+            long footerStart = size - footer.length;
+            if (bytesDownloaded + packetSize > footerStart) {
+              int from = (int) Math.max(0, footerStart - bytesDownloaded);
+              int to = (int) (bytesDownloaded + from - footerStart);
+              System.arraycopy(buf, from, footer, to, packetSize - from);
+            }
+          }
           bytesDownloaded += packetSize;
           log.debug("Fetched and wrote {} bytes of file: {}", bytesDownloaded, fileName);
           // errorCount is always set to zero after a successful packet
@@ -1796,34 +1927,38 @@ public class IndexFetcher {
       } catch (ReplicationHandlerException e) {
         throw e;
       } catch (Exception e) {
-        log.warn(
-            "Error in fetching file: {} (downloaded {} of {} bytes)",
-            fileName,
-            bytesDownloaded,
-            size,
+        return onError(e);
+      }
+    }
+
+    private int onError(Exception e) {
+      log.warn(
+          "Error in fetching file: {} (downloaded {} of {} bytes)",
+          fileName,
+          bytesDownloaded,
+          size,
+          e);
+      // for any failure, increment the error count
+      errorCount++;
+      // if it fails for the same packet for MAX_RETRIES fail and come out
+      if (errorCount > MAX_RETRIES) {
+        throw new SolrException(
+            SolrException.ErrorCode.SERVER_ERROR,
+            "Failed to fetch file: "
+                + fileName
+                + " (downloaded "
+                + bytesDownloaded
+                + " of "
+                + size
+                + " bytes"
+                + ", error count: "
+                + errorCount
+                + " > "
+                + MAX_RETRIES
+                + ")",
             e);
-        // for any failure, increment the error count
-        errorCount++;
-        // if it fails for the same packet for MAX_RETRIES fail and come out
-        if (errorCount > MAX_RETRIES) {
-          throw new SolrException(
-              SolrException.ErrorCode.SERVER_ERROR,
-              "Failed to fetch file: "
-                  + fileName
-                  + " (downloaded "
-                  + bytesDownloaded
-                  + " of "
-                  + size
-                  + " bytes"
-                  + ", error count: "
-                  + errorCount
-                  + " > "
-                  + MAX_RETRIES
-                  + ")",
-              e);
-        }
-        return ERR;
       }
+      return ERR;
     }
 
     /**
@@ -1847,6 +1982,19 @@ public class IndexFetcher {
           | ((b[7] & 0xff));
     }
 
+    /**
+     * Whether the footer written is a Lucene footer holding the checksum listed by the leader,
+     * which the content was already checked against.
+     */
+    private boolean isFooterValid() {
+      int magic = readInt(footer);
+      int algorithmId = readInt(Arrays.copyOfRange(footer, Integer.BYTES, 2 * Integer.BYTES));
+      long storedChecksum = readLong(Arrays.copyOfRange(footer, 2 * Integer.BYTES, footer.length));
+      return magic == CodecUtil.FOOTER_MAGIC
+          && algorithmId == 0
+          && storedChecksum == expectedFileChecksum;
+    }
+
     /** cleanup everything */
     private void cleanup() {
       try {
@@ -1855,8 +2003,17 @@ public class IndexFetcher {
         /* no-op */
         log.error("Error closing file: {}", this.saveAs, e);
       }
+      String failure = null;
       if (bytesDownloaded != size) {
-        // if the download is not complete then
+        failure = "Unable to download " + fileName + " completely. Downloaded " + bytesDownloaded;
+        failure += "!=" + size;
+      } else if (fileChecksum != null && fileChecksum.getValue() != expectedFileChecksum) {
+        failure = "Checksum of downloaded file " + fileName + " does not match the leader's";
+      } else if (footer != null && !isFooterValid()) {
+        failure = "Downloaded file " + fileName + " has a corrupt footer";
+      }
+      if (failure != null) {
+        // if the download is not complete or corrupt then
         // delete the file being downloaded
         try {
           file.delete();
@@ -1864,15 +2021,7 @@ public class IndexFetcher {
           log.error("Error deleting file: {}", this.saveAs, e);
         }
         // if the failure is due to a user abort it is returned normally else an exception is thrown
-        if (!aborted)
-          throw new SolrException(
-              SolrException.ErrorCode.SERVER_ERROR,
-              "Unable to download "
-                  + fileName
-                  + " completely. Downloaded "
-                  + bytesDownloaded
-                  + "!="
-                  + size);
+        if (!aborted) throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, failure);
       }
     }
 
@@ -1923,6 +2072,7 @@ public class IndexFetcher {
         if (useInternalCompression) {
           is = new InflaterInputStream(is);
         }
+        is = fileStreamWrapper.wrap(fileName, bytesDownloaded, is);
         return new FastInputStream(is);
       } catch (Exception e) {
         final var ioe = closeStreamAndBuildIOE(is, "Could not download file '" + fileName + "'", e);
@@ -1981,7 +2131,12 @@ public class IndexFetcher {
         long latestGen)
         throws IOException {
       super(
-          new DirectoryFile(tmpIndexDir, saveAs), fileDetails, saveAs, solrParamOutput, latestGen);
+          new DirectoryFile(tmpIndexDir, saveAs),
+          fileDetails,
+          saveAs,
+          solrParamOutput,
+          latestGen,
+          true);
     }
   }
 
@@ -2039,7 +2194,8 @@ public class IndexFetcher {
         String solrParamOutput,
         long latestGen)
         throws IOException {
-      super(new LocalFsFile(dir, saveAs), fileDetails, saveAs, solrParamOutput, latestGen);
+      // the checksums of configuration files are not the ones of Lucene's footers
+      super(new LocalFsFile(dir, saveAs), fileDetails, saveAs, solrParamOutput, latestGen, false);
     }
   }
 
@@ -2063,6 +2219,8 @@ public class IndexFetcher {
 
   private static final int MAX_RETRIES = 5;
 
+  private static final long RETRY_PAUSE_MS = 200;
+
   private static final int NO_CONTENT = 1;
 
   private static final int ERR = 2;
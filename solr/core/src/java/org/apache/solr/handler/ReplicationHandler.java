@@ -56,6 +56,7 @@ import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -76,6 +77,9 @@ import org.apache.solr.api.JerseyResource;
 import org.apache.solr.client.api.model.FileMetaData;
 import org.apache.solr.client.api.model.IndexVersionResponse;
 import org.apache.solr.client.api.model.SolrJerseyResponse;
+import org.apache.solr.cloud.LeaderCommitNotifier;
+import org.apache.solr.cloud.ReplicateFromLeader;
+import org.apache.solr.cloud.ZkController;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.params.CoreAdminParams;
@@ -245,6 +249,15 @@ public class ReplicationHandler extends RequestHandlerBase
 
   private PollListener pollListener;
 
+  private volatile Runnable pollTask;
+
+  /** Whether {@link #fetchNow} queued a fetch that hasn't started yet */
+  private final AtomicBoolean fetchQueued = new AtomicBoolean(false);
+
+  private volatile long notifiedLeaderIndexVersion;
+
+  private volatile long lastFetchLagMs = -1;
+
   private final ReplicationHandlerConfig replicationHandlerConfig = new ReplicationHandlerConfig();
 
   public interface PollListener {
@@ -314,6 +327,76 @@ public class ReplicationHandler extends RequestHandlerBase
     } else if (CMD_DISABLE_REPL.equalsIgnoreCase(command)) {
       replicationEnabled.set(false);
       rsp.add(STATUS, OK_STATUS);
+    } else if (CMD_NOTIFY_COMMIT.equalsIgnoreCase(command)) {
+      ReplicationHandler follower = getFollower();
+      if (follower != null) {
+        follower.fetchNow(solrParams.getLong(CMD_INDEX_VERSION, 0L));
+        rsp.add(STATUS, OK_STATUS);
+      } else {
+        reportErrorOnResponse(rsp, "No follower configured", null);
+      }
+    }
+  }
+
+  /**
+   * The handler that polls for this core: this one for user-managed replication, or the one that
+   * replicates from the shard leader for TLOG and PULL replicas.
+   */
+  private ReplicationHandler getFollower() {
+    if (isFollower) {
+      return this;
+    }
+    ZkController zkController = core.getCoreContainer().getZkController();
+    if (zkController == null) {
+      return null;
+    }
+    ReplicateFromLeader replicateFromLeader = zkController.getReplicateFromLeader(core.getName());
+    return replicateFromLeader == null ? null : replicateFromLeader.getReplicationHandler();
+  }
+
+  /**
+   * Fetches the index now rather than at the next poll, e.g. because the leader told us about a new
+   * commit. Does nothing if a fetch is already waiting to start, or polling isn't set up.
+   *
+   * @param leaderIndexVersion the version of the new commit on the leader, or 0 if unknown
+   */
+  public void fetchNow(long leaderIndexVersion) {
+    if (leaderIndexVersion > notifiedLeaderIndexVersion) {
+      notifiedLeaderIndexVersion = leaderIndexVersion;
+    }
+    ScheduledExecutorService executor = executorService;
+    Runnable task = pollTask;
+    if (executor == null || task == null || !fetchQueued.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      fetchQueued.set(false); // shutting down
+    }
+  }
+
+  /**
+   * Milliseconds between a commit on the leader and this follower having it: for the newest commit
+   * of the leader that hasn't been fetched yet, as far as we know, or else for the last one
+   * fetched. -1 if nothing was fetched yet.
+   */
+  public long getReplicationLagMs() {
+    IndexFetcher fetcher = pollingIndexFetcher;
+    long leaderVersion =
+        Math.max(notifiedLeaderIndexVersion, fetcher == null ? 0 : fetcher.getLeaderIndexVersion());
+    if (leaderVersion > getLocalIndexVersion()) {
+      return Math.max(0, System.currentTimeMillis() - leaderVersion);
+    }
+    return lastFetchLagMs;
+  }
+
+  private long getLocalIndexVersion() {
+    IndexCommit commit = core.getDeletionPolicy().getLatestCommit();
+    try {
+      return commit == null ? 0 : IndexDeletionPolicyWrapper.getCommitTimestamp(commit);
+    } catch (IOException e) {
+      return 0;
     }
   }
 
@@ -904,6 +987,12 @@ public class ReplicationHandler extends RequestHandlerBase
         solrMetricsContext.longGaugeMeasurement(
             "solr_core_replication_download_speed", "Download speed in bytes per second");
 
+    ObservableLongMeasurement replicationLagMetric =
+        solrMetricsContext.longGaugeMeasurement(
+            "solr_core_replication_lag",
+            "Time between a commit on the leader and this replica having it",
+            OtelUnit.MILLISECONDS);
+
     metricsCallback =
         solrMetricsContext.batchCallback(
             () -> {
@@ -936,6 +1025,14 @@ public class ReplicationHandler extends RequestHandlerBase
                   downloadSpeedMetric.record(val / elapsed, replicationAttributes);
                 }
               }
+
+              if (core != null && !core.isClosed()) {
+                ReplicationHandler follower = getFollower();
+                long lag = follower == null ? -1 : follower.getReplicationLagMs();
+                if (lag >= 0) {
+                  replicationLagMetric.record(lag, replicationAttributes);
+                }
+              }
             },
             indexSizeMetric,
             indexVersionMetric,
@@ -947,7 +1044,8 @@ public class ReplicationHandler extends RequestHandlerBase
             isReplicatingMetric,
             timeElapsedMetric,
             bytesDownloadedMetric,
-            downloadSpeedMetric);
+            downloadSpeedMetric,
+            replicationLagMetric);
   }
 
   @Override
@@ -1048,20 +1146,18 @@ public class ReplicationHandler extends RequestHandlerBase
             bytesDownloaded += (Long) file.get(SIZE);
           }
 
-          Map<String, Object> currentFile = fetcher.getCurrentFile();
-          String currFile = null;
+          // the files being downloaded, several of them when fetching on several threads
+          List<String> currFiles = new ArrayList<>();
           long currFileSize = 0, currFileSizeDownloaded = 0;
           float percentDownloaded = 0;
-          if (currentFile != null) {
-            currFile = (String) currentFile.get(NAME);
-            currFileSize = (Long) currentFile.get(SIZE);
-            if (currentFile.containsKey("bytesDownloaded")) {
-              currFileSizeDownloaded = (Long) currentFile.get("bytesDownloaded");
-              bytesDownloaded += currFileSizeDownloaded;
-              if (currFileSize > 0)
-                percentDownloaded = (float) (currFileSizeDownloaded * 100) / currFileSize;
-            }
+          for (Map<String, Object> file : fetcher.getCurrentFiles()) {
+            currFiles.add((String) file.get(NAME));
+            currFileSize += (Long) file.get(SIZE);
+            currFileSizeDownloaded += (Long) file.get("bytesDownloaded");
           }
+          bytesDownloaded += currFileSizeDownloaded;
+          if (currFileSize > 0)
+            percentDownloaded = (float) (currFileSizeDownloaded * 100) / currFileSize;
           follower.add("filesDownloaded", filesDownloaded);
           follower.add("numFilesDownloaded", String.valueOf(filesDownloaded.size()));
 
@@ -1081,7 +1177,7 @@ public class ReplicationHandler extends RequestHandlerBase
           long downloadSpeed = 0;
           if (bytesToDownload > 0) totalPercent = (float) (bytesDownloaded * 100) / bytesToDownload;
           if (elapsed > 0) downloadSpeed = (bytesDownloaded / elapsed);
-          if (currFile != null) follower.add("currentFile", currFile);
+          if (!currFiles.isEmpty()) follower.add("currentFile", String.join(",", currFiles));
           follower.add("currentFileSize", NumberUtils.readableSize(currFileSize));
           follower.add(
               "currentFileSizeDownloaded", NumberUtils.readableSize(currFileSizeDownloaded));
@@ -1231,6 +1327,7 @@ public class ReplicationHandler extends RequestHandlerBase
     Runnable task =
         () -> {
           MDC.setContextMap(context);
+          fetchQueued.set(false);
           if (pollDisabled.get()) {
             log.info("Poll disabled");
             return;
@@ -1240,6 +1337,9 @@ public class ReplicationHandler extends RequestHandlerBase
             log.debug("Polling for index modifications");
             markScheduledExecutionStart();
             IndexFetchResult fetchResult = doFetch(SolrParams.of(), false);
+            if (fetchResult == IndexFetchResult.INDEX_FETCH_SUCCESS) {
+              lastFetchLagMs = Math.max(0, System.currentTimeMillis() - getLocalIndexVersion());
+            }
             if (pollListener != null) pollListener.onComplete(core, fetchResult);
           } catch (Exception e) {
             log.error("Exception in fetching index", e);
@@ -1247,6 +1347,7 @@ public class ReplicationHandler extends RequestHandlerBase
             ExecutorUtil.setServerThreadFlag(null);
           }
         };
+    pollTask = task;
     executorService =
         Executors.newSingleThreadScheduledExecutor(new SolrNamedThreadFactory("indexFetcher"));
     // Randomize initial delay, with a minimum of 1ms
@@ -1387,6 +1488,9 @@ public class ReplicationHandler extends RequestHandlerBase
           if (s != null) s.decref();
         }
       }
+      if (core.getCoreContainer().isZooKeeperAware() && LeaderCommitNotifier.isEnabled()) {
+        core.getUpdateHandler().registerCommitCallback(new LeaderCommitNotifier(core));
+      }
       isLeader = true;
     }
 
@@ -1560,6 +1664,9 @@ public class ReplicationHandler extends RequestHandlerBase
 
   public static final String FETCH_FROM_LEADER = "fetchFromLeader";
 
+  /** How many index files a follower fetches at the same time. */
+  public static final String FETCH_THREADS = "fetchThreads";
+
   // In case of TLOG replica, if leaderVersion = zero, don't do commit
   // otherwise updates from current tlog won't be copied over properly to the new tlog,
   // leading to data loss.
@@ -1601,6 +1708,9 @@ public class ReplicationHandler extends RequestHandlerBase
 
   public static final String CMD_DELETE_BACKUP = "deletebackup";
 
+  /** Sent by a shard leader to its TLOG and PULL replicas after a commit */
+  public static final String CMD_NOTIFY_COMMIT = "notifycommit";
+
   public static final String SIZE = "size";
 
   public static final String ALIAS = "alias";
@@ -16,6 +16,7 @@
  */
 package org.apache.solr.handler;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Array;
@@ -28,16 +29,28 @@ import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.util.EnvUtils;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.core.CachingDirectoryFactory;
+import org.apache.solr.core.CoreContainer;
 import org.apache.solr.core.DirectoryFactory;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.core.backup.BackupFilePaths;
 import org.apache.solr.core.backup.Checksum;
+import org.apache.solr.core.backup.LazyRestoreDirectory;
 import org.apache.solr.core.backup.ShardBackupId;
 import org.apache.solr.core.backup.ShardBackupMetadata;
 import org.apache.solr.core.backup.repository.BackupRepository;
@@ -48,8 +61,22 @@ public class RestoreCore implements Callable<Boolean> {
 
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  // how many files of a lazy restore are copied at once
+  private static final int HYDRATION_THREADS =
+      Integer.getInteger("solr.restore.lazy.threads", 2);
+  // how many times the files of a lazy restore are copied, before the core is marked down
+  private static final int HYDRATION_ATTEMPTS = 5;
+  private static final long HYDRATION_RETRY_DELAY_SECONDS = 60;
+
+  // called with the name of each file that a lazy restore copies in the background
+  public static Consumer<String> testing_hydrationCopyHook;
+
   private final SolrCore core;
   private RestoreRepository repository;
+  private boolean lazy;
+  private LazyRestoreDirectory lazyDirectory;
+  private BackupFiles backupFiles;
+  private volatile boolean hydrating;
 
   private RestoreCore(SolrCore core, RestoreRepository repository) {
     this.core = core;
@@ -77,6 +104,34 @@ public class RestoreCore implements Callable<Boolean> {
     return new RestoreCore(core, resolver);
   }
 
+  /**
+   * Whether restores through the core admin API let the core open the restored index before all
+   * its files are copied, see {@link #setLazy}.
+   */
+  public static boolean isLazyEnabled() {
+    return EnvUtils.getPropertyAsBool("solr.restore.lazy", false);
+  }
+
+  /**
+   * Lets the core open the restored index, and serve queries, before the files of the backup are
+   * copied: they are read from the backup until they are copied in the background, see {@link
+   * LazyRestoreDirectory}. When this is the case after {@link #doRestore}, {@link
+   * #isRepositoryInUse()} is true and the {@link BackupRepository} is closed with the index.
+   *
+   * <p>This needs a {@link CachingDirectoryFactory}; a full copy is made with any other.
+   */
+  public void setLazy(boolean lazy) {
+    this.lazy = lazy;
+  }
+
+  /**
+   * Whether files of the backup were still to be copied when {@link #doRestore} returned, in which
+   * case the restored index owns the repository: the caller must not close it.
+   */
+  public boolean isRepositoryInUse() {
+    return hydrating;
+  }
+
   @Override
   public Boolean call() throws Exception {
     return doRestore();
@@ -91,6 +146,9 @@ public class RestoreCore implements Callable<Boolean> {
     Directory restoreIndexDir = null;
     Directory indexDir = null;
     try {
+      if (lazy) {
+        wrapLazily(restoreIndexPath);
+      }
 
       restoreIndexDir =
           core.getDirectoryFactory()
@@ -123,13 +181,13 @@ public class RestoreCore implements Callable<Boolean> {
             if (!compareResult.equal
                 || (IndexFetcher.filesToAlwaysDownloadIfNoChecksums(
                     filename, cs.size, compareResult))) {
-              repository.repoCopy(filename, restoreIndexDir);
+              repoCopy(filename, restoreIndexDir);
             } else {
               // prefer local copy
               repository.localCopy(indexDir, filename, restoreIndexDir);
             }
           } else {
-            repository.repoCopy(filename, restoreIndexDir);
+            repoCopy(filename, restoreIndexDir);
           }
         } catch (Exception e) {
           log.warn("Exception while restoring the backup index ", e);
@@ -143,7 +201,7 @@ public class RestoreCore implements Callable<Boolean> {
       boolean success;
       try {
         core.getUpdateHandler().newIndexWriter(false);
-        openNewSearcher();
+        openNewSearcher(core);
         success = true;
         log.info("Successfully restored to the backup index");
       } catch (Exception e) {
@@ -168,7 +226,7 @@ public class RestoreCore implements Callable<Boolean> {
         core.getDirectoryFactory().doneWithDirectory(restoreIndexDir);
         core.getDirectoryFactory().remove(restoreIndexDir);
         core.getUpdateHandler().newIndexWriter(false);
-        openNewSearcher();
+        openNewSearcher(core);
         throw new SolrException(
             SolrException.ErrorCode.UNKNOWN, "Exception while restoring the backup index", e);
       }
@@ -176,6 +234,9 @@ public class RestoreCore implements Callable<Boolean> {
         core.getDirectoryFactory().doneWithDirectory(indexDir);
         // Cleanup all index files not associated with any *named* snapshot.
         core.deleteNonSnapshotIndexFiles(indexDirPath);
+        if (lazyDirectory != null && !lazyDirectory.isHydrated()) {
+          hydrateInBackground(lazyDirectory);
+        }
       }
 
       return true;
@@ -189,13 +250,184 @@ public class RestoreCore implements Callable<Boolean> {
     }
   }
 
+  private void wrapLazily(String restoreIndexPath) throws IOException {
+    if (!(core.getDirectoryFactory() instanceof CachingDirectoryFactory directoryFactory)) {
+      log.warn(
+          "Can't restore lazily with {}, copying the whole backup",
+          core.getDirectoryFactory().getClass().getSimpleName());
+      return;
+    }
+    backupFiles = new BackupFiles(repository);
+    directoryFactory.wrapOnCreate(
+        restoreIndexPath, dir -> lazyDirectory = new LazyRestoreDirectory(dir, backupFiles));
+  }
+
+  private void repoCopy(String filename, Directory restoreIndexDir) throws IOException {
+    if (lazyDirectory != null) {
+      lazyDirectory.addRemoteFile(filename);
+    } else {
+      repository.repoCopy(filename, restoreIndexDir);
+    }
+  }
+
+  /**
+   * Copies the files that are still read from the backup, then opens a new index writer and
+   * searcher so that they are read locally. The copy stops when the restored directory is closed.
+   */
+  private void hydrateInBackground(LazyRestoreDirectory directory) {
+    if (log.isInfoEnabled()) {
+      log.info(
+          "Restored index is open, copying {} files from the backup in the background",
+          directory.getRemoteFileCount());
+    }
+    hydrating = true;
+    Hydration hydration = new Hydration(directory, core.getCoreContainer(), core.getName());
+    backupFiles.hydration = hydration;
+    hydration.start();
+  }
+
+  /**
+   * The files of the backup of a lazy restore, read until they are copied. The directory is only
+   * closed once no core uses it anymore: a reloaded core keeps the same one, and the copy goes on.
+   */
+  private static class BackupFiles implements LazyRestoreDirectory.RemoteFiles {
+    private final RestoreRepository repository;
+    // set once the core serves the restored index, which then owns the repository
+    private volatile Hydration hydration;
+
+    BackupFiles(RestoreRepository repository) {
+      this.repository = repository;
+    }
+
+    @Override
+    public IndexInput openInput(String fileName) throws IOException {
+      return repository.openInput(fileName);
+    }
+
+    @Override
+    public void copy(String fileName, Directory dest, String destFileName) throws IOException {
+      if (testing_hydrationCopyHook != null) {
+        testing_hydrationCopyHook.accept(fileName);
+      }
+      repository.repoCopy(fileName, dest, destFileName);
+    }
+
+    @Override
+    public void close() throws IOException {
+      Hydration hydration = this.hydration;
+      if (hydration != null) {
+        hydration.stop();
+        repository.close();
+      }
+    }
+  }
+
+  /**
+   * The background copy of the files of a lazy restore, which is tried again a few times if some
+   * files could not be copied. The core is marked down if they still can't be: reading from the
+   * backup can't go on forever. It only refers to the core by name, since the core may be reloaded
+   * in the meantime.
+   */
+  private static class Hydration {
+    private final LazyRestoreDirectory directory;
+    private final CoreContainer coreContainer;
+    private final String coreName;
+    private final ExecutorService executor =
+        ExecutorUtil.newMDCAwareFixedThreadPool(
+            HYDRATION_THREADS, new SolrNamedThreadFactory("restoreHydration"));
+    private int attempts;
+    private boolean closed;
+
+    Hydration(LazyRestoreDirectory directory, CoreContainer coreContainer, String coreName) {
+      this.directory = directory;
+      this.coreContainer = coreContainer;
+      this.coreName = coreName;
+    }
+
+    synchronized void start() {
+      if (closed) {
+        return;
+      }
+      attempts++;
+      try {
+        directory.hydrate(executor).whenComplete((v, e) -> done(e));
+      } catch (RejectedExecutionException e) {
+        // the directory was closed
+      }
+    }
+
+    private synchronized void done(Throwable failure) {
+      if (closed) {
+        return;
+      }
+      if (failure != null) {
+        if (attempts < HYDRATION_ATTEMPTS) {
+          log.warn(
+              "Could not copy all the files of the restored index, trying again in {}s",
+              HYDRATION_RETRY_DELAY_SECONDS * attempts,
+              failure);
+          CompletableFuture.delayedExecutor(
+                  HYDRATION_RETRY_DELAY_SECONDS * attempts, TimeUnit.SECONDS, executor)
+              .execute(this::start);
+        } else {
+          executor.shutdown();
+          markDown(failure);
+        }
+        return;
+      }
+      executor.shutdown();
+      try (SolrCore core = coreContainer.getCore(coreName)) {
+        if (core != null) {
+          core.getUpdateHandler().newIndexWriter(false);
+          openNewSearcher(core);
+          log.info("All files of the restored index were copied");
+        }
+      } catch (Exception e) {
+        log.error("Could not reopen the restored index once copied", e);
+      }
+    }
+
+    private void markDown(Throwable failure) {
+      log.error(
+          "Could not copy {} files of the restored index, marking the core down",
+          directory.getRemoteFileCount(),
+          failure);
+      if (coreContainer.isZooKeeperAware()) {
+        try (SolrCore core = coreContainer.getCore(coreName)) {
+          if (core != null) {
+            coreContainer.getZkController().publish(core.getCoreDescriptor(), Replica.State.DOWN);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } catch (Exception e) {
+          log.error("Could not mark the core down", e);
+        }
+      }
+    }
+
+    /** Interrupts the copies, and waits for them unless they are done. */
+    void stop() {
+      boolean copying;
+      synchronized (this) {
+        closed = true;
+        copying = !executor.isShutdown();
+      }
+      if (copying) {
+        ExecutorUtil.shutdownNowAndAwaitTermination(executor);
+      } else {
+        // possibly from the thread that released the last core of the directory once copied
+        executor.shutdownNow();
+      }
+    }
+  }
+
   private void checkInterrupted() throws InterruptedException {
     if (Thread.currentThread().isInterrupted()) {
       throw new InterruptedException("Stopping restore process. Thread was interrupted.");
     }
   }
 
-  private void openNewSearcher() throws Exception {
+  private static void openNewSearcher(SolrCore core) throws Exception {
     Future<?>[] waitSearcher = (Future<?>[]) Array.newInstance(Future.class, 1);
     core.getSearcher(true, false, waitSearcher, true);
     if (waitSearcher[0] != null) {
@@ -204,13 +436,15 @@ public class RestoreCore implements Callable<Boolean> {
   }
 
   /** A minimal version of {@link BackupRepository} used for restoring */
-  private interface RestoreRepository {
+  private interface RestoreRepository extends Closeable {
     String[] listAllFiles() throws IOException;
 
     IndexInput openInput(String filename) throws IOException;
 
     void repoCopy(String filename, Directory dest) throws IOException;
 
+    void repoCopy(String filename, Directory dest, String destFileName) throws IOException;
+
     void localCopy(Directory src, String filename, Directory dest) throws IOException;
 
     Checksum checksum(String filename) throws IOException;
@@ -233,7 +467,7 @@ public class RestoreCore implements Callable<Boolean> {
 
     @Override
     public IndexInput openInput(String filename) throws IOException {
-      return repository.openInput(backupPath, filename, IOContext.READONCE);
+      return repository.openInput(backupPath, filename, IOContext.DEFAULT);
     }
 
     @Override
@@ -241,6 +475,17 @@ public class RestoreCore implements Callable<Boolean> {
       repository.copyFileTo(backupPath, filename, dest);
     }
 
+    @Override
+    public void repoCopy(String filename, Directory dest, String destFileName)
+        throws IOException {
+      repository.copyIndexFileTo(backupPath, filename, dest, destFileName);
+    }
+
+    @Override
+    public void close() throws IOException {
+      repository.close();
+    }
+
     @Override
     public void localCopy(Directory src, String filename, Directory dest) throws IOException {
       dest.copyFrom(src, filename, filename, IOContext.READONCE);
@@ -288,13 +533,24 @@ public class RestoreCore implements Callable<Boolean> {
     @Override
     public IndexInput openInput(String filename) throws IOException {
       String storedFileName = getStoredFilename(filename);
-      return repository.openInput(indexURI, storedFileName, IOContext.READONCE);
+      return repository.openInput(indexURI, storedFileName, IOContext.DEFAULT);
     }
 
     @Override
     public void repoCopy(String filename, Directory dest) throws IOException {
+      repoCopy(filename, dest, filename);
+    }
+
+    @Override
+    public void repoCopy(String filename, Directory dest, String destFileName)
+        throws IOException {
       String storedFileName = getStoredFilename(filename);
-      repository.copyIndexFileTo(this.indexURI, storedFileName, dest, filename);
+      repository.copyIndexFileTo(this.indexURI, storedFileName, dest, destFileName);
+    }
+
+    @Override
+    public void close() throws IOException {
+      repository.close();
     }
 
     @Override
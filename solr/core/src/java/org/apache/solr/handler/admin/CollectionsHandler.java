@@ -577,6 +577,8 @@ public class CollectionsHandler extends RequestHandlerBase implements Permission
               CommonParams.ROWS,
               CommonParams.Q,
               CommonParams.FL,
+              ReindexCollectionCmd.WORKERS,
+              ReindexCollectionCmd.MAX_DOCS_PER_SECOND,
               FOLLOW_ALIASES);
           copy(req.getParams(), m, CollectionHandlingUtils.numReplicasProperties());
           if (req.getParams().get("collection." + ZkStateReader.CONFIGNAME_PROP) != null) {
@@ -85,9 +85,9 @@ public class RestoreCore extends CoreAdminAPIBase implements RestoreCoreApi {
   }
 
   private void doRestore(String coreName, RestoreCoreRequestBody requestBody) throws Exception {
-    try (BackupRepository repository =
-            coreContainer.newBackupRepository(requestBody.backupRepository);
-        SolrCore core = coreContainer.getCore(coreName)) {
+    BackupRepository repository = coreContainer.newBackupRepository(requestBody.backupRepository);
+    org.apache.solr.handler.RestoreCore restoreCore = null;
+    try (SolrCore core = coreContainer.getCore(coreName)) {
 
       String location = repository.getBackupLocation(requestBody.location);
       if (location == null) {
@@ -116,7 +116,6 @@ public class RestoreCore extends CoreAdminAPIBase implements RestoreCoreApi {
                 + ", the core must be the only replica in its shard or it must be read only");
       }
 
-      org.apache.solr.handler.RestoreCore restoreCore;
       if (requestBody.shardBackupId != null) {
         final ShardBackupId shardBackupId = ShardBackupId.from(requestBody.shardBackupId);
         restoreCore =
@@ -127,6 +126,7 @@ public class RestoreCore extends CoreAdminAPIBase implements RestoreCoreApi {
             org.apache.solr.handler.RestoreCore.create(
                 repository, core, locationUri, requestBody.name);
       }
+      restoreCore.setLazy(org.apache.solr.handler.RestoreCore.isLazyEnabled());
       boolean success = restoreCore.doRestore();
       if (!success) {
         throw new SolrException(
@@ -144,6 +144,11 @@ public class RestoreCore extends CoreAdminAPIBase implements RestoreCoreApi {
       if (updateLog != null) {
         updateLog.applyBufferedUpdates();
       }
+    } finally {
+      // a lazily restored index reads from the repository until its files are copied
+      if (restoreCore == null || !restoreCore.isRepositoryInUse()) {
+        repository.close();
+      }
     }
   }
 
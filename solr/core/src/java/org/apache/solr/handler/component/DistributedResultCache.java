@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
+
+/**
+ * Caches the final, merged response of distributed searches on the node that coordinates them, so
+ * that repeated queries do not need to fan out to the shards again.
+ *
+ * <p>Entries are keyed on the normalized request parameters plus the collection and logical shards
+ * involved, not on the user, so {@link SearchHandler} does not cache authenticated requests. Every
+ * entry remembers the index version that each contributing replica reported (see {@link
+ * org.apache.solr.common.params.ShardParams#SHARDS_INDEX_VERSION}), and is only served once the
+ * caller checked that these replicas still have the same index open, see {@link #get(String,
+ * Predicate)}. Since every distributed request that passes through this node reports the versions
+ * it sees via {@link #observeVersion(String, long)}, an entry is also discarded without asking as
+ * soon as any of its replicas is known to have opened a newer searcher. Entries expire after {@code
+ * maxAgeMs}.
+ *
+ * <p>The response values are stored in javabin form, so that every hit gets its own copy of them.
+ */
+public class DistributedResultCache {
+
+  /** Name of the {@code SearchHandler} init arg holding the cache configuration. */
+  public static final String CONFIG_NAME = "distribResultCache";
+
+  private final Cache<String, Entry> cache;
+  private final Map<String, Long> latestVersions = new ConcurrentHashMap<>();
+
+  final LongAdder hits = new LongAdder();
+  final LongAdder misses = new LongAdder();
+  final LongAdder invalidations = new LongAdder();
+
+  public DistributedResultCache(int maxSize, long maxAgeMs) {
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(maxAgeMs, TimeUnit.MILLISECONDS)
+            .build();
+  }
+
+  /**
+   * Creates a cache from the {@value #CONFIG_NAME} init arg of a search handler, or returns null if
+   * it is not configured or its size is not positive.
+   */
+  public static DistributedResultCache fromConfig(NamedList<?> initArgs) {
+    if (initArgs == null || !(initArgs.get(CONFIG_NAME) instanceof NamedList<?> config)) {
+      return null;
+    }
+    SolrParams params = config.toSolrParams();
+    int size = params.getInt("size", 512);
+    long maxAgeMs = params.getLong("maxAgeMs", 60000L);
+    if (size <= 0 || maxAgeMs <= 0) {
+      return null;
+    }
+    return new DistributedResultCache(size, maxAgeMs);
+  }
+
+  /**
+   * Computes the cache key for a request. Parameter names are sorted so that equivalent requests
+   * share an entry; the order of values of a multi-valued parameter is kept. Logical shard names
+   * are used where available because the replica lists in {@link ResponseBuilder#shards} are
+   * shuffled per request.
+   */
+  public static String computeKey(
+      String collection, SolrParams params, String[] slices, String[] shards) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(collection).append('\u0000');
+    TreeSet<String> names = new TreeSet<>();
+    for (Iterator<String> it = params.getParameterNamesIterator(); it.hasNext(); ) {
+      names.add(it.next());
+    }
+    for (String name : names) {
+      sb.append(name).append('=');
+      String[] values = params.getParams(name);
+      if (values != null) {
+        for (String value : values) {
+          sb.append(value).append('\u0001');
+        }
+      }
+      sb.append('\u0000');
+    }
+    if (shards != null) {
+      String[] logical = new String[shards.length];
+      for (int i = 0; i < shards.length; i++) {
+        logical[i] = (slices != null && slices[i] != null) ? slices[i] : shards[i];
+      }
+      Arrays.sort(logical);
+      for (String shard : logical) {
+        sb.append(shard).append(',');
+      }
+    }
+    return sb.toString();
+  }
+
+  /** Records the index version a replica reported in a response passing through this node. */
+  public void observeVersion(String shardAddress, long version) {
+    latestVersions.merge(shardAddress, version, Math::max);
+  }
+
+  /**
+   * Returns a copy of the cached response values for the key, or null if there is no entry or it
+   * was produced by a replica that has since opened a newer index.
+   *
+   * @param isCurrent checks that the replicas that produced the entry still have the same index
+   *     open, given the version of the index of each replica
+   */
+  public NamedList<Object> get(String key, Predicate<Map<String, Long>> isCurrent)
+      throws IOException {
+    Entry entry = cache.getIfPresent(key);
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    boolean current = true;
+    for (Map.Entry<String, Long> shardVersion : entry.shardVersions.entrySet()) {
+      Long latest = latestVersions.get(shardVersion.getKey());
+      if (latest != null && latest > shardVersion.getValue()) {
+        current = false;
+        break;
+      }
+    }
+    if (!current || !isCurrent.test(entry.shardVersions)) {
+      cache.asMap().remove(key, entry);
+      invalidations.increment();
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    try (JavaBinCodec codec = new JavaBinCodec()) {
+      @SuppressWarnings("unchecked")
+      NamedList<Object> values = (NamedList<Object>) codec.unmarshal(entry.values);
+      return values;
+    }
+  }
+
+  /**
+   * Caches the response values of a completed request along with the index versions of the
+   * replicas that contributed to it. Nothing is cached if no replica reported its version.
+   */
+  public void put(String key, NamedList<Object> values, Map<String, Long> shardVersions)
+      throws IOException {
+    if (shardVersions.isEmpty()) {
+      return;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (JavaBinCodec codec = new JavaBinCodec()) {
+      codec.marshal(values, bytes);
+    }
+    cache.put(key, new Entry(bytes.toByteArray(), Map.copyOf(shardVersions)));
+  }
+
+  public long size() {
+    return cache.estimatedSize();
+  }
+
+  public void clear() {
+    cache.invalidateAll();
+    latestVersions.clear();
+  }
+
+  private record Entry(byte[] values, Map<String, Long> shardVersions) {}
+}
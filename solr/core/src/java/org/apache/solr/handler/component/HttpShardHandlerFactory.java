@@ -92,6 +92,7 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory
   int permittedLoadBalancerRequestsMinimumAbsolute = 0;
   float permittedLoadBalancerRequestsMaximumFraction = 1.0f;
   boolean accessPolicy = false;
+  boolean useVirtualThreads = ExecutorUtil.isVirtualThreadsEnabled();
   private SolrMetricsContext solrMetricsContext;
 
   private String scheme = null;
@@ -127,6 +128,9 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory
   // Configure if the threadpool favours fairness over throughput
   static final String INIT_FAIRNESS_POLICY = "fairnessPolicy";
 
+  // Run shard requests on virtual threads, defaults to the solr.threads.virtual.enabled sysprop
+  static final String INIT_USE_VIRTUAL_THREADS = "useVirtualThreads";
+
   /** Get {@link ShardHandler} that uses the default http client. */
   @Override
   public ShardHandler getShardHandler() {
@@ -259,6 +263,7 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory
             permittedLoadBalancerRequestsMaximumFraction,
             sb);
     this.accessPolicy = getParameter(args, INIT_FAIRNESS_POLICY, accessPolicy, sb);
+    this.useVirtualThreads = getParameter(args, INIT_USE_VIRTUAL_THREADS, useVirtualThreads, sb);
 
     // magic sysprop to make tests reproducible: set by SolrTestCaseJ4.
     String v = System.getProperty("tests.shardhandler.randomSeed");
@@ -278,7 +283,7 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory
             this.keepAliveTime,
             TimeUnit.SECONDS,
             blockingQueue,
-            new SolrNamedThreadFactory("httpShardExecutor"),
+            new SolrNamedThreadFactory("httpShardExecutor", useVirtualThreads),
             // the Runnable added to this executor handles all exceptions so we disable stack trace
             // collection as an optimization. see SOLR-11880 for more details
             false);
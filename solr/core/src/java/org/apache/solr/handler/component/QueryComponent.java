@@ -658,6 +658,9 @@ public class QueryComponent extends SearchComponent {
 
   @Override
   public void handleResponses(ResponseBuilder rb, ShardRequest sreq) {
+    if ((sreq.purpose & ShardRequest.PURPOSE_SET_TERM_STATS) != 0) {
+      rb.req.getSearcher().getStatsCache().receiveShardResponses(rb, sreq);
+    }
     if (rb.grouping()) {
       handleGroupedResponses(rb, sreq);
     } else {
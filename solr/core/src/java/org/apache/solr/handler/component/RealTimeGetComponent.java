@@ -96,6 +96,7 @@ import org.apache.solr.update.IndexFingerprint;
 import org.apache.solr.update.PeerSync;
 import org.apache.solr.update.PeerSyncWithLeader;
 import org.apache.solr.update.UpdateLog;
+import org.apache.solr.update.VersionBuckets;
 import org.apache.solr.update.processor.AtomicUpdateDocumentMerger;
 import org.apache.solr.util.RefCounted;
 import org.apache.solr.util.TestInjection;
@@ -163,6 +164,12 @@ public class RealTimeGetComponent extends SearchComponent {
       return;
     }
 
+    val = params.get("getVersionBuckets");
+    if (val != null) {
+      processGetVersionBuckets(rb);
+      return;
+    }
+
     val = params.get("getUpdates");
     if (val != null) {
       // solrcloud_debug
@@ -1265,6 +1272,33 @@ public class RealTimeGetComponent extends SearchComponent {
     }
   }
 
+  /**
+   * Describes ranges of the last versions added to the update log for {@link PeerSync}, see {@link
+   * VersionBuckets}
+   */
+  public void processGetVersionBuckets(ResponseBuilder rb) throws IOException {
+    SolrParams params = rb.req.getParams();
+
+    int nVersions = params.getInt("getVersionBuckets", -1);
+    if (nVersions == -1) return;
+
+    UpdateLog ulog = rb.req.getCore().getUpdateHandler().getUpdateLog();
+    if (ulog == null) return;
+
+    List<Long> versions;
+    try (UpdateLog.RecentUpdates recentUpdates = ulog.getRecentUpdates()) {
+      versions = recentUpdates.getVersions(nVersions);
+    }
+    String ranges = params.get("versionRanges");
+    rb.rsp.add(
+        "versionBuckets",
+        VersionBuckets.describe(
+            versions,
+            ranges == null ? null : StrUtils.splitSmart(ranges, ",", true),
+            params.getInt("buckets", VersionBuckets.DEFAULT_BUCKETS),
+            params.getInt("maxBucketVersions", VersionBuckets.DEFAULT_MAX_BUCKET_VERSIONS)));
+  }
+
   public void processSyncWithLeader(
       ResponseBuilder rb, int nVersions, String syncWithLeader, List<Long> versions) {
     try (PeerSyncWithLeader peerSync =
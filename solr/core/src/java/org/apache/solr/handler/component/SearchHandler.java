@@ -33,8 +33,10 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.invoke.MethodHandles;
+import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -101,6 +103,7 @@ public class SearchHandler extends RequestHandlerBase
   private ShardHandlerFactory shardHandlerFactory;
   private PluginInfo shfInfo;
   private SolrCore core;
+  private volatile DistributedResultCache resultCache;
 
   protected List<String> getDefaultComponents() {
     ArrayList<String> names = new ArrayList<>(9);
@@ -141,6 +144,41 @@ public class SearchHandler extends RequestHandlerBase
                 .put(INTERNAL_ATTR, true)
                 .build(),
             false);
+    Attributes cacheAttributes =
+        Attributes.builder()
+            .putAll(attributes)
+            .put(CATEGORY_ATTR, getCategory().toString())
+            .build();
+    solrMetricsContext.observableLongCounter(
+        "solr_core_distrib_result_cache_lookups",
+        "Lookups in the coordinator-level distributed result cache",
+        measurement -> {
+          DistributedResultCache cache = resultCache;
+          if (cache != null) {
+            measurement.record(
+                cache.hits.sum(), cacheAttributes.toBuilder().put(RESULT_ATTR, "hit").build());
+            measurement.record(
+                cache.misses.sum(), cacheAttributes.toBuilder().put(RESULT_ATTR, "miss").build());
+          }
+        });
+    solrMetricsContext.observableLongCounter(
+        "solr_core_distrib_result_cache_invalidations",
+        "Distributed result cache entries discarded because a shard reported a newer index",
+        measurement -> {
+          DistributedResultCache cache = resultCache;
+          if (cache != null) {
+            measurement.record(cache.invalidations.sum(), cacheAttributes);
+          }
+        });
+    solrMetricsContext.observableLongGauge(
+        "solr_core_distrib_result_cache_size",
+        "Number of entries in the distributed result cache",
+        measurement -> {
+          DistributedResultCache cache = resultCache;
+          if (cache != null) {
+            measurement.record(cache.size(), cacheAttributes);
+          }
+        });
   }
 
   @Override
@@ -163,6 +201,7 @@ public class SearchHandler extends RequestHandlerBase
   @SuppressWarnings("unchecked")
   public void inform(SolrCore core) {
     this.core = core;
+    this.resultCache = DistributedResultCache.fromConfig(initArgs);
     List<String> c = (List<String>) initArgs.get(INIT_COMPONENTS);
     Set<String> missing = new HashSet<>(core.getSearchComponents().checkContains(c));
     List<String> first = (List<String>) initArgs.get(INIT_FIRST_COMPONENTS);
@@ -216,6 +255,19 @@ public class SearchHandler extends RequestHandlerBase
     }
   }
 
+  @Override
+  public void handleRequest(SolrQueryRequest req, SolrQueryResponse rsp) {
+    final long startNanos = System.nanoTime();
+    try {
+      super.handleRequest(req, rsp);
+    } finally {
+      SolrCore core = req.getCore();
+      if (core != null) {
+        core.getSearchLatencyTracker().record(System.nanoTime() - startNanos);
+      }
+    }
+  }
+
   @Override
   public void handleRequestBody(SolrQueryRequest req, SolrQueryResponse rsp) throws Exception {
     List<SearchComponent> components = getComponents();
@@ -236,6 +288,16 @@ public class SearchHandler extends RequestHandlerBase
       return; // Circuit breaker tripped, return immediately
     }
 
+    if (req.getParams().getBool(ShardParams.SHARDS_INDEX_VERSION, false)
+        && rsp.getResponseHeader() != null) {
+      // let a coordinator with a distributed result cache know which index it is looking at
+      rsp.getResponseHeader()
+          .add(ShardParams.INDEX_VERSION, req.getSearcher().getIndexReader().getVersion());
+      if (req.getParams().getBool(ShardParams.SHARDS_INDEX_VERSION_ONLY, false)) {
+        return;
+      }
+    }
+
     processComponents(req, rsp, rb, components);
   }
 
@@ -409,9 +471,145 @@ public class SearchHandler extends RequestHandlerBase
 
     if (shardHandler == null) {
       processComponentsLocal(req, rsp, rb, timer, components);
-    } else {
+      return;
+    }
+
+    final DistributedResultCache resultCache = this.resultCache;
+    if (resultCache == null) {
       processComponentsDistrib(req, rsp, rb, timer, components, shardHandler);
+      return;
+    }
+
+    String cacheKey = null;
+    if (isResultCacheable(req, rb)) {
+      String collection =
+          req.getCloudDescriptor() != null ? req.getCloudDescriptor().getCollectionName() : null;
+      cacheKey =
+          DistributedResultCache.computeKey(collection, req.getParams(), rb.slices, rb.shards);
+      NamedList<Object> cached =
+          resultCache.get(
+              cacheKey, versions -> isIndexUnchanged(req, shardHandler, resultCache, versions));
+      if (cached != null) {
+        for (Map.Entry<String, Object> entry : cached) {
+          rsp.add(entry.getKey(), entry.getValue());
+        }
+        rsp.addToLog(DistributedResultCache.CONFIG_NAME, "hit");
+        return;
+      }
     }
+
+    // components may have added to the response while preparing; those are redone on a cache hit
+    final int preparedValues = rsp.getValues().size();
+    processComponentsDistrib(req, rsp, rb, timer, components, shardHandler);
+
+    Map<String, Long> shardVersions = new HashMap<>();
+    if (rb.finished != null) {
+      for (ShardRequest sreq : rb.finished) {
+        for (ShardResponse srsp : sreq.responses) {
+          Long version = getShardIndexVersion(srsp);
+          if (version != null) {
+            resultCache.observeVersion(srsp.getShardAddress(), version);
+            shardVersions.merge(srsp.getShardAddress(), version, Math::max);
+          }
+        }
+      }
+    }
+
+    if (cacheKey != null
+        && rsp.getException() == null
+        && SolrQueryResponse.haveCompleteResults(rsp.getResponseHeader())) {
+      NamedList<Object> values = new NamedList<>();
+      NamedList<Object> all = rsp.getValues();
+      for (int i = preparedValues; i < all.size(); i++) {
+        values.add(all.getName(i), all.getVal(i));
+      }
+      resultCache.put(cacheKey, values, shardVersions);
+    }
+  }
+
+  /** The distributed result cache of this handler, or null if it has none. */
+  DistributedResultCache getResultCache() {
+    return resultCache;
+  }
+
+  /**
+   * Whether the final response to this distributed request may be served from, and stored in, the
+   * {@link DistributedResultCache}. Entries are keyed on the request parameters only, so requests
+   * of authenticated users are never cached: plugins may filter their results by user.
+   */
+  protected boolean isResultCacheable(SolrQueryRequest req, ResponseBuilder rb) {
+    return req.getParams().getBool(ShardParams.DISTRIB_RESULT_CACHE, true)
+        && !rb.isDebug()
+        && rb.shards != null
+        && !isAuthenticated(req);
+  }
+
+  private static boolean isAuthenticated(SolrQueryRequest req) {
+    // local requests have a principal without a name
+    Principal principal = req.getUserPrincipal();
+    if (principal != null && principal.getName() != null) {
+      return true;
+    }
+    CoreContainer coreContainer = req.getCoreContainer();
+    return coreContainer != null && coreContainer.getAuthenticationPlugin() != null;
+  }
+
+  /**
+   * Asks the replicas that produced a cached response for the version of the index they have open,
+   * returning whether none of them opened a new one since.
+   */
+  private boolean isIndexUnchanged(
+      SolrQueryRequest req,
+      ShardHandler shardHandler,
+      DistributedResultCache resultCache,
+      Map<String, Long> shardVersions) {
+    ShardRequest sreq = new ShardRequest();
+    sreq.purpose = ShardRequest.PURPOSE_PRIVATE;
+    sreq.shards = shardVersions.keySet().toArray(new String[0]);
+    sreq.actualShards = sreq.shards;
+    sreq.responses = new ArrayList<>(sreq.shards.length);
+    String shardQt = req.getParams().get(ShardParams.SHARDS_QT);
+    String reqPath = (String) req.getContext().get(PATH);
+    for (String shard : sreq.shards) {
+      ModifiableSolrParams params = new ModifiableSolrParams();
+      ShardHandler.setShardAttributesToParams(params, sreq.purpose);
+      params.set(ShardParams.SHARDS_INDEX_VERSION, true);
+      params.set(ShardParams.SHARDS_INDEX_VERSION_ONLY, true);
+      if (shardQt != null) {
+        params.set(CommonParams.QT, shardQt);
+      } else if (!"/select".equals(reqPath)) {
+        params.set(CommonParams.QT, reqPath);
+      }
+      shardHandler.submit(sreq, shard, params);
+    }
+    boolean unchanged = true;
+    while (shardHandler.takeCompletedIncludingErrors() != null) {
+      for (ShardResponse srsp : sreq.responses) {
+        Long version = getShardIndexVersion(srsp);
+        if (version == null) {
+          // can't tell, e.g. the replica is gone
+          unchanged = false;
+        } else {
+          resultCache.observeVersion(srsp.getShardAddress(), version);
+          unchanged &= version.equals(shardVersions.get(srsp.getShardAddress()));
+        }
+      }
+    }
+    return unchanged;
+  }
+
+  private static Long getShardIndexVersion(ShardResponse srsp) {
+    if (srsp.getException() != null
+        || srsp.getSolrResponse() == null
+        || srsp.getSolrResponse().getResponse() == null) {
+      return null;
+    }
+    Object header = srsp.getSolrResponse().getResponse().get(SolrQueryResponse.RESPONSE_HEADER_KEY);
+    if (header instanceof NamedList<?> nl
+        && nl.get(ShardParams.INDEX_VERSION) instanceof Number version) {
+      return version.longValue();
+    }
+    return null;
   }
 
   private static boolean prepareComponents(
@@ -558,6 +756,9 @@ public class SearchHandler extends RequestHandlerBase
           for (String shard : sreq.actualShards) {
             ModifiableSolrParams params = new ModifiableSolrParams(sreq.params);
             ShardHandler.setShardAttributesToParams(params, sreq.purpose);
+            if (resultCache != null) {
+              params.set(ShardParams.SHARDS_INDEX_VERSION, true);
+            }
 
             // Distributed request -- need to send queryID as a part of the distributed request
             params.setNonNull(ShardParams.QUERY_ID, rb.queryID);
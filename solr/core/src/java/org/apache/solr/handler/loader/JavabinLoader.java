@@ -19,7 +19,11 @@ package org.apache.solr.handler.loader;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -28,6 +32,7 @@ import org.apache.solr.client.solrj.request.JavaBinUpdateRequestCodec;
 import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
 import org.apache.solr.common.params.ShardParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.params.UpdateParams;
@@ -37,10 +42,12 @@ import org.apache.solr.common.util.DataInputInputStream;
 import org.apache.solr.common.util.FastInputStream;
 import org.apache.solr.common.util.JavaBinCodec;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.Utf8CharSequence;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.SolrQueryResponse;
 import org.apache.solr.update.AddUpdateCommand;
 import org.apache.solr.update.DeleteUpdateCommand;
+import org.apache.solr.update.processor.AtomicUpdateDocumentMerger;
 import org.apache.solr.update.processor.UpdateRequestProcessor;
 
 /**
@@ -89,6 +96,10 @@ public class JavabinLoader extends ContentStreamLoader {
       handleMultiStream(req, rsp, stream, processor);
       return;
     }
+    // string values can stay UTF-8 from the request to the index, the tlog and the replicas if no
+    // processor looks at them
+    final boolean utf8Strings =
+        req.getCore().getUpdateProcessorChain(req.getParams()).passesFieldValuesThrough(req);
     UpdateRequest update = null;
     JavaBinUpdateRequestCodec.StreamingUpdateHandler handler =
         new JavaBinUpdateRequestCodec.StreamingUpdateHandler() {
@@ -107,6 +118,10 @@ public class JavabinLoader extends ContentStreamLoader {
               addCmd = getAddCommand(req, updateRequest.getParams());
             }
             addCmd.solrDoc = document;
+            if (utf8Strings && AtomicUpdateDocumentMerger.isAtomicUpdate(addCmd)) {
+              // atomic updates compare and merge values with those of the indexed document
+              convertCharSeqs(document);
+            }
             if (commitWithin != null) {
               addCmd.commitWithin = commitWithin;
             }
@@ -132,7 +147,10 @@ public class JavabinLoader extends ContentStreamLoader {
     for (; ; ) {
       if (in.peek() == -1) return;
       try {
-        update = new JavaBinUpdateRequestCodec().unmarshal(in, handler);
+        update =
+            new JavaBinUpdateRequestCodec()
+                .setReadDocStringsAsCharSeq(utf8Strings)
+                .unmarshal(in, handler);
       } catch (EOFException e) {
         break; // this is expected
       }
@@ -142,6 +160,37 @@ public class JavabinLoader extends ContentStreamLoader {
     }
   }
 
+  private static void convertCharSeqs(SolrInputDocument doc) {
+    for (SolrInputField field : doc) {
+      field.setValue(convertCharSeqs(field.getValue()));
+    }
+    if (doc.hasChildDocuments()) {
+      for (SolrInputDocument child : doc.getChildDocuments()) {
+        convertCharSeqs(child);
+      }
+    }
+  }
+
+  private static Object convertCharSeqs(Object value) {
+    if (value instanceof Utf8CharSequence) {
+      return value.toString();
+    } else if (value instanceof SolrInputDocument doc) {
+      convertCharSeqs(doc);
+    } else if (value instanceof Map<?, ?> map) {
+      Map<Object, Object> copy = new LinkedHashMap<>(map.size());
+      map.forEach((k, v) -> copy.put(k, convertCharSeqs(v)));
+      return copy;
+    } else if (value instanceof Collection<?> values) {
+      Collection<Object> copy =
+          values instanceof Set ? new LinkedHashSet<>(values.size()) : new ArrayList<>();
+      for (Object v : values) {
+        copy.add(convertCharSeqs(v));
+      }
+      return copy;
+    }
+    return value;
+  }
+
   private void handleMultiStream(
       SolrQueryRequest req,
       SolrQueryResponse rsp,
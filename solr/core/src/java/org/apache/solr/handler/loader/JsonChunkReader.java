@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.loader;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import org.apache.solr.common.SolrException;
+
+/**
+ * Splits JSON into chunks of whole records so that {@link JsonLoader} can parse them on several
+ * threads. A record is a value at the top level (as in JSON lines), or an element of an array at
+ * the top level. Only strings and nesting are tracked, which is much cheaper than parsing; the
+ * records themselves are validated when they are parsed. Comments inside records are not supported.
+ *
+ * <p>Unless objects are allowed at the top level, reading stops at the first top level value that
+ * isn't an array, and {@link #remaining()} returns the rest of the input to be parsed sequentially.
+ */
+class JsonChunkReader {
+
+  private final Reader reader;
+  private final boolean allowTopLevelObjects;
+  private final char[] buf = new char[8192];
+  private int pos;
+  private int end;
+
+  private boolean inTopLevelArray;
+  private boolean stopped;
+  private long records;
+
+  /**
+   * @param allowTopLevelObjects whether objects may be records at the top level, not only in an
+   *     array
+   */
+  JsonChunkReader(Reader reader, boolean allowTopLevelObjects) {
+    this.reader = reader;
+    this.allowTopLevelObjects = allowTopLevelObjects;
+  }
+
+  /**
+   * Reads the next records, one per line, until there are at least {@code maxChars} characters or
+   * {@code maxRecords} records.
+   *
+   * @return the records, or null at the end of the input or where reading stopped
+   */
+  String nextChunk(int maxRecords, int maxChars) throws IOException {
+    StringBuilder chunk = new StringBuilder();
+    int count = 0;
+    while (!stopped && count < maxRecords && chunk.length() < maxChars) {
+      int c = nextNonWhitespace();
+      if (c == -1) {
+        break;
+      }
+      if (inTopLevelArray) {
+        if (c == ',') {
+          continue;
+        } else if (c == ']') {
+          inTopLevelArray = false;
+          continue;
+        }
+      } else if (c == '[') {
+        inTopLevelArray = true;
+        continue;
+      } else if (!allowTopLevelObjects) {
+        pos--; // c came from buf, so this unreads it
+        stopped = true;
+        break;
+      }
+      readRecord((char) c, chunk);
+      chunk.append('\n');
+      count++;
+      records++;
+    }
+    return count == 0 ? null : chunk.toString();
+  }
+
+  /** Returns the input that wasn't read into chunks. */
+  Reader remaining() throws IOException {
+    if (pos == end) {
+      return reader;
+    }
+    PushbackReader pushback = new PushbackReader(reader, end - pos);
+    pushback.unread(buf, pos, end - pos);
+    pos = end;
+    return pushback;
+  }
+
+  private void readRecord(char first, StringBuilder out) throws IOException {
+    checkNotComment(first);
+    out.append(first);
+    if (first == '"' || first == '\'') {
+      readString(first, out);
+      return;
+    }
+    if (first != '{' && first != '[') {
+      // some other value, up to the next delimiter
+      int c;
+      while ((c = peek()) != -1 && !isDelimiter((char) c)) {
+        out.append((char) c);
+        pos++;
+      }
+      return;
+    }
+    int depth = 1;
+    while (depth > 0) {
+      int c = read();
+      if (c == -1) {
+        return; // truncated, which the parser reports
+      }
+      char ch = (char) c;
+      out.append(ch);
+      switch (ch) {
+        case '"', '\'' -> readString(ch, out);
+        case '{', '[' -> depth++;
+        case '}', ']' -> depth--;
+        default -> checkNotComment(ch);
+      }
+    }
+  }
+
+  private void readString(char quote, StringBuilder out) throws IOException {
+    int c;
+    while ((c = read()) != -1) {
+      out.append((char) c);
+      if (c == '\\') {
+        c = read();
+        if (c == -1) {
+          return;
+        }
+        out.append((char) c);
+      } else if (c == quote) {
+        return;
+      }
+    }
+  }
+
+  private void checkNotComment(char c) {
+    if (c == '/' || c == '#') {
+      throw new SolrException(
+          SolrException.ErrorCode.BAD_REQUEST,
+          "JSON comments are not supported when parsing in parallel, found one after "
+              + records
+              + " documents");
+    }
+  }
+
+  private static boolean isDelimiter(char c) {
+    return Character.isWhitespace(c) || c == ',' || c == ']' || c == '[' || c == '{';
+  }
+
+  private int nextNonWhitespace() throws IOException {
+    int c;
+    do {
+      c = read();
+    } while (c != -1 && (Character.isWhitespace(c) || c == '\uFEFF'));
+    return c;
+  }
+
+  private int peek() throws IOException {
+    if (pos == end && !fill()) {
+      return -1;
+    }
+    return buf[pos];
+  }
+
+  private int read() throws IOException {
+    if (pos == end && !fill()) {
+      return -1;
+    }
+    return buf[pos++];
+  }
+
+  private boolean fill() throws IOException {
+    int n = reader.read(buf, 0, buf.length);
+    if (n <= 0) {
+      return false;
+    }
+    pos = 0;
+    end = n;
+    return true;
+  }
+}
@@ -27,14 +27,19 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
@@ -46,6 +51,8 @@ import org.apache.solr.common.util.CollectionUtil;
 import org.apache.solr.common.util.ContentStream;
 import org.apache.solr.common.util.JsonRecordReader;
 import org.apache.solr.common.util.StrUtils;
+import org.apache.solr.common.util.Utils;
+import org.apache.solr.core.CoreContainer;
 import org.apache.solr.handler.RequestHandlerUtils;
 import org.apache.solr.handler.UpdateRequestHandler;
 import org.apache.solr.request.SolrQueryRequest;
@@ -72,6 +79,19 @@ public class JsonLoader extends ContentStreamLoader {
   private static final AtomicBoolean WARNED_ABOUT_INDEX_TIME_BOOSTS = new AtomicBoolean();
   public static final String CHILD_DOC_KEY = "_childDocuments_";
 
+  /**
+   * Request parameter for the number of threads that parse the documents of a top level array, or
+   * of JSON lines with {@code json.command=false}. The documents are still added in order, by the
+   * request thread. Defaults to 1, which parses everything on the request thread, and is limited
+   * to {@link CoreContainer#getUpdateParseThreads()}. The threads are those of the shared {@link
+   * CoreContainer#getUpdateParseExecutor()}.
+   */
+  public static final String PARSE_THREADS = "json.parseThreads";
+
+  // the documents parsed ahead are bounded by the number of chunks in flight
+  private static final int CHUNK_MAX_DOCS = 500;
+  private static final int CHUNK_MAX_CHARS = 128 * 1024;
+
   @Override
   public String getDefaultWT() {
     return JSON;
@@ -128,6 +148,8 @@ public class JsonLoader extends ContentStreamLoader {
     protected JSONParser parser;
     protected final int commitWithin;
     protected final boolean overwrite;
+    protected final int parseThreads;
+    private final ExecutorService parseExecutor;
 
     SingleThreadedJsonLoader(
         SolrQueryRequest req, SolrQueryResponse rsp, UpdateRequestProcessor processor) {
@@ -137,6 +159,13 @@ public class JsonLoader extends ContentStreamLoader {
 
       commitWithin = req.getParams().getInt(UpdateParams.COMMIT_WITHIN, -1);
       overwrite = req.getParams().getBool(UpdateParams.OVERWRITE, true);
+      CoreContainer container = req.getCoreContainer();
+      parseExecutor = container == null ? null : container.getUpdateParseExecutor();
+      int requestedThreads = req.getParams().getInt(PARSE_THREADS, 1);
+      parseThreads =
+          parseExecutor == null
+              ? 1
+              : Math.min(requestedThreads, container.getUpdateParseThreads());
     }
 
     @Override
@@ -173,6 +202,12 @@ public class JsonLoader extends ContentStreamLoader {
         handleSplitMode(split, f, reader);
         return;
       }
+      if (parseThreads > 1) {
+        // documents in top level arrays; commands and anything after them are handled below
+        JsonChunkReader chunkReader = new JsonChunkReader(reader, false);
+        parseInParallel(chunkReader, this::parseDocs);
+        reader = chunkReader.remaining();
+      }
       parser = new JSONParser(reader);
       int ev = parser.nextEvent();
       while (ev != JSONParser.EOF) {
@@ -250,6 +285,15 @@ public class JsonLoader extends ContentStreamLoader {
       final boolean echo = "true".equals(req.getParams().get("echo"));
       final String srcField = req.getParams().get("srcField");
       final boolean mapUniqueKeyOnly = req.getParams().getBool("mapUniqueKeyOnly", false);
+      if (parseThreads > 1 && !echo && srcField == null && !mapUniqueKeyOnly) {
+        // records never span top level values, so any split can be applied per chunk
+        final List<String> recordFields = Arrays.asList(fields);
+        final String recordSplit = split;
+        parseInParallel(
+            new JsonChunkReader(reader, true),
+            chunk -> parseRecords(JsonRecordReader.getInst(recordSplit, recordFields), chunk));
+        return;
+      }
       if (srcField != null) {
         if (!"/".equals(split))
           throw new SolrException(
@@ -292,6 +336,102 @@ public class JsonLoader extends ContentStreamLoader {
           });
     }
 
+    /**
+     * Parses chunks of the input on up to {@link #parseThreads} threads of the shared pool and adds
+     * the documents in the order of the input. At most two chunks per thread are parsed ahead of
+     * the adds.
+     */
+    private void parseInParallel(JsonChunkReader chunkReader, ChunkParser chunkParser)
+        throws IOException {
+      String chunk = chunkReader.nextChunk(CHUNK_MAX_DOCS, CHUNK_MAX_CHARS);
+      if (chunk == null) {
+        return;
+      }
+      Deque<Future<List<SolrInputDocument>>> parsing = new ArrayDeque<>();
+      try {
+        while (chunk != null || !parsing.isEmpty()) {
+          while (chunk != null && parsing.size() < parseThreads * 2) {
+            final String text = chunk;
+            parsing.add(parseExecutor.submit(() -> chunkParser.parse(text)));
+            chunk = chunkReader.nextChunk(CHUNK_MAX_DOCS, CHUNK_MAX_CHARS);
+          }
+          for (SolrInputDocument doc : awaitChunk(parsing.poll())) {
+            AddUpdateCommand cmd = new AddUpdateCommand(req);
+            cmd.commitWithin = commitWithin;
+            cmd.overwrite = overwrite;
+            cmd.solrDoc = doc;
+            processor.processAdd(cmd);
+          }
+        }
+      } finally {
+        // only left if an add failed; wait for the few chunks in flight, they use the request
+        for (Future<?> future : parsing) {
+          try {
+            future.get();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
+          } catch (ExecutionException e) {
+            // already failing
+          }
+        }
+      }
+    }
+
+    private List<SolrInputDocument> awaitChunk(Future<List<SolrInputDocument>> future)
+        throws IOException {
+      try {
+        return future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SolrException(
+            SolrException.ErrorCode.SERVER_ERROR, "Interrupted while parsing JSON", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException re) { // including ParseException
+          throw re;
+        } else if (cause instanceof IOException ioe) {
+          throw ioe;
+        }
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, cause);
+      }
+    }
+
+    /** Parses a chunk of documents from a top level array, like {@link #handleAdds()}. */
+    private List<SolrInputDocument> parseDocs(String chunk) throws IOException {
+      // parseDoc reads from the parser of the loader, so every chunk needs its own
+      SingleThreadedJsonLoader loader = new SingleThreadedJsonLoader(req, rsp, processor);
+      loader.parser = new JSONParser(chunk);
+      List<SolrInputDocument> docs = new ArrayList<>();
+      int ev;
+      while ((ev = loader.parser.nextEvent()) != JSONParser.EOF) {
+        loader.assertEvent(ev, JSONParser.OBJECT_START);
+        docs.add(loader.parseDoc(ev));
+      }
+      return docs;
+    }
+
+    /** Parses a chunk of JSON records, like {@link #handleSplitMode} without its options. */
+    @SuppressWarnings("unchecked")
+    private List<SolrInputDocument> parseRecords(JsonRecordReader jsonRecordReader, String chunk)
+        throws IOException {
+      List<SolrInputDocument> docs = new ArrayList<>();
+      JSONParser chunkParser = new JSONParser(chunk);
+      jsonRecordReader.streamRecords(
+          chunkParser,
+          (record, path) -> {
+            // the documents outlive the record, whose values the reader may still change
+            Map<String, Object> copy = Utils.getDeepCopy(record, 2);
+            docs.add(buildDoc(getDocMap(copy, chunkParser, null, false)));
+          });
+      return docs;
+    }
+
+    @FunctionalInterface
+    private interface ChunkParser {
+      List<SolrInputDocument> parse(String chunk) throws IOException;
+    }
+
     private Map<String, Object> getDocMap(
         Map<String, Object> record, JSONParser parser, String srcField, boolean mapUniqueKeyOnly) {
       Map<String, Object> result = mapUniqueKeyOnly ? record : new LinkedHashMap<>(record);
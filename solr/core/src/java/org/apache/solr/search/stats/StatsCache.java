@@ -214,6 +214,16 @@ public abstract class StatsCache implements PluginInfoInitialized, SolrInfoBean
 
   protected abstract void doSendGlobalStats(ResponseBuilder rb, ShardRequest outgoing);
 
+  /**
+   * Inspect the shard responses to a request that carried global stats (see {@link
+   * #sendGlobalStats(ResponseBuilder, ShardRequest)}), for example to detect that the stats of a
+   * shard have become stale. The default implementation does nothing.
+   *
+   * @param rb response builder
+   * @param sreq completed shard request with {@link ShardRequest#PURPOSE_SET_TERM_STATS}
+   */
+  public void receiveShardResponses(ResponseBuilder rb, ShardRequest sreq) {}
+
   /**
    * Prepare a {@link StatsSource} that provides stats information to perform local scoring (to be
    * precise, to build a local {@link Weight} from the query).
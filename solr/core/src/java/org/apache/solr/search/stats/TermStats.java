@@ -57,6 +57,11 @@ public class TermStats {
     this.totalTermFreq += stats.totalTermFreq;
   }
 
+  /** Returns the term these stats are about, or null if it could not be parsed. */
+  Term toTerm() {
+    return t;
+  }
+
   public TermStatistics toTermStatistics() {
     if (docFreq == 0) {
       return null;
@@ -0,0 +1,363 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.stats;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.solr.client.solrj.SolrResponse;
+import org.apache.solr.common.params.ShardParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.CloseHook;
+import org.apache.solr.core.PluginInfo;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.handler.component.HttpShardHandler;
+import org.apache.solr.handler.component.ResponseBuilder;
+import org.apache.solr.handler.component.ShardRequest;
+import org.apache.solr.handler.component.ShardResponse;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Like {@link ExactStatsCache} this implementation sends exact global statistics to the shards, but
+ * it keeps the per-shard term and collection statistics across requests, tagged with the index
+ * version of the replica that reported them. A separate stats round-trip is only made to the shards
+ * whose cached statistics are missing some of the query's terms, or whose replica has opened a
+ * newer searcher since the statistics were gathered. Such a round-trip also refreshes all the terms
+ * already cached for the stale shards, so that the following requests can be served from the cache
+ * again.
+ *
+ * <p>Shards report their index version with every response to a query that carries global stats,
+ * so a commit is noticed by the first query that reaches the shard after it; that query is still
+ * scored with the statistics from before the commit.
+ *
+ * <p>The cached statistics outlive the searcher that this instance belongs to, and are shared by
+ * all instances for the same core. At most {@code maxTerms} (by default {@link
+ * #DEFAULT_MAX_TERMS}) terms are kept per shard; when this is exceeded the shard's terms are
+ * discarded and fetched again as needed.
+ */
+public class VersionedStatsCache extends ExactStatsCache {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  public static final int DEFAULT_MAX_TERMS = 100000;
+
+  /** Index version of the replica that returned local stats. */
+  public static final String VERSION_KEY = "solr.stats.version";
+
+  // terms and fields whose stats were requested in this request, in the request context
+  private static final String REQUESTED_TERMS = "solr.stats.requestedTerms";
+  private static final String REQUESTED_FIELDS = "solr.stats.requestedFields";
+
+  private int maxTerms = DEFAULT_MAX_TERMS;
+  private volatile ShardStatsRegistry registry;
+
+  @Override
+  public void init(PluginInfo info) {
+    super.init(info);
+    if (info != null && info.attributes != null && info.attributes.get("maxTerms") != null) {
+      maxTerms = Integer.parseInt(info.attributes.get("maxTerms"));
+    }
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    ShardStatsRegistry r = registry;
+    if (r != null) {
+      r.perShardStats.clear();
+      r.latestVersions.clear();
+    }
+  }
+
+  @Override
+  protected ShardRequest doRetrieveStatsRequest(ResponseBuilder rb) {
+    ShardStatsRegistry r = getRegistry(rb.req.getCore());
+    Set<Term> queryTerms = getQueryTerms(rb.getQuery());
+    Set<String> queryFields = new HashSet<>();
+    for (Term t : queryTerms) {
+      queryFields.add(t.field());
+    }
+    // doSendGlobalStats aggregates the stats of these terms
+    rb.req.getContext().put(TERMS_KEY, StatsUtil.termsToEncodedString(queryTerms));
+
+    String collectionName = getCollectionName(rb.req);
+    List<String> shardsToAsk = new ArrayList<>();
+    Set<Term> refreshTerms = new LinkedHashSet<>(queryTerms);
+    Set<String> refreshFields = new LinkedHashSet<>(queryFields);
+    for (String shardUrl : rb.shards) {
+      String shard = StatsUtil.shardUrlToShard(collectionName, shardUrl);
+      ShardStats stats = shard == null ? null : r.perShardStats.get(shard);
+      if (stats == null) {
+        shardsToAsk.add(shardUrl);
+      } else if (r.isStale(stats)) {
+        shardsToAsk.add(shardUrl);
+        for (String term : stats.termStats.keySet()) {
+          Term t = new TermStats(term).toTerm();
+          if (t != null) {
+            refreshTerms.add(t);
+          }
+        }
+        refreshFields.addAll(stats.fields);
+      } else if (!stats.covers(queryTerms, queryFields)) {
+        shardsToAsk.add(shardUrl);
+      }
+    }
+
+    if (shardsToAsk.isEmpty()) {
+      // since we already incremented the stats decrement it here
+      statsCacheMetrics.retrieveStats.decrement();
+      statsCacheMetrics.useCachedGlobalStats.increment();
+      return null;
+    }
+
+    ShardRequest sreq = super.doRetrieveStatsRequest(rb);
+    if (shardsToAsk.size() < rb.shards.length) {
+      sreq.shards = shardsToAsk.toArray(new String[0]);
+    }
+    refreshTerms.removeAll(queryTerms);
+    if (!refreshTerms.isEmpty()) {
+      sreq.params.add(TERMS_KEY, StatsUtil.termsToEncodedString(refreshTerms));
+    }
+    refreshFields.removeAll(queryFields);
+    if (!refreshFields.isEmpty()) {
+      sreq.params.add(FIELDS_KEY, StatsUtil.fieldsToString(refreshFields));
+    }
+    refreshTerms.addAll(queryTerms);
+    refreshFields.addAll(queryFields);
+    rb.req.getContext().put(REQUESTED_TERMS, refreshTerms);
+    rb.req.getContext().put(REQUESTED_FIELDS, refreshFields);
+    return sreq;
+  }
+
+  @Override
+  protected void doReturnLocalStats(ResponseBuilder rb, SolrIndexSearcher searcher) {
+    super.doReturnLocalStats(rb, searcher);
+    rb.rsp.add(VERSION_KEY, searcher.getIndexReader().getVersion());
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  protected void doMergeToGlobalStats(SolrQueryRequest req, List<ShardResponse> responses) {
+    ShardStatsRegistry r = getRegistry(req.getCore());
+    String collectionName = getCollectionName(req);
+    Set<Term> requestedTerms =
+        (Set<Term>) req.getContext().getOrDefault(REQUESTED_TERMS, Collections.emptySet());
+    Set<String> requestedFields =
+        (Set<String>) req.getContext().getOrDefault(REQUESTED_FIELDS, Collections.emptySet());
+    for (ShardResponse srsp : responses) {
+      if (HttpShardHandler.getShardsTolerantAsBool(req) && srsp.getException() != null) {
+        log.debug("Exception shard response={}", srsp);
+        continue;
+      }
+      SolrResponse res = srsp.getSolrResponse();
+      if (res.getException() != null) {
+        log.debug("Exception response={}", res);
+        continue;
+      }
+      String shard = StatsUtil.shardUrlToShard(collectionName, srsp.getShard());
+      if (shard == null) {
+        continue;
+      }
+      NamedList<Object> nl = res.getResponse();
+      long version = nl.get(VERSION_KEY) instanceof Number v ? v.longValue() : -1L;
+      String address = srsp.getShardAddress();
+      r.observeVersion(address, version);
+
+      ShardStats stats =
+          r.perShardStats.compute(
+              shard,
+              (k, old) ->
+                  old != null && old.address.equals(address) && old.version == version
+                      ? old
+                      : new ShardStats(address, version));
+      Map<String, TermStats> termStats =
+          StatsUtil.termStatsMapFromString((String) nl.get(TERM_STATS_KEY));
+      if (stats.termStats.size() + requestedTerms.size() > maxTerms) {
+        stats.termStats.clear();
+      }
+      if (termStats != null) {
+        stats.termStats.putAll(termStats);
+      }
+      for (Term t : requestedTerms) {
+        // remember terms this shard does not have, so that they are not requested again
+        stats.termStats.putIfAbsent(t.toString(), new TermStats(t.toString()));
+      }
+      Map<String, CollectionStats> colStats =
+          StatsUtil.colStatsMapFromString((String) nl.get(COL_STATS_KEY));
+      if (colStats != null) {
+        stats.colStats.putAll(colStats);
+        stats.fields.addAll(colStats.keySet());
+      }
+      stats.fields.addAll(requestedFields);
+    }
+    if (log.isDebugEnabled()) {
+      printStats(req);
+    }
+  }
+
+  @Override
+  protected void doSendGlobalStats(ResponseBuilder rb, ShardRequest outgoing) {
+    super.doSendGlobalStats(rb, outgoing);
+    // have the shards tell us which index they are searching, see receiveShardResponses
+    outgoing.params.set(ShardParams.SHARDS_INDEX_VERSION, true);
+  }
+
+  @Override
+  public void receiveShardResponses(ResponseBuilder rb, ShardRequest sreq) {
+    ShardStatsRegistry r = getRegistry(rb.req.getCore());
+    for (ShardResponse srsp : sreq.responses) {
+      if (srsp.getException() != null
+          || srsp.getSolrResponse() == null
+          || srsp.getSolrResponse().getResponse() == null) {
+        continue;
+      }
+      Object header =
+          srsp.getSolrResponse().getResponse().get(SolrQueryResponse.RESPONSE_HEADER_KEY);
+      if (header instanceof NamedList<?> h
+          && h.get(ShardParams.INDEX_VERSION) instanceof Number version) {
+        r.observeVersion(srsp.getShardAddress(), version.longValue());
+      }
+    }
+  }
+
+  @Override
+  protected Map<String, CollectionStats> getPerShardColStats(ResponseBuilder rb, String shard) {
+    ShardStats stats = getRegistry(rb.req.getCore()).perShardStats.get(shard);
+    return stats != null ? stats.colStats : null;
+  }
+
+  @Override
+  protected TermStats getPerShardTermStats(SolrQueryRequest req, String t, String shard) {
+    ShardStats stats = getRegistry(req.getCore()).perShardStats.get(shard);
+    return stats != null ? stats.termStats.get(t) : null;
+  }
+
+  @Override
+  protected void printStats(SolrQueryRequest req) {
+    ShardStatsRegistry r = registry;
+    log.debug("perShardStats={}", r != null ? r.perShardStats : null);
+  }
+
+  private static Set<Term> getQueryTerms(Query q) {
+    Set<Term> terms = new HashSet<>();
+    if (q != null) {
+      q.visit(QueryVisitor.termCollector(terms));
+    }
+    return terms;
+  }
+
+  private static String getCollectionName(SolrQueryRequest req) {
+    String collectionName = req.getCore().getCoreDescriptor().getCollectionName();
+    if (collectionName == null) {
+      collectionName = req.getCore().getCoreDescriptor().getName();
+    }
+    return collectionName;
+  }
+
+  private ShardStatsRegistry getRegistry(SolrCore core) {
+    ShardStatsRegistry r = registry;
+    if (r == null) {
+      String key = VersionedStatsCache.class.getName() + "/" + core.uniqueId;
+      r =
+          core.getCoreContainer()
+              .getObjectCache()
+              .computeIfAbsent(
+                  key,
+                  ShardStatsRegistry.class,
+                  k -> {
+                    core.addCloseHook(
+                        new CloseHook() {
+                          @Override
+                          public void postClose(SolrCore closedCore) {
+                            closedCore.getCoreContainer().getObjectCache().remove(key);
+                          }
+                        });
+                    return new ShardStatsRegistry();
+                  });
+      registry = r;
+    }
+    return r;
+  }
+
+  /** Cached stats of all shards, shared by the instances of this class for one core. */
+  static final class ShardStatsRegistry {
+    // map of <shardName, stats>
+    final Map<String, ShardStats> perShardStats = new ConcurrentHashMap<>();
+    // latest index version seen per replica address
+    final Map<String, Long> latestVersions = new ConcurrentHashMap<>();
+
+    void observeVersion(String address, long version) {
+      if (address != null && version >= 0) {
+        latestVersions.merge(address, version, Math::max);
+      }
+    }
+
+    boolean isStale(ShardStats stats) {
+      Long latest = latestVersions.get(stats.address);
+      return latest != null && latest > stats.version;
+    }
+  }
+
+  /** Stats of one shard, as reported by one replica at one index version. */
+  static final class ShardStats {
+    final String address;
+    final long version;
+    final Map<String, TermStats> termStats = new ConcurrentHashMap<>();
+    final Map<String, CollectionStats> colStats = new ConcurrentHashMap<>();
+    // fields whose stats were requested, whether the shard had them or not
+    final Set<String> fields = ConcurrentHashMap.newKeySet();
+
+    ShardStats(String address, long version) {
+      this.address = String.valueOf(address);
+      this.version = version;
+    }
+
+    boolean covers(Set<Term> terms, Set<String> queryFields) {
+      for (Term t : terms) {
+        if (!termStats.containsKey(t.toString())) {
+          return false;
+        }
+      }
+      return fields.containsAll(queryFields);
+    }
+
+    @Override
+    public String toString() {
+      return "{address="
+          + address
+          + ", version="
+          + version
+          + ", terms="
+          + termStats.size()
+          + ", fields="
+          + fields
+          + "}";
+    }
+  }
+}
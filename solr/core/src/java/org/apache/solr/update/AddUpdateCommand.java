@@ -200,7 +200,8 @@ public class AddUpdateCommand extends UpdateCommand {
    * Computes the final flattened Lucene docs, possibly generating them on-demand (on iteration).
    * The SolrInputDocument itself may be modified, which will be reflected in the update log. This
    * should only be called once. Any changes made to the returned Document(s) will not be reflected
-   * in the SolrInputDocument, or future calls to this method.
+   * in the SolrInputDocument, or future calls to this method. The Document(s) may reuse fields of
+   * previously built documents (see {@link ReusableFields}), so they must be indexed right away.
    */
   Iterable<Document> makeLuceneDocs() {
     // perhaps this should move to UpdateHandler or DocumentBuilder?
@@ -210,7 +211,12 @@ public class AddUpdateCommand extends UpdateCommand {
       final boolean forInPlaceUpdate = false;
       final boolean ignoreNestedDocs = false; // throw an exception if found
       Document doc =
-          DocumentBuilder.toDocument(solrDoc, req.getSchema(), forInPlaceUpdate, ignoreNestedDocs);
+          DocumentBuilder.toDocument(
+              solrDoc,
+              req.getSchema(),
+              forInPlaceUpdate,
+              ignoreNestedDocs,
+              DocumentBuilder.getReusableFields());
       return Collections.singleton(doc);
     }
 
@@ -229,8 +235,14 @@ public class AddUpdateCommand extends UpdateCommand {
       // instead.
     }
 
+    // IndexWriter indexes each doc before it asks for the next one, so fields can be reused
     return () ->
-        all.stream().map(sdoc -> DocumentBuilder.toDocument(sdoc, req.getSchema())).iterator();
+        all.stream()
+            .map(
+                sdoc ->
+                    DocumentBuilder.toDocument(
+                        sdoc, req.getSchema(), false, true, DocumentBuilder.getReusableFields()))
+            .iterator();
   }
 
   private void addRootField(SolrInputDocument sdoc, String rootId) {
@@ -51,10 +51,13 @@ public final class CommitTracker implements Runnable {
   public static final int DOC_COMMIT_DELAY_MS = 1;
   // scheduler delay for maxSize-triggered autocommits
   public static final int SIZE_COMMIT_DELAY_MS = 1;
+  // with a time lower bound, commits are at least this many times as far apart as they take
+  public static final int COMMIT_TIME_FACTOR = 2;
 
   // settings, not final so we can change them in testing
   private int docsUpperBound;
   private long timeUpperBound;
+  private long timeLowerBound;
   private long tLogFileSizeUpperBound;
 
   // note: can't use ExecutorsUtil because it doesn't have a *scheduled* ExecutorService.
@@ -66,6 +69,9 @@ public final class CommitTracker implements Runnable {
   // state
   private AtomicLong docsSinceCommit = new AtomicLong(0);
   private AtomicInteger autoCommitCount = new AtomicInteger(0);
+  // how long auto commits take, including opening and warming a searcher; smoothed
+  private volatile long commitTimeMs = 0;
+  private volatile long lastCommitStartNanos = System.nanoTime();
 
   private final SolrCore core;
 
@@ -83,12 +89,38 @@ public final class CommitTracker implements Runnable {
       long tLogFileSizeUpperBound,
       boolean openSearcher,
       boolean softCommit) {
+    this(
+        name,
+        core,
+        docsUpperBound,
+        timeUpperBound,
+        -1,
+        tLogFileSizeUpperBound,
+        openSearcher,
+        softCommit);
+  }
+
+  /**
+   * @param timeLowerBound if positive, the time after which documents are committed adapts to how
+   *     long commits take, between this and the time upper bound. See {@link
+   *     #getEffectiveTimeUpperBound()}.
+   */
+  public CommitTracker(
+      String name,
+      SolrCore core,
+      int docsUpperBound,
+      int timeUpperBound,
+      int timeLowerBound,
+      long tLogFileSizeUpperBound,
+      boolean openSearcher,
+      boolean softCommit) {
     this.core = core;
     this.name = name;
     pending = null;
 
     this.docsUpperBound = docsUpperBound;
     this.timeUpperBound = timeUpperBound;
+    this.timeLowerBound = timeLowerBound;
     this.tLogFileSizeUpperBound = tLogFileSizeUpperBound;
 
     this.softCommit = softCommit;
@@ -126,7 +158,7 @@ public final class CommitTracker implements Runnable {
   }
 
   private void _scheduleCommitWithinIfNeeded(long commitWithin) {
-    long ctime = (commitWithin > 0) ? commitWithin : timeUpperBound;
+    long ctime = (commitWithin > 0) ? commitWithin : getAutoCommitDelay();
 
     if (ctime > 0) {
       _scheduleCommitWithin(ctime);
@@ -209,6 +241,35 @@ public final class CommitTracker implements Runnable {
     }
   }
 
+  /**
+   * The time after which documents are committed. This is the time upper bound, unless there is a
+   * lower bound too; then it is {@link #COMMIT_TIME_FACTOR} times as long as auto commits have
+   * recently taken, including opening and warming their searcher, within the bounds. That keeps
+   * warming from overlapping with the next commit, under any indexing rate, with documents becoming
+   * visible as soon as that allows.
+   */
+  public long getEffectiveTimeUpperBound() {
+    if (timeLowerBound <= 0 || timeUpperBound <= 0) {
+      return timeUpperBound;
+    }
+    return Math.min(timeUpperBound, Math.max(timeLowerBound, COMMIT_TIME_FACTOR * commitTimeMs));
+  }
+
+  /**
+   * The delay for an auto commit scheduled now. With a time lower bound, that is what remains of
+   * the {@link #getEffectiveTimeUpperBound() effective time upper bound} since the last auto commit
+   * started, so after a quiet period documents are committed after the lower bound.
+   */
+  public long getAutoCommitDelay() {
+    long interval = getEffectiveTimeUpperBound();
+    if (timeLowerBound <= 0 || interval <= 0) {
+      return interval;
+    }
+    long sinceLastCommitMs =
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastCommitStartNanos);
+    return Math.max(timeLowerBound, interval - sinceLastCommitMs);
+  }
+
   /** Indicate that documents have been deleted */
   public void deletedDocument(int commitWithin) {
     _scheduleCommitWithinIfNeeded(commitWithin);
@@ -277,7 +338,11 @@ public final class CommitTracker implements Runnable {
       // to check the commit count before we had incremented it.)
       autoCommitCount.incrementAndGet();
 
+      final long startNanos = System.nanoTime();
+      lastCommitStartNanos = startNanos;
       core.getUpdateHandler().commit(command);
+      long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+      commitTimeMs = (commitTimeMs + tookMs) / 2;
     } catch (Exception e) {
       log.error("auto commit error...", e);
     } finally {
@@ -295,6 +360,9 @@ public final class CommitTracker implements Runnable {
   public String toString() {
     if (timeUpperBound > 0 || docsUpperBound > 0 || tLogFileSizeUpperBound > 0) {
       return (timeUpperBound > 0 ? ("if uncommitted for " + timeUpperBound + "ms; ") : "")
+          + (timeLowerBound > 0 && timeUpperBound > 0
+              ? ("adapting to commit times down to " + timeLowerBound + "ms; ")
+              : "")
           + (docsUpperBound > 0 ? ("if " + docsUpperBound + " uncommitted docs; ") : "")
           + (tLogFileSizeUpperBound > 0
               ? String.format(
@@ -309,6 +377,10 @@ public final class CommitTracker implements Runnable {
     return timeUpperBound;
   }
 
+  public long getTimeLowerBound() {
+    return timeLowerBound;
+  }
+
   int getDocsUpperBound() {
     return docsUpperBound;
   }
@@ -326,6 +398,11 @@ public final class CommitTracker implements Runnable {
     this.timeUpperBound = timeUpperBound;
   }
 
+  // only for testing - not thread safe
+  public void setTimeLowerBound(long timeLowerBound) {
+    this.timeLowerBound = timeLowerBound;
+  }
+
   // only for testing - not thread safe
   public void setTLogFileSizeUpperBound(int sizeUpperBound) {
     this.tLogFileSizeUpperBound = sizeUpperBound;
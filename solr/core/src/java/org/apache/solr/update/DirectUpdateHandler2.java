@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.LongAdder;
 import org.apache.lucene.document.Document;
@@ -49,8 +50,10 @@ import org.apache.solr.cloud.ZkController;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.IOUtils;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.core.SolrConfig.UpdateHandlerInfo;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.metrics.SolrMetricProducer;
@@ -126,6 +129,16 @@ public class DirectUpdateHandler2 extends UpdateHandler
 
   protected boolean commitWithinSoftCommit;
 
+  // opt-in: index the documents of a single update request on a pool of threads
+  private final int parallelAddThreads = Integer.getInteger("solr.update.parallelAdd.threads", 0);
+  private final int parallelAddMaxPending =
+      Math.max(1, Integer.getInteger("solr.update.parallelAdd.maxPending", 256));
+  private final ExecutorService parallelAddExecutor =
+      parallelAddThreads > 0
+          ? ExecutorUtil.newMDCAwareFixedThreadPool(
+              parallelAddThreads, new SolrNamedThreadFactory("parallelAdd"))
+          : null;
+
   /**
    * package access for testing
    *
@@ -162,6 +175,7 @@ public class DirectUpdateHandler2 extends UpdateHandler
             core,
             softCommitDocsUpperBound,
             softCommitTimeUpperBound,
+            updateHandlerInfo.autoSoftCommitMinTime,
             NO_FILE_SIZE_UPPER_BOUND_PLACEHOLDER,
             true,
             true);
@@ -205,6 +219,7 @@ public class DirectUpdateHandler2 extends UpdateHandler
             core,
             softCommitDocsUpperBound,
             softCommitTimeUpperBound,
+            updateHandlerInfo.autoSoftCommitMinTime,
             NO_FILE_SIZE_UPPER_BOUND_PLACEHOLDER,
             updateHandlerInfo.openSearcher,
             true);
@@ -382,6 +397,16 @@ public class DirectUpdateHandler2 extends UpdateHandler
                     softCommitTracker.getTimeUpperBound(),
                     baseAttributes.toBuilder().put(TYPE_ATTR, "soft_auto_commit_max_time").build());
               }
+              if (softCommitTracker.getTimeLowerBound() > 0) {
+                observableLongMeasurement.record(
+                    softCommitTracker.getTimeLowerBound(),
+                    baseAttributes.toBuilder().put(TYPE_ATTR, "soft_auto_commit_min_time").build());
+                observableLongMeasurement.record(
+                    softCommitTracker.getEffectiveTimeUpperBound(),
+                    baseAttributes.toBuilder()
+                        .put(TYPE_ATTR, "soft_auto_commit_effective_max_time")
+                        .build());
+              }
             })));
 
     observables.add(
@@ -600,7 +625,7 @@ public class DirectUpdateHandler2 extends UpdateHandler
       commitTracker.scheduleMaxSizeTriggeredCommitIfNeeded(this::getCurrentTLogSize);
 
       if (softCommitTracker.getTimeUpperBound() > 0) {
-        softCommitTracker.scheduleCommitWithin(softCommitTracker.getTimeUpperBound());
+        softCommitTracker.scheduleCommitWithin(softCommitTracker.getAutoCommitDelay());
       }
     }
   }
@@ -784,7 +809,7 @@ public class DirectUpdateHandler2 extends UpdateHandler
     if (rc == 1 && commitTracker.getTimeUpperBound() > 0) {
       commitTracker.scheduleCommitWithin(commitTracker.getTimeUpperBound());
     } else if (rc == 1 && softCommitTracker.getTimeUpperBound() > 0) {
-      softCommitTracker.scheduleCommitWithin(softCommitTracker.getTimeUpperBound());
+      softCommitTracker.scheduleCommitWithin(softCommitTracker.getAutoCommitDelay());
     }
 
     return rc;
@@ -1014,12 +1039,38 @@ public class DirectUpdateHandler2 extends UpdateHandler
     return ulog;
   }
 
+  /**
+   * The pool that {@link org.apache.solr.update.processor.RunUpdateProcessorFactory} hands adds to
+   * so that the documents of one request from a shard leader are converted and indexed
+   * concurrently, or null if this is disabled (the default). Enabled by setting the system property
+   * {@code solr.update.parallelAdd.threads} to the number of threads.
+   *
+   * @lucene.internal
+   */
+  public ExecutorService getParallelAddExecutor() {
+    return parallelAddExecutor;
+  }
+
+  /**
+   * The maximum number of adds a single request may have in flight on {@link
+   * #getParallelAddExecutor()} before it waits for the oldest. Set with the system property {@code
+   * solr.update.parallelAdd.maxPending}.
+   *
+   * @lucene.internal
+   */
+  public int getParallelAddMaxPending() {
+    return parallelAddMaxPending;
+  }
+
   @Override
   public void close() throws IOException {
     log.debug("closing {}", this);
 
     commitTracker.close();
     softCommitTracker.close();
+    if (parallelAddExecutor != null) {
+      ExecutorUtil.shutdownAndAwaitTermination(parallelAddExecutor);
+    }
     IOUtils.closeQuietly(toClose);
     numDocsPending.reset();
     try {
@@ -43,6 +43,18 @@ public class DocumentBuilder {
       Integer.getInteger("solr.docBuilder.minLengthToMoveLast", 4 * 1024); // internal setting
   static int MAX_VALUES_AS_STRING_LENGTH = 256;
 
+  private static final boolean REUSE_FIELDS = Boolean.getBoolean("solr.docBuilder.reuseFields");
+  private static final ThreadLocal<ReusableFields> REUSABLE_FIELDS =
+      ThreadLocal.withInitial(ReusableFields::new);
+
+  /**
+   * The {@link ReusableFields} of the current thread, or null unless enabled with the system
+   * property {@code solr.docBuilder.reuseFields}.
+   */
+  static ReusableFields getReusableFields() {
+    return REUSE_FIELDS ? REUSABLE_FIELDS.get() : null;
+  }
+
   /**
    * Add a field value to a given document.
    *
@@ -53,9 +65,14 @@ public class DocumentBuilder {
    *     numeric docValues based fields are added to the document. This can be true when
    *     constructing a Lucene document for writing an in-place update, and we don't need presence
    *     of non-updatable fields (non NDV) in such a document.
+   * @param reusableFields Fields to reuse, or null
    */
   private static void addField(
-      Document doc, SchemaField field, Object val, boolean forInPlaceUpdate) {
+      Document doc,
+      SchemaField field,
+      Object val,
+      boolean forInPlaceUpdate,
+      ReusableFields reusableFields) {
     if (val instanceof IndexableField) {
       if (forInPlaceUpdate) {
         assert val instanceof NumericDocValuesField
@@ -64,6 +81,9 @@ public class DocumentBuilder {
       doc.add((IndexableField) val);
       return;
     }
+    if (reusableFields != null && reusableFields.addFields(doc, field, val)) {
+      return;
+    }
     for (IndexableField f : field.getType().createFields(field, val)) {
       if (f != null) { // null fields are not added
         // HACK: workaround for SOLR-9809
@@ -125,9 +145,31 @@ public class DocumentBuilder {
       IndexSchema schema,
       boolean forInPlaceUpdate,
       boolean ignoreNestedDocs) {
+    return toDocument(doc, schema, forInPlaceUpdate, ignoreNestedDocs, null);
+  }
+
+  /**
+   * Like {@link #toDocument(SolrInputDocument, IndexSchema, boolean, boolean)}, but reusing the
+   * fields of the previous document built with the given {@link ReusableFields} where possible.
+   * The returned document is only valid until the next one is built with it.
+   *
+   * @param reusableFields Fields to reuse, or null to create new ones. Not used for in-place
+   *     updates.
+   */
+  public static Document toDocument(
+      SolrInputDocument doc,
+      IndexSchema schema,
+      boolean forInPlaceUpdate,
+      boolean ignoreNestedDocs,
+      ReusableFields reusableFields) {
     if (!ignoreNestedDocs && doc.hasChildDocuments()) {
       throw unexpectedNestedDocException(schema, forInPlaceUpdate);
     }
+    if (forInPlaceUpdate) {
+      reusableFields = null;
+    } else if (reusableFields != null) {
+      reusableFields.startDocument(schema);
+    }
 
     final SchemaField uniqueKeyField = schema.getUniqueKeyField();
     final String uniqueKeyFieldName = null == uniqueKeyField ? null : uniqueKeyField.getName();
@@ -190,7 +232,9 @@ public class DocumentBuilder {
           Object vectorValue = field.getValue();
           if (vectorValue != null) {
             hasField = true;
-            used = addOriginalField(vectorValue, sfield, forInPlaceUpdate, out, usedFields);
+            used =
+                addOriginalField(
+                    vectorValue, sfield, forInPlaceUpdate, out, usedFields, reusableFields);
 
             // Check if we should copy this field value to any other fields.
             // This could happen whether it is explicit or not.
@@ -204,7 +248,8 @@ public class DocumentBuilder {
                       forInPlaceUpdate,
                       uniqueKeyFieldName,
                       out,
-                      usedFields);
+                      usedFields,
+                      reusableFields);
             }
           }
         } else {
@@ -216,7 +261,8 @@ public class DocumentBuilder {
             }
             hasField = true;
             if (sfield != null) {
-              used = addOriginalField(v, sfield, forInPlaceUpdate, out, usedFields);
+              used =
+                  addOriginalField(v, sfield, forInPlaceUpdate, out, usedFields, reusableFields);
             }
 
             // Check if we should copy this field value to any other fields.
@@ -231,7 +277,8 @@ public class DocumentBuilder {
                       forInPlaceUpdate,
                       uniqueKeyFieldName,
                       out,
-                      usedFields);
+                      usedFields,
+                      reusableFields);
             }
           }
         }
@@ -279,7 +326,7 @@ public class DocumentBuilder {
       for (SchemaField field : schema.getRequiredFields()) {
         if (out.getField(field.getName()) == null) {
           if (field.getDefaultValue() != null) {
-            addField(out, field, field.getDefaultValue(), false);
+            addField(out, field, field.getDefaultValue(), false, reusableFields);
           } else {
             String msg = getID(doc, schema) + "missing required field: " + field.getName();
             throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, msg);
@@ -300,8 +347,9 @@ public class DocumentBuilder {
       SchemaField sfield,
       boolean forInPlaceUpdate,
       Document out,
-      Set<String> usedFields) {
-    addField(out, sfield, originalFieldValue, forInPlaceUpdate);
+      Set<String> usedFields,
+      ReusableFields reusableFields) {
+    addField(out, sfield, originalFieldValue, forInPlaceUpdate, reusableFields);
     // record the field as having a value
     usedFields.add(sfield.getName());
     return true;
@@ -315,7 +363,8 @@ public class DocumentBuilder {
       boolean forInPlaceUpdate,
       String uniqueKeyFieldName,
       Document out,
-      Set<String> usedFields) {
+      Set<String> usedFields,
+      ReusableFields reusableFields) {
     boolean used = false;
     for (CopyField cf : copyFields) {
       SchemaField destinationField = cf.getDestination();
@@ -355,7 +404,8 @@ public class DocumentBuilder {
           out,
           destinationField,
           fieldValue,
-          destinationField.getName().equals(uniqueKeyFieldName) ? false : forInPlaceUpdate);
+          destinationField.getName().equals(uniqueKeyFieldName) ? false : forInPlaceUpdate,
+          reusableFields);
       // record the field as having an originalFieldValue
       usedFields.add(destinationField.getName());
       used = true;
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.MergeTrigger;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.core.SearchLatencyTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link ConcurrentMergeScheduler} that slows merges down while searches suffer from them. Every
+ * {@code checkIntervalMs} it looks at the mean time of the search requests to the core since the
+ * previous check, and at the system load average per processor. While either is above its limit,
+ * the I/O rate of big merges is halved at each check, down to {@code minMBPerSec}, and at most
+ * {@code throttledMaxThreadCount} merge threads run; the other merges are paused. Once both are
+ * below their limits, the I/O rate is doubled at each check until it is back where it was, and
+ * then the configured number of threads is restored.
+ *
+ * <p>The I/O rate is limited with the automatic I/O throttle of {@link ConcurrentMergeScheduler},
+ * which is enabled while throttling if it isn't configured with {@code ioThrottle}. Like that
+ * throttle, this only limits merges of segments above 50 MB; small merges are not worth slowing
+ * down.
+ */
+public class LatencyAwareMergeScheduler extends ConcurrentMergeScheduler {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final OperatingSystemMXBean operatingSystemMXBean =
+      ManagementFactory.getOperatingSystemMXBean();
+
+  private int targetQueryLatencyMs = 100;
+  private double maxLoadPerCpu = 1.0;
+  private double minMBPerSec = 5.0;
+  private int throttledMaxThreadCount = 1;
+  private int checkIntervalMs = 1000;
+
+  private volatile SearchLatencyTracker searchLatencyTracker;
+  private volatile double recentQueryLatencyMs = -1;
+  private volatile double recentLoadPerCpu = -1;
+
+  // guarded by this
+  private ScheduledExecutorService checker;
+  private boolean closed;
+  private boolean throttled;
+  private boolean enabledIOThrottle;
+  private double unthrottledMBPerSec;
+  private double mbPerSecCap = Double.POSITIVE_INFINITY;
+  private int unthrottledMaxThreadCount;
+
+  /** Sets where the time of recent search requests comes from; none are considered if unset. */
+  public void setSearchLatencyTracker(SearchLatencyTracker searchLatencyTracker) {
+    this.searchLatencyTracker = searchLatencyTracker;
+  }
+
+  /** Merges are throttled while searches take longer than this on average; default 100. */
+  public void setTargetQueryLatencyMs(int targetQueryLatencyMs) {
+    this.targetQueryLatencyMs = targetQueryLatencyMs;
+  }
+
+  /**
+   * Merges are throttled while the system load average divided by the number of processors is at
+   * least this; default 1.0. Zero or less only considers the latency of searches.
+   */
+  public void setMaxLoadPerCpu(double maxLoadPerCpu) {
+    this.maxLoadPerCpu = maxLoadPerCpu;
+  }
+
+  /** The I/O rate that big merges are never throttled below; default 5. */
+  public void setMinMBPerSec(double minMBPerSec) {
+    this.minMBPerSec = minMBPerSec;
+  }
+
+  /** The number of merge threads that may run while throttled; default 1. */
+  public void setThrottledMaxThreadCount(int throttledMaxThreadCount) {
+    this.throttledMaxThreadCount = Math.max(1, throttledMaxThreadCount);
+  }
+
+  /** How often to check the latency of searches and the load; default 1000. */
+  public void setCheckIntervalMs(int checkIntervalMs) {
+    this.checkIntervalMs = checkIntervalMs;
+  }
+
+  /** Whether merges are currently throttled. */
+  public synchronized boolean isThrottled() {
+    return throttled;
+  }
+
+  /** The mean time of search requests as of the last check, or -1 if there weren't any. */
+  public double getRecentQueryLatencyMs() {
+    return recentQueryLatencyMs;
+  }
+
+  /** The load average per processor as of the last check, or -1 if unavailable. */
+  public double getRecentLoadPerCpu() {
+    return recentLoadPerCpu;
+  }
+
+  @Override
+  public void merge(MergeSource mergeSource, MergeTrigger trigger) throws IOException {
+    synchronized (this) {
+      // no need to check anything before there are merges
+      if (checker == null && !closed) {
+        checker =
+            Executors.newScheduledThreadPool(1, new SolrNamedThreadFactory("mergeThrottle"));
+        checker.scheduleWithFixedDelay(
+            this::check, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+      }
+    }
+    super.merge(mergeSource, trigger);
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      closed = true;
+      if (checker != null) {
+        checker.shutdownNow();
+      }
+    }
+    super.close();
+  }
+
+  private void check() {
+    try {
+      SearchLatencyTracker tracker = searchLatencyTracker;
+      double loadAverage = operatingSystemMXBean.getSystemLoadAverage();
+      adjustThrottle(
+          tracker == null ? -1 : tracker.sampleMeanMillis(),
+          loadAverage < 0 ? -1 : loadAverage / Runtime.getRuntime().availableProcessors());
+    } catch (Exception e) {
+      log.warn("Could not adjust the merge throttle", e);
+    }
+  }
+
+  /** Throttles merges some more or some less, given the latency of searches and the load. */
+  synchronized void adjustThrottle(double queryLatencyMs, double loadPerCpu) {
+    recentQueryLatencyMs = queryLatencyMs;
+    recentLoadPerCpu = loadPerCpu;
+    boolean suffering =
+        queryLatencyMs >= targetQueryLatencyMs
+            || (maxLoadPerCpu > 0 && loadPerCpu >= maxLoadPerCpu);
+    if (suffering) {
+      throttleMore();
+    } else if (throttled) {
+      throttleLess();
+    }
+  }
+
+  private void throttleMore() {
+    if (!throttled) {
+      if (getMaxThreadCount() == AUTO_DETECT_MERGES_AND_THREADS) {
+        return; // not initialized by IndexWriter yet
+      }
+      if (!getAutoIOThrottle()) {
+        enableAutoIOThrottle();
+        enabledIOThrottle = true;
+      }
+      unthrottledMBPerSec = targetMBPerSec;
+      unthrottledMaxThreadCount = getMaxThreadCount();
+      mbPerSecCap = targetMBPerSec;
+      throttled = true;
+      setMaxMergesAndThreads(
+          getMaxMergeCount(), Math.min(throttledMaxThreadCount, unthrottledMaxThreadCount));
+      log.info(
+          "Throttling merges, search latency={}ms load per cpu={}",
+          recentQueryLatencyMs,
+          recentLoadPerCpu);
+    }
+    mbPerSecCap = Math.max(minMBPerSec, mbPerSecCap / 2);
+    targetMBPerSec = Math.min(targetMBPerSec, mbPerSecCap);
+    updateMergeThreads();
+  }
+
+  private void throttleLess() {
+    mbPerSecCap *= 2;
+    if (mbPerSecCap < unthrottledMBPerSec) {
+      targetMBPerSec = Math.max(targetMBPerSec, mbPerSecCap);
+      updateMergeThreads();
+      return;
+    }
+    throttled = false;
+    mbPerSecCap = Double.POSITIVE_INFINITY;
+    targetMBPerSec = Math.max(targetMBPerSec, unthrottledMBPerSec);
+    setMaxMergesAndThreads(getMaxMergeCount(), unthrottledMaxThreadCount);
+    if (enabledIOThrottle) {
+      enabledIOThrottle = false;
+      disableAutoIOThrottle(); // also updates the merge threads
+    } else {
+      updateMergeThreads();
+    }
+    log.info("Stopped throttling merges");
+  }
+
+  @Override
+  protected synchronized void targetMBPerSecChanged() {
+    // the automatic throttle raises the rate when merges pile up, but not past our cap
+    if (targetMBPerSec > mbPerSecCap) {
+      targetMBPerSec = mbPerSecCap;
+    }
+  }
+}
@@ -41,6 +41,7 @@ import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.EnvUtils;
 import org.apache.solr.common.util.IOUtils;
+import org.apache.solr.common.util.NamedList;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.core.SolrInfoBean;
 import org.apache.solr.handler.component.ShardHandler;
@@ -81,14 +82,17 @@ public class PeerSync implements SolrMetricProducer {
 
   @VisibleForTesting static final int SHARD_REQUEST_PURPOSE_GET_UPDATES = 0;
   @VisibleForTesting static final int SHARD_REQUEST_PURPOSE_GET_VERSIONS = 1;
+  @VisibleForTesting static final int SHARD_REQUEST_PURPOSE_GET_VERSION_BUCKETS = 2;
 
   private final boolean cantReachIsSuccess;
   private final boolean doFingerprint;
   private final boolean onlyIfActive;
+  private final boolean useVersionBuckets;
   private SolrCore core;
   private Updater updater;
 
   private MissedUpdatesFinder missedUpdatesFinder;
+  private VersionBuckets versionBuckets;
 
   // metrics
   private AttributedLongTimer syncTime;
@@ -105,6 +109,7 @@ public class PeerSync implements SolrMetricProducer {
     boolean doFingerprintComparison;
     Exception updateException;
     long totalRequestedUpdates;
+    List<String> missedRanges = new ArrayList<>();
   }
 
   public PeerSync(SolrCore core, List<String> replicas, int nUpdates, boolean cantReachIsSuccess) {
@@ -126,6 +131,8 @@ public class PeerSync implements SolrMetricProducer {
         doFingerprint
             && EnvUtils.getPropertyAsBool("solr.index.replication.fingerprint.enabled", true);
     this.onlyIfActive = onlyIfActive;
+    this.useVersionBuckets =
+        EnvUtils.getPropertyAsBool("solr.peerSync.versionBuckets.enabled", true);
 
     uhandler = core.getUpdateHandler();
     ulog = uhandler.getUpdateLog();
@@ -433,6 +440,8 @@ public class PeerSync implements SolrMetricProducer {
 
     if (sreq.purpose == SHARD_REQUEST_PURPOSE_GET_VERSIONS) {
       return handleVersions(srsp);
+    } else if (sreq.purpose == SHARD_REQUEST_PURPOSE_GET_VERSION_BUCKETS) {
+      return handleVersionBuckets(srsp);
     } else {
       return handleUpdates(srsp);
     }
@@ -486,6 +495,10 @@ public class PeerSync implements SolrMetricProducer {
     if (updatesRequest == MissedUpdatesRequest.ALREADY_IN_SYNC) {
       return true;
     } else if (updatesRequest == MissedUpdatesRequest.UNABLE_TO_SYNC) {
+      if (useVersionBuckets) {
+        // the lists are too far apart to tell; comparing ranges of versions may still get us there
+        return requestVersionBuckets(srsp, null);
+      }
       return false;
     } else if (updatesRequest == MissedUpdatesRequest.EMPTY) {
       // If we requested updates from another replica, we can't compare fingerprints yet with this
@@ -501,6 +514,87 @@ public class PeerSync implements SolrMetricProducer {
         srsp, updatesRequest.versionsAndRanges, updatesRequest.totalRequestedUpdates);
   }
 
+  private boolean requestVersionBuckets(ShardResponse srsp, List<String> ranges) {
+    if (versionBuckets == null) {
+      List<Long> ourVersions;
+      try (UpdateLog.RecentUpdates recentUpdates = ulog.getRecentUpdates()) {
+        ourVersions = recentUpdates.getVersions(maxVersionBuckets());
+      }
+      ourVersions.sort(absComparator);
+      versionBuckets = new VersionBuckets(ourVersions);
+    }
+
+    String replica = srsp.getShardRequest().shards[0];
+    if (log.isInfoEnabled()) {
+      log.info("{} Requesting version buckets from {} ranges={}", msg(), replica, ranges);
+    }
+
+    // reuse our original request object
+    ShardRequest sreq = srsp.getShardRequest();
+
+    sreq.purpose = SHARD_REQUEST_PURPOSE_GET_VERSION_BUCKETS;
+    sreq.params = new ModifiableSolrParams();
+    sreq.params.set("qt", "/get");
+    sreq.params.set(DISTRIB, false);
+    sreq.params.set("getVersionBuckets", maxVersionBuckets());
+    sreq.params.set("buckets", VersionBuckets.DEFAULT_BUCKETS);
+    sreq.params.set("maxBucketVersions", VersionBuckets.DEFAULT_MAX_BUCKET_VERSIONS);
+    if (ranges != null) {
+      sreq.params.set("versionRanges", String.join(",", ranges));
+    }
+    sreq.responses.clear(); // needs to be zeroed for correct correlation to occur
+
+    shardHandler.submit(sreq, replica, sreq.params);
+
+    return true;
+  }
+
+  private int maxVersionBuckets() {
+    return Math.max(nUpdates, ulog.getNumRecordsToKeep());
+  }
+
+  private boolean handleVersionBuckets(ShardResponse srsp) {
+    @SuppressWarnings({"unchecked"})
+    List<NamedList<Object>> otherBuckets =
+        (List<NamedList<Object>>) srsp.getSolrResponse().getResponse().get("versionBuckets");
+
+    SyncShardRequest sreq = (SyncShardRequest) srsp.getShardRequest();
+    if (otherBuckets == null) {
+      log.info(
+          "{} {} did not return version buckets - possibly an older Solr version",
+          msg(),
+          sreq.shards[0]);
+      return false;
+    }
+
+    if (sreq.params.get("versionRanges") == null && !versionBuckets.overlaps(otherBuckets)) {
+      log.info("{} Our versions are too old to sync with {}", msg(), sreq.shards[0]);
+      return false;
+    }
+
+    VersionBuckets.Comparison comparison = versionBuckets.compare(otherBuckets);
+    sreq.missedRanges.addAll(comparison.missedRanges);
+    sreq.totalRequestedUpdates += comparison.missedUpdates;
+    if (sreq.totalRequestedUpdates > maxVersionBuckets()) {
+      log.info(
+          "{} PeerSync will fail because number of missed updates is more than:{}",
+          msg(),
+          maxVersionBuckets());
+      return false;
+    }
+
+    if (!comparison.rangesToSplit.isEmpty()) {
+      return requestVersionBuckets(srsp, comparison.rangesToSplit);
+    }
+    if (sreq.totalRequestedUpdates == 0) {
+      if (doFingerprint) {
+        sreq.doFingerprintComparison = true;
+      }
+      return true;
+    }
+    return requestUpdates(srsp, String.join(",", sreq.missedRanges), sreq.totalRequestedUpdates);
+  }
+
   private boolean compareFingerprint(SyncShardRequest sreq) {
     if (sreq.fingerprint == null) return true;
     try {
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.solr.common.util.ByteArrayUtf8CharSequence;
+import org.apache.solr.schema.DatePointField;
+import org.apache.solr.schema.FieldType;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.IntPointField;
+import org.apache.solr.schema.LongPointField;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.schema.StrField;
+import org.apache.solr.util.DateMathParser;
+
+/**
+ * Lucene fields that {@link DocumentBuilder} reuses from one document to the next instead of
+ * creating new ones for every value, as Lucene allows once the previous document was indexed. A
+ * document built with an instance is only valid until the next document is built with it, so an
+ * instance must only be used by one thread, and only for documents that are indexed right away.
+ *
+ * <p>This is done for {@link IntPointField}, {@link LongPointField}, {@link DatePointField}, and
+ * for {@link StrField} with docValues. Other field types, subclasses of these, and values of other
+ * classes go through {@link FieldType#createFields(SchemaField, Object)}.
+ *
+ * @lucene.internal
+ */
+public final class ReusableFields {
+
+  // bound what we keep for many dynamic fields or many values
+  private static final int MAX_FIELDS = 1024;
+  private static final int MAX_VALUES_PER_FIELD = 64;
+
+  private final Map<String, FieldSlots> slotsByField = new HashMap<>();
+  private IndexSchema schema;
+  private int generation;
+
+  /** Starts the next document; the fields of the previous one are reused from now on. */
+  void startDocument(IndexSchema schema) {
+    if (this.schema != schema || slotsByField.size() > MAX_FIELDS) {
+      slotsByField.clear();
+      this.schema = schema;
+    }
+    generation++;
+  }
+
+  /**
+   * Adds the fields for a value of the given field to the document, like {@link
+   * FieldType#createFields(SchemaField, Object)} would.
+   *
+   * @return false if nothing was added because this isn't supported for the field or the value
+   */
+  boolean addFields(Document doc, SchemaField sf, Object value) {
+    final FieldType type = sf.getType();
+    final Class<?> typeClass = type.getClass();
+    if (typeClass == IntPointField.class || typeClass == LongPointField.class) {
+      if (!(value instanceof Number || value instanceof CharSequence)) {
+        return false;
+      }
+    } else if (typeClass == DatePointField.class) {
+      if (!(value instanceof Date || value instanceof CharSequence)) {
+        return false;
+      }
+    } else if (typeClass != StrField.class || !sf.hasDocValues()) {
+      return false;
+    }
+
+    FieldSlots slots = slotsByField.get(sf.getName());
+    if (slots == null || slots.type != type || slots.properties != sf.getProperties()) {
+      slots = new FieldSlots(type, sf.getProperties());
+      slotsByField.put(sf.getName(), slots);
+    }
+    final Slot slot = slots.next(generation);
+    if (slot == null) {
+      return false;
+    }
+    if (typeClass == StrField.class) {
+      addStrFields(doc, sf, value, slot);
+    } else {
+      addPointFields(doc, sf, value, slot);
+    }
+    return true;
+  }
+
+  /** Mirrors {@link org.apache.solr.schema.PointField#createFields(SchemaField, Object)}. */
+  private static void addPointFields(Document doc, SchemaField sf, Object value, Slot slot) {
+    final FieldType type = sf.getType();
+    final boolean isInt = type instanceof IntPointField;
+    final long longValue;
+    if (type instanceof DatePointField) {
+      // same for createField and toNativeType
+      Date date = value instanceof Date d ? d : DateMathParser.parseMath(null, value.toString());
+      longValue = date.getTime();
+    } else if (value instanceof Number n) {
+      longValue = isInt ? n.intValue() : n.longValue();
+    } else if (sf.indexed()) {
+      // createField is strict; toNativeType accepts the same values and more
+      longValue = isInt ? Integer.parseInt(value.toString()) : Long.parseLong(value.toString());
+    } else {
+      longValue = ((Number) type.toNativeType(value)).longValue();
+    }
+
+    final String name = sf.getName();
+    if (sf.indexed()) {
+      if (slot.indexed == null) {
+        slot.indexed = isInt ? new IntPoint(name, (int) longValue) : new LongPoint(name, longValue);
+      } else if (isInt) {
+        ((IntPoint) slot.indexed).setIntValue((int) longValue);
+      } else {
+        ((LongPoint) slot.indexed).setLongValue(longValue);
+      }
+      doc.add(slot.indexed);
+    }
+    if (sf.hasDocValues()) {
+      if (slot.docValues == null) {
+        slot.docValues =
+            sf.multiValued()
+                ? new SortedNumericDocValuesField(name, longValue)
+                : new NumericDocValuesField(name, longValue);
+      } else {
+        slot.docValues.setLongValue(longValue);
+      }
+      doc.add(slot.docValues);
+    }
+    if (sf.stored()) {
+      if (slot.stored == null) {
+        slot.stored =
+            isInt ? new StoredField(name, (int) longValue) : new StoredField(name, longValue);
+      } else if (isInt) {
+        slot.stored.setIntValue((int) longValue);
+      } else {
+        slot.stored.setLongValue(longValue);
+      }
+      doc.add(slot.stored);
+    }
+  }
+
+  /** Mirrors {@link StrField#createFields(SchemaField, Object)}. */
+  private static void addStrFields(Document doc, SchemaField sf, Object value, Slot slot) {
+    final String name = sf.getName();
+    String stringValue = null;
+    if (sf.indexed() || sf.stored()) {
+      stringValue = value.toString();
+      if (slot.indexed == null) {
+        slot.indexed = new Field(name, stringValue, sf);
+      } else {
+        slot.indexed.setStringValue(stringValue);
+      }
+      doc.add(slot.indexed);
+    }
+
+    final BytesRef bytes;
+    if (value instanceof ByteArrayUtf8CharSequence utf8) {
+      bytes = slot.bytes;
+      bytes.bytes = utf8.getBuf();
+      bytes.offset = utf8.offset();
+      bytes.length = utf8.size();
+    } else {
+      slot.bytesBuilder.copyChars(stringValue != null ? stringValue : value.toString());
+      bytes = slot.bytesBuilder.get();
+    }
+    if (slot.docValues == null) {
+      slot.docValues =
+          sf.multiValued()
+              ? new SortedSetDocValuesField(name, bytes)
+              : new SortedDocValuesField(name, bytes);
+    } else {
+      slot.docValues.setBytesValue(bytes);
+    }
+    doc.add(slot.docValues);
+  }
+
+  /** The fields for each value of one field in a document, in the order of the values. */
+  private static class FieldSlots {
+    final FieldType type;
+    final int properties;
+    final List<Slot> slots = new ArrayList<>(1);
+    int generation;
+    int used;
+
+    FieldSlots(FieldType type, int properties) {
+      this.type = type;
+      this.properties = properties;
+    }
+
+    Slot next(int generation) {
+      if (this.generation != generation) {
+        this.generation = generation;
+        used = 0;
+      }
+      if (used == slots.size()) {
+        if (used == MAX_VALUES_PER_FIELD) {
+          return null;
+        }
+        slots.add(new Slot());
+      }
+      return slots.get(used++);
+    }
+  }
+
+  private static class Slot {
+    Field indexed;
+    Field docValues;
+    StoredField stored;
+    final BytesRef bytes = new BytesRef();
+    final BytesRefBuilder bytesBuilder = new BytesRefBuilder();
+  }
+}
@@ -25,13 +25,21 @@ import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.impl.ConcurrentUpdateBaseSolrClient;
@@ -64,7 +72,24 @@ public class SolrCmdDistributor implements Closeable {
   private final List<SolrError> errors = Collections.synchronizedList(new ArrayList<>());
 
   private final CompletionService<Object> completionService;
-  private final Set<Future<Object>> pending = new HashSet<>();
+  private final Set<Future<Object>> pending = ConcurrentHashMap.newKeySet();
+
+  // Adds and deletes by id to the same node are grouped into batches of up to maxBatchSize
+  // updates, which are sent once full or maxBatchNanos after their first update. Only one batch
+  // per node is in flight, and any other update to the node waits for it, so that updates can't
+  // overtake each other. The default of 1 streams every update on its own.
+  private final int maxBatchSize = Integer.getInteger("solr.cloud.replication.batch.maxDocs", 1);
+  private final long maxBatchNanos =
+      TimeUnit.MILLISECONDS.toNanos(
+          Integer.getInteger("solr.cloud.replication.batch.maxTimeMs", 50));
+
+  // only used by the thread distributing updates, the flush timer goes through Batch.sent
+  private final Map<String, Batch> batches = new LinkedHashMap<>();
+  // one permit per node, held while a batch to the node is in flight
+  private final Map<String, Semaphore> batchesInFlight = new ConcurrentHashMap<>();
+  // nodes that were sent streamed updates since their last batch
+  private final Set<String> streamedNodes = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger batchesSent = new AtomicInteger();
 
   public SolrCmdDistributor(UpdateShardHandler updateShardHandler) {
     this.clients = new StreamingSolrClients(updateShardHandler);
@@ -94,6 +119,13 @@ public class SolrCmdDistributor implements Closeable {
 
   @Override
   public void close() {
+    for (Batch batch : batches.values()) {
+      synchronized (batch) {
+        batch.sent = true;
+        batch.cancelTimer();
+      }
+    }
+    batches.clear();
     clients.shutdown();
   }
 
@@ -220,7 +252,22 @@ public class SolrCmdDistributor implements Closeable {
       } else {
         uReq.deleteByQuery(cmd.query);
       }
-      submit(new Req(cmd, node, uReq, sync, rollupTracker, leaderTracker), false);
+      Req req = new Req(cmd, node, uReq, sync, rollupTracker, leaderTracker);
+      if (cmd.isDeleteById() && isBatchable(req)) {
+        Batch batch = batches.get(node.getUrl());
+        if (batch != null && batch.deletesId(cmd.getId())) {
+          // the same id can't be deleted twice in one request
+          flushBatch(node.getUrl());
+        }
+        addToBatch(
+            req,
+            true,
+            params,
+            cmd.commitWithin,
+            batchReq -> batchReq.deleteById(cmd.getId(), cmd.getRoute(), cmd.getVersion()));
+      } else {
+        submit(req, false);
+      }
     }
   }
 
@@ -253,7 +300,17 @@ public class SolrCmdDistributor implements Closeable {
             DistributedUpdateProcessor.DISTRIB_INPLACE_PREVVERSION,
             String.valueOf(cmd.prevVersion));
       }
-      submit(new Req(cmd, node, uReq, synchronous, rollupTracker, leaderTracker), false);
+      Req req = new Req(cmd, node, uReq, synchronous, rollupTracker, leaderTracker);
+      if (!cmd.isInPlaceUpdate() && isBatchable(req)) {
+        addToBatch(
+            req,
+            false,
+            params,
+            cmd.commitWithin,
+            batchReq -> batchReq.add(cmd.solrDoc, cmd.commitWithin, cmd.overwrite));
+      } else {
+        submit(req, false);
+      }
     }
   }
 
@@ -274,9 +331,10 @@ public class SolrCmdDistributor implements Closeable {
   }
 
   public void blockAndDoRetries() throws IOException {
+    flushBatches();
     clients.blockUntilFinished();
 
-    // wait for any async commits to complete
+    // wait for any async commits and batches to complete
     while (pending != null && pending.size() > 0) {
       Future<Object> future = null;
       try {
@@ -291,6 +349,212 @@ public class SolrCmdDistributor implements Closeable {
     doRetriesIfNeeded();
   }
 
+  private boolean isBatchable(Req req) {
+    return maxBatchSize > 1 && !req.synchronous;
+  }
+
+  /** Adds the given request to the batch of its node, and sends the batch once it is full. */
+  private void addToBatch(
+      Req req,
+      boolean deletes,
+      ModifiableSolrParams params,
+      int commitWithin,
+      Consumer<UpdateRequest> update)
+      throws IOException {
+    // the timer doesn't carry the request info, so set the principal up front
+    if (SolrRequestInfo.getRequestInfo() != null) {
+      req.uReq.setUserPrincipal(SolrRequestInfo.getRequestInfo().getUserPrincipal());
+    }
+    String url = req.node.getUrl();
+    boolean full;
+    while (true) {
+      Batch batch = getBatch(req, deletes, params, commitWithin);
+      synchronized (batch) {
+        if (batch.sent) {
+          // the timer was quicker
+          batches.remove(url, batch);
+          continue;
+        }
+        update.accept(batch.uReq);
+        batch.reqs.add(req);
+        full = batch.reqs.size() >= maxBatchSize || req.uReq.isLastDocInBatch();
+      }
+      break;
+    }
+    if (full) {
+      flushBatch(url);
+    }
+  }
+
+  /**
+   * Returns the batch to add the given request to, sending the current batch of its node first if
+   * the request can't be added to it.
+   */
+  private Batch getBatch(Req req, boolean deletes, ModifiableSolrParams params, int commitWithin)
+      throws IOException {
+    String url = req.node.getUrl();
+    String paramsKey = params.toString();
+    Batch batch = batches.get(url);
+    if (batch != null
+        && (batch.deletes != deletes
+            || !batch.paramsKey.equals(paramsKey)
+            || (deletes && batch.commitWithin != commitWithin))) {
+      flushBatch(url);
+      batch = null;
+    }
+    if (batch == null) {
+      batch = new Batch(req.node, deletes, paramsKey, commitWithin);
+      batch.uReq.setParams(new ModifiableSolrParams(params));
+      batch.uReq.setUserPrincipal(req.uReq.getUserPrincipal());
+      if (deletes) {
+        batch.uReq.setCommitWithin(commitWithin);
+      }
+      scheduleFlush(batch);
+      batches.put(url, batch);
+    }
+    return batch;
+  }
+
+  private void flushBatches() throws IOException {
+    for (String url : new ArrayList<>(batches.keySet())) {
+      flushBatch(url);
+    }
+  }
+
+  /** Sends the current batch of the given node, once its previous batch is done. */
+  private void flushBatch(String url) throws IOException {
+    final Batch batch = batches.remove(url);
+    if (batch == null) return;
+
+    final Semaphore inFlight = getBatchesInFlight(url);
+    try {
+      inFlight.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting to send updates to " + url, e);
+    }
+    synchronized (batch) {
+      batch.cancelTimer();
+      if (batch.sent) {
+        inFlight.release();
+        return;
+      }
+      batch.sent = true;
+    }
+    sendBatchAsync(batch, inFlight);
+  }
+
+  /** Waits until the batch in flight to the given node, if any, is done. */
+  private void awaitBatch(String url) throws IOException {
+    Semaphore inFlight = batchesInFlight.get(url);
+    if (inFlight == null) return;
+    try {
+      inFlight.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for updates sent to " + url, e);
+    }
+    inFlight.release();
+  }
+
+  private Semaphore getBatchesInFlight(String url) {
+    return batchesInFlight.computeIfAbsent(url, k -> new Semaphore(1));
+  }
+
+  private void scheduleFlush(Batch batch) {
+    try {
+      batch.timer =
+          clients
+              .getBatchFlushScheduler()
+              .schedule(() -> flushExpiredBatch(batch), maxBatchNanos, TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException e) {
+      // shutting down, the batch is sent when it is full or the updates are finished
+      log.debug("Could not schedule the flush of a batch to {}", batch.node.getUrl());
+    }
+  }
+
+  /**
+   * Sends a batch that was not filled in time, without blocking the timer. If the previous batch
+   * of the node is still in flight, this is tried again later.
+   */
+  private void flushExpiredBatch(Batch batch) {
+    final Semaphore inFlight = getBatchesInFlight(batch.node.getUrl());
+    synchronized (batch) {
+      if (batch.sent) return;
+      if (!inFlight.tryAcquire()) {
+        scheduleFlush(batch);
+        return;
+      }
+      batch.sent = true;
+    }
+    try {
+      sendBatchAsync(batch, inFlight);
+    } catch (RuntimeException e) {
+      log.warn("Failed to send a batch of updates to {}", batch.node.getUrl(), e);
+    }
+  }
+
+  private void sendBatchAsync(Batch batch, Semaphore inFlight) {
+    String url = batch.node.getUrl();
+    if (log.isDebugEnabled()) {
+      log.debug(
+          "sending batch of {} updates to {} params {}",
+          batch.reqs.size(),
+          url,
+          batch.uReq.getParams());
+    }
+    // streamed updates sent to this node before must not be overtaken
+    final boolean awaitStream = streamedNodes.remove(url);
+    try {
+      pending.add(
+          completionService.submit(
+              () -> {
+                try {
+                  if (awaitStream) {
+                    clients.blockUntilFinished(batch.node);
+                  }
+                  sendBatch(batch);
+                } finally {
+                  inFlight.release();
+                }
+                return null;
+              }));
+    } catch (RuntimeException e) {
+      inFlight.release();
+      throw e;
+    }
+  }
+
+  private void sendBatch(Batch batch) throws IOException {
+    try {
+      NamedList<Object> rsp =
+          clients
+              .getHttpClient()
+              .requestWithBaseUrl(batch.node.getBaseUrl(), batch.uReq, batch.node.getCoreName());
+      batchesSent.incrementAndGet();
+      for (Req req : batch.reqs) {
+        req.trackRequestResult(rsp, true);
+      }
+    } catch (Exception e) {
+      log.warn(
+          "Sending batch of {} updates to {} failed, sending them one by one",
+          batch.reqs.size(),
+          batch.node.getUrl(),
+          e);
+      // errors and retries are tracked per update like for any other streamed update, and the
+      // node's next batch waits until these are sent
+      for (Req req : batch.reqs) {
+        doRequest(req);
+      }
+      clients.blockUntilFinished(batch.node);
+    }
+  }
+
+  /** The number of batches that were sent successfully, for tests. */
+  int getBatchesSent() {
+    return batchesSent.get();
+  }
+
   void addCommit(UpdateRequest ureq, CommitUpdateCommand cmd) {
     if (cmd == null) return;
     ureq.setAction(
@@ -340,6 +604,11 @@ public class SolrCmdDistributor implements Closeable {
           req.uReq.getParams());
     }
 
+    // don't let this update overtake the batched ones before it
+    flushBatch(req.node.getUrl());
+    awaitBatch(req.node.getUrl());
+    streamedNodes.add(req.node.getUrl());
+
     if (isCommit) {
       // a commit using ConncurrentUpdateSolrServer is not async,
       // so we make it async to prevent commits from happening
@@ -445,20 +714,27 @@ public class SolrCmdDistributor implements Closeable {
       }
     }
 
+    /**
+     * Like {@link #trackRequestResult(org.eclipse.jetty.client.Response, InputStream, boolean)},
+     * for a response that was already parsed.
+     */
+    public void trackRequestResult(NamedList<Object> rsp, boolean success) {
+      int rfFromResp = getRfFromResponse(rsp);
+
+      if (leaderTracker != null && rfFromResp == Integer.MAX_VALUE) {
+        leaderTracker.trackRequestResult(node, success);
+      }
+
+      if (rollupTracker != null) {
+        rollupTracker.testAndSetAchievedRf(rfFromResp);
+      }
+    }
+
     private int getRfFromResponse(InputStream inputStream) {
       if (inputStream != null) {
         try {
           JavaBinResponseParser brp = new JavaBinResponseParser();
-          NamedList<Object> nl = brp.processResponse(inputStream, null);
-          Object hdr = nl.get("responseHeader");
-          if (hdr != null && hdr instanceof NamedList) {
-            @SuppressWarnings({"unchecked"})
-            NamedList<Object> hdrList = (NamedList<Object>) hdr;
-            Object rfObj = hdrList.get(UpdateRequest.REPFACT);
-            if (rfObj != null && rfObj instanceof Integer) {
-              return (Integer) rfObj;
-            }
-          }
+          return getRfFromResponse(brp.processResponse(inputStream, null));
         } catch (Exception e) {
           log.warn(
               "Failed to parse response from {} during replication factor accounting", node, e);
@@ -466,6 +742,54 @@ public class SolrCmdDistributor implements Closeable {
       }
       return Integer.MAX_VALUE;
     }
+
+    private static int getRfFromResponse(NamedList<Object> nl) {
+      if (nl != null) {
+        Object hdr = nl.get("responseHeader");
+        if (hdr != null && hdr instanceof NamedList) {
+          @SuppressWarnings({"unchecked"})
+          NamedList<Object> hdrList = (NamedList<Object>) hdr;
+          Object rfObj = hdrList.get(UpdateRequest.REPFACT);
+          if (rfObj != null && rfObj instanceof Integer) {
+            return (Integer) rfObj;
+          }
+        }
+      }
+      return Integer.MAX_VALUE;
+    }
+  }
+
+  /**
+   * Updates to be sent to the same node in a single request. Changes are made while holding its
+   * monitor, since the flush timer may send it at any time.
+   */
+  private static class Batch {
+    final Node node;
+    final boolean deletes;
+    final String paramsKey;
+    final int commitWithin;
+    final UpdateRequest uReq = new UpdateRequest();
+    final List<Req> reqs = new ArrayList<>();
+    // set once the batch is sent, after which nothing can be added to it
+    boolean sent;
+    ScheduledFuture<?> timer;
+
+    Batch(Node node, boolean deletes, String paramsKey, int commitWithin) {
+      this.node = node;
+      this.deletes = deletes;
+      this.paramsKey = paramsKey;
+      this.commitWithin = commitWithin;
+    }
+
+    synchronized boolean deletesId(String id) {
+      return uReq.getDeleteByIdMap() != null && uReq.getDeleteByIdMap().containsKey(id);
+    }
+
+    void cancelTimer() {
+      if (timer != null) {
+        timer.cancel(false);
+      }
+    }
   }
 
   public static Diagnostics.Callable
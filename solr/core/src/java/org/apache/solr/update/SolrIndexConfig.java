@@ -263,6 +263,9 @@ public class SolrIndexConfig implements MapSerializable {
     MergePolicy mergePolicy = buildMergePolicy(core.getResourceLoader(), schema);
     iwc.setMergePolicy(mergePolicy);
     MergeScheduler mergeScheduler = buildMergeScheduler(core.getResourceLoader());
+    if (mergeScheduler instanceof LatencyAwareMergeScheduler latencyAwareMergeScheduler) {
+      latencyAwareMergeScheduler.setSearchLatencyTracker(core.getSearchLatencyTracker());
+    }
     iwc.setMergeScheduler(mergeScheduler);
     iwc.setInfoStream(infoStream);
 
@@ -25,8 +25,12 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.lucene.index.CodecReader;
 import org.apache.lucene.index.FilterCodecReader;
@@ -64,7 +68,9 @@ import org.apache.solr.common.cloud.CompositeIdRouter;
 import org.apache.solr.common.cloud.DocRouter;
 import org.apache.solr.common.cloud.HashBasedRouter;
 import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.core.DirectoryFactory;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.handler.IndexFetcher;
@@ -113,6 +119,8 @@ public class SolrIndexSplitter {
   final int numPieces;
   final String splitKey;
   SplitMethod splitMethod;
+  // the number of segments or sub-indexes processed at the same time when rewriting
+  final int splitThreads;
   final RTimerTree timings = new RTimerTree();
 
   public SolrIndexSplitter(SplitIndexCommand cmd) {
@@ -155,6 +163,12 @@ public class SolrIndexSplitter {
     } else {
       this.splitMethod = cmd.splitMethod;
     }
+
+    this.splitThreads =
+        Math.max(
+            1,
+            Integer.getInteger(
+                "solr.index.split.threads", Runtime.getRuntime().availableProcessors()));
   }
 
   public void split(NamedList<Object> results) throws IOException {
@@ -229,13 +243,15 @@ public class SolrIndexSplitter {
   public void doSplit() throws IOException {
 
     List<LeafReaderContext> leaves = searcher.getRawReader().leaves();
-    Directory parentDirectory = searcher.getRawReader().directory();
     List<FixedBitSet[]> segmentDocSets = new ArrayList<>(leaves.size());
-    SolrIndexConfig parentConfig = searcher.getCore().getSolrConfig().indexConfig;
     String timestamp = new SimpleDateFormat(SnapShooter.DATE_FMT, Locale.ROOT).format(new Date());
 
     if (log.isInfoEnabled()) {
-      log.info("SolrIndexSplitter: partitions={} segments={}", numPieces, leaves.size());
+      log.info(
+          "SolrIndexSplitter: partitions={} segments={} threads={}",
+          numPieces,
+          leaves.size(),
+          splitThreads);
     }
     RTimerTree t;
 
@@ -244,19 +260,28 @@ public class SolrIndexSplitter {
 
     if (splitMethod != SplitMethod.LINK) {
       t = timings.sub("findDocSetsPerLeaf");
+      List<Callable<FixedBitSet[]>> tasks = new ArrayList<>(leaves.size());
       for (LeafReaderContext readerContext : leaves) {
-        assert readerContext.ordInParent == segmentDocSets.size(); // make sure we're going in order
-        FixedBitSet[] docSets =
-            split(
-                readerContext,
-                numPieces,
-                field,
-                rangesArr,
-                splitKey,
-                hashRouter,
-                currentPartition,
-                false);
-        segmentDocSets.add(docSets);
+        assert readerContext.ordInParent == tasks.size(); // make sure we're going in order
+        tasks.add(
+            () ->
+                split(
+                    readerContext,
+                    numPieces,
+                    field,
+                    rangesArr,
+                    splitKey,
+                    hashRouter,
+                    currentPartition,
+                    false));
+      }
+      if (rangesArr == null) {
+        // round-robin assignment depends on the order in which documents are seen
+        for (Callable<FixedBitSet[]> task : tasks) {
+          segmentDocSets.add(call(task));
+        }
+      } else {
+        segmentDocSets.addAll(runAll("findDocSets", tasks));
       }
       t.stop();
     }
@@ -267,150 +292,43 @@ public class SolrIndexSplitter {
     // - need to worry about number of open descriptors
     // - need to worry about if IW.addIndexes does a sync or not...
     // - would be more efficient on the read side, but prob less efficient merging
-    for (int partitionNumber = 0; partitionNumber < numPieces; partitionNumber++) {
-      String partitionName =
-          "SolrIndexSplitter:partition="
-              + partitionNumber
-              + ",partitionCount="
-              + numPieces
-              + (cmd.ranges != null ? ",range=" + cmd.ranges.get(partitionNumber) : "");
-      log.info(partitionName);
-
-      boolean success = false;
-
-      RefCounted<IndexWriter> iwRef = null;
-      IndexWriter iw;
-      if (cmd.cores != null && splitMethod != SplitMethod.LINK) {
-        SolrCore subCore = cmd.cores.get(partitionNumber);
-        iwRef = subCore.getUpdateHandler().getSolrCoreState().getIndexWriter(subCore);
-        iw = iwRef.get();
-      } else {
-        if (splitMethod == SplitMethod.LINK) {
-          SolrCore subCore = cmd.cores.get(partitionNumber);
-          String path = subCore.getDataDir() + INDEX_PREFIX + timestamp;
-          t = timings.sub("hardLinkCopy");
-          t.resume();
-          // copy by hard-linking
-          Directory splitDir =
-              subCore
-                  .getDirectoryFactory()
-                  .get(
-                      path,
-                      DirectoryFactory.DirContext.DEFAULT,
-                      subCore.getSolrConfig().indexConfig.lockType);
-          // the wrapper doesn't hold any resources itself so it doesn't need closing
-          HardlinkCopyDirectoryWrapper hardLinkedDir = new HardlinkCopyDirectoryWrapper(splitDir);
-          boolean copiedOk = false;
-          try {
-            for (String file : parentDirectory.listAll()) {
-              // we've closed the IndexWriter, so ignore write.lock
-              // its file may be present even when IndexWriter is closed but
-              // we've already checked that the lock is not held by anyone else
-              if (file.equals(IndexWriter.WRITE_LOCK_NAME)) {
-                continue;
-              }
-              hardLinkedDir.copyFrom(parentDirectory, file, file, IOContext.DEFAULT);
-            }
-            copiedOk = true;
-          } finally {
-            if (!copiedOk) {
-              subCore.getDirectoryFactory().doneWithDirectory(splitDir);
-              subCore.getDirectoryFactory().remove(splitDir);
-            }
-          }
-          t.pause();
-          IndexWriterConfig iwConfig = parentConfig.toIndexWriterConfig(subCore);
-          // don't run merges at this time
-          iwConfig.setMergePolicy(NoMergePolicy.INSTANCE);
-          t = timings.sub("createSubIW");
-          t.resume();
-          iw = new SolrIndexWriter(partitionName, splitDir, iwConfig);
-          t.pause();
-        } else {
-          SolrCore core = searcher.getCore();
-          String path = cmd.paths.get(partitionNumber);
-          t = timings.sub("createSubIW");
-          t.resume();
-          iw =
-              SolrIndexWriter.create(
-                  core,
-                  partitionName,
-                  path,
-                  core.getDirectoryFactory(),
-                  true,
-                  core.getLatestSchema(),
-                  core.getSolrConfig().indexConfig,
-                  core.getDeletionPolicy(),
-                  core.getCodec());
-          t.pause();
-        }
+    if (splitMethod == SplitMethod.LINK || splitThreads == 1 || numPieces == 1) {
+      for (int partitionNumber = 0; partitionNumber < numPieces; partitionNumber++) {
+        writePartition(
+            partitionNumber,
+            timings,
+            leaves,
+            segmentDocSets,
+            docsToDeleteCache,
+            currentPartition,
+            timestamp);
       }
-
-      try {
-        if (splitMethod == SplitMethod.LINK) {
-          t = timings.sub("deleteDocuments");
-          t.resume();
-          // apply deletions specific to this partition. As a side-effect on the first call this
-          // also populates a cache of docsets to delete per leaf reader per partition, which is
-          // reused for subsequent partitions.
-          iw.deleteDocuments(
-              new SplittingQuery(
-                  partitionNumber,
-                  field,
-                  rangesArr,
-                  hashRouter,
-                  splitKey,
+    } else {
+      // the sub-indexes are independent of each other, so they're written at the same time, each
+      // timed on its own
+      t = timings.sub("writePartitions");
+      List<Callable<RTimerTree>> tasks = new ArrayList<>(numPieces);
+      for (int partitionNumber = 0; partitionNumber < numPieces; partitionNumber++) {
+        int partition = partitionNumber;
+        tasks.add(
+            () -> {
+              RTimerTree partitionTimings = new RTimerTree();
+              writePartition(
+                  partition,
+                  partitionTimings,
+                  leaves,
+                  segmentDocSets,
                   docsToDeleteCache,
-                  currentPartition));
-          t.pause();
-        } else {
-          // This removes deletions but optimize might still be needed because sub-shards will have
-          // the same number of segments as the parent shard.
-          t = timings.sub("addIndexes");
-          t.resume();
-          for (int segmentNumber = 0; segmentNumber < leaves.size(); segmentNumber++) {
-            if (log.isInfoEnabled()) {
-              log.info(
-                  "SolrIndexSplitter: partition # {} partitionCount={} {} segment #={} segmentCount={}",
-                  partitionNumber,
-                  numPieces,
-                  (cmd.ranges != null ? " range=" + cmd.ranges.get(partitionNumber) : ""),
-                  segmentNumber,
-                  leaves.size()); // nowarn
-            }
-            CodecReader subReader = SlowCodecReaderWrapper.wrap(leaves.get(segmentNumber).reader());
-            iw.addIndexes(
-                new LiveDocsReader(subReader, segmentDocSets.get(segmentNumber)[partitionNumber]));
-          }
-          t.pause();
-        }
-        // we commit explicitly instead of sending a CommitUpdateCommand through the processor chain
-        // because the sub-shard cores will just ignore such a commit because the update log is not
-        // in active state at this time.
-        // TODO no commitUpdateCommand
-        SolrIndexWriter.setCommitData(iw, -1, cmd.commitData);
-        t = timings.sub("subIWCommit");
-        t.resume();
-        iw.commit();
-        t.pause();
-        success = true;
-      } finally {
-        if (iwRef != null) {
-          iwRef.decref();
-        } else {
-          if (success) {
-            t = timings.sub("subIWClose");
-            t.resume();
-            iw.close();
-            t.pause();
-          } else {
-            IOUtils.closeWhileHandlingException(iw);
-          }
-          if (splitMethod == SplitMethod.LINK) {
-            SolrCore subCore = cmd.cores.get(partitionNumber);
-            subCore.getDirectoryFactory().release(iw.getDirectory());
-          }
-        }
+                  currentPartition,
+                  timestamp);
+              partitionTimings.stop();
+              return partitionTimings;
+            });
+      }
+      List<RTimerTree> partitionTimings = runAll("writePartitions", tasks);
+      t.stop();
+      for (int partitionNumber = 0; partitionNumber < numPieces; partitionNumber++) {
+        t.getChildren().add("partition" + partitionNumber, partitionTimings.get(partitionNumber));
       }
     }
     // all sub-indexes created ok
@@ -511,6 +429,231 @@ public class SolrIndexSplitter {
     }
   }
 
+  /**
+   * Creates the sub-index of one partition. Partitions may be written at the same time, each
+   * recording its timings in the given tree.
+   */
+  private void writePartition(
+      int partitionNumber,
+      RTimerTree timings,
+      List<LeafReaderContext> leaves,
+      List<FixedBitSet[]> segmentDocSets,
+      Map<IndexReader.CacheKey, FixedBitSet[]> docsToDeleteCache,
+      AtomicInteger currentPartition,
+      String timestamp)
+      throws IOException {
+    Directory parentDirectory = searcher.getRawReader().directory();
+    SolrIndexConfig parentConfig = searcher.getCore().getSolrConfig().indexConfig;
+    RTimerTree t;
+    String partitionName =
+        "SolrIndexSplitter:partition="
+            + partitionNumber
+            + ",partitionCount="
+            + numPieces
+            + (cmd.ranges != null ? ",range=" + cmd.ranges.get(partitionNumber) : "");
+    log.info(partitionName);
+
+    boolean success = false;
+
+    RefCounted<IndexWriter> iwRef = null;
+    IndexWriter iw;
+    if (cmd.cores != null && splitMethod != SplitMethod.LINK) {
+      SolrCore subCore = cmd.cores.get(partitionNumber);
+      iwRef = subCore.getUpdateHandler().getSolrCoreState().getIndexWriter(subCore);
+      iw = iwRef.get();
+    } else {
+      if (splitMethod == SplitMethod.LINK) {
+        SolrCore subCore = cmd.cores.get(partitionNumber);
+        String path = subCore.getDataDir() + INDEX_PREFIX + timestamp;
+        t = timings.sub("hardLinkCopy");
+        t.resume();
+        // copy by hard-linking
+        Directory splitDir =
+            subCore
+                .getDirectoryFactory()
+                .get(
+                    path,
+                    DirectoryFactory.DirContext.DEFAULT,
+                    subCore.getSolrConfig().indexConfig.lockType);
+        // the wrapper doesn't hold any resources itself so it doesn't need closing
+        HardlinkCopyDirectoryWrapper hardLinkedDir = new HardlinkCopyDirectoryWrapper(splitDir);
+        boolean copiedOk = false;
+        try {
+          for (String file : parentDirectory.listAll()) {
+            // we've closed the IndexWriter, so ignore write.lock
+            // its file may be present even when IndexWriter is closed but
+            // we've already checked that the lock is not held by anyone else
+            if (file.equals(IndexWriter.WRITE_LOCK_NAME)) {
+              continue;
+            }
+            hardLinkedDir.copyFrom(parentDirectory, file, file, IOContext.DEFAULT);
+          }
+          copiedOk = true;
+        } finally {
+          if (!copiedOk) {
+            subCore.getDirectoryFactory().doneWithDirectory(splitDir);
+            subCore.getDirectoryFactory().remove(splitDir);
+          }
+        }
+        t.pause();
+        IndexWriterConfig iwConfig = parentConfig.toIndexWriterConfig(subCore);
+        // don't run merges at this time
+        iwConfig.setMergePolicy(NoMergePolicy.INSTANCE);
+        t = timings.sub("createSubIW");
+        t.resume();
+        iw = new SolrIndexWriter(partitionName, splitDir, iwConfig);
+        t.pause();
+      } else {
+        SolrCore core = searcher.getCore();
+        String path = cmd.paths.get(partitionNumber);
+        t = timings.sub("createSubIW");
+        t.resume();
+        iw =
+            SolrIndexWriter.create(
+                core,
+                partitionName,
+                path,
+                core.getDirectoryFactory(),
+                true,
+                core.getLatestSchema(),
+                core.getSolrConfig().indexConfig,
+                core.getDeletionPolicy(),
+                core.getCodec());
+        t.pause();
+      }
+    }
+
+    try {
+      if (splitMethod == SplitMethod.LINK) {
+        t = timings.sub("deleteDocuments");
+        t.resume();
+        // apply deletions specific to this partition. As a side-effect on the first call this
+        // also populates a cache of docsets to delete per leaf reader per partition, which is
+        // reused for subsequent partitions.
+        iw.deleteDocuments(
+            new SplittingQuery(
+                partitionNumber,
+                field,
+                rangesArr,
+                hashRouter,
+                splitKey,
+                docsToDeleteCache,
+                currentPartition));
+        t.pause();
+      } else {
+        // This removes deletions but optimize might still be needed because sub-shards will have
+        // the same number of segments as the parent shard.
+        t = timings.sub("addIndexes");
+        t.resume();
+        CodecReader[] subReaders = new CodecReader[leaves.size()];
+        long numDocs = 0;
+        for (int segmentNumber = 0; segmentNumber < leaves.size(); segmentNumber++) {
+          CodecReader subReader = SlowCodecReaderWrapper.wrap(leaves.get(segmentNumber).reader());
+          subReaders[segmentNumber] =
+              new LiveDocsReader(subReader, segmentDocSets.get(segmentNumber)[partitionNumber]);
+          numDocs += subReaders[segmentNumber].numDocs();
+        }
+        long startNs = System.nanoTime();
+        // adding all segments at once lets the merge scheduler copy them concurrently
+        iw.addIndexes(subReaders);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+        if (log.isInfoEnabled()) {
+          log.info(
+              "SolrIndexSplitter: partition # {}{} wrote {} docs from {} segments in {} ms ({} docs/s)",
+              partitionNumber,
+              (cmd.ranges != null ? " range=" + cmd.ranges.get(partitionNumber) : ""),
+              numDocs,
+              leaves.size(),
+              elapsedMs,
+              numDocs * 1000 / Math.max(1, elapsedMs)); // nowarn
+        }
+        t.pause();
+      }
+      // we commit explicitly instead of sending a CommitUpdateCommand through the processor chain
+      // because the sub-shard cores will just ignore such a commit because the update log is not
+      // in active state at this time.
+      // TODO no commitUpdateCommand
+      SolrIndexWriter.setCommitData(iw, -1, cmd.commitData);
+      t = timings.sub("subIWCommit");
+      t.resume();
+      iw.commit();
+      t.pause();
+      success = true;
+    } finally {
+      if (iwRef != null) {
+        iwRef.decref();
+      } else {
+        if (success) {
+          t = timings.sub("subIWClose");
+          t.resume();
+          iw.close();
+          t.pause();
+        } else {
+          IOUtils.closeWhileHandlingException(iw);
+        }
+        if (splitMethod == SplitMethod.LINK) {
+          SolrCore subCore = cmd.cores.get(partitionNumber);
+          subCore.getDirectoryFactory().release(iw.getDirectory());
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs the given tasks on up to {@link #splitThreads} threads, returning their results in the
+   * same order.
+   */
+  private <T> List<T> runAll(String name, List<Callable<T>> tasks) throws IOException {
+    if (splitThreads == 1 || tasks.size() <= 1) {
+      List<T> results = new ArrayList<>(tasks.size());
+      for (Callable<T> task : tasks) {
+        results.add(call(task));
+      }
+      return results;
+    }
+    ExecutorService executor =
+        ExecutorUtil.newMDCAwareFixedThreadPool(
+            Math.min(splitThreads, tasks.size()),
+            new SolrNamedThreadFactory("SolrIndexSplitter-" + name));
+    try {
+      List<Future<T>> futures = new ArrayList<>(tasks.size());
+      for (Callable<T> task : tasks) {
+        futures.add(executor.submit(task));
+      }
+      List<T> results = new ArrayList<>(tasks.size());
+      for (Future<T> future : futures) {
+        try {
+          results.add(future.get());
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof IOException ioe) {
+            throw ioe;
+          }
+          if (e.getCause() instanceof RuntimeException re) {
+            throw re;
+          }
+          throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e.getCause());
+        }
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR, "Interrupted while splitting", e);
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+  }
+
+  private static <T> T call(Callable<T> task) throws IOException {
+    try {
+      return task.call();
+    } catch (IOException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
+    }
+  }
+
   private void openNewSearcher(SolrCore core) throws Exception {
     Future<?>[] waitSearcher = (Future<?>[]) Array.newInstance(Future.class, 1);
     core.getSearcher(true, false, waitSearcher, true);
@@ -282,6 +282,35 @@ public class SolrIndexWriter extends IndexWriter {
     minorMergeTimer =
         new AttributedLongTimer(
             mergesTimerBase, baseAttributes.toBuilder().put(MERGE_TYPE_ATTR, "minor").build());
+
+    if (getConfig().getMergeScheduler() instanceof LatencyAwareMergeScheduler scheduler) {
+      solrMetricsContext.observableLongGauge(
+          "solr_core_indexwriter_merge_throttled",
+          "Whether merges are throttled because searches are slow or the system is loaded",
+          measurement -> measurement.record(scheduler.isThrottled() ? 1 : 0, baseAttributes));
+      solrMetricsContext.observableDoubleGauge(
+          "solr_core_indexwriter_merge_io_rate_limit",
+          "Current I/O rate limit of big merges in MB per second, if any",
+          measurement -> {
+            double mbPerSec = scheduler.getIORateLimitMBPerSec();
+            if (Double.isFinite(mbPerSec)) {
+              measurement.record(mbPerSec, baseAttributes);
+            }
+          });
+      solrMetricsContext.observableLongGauge(
+          "solr_core_indexwriter_merge_max_threads",
+          "Current maximum number of merge threads",
+          measurement -> measurement.record(scheduler.getMaxThreadCount(), baseAttributes));
+      solrMetricsContext.observableDoubleGauge(
+          "solr_core_indexwriter_merge_throttle_search_latency",
+          "Mean search time in milliseconds that merge throttling last acted on",
+          measurement -> {
+            double latencyMs = scheduler.getRecentQueryLatencyMs();
+            if (latencyMs >= 0) {
+              measurement.record(latencyMs, baseAttributes);
+            }
+          });
+    }
   }
 
   /**
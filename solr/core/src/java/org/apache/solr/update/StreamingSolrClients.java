@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.impl.ConcurrentUpdateBaseSolrClient;
@@ -51,9 +52,11 @@ public class StreamingSolrClients {
   private List<SolrError> errors = Collections.synchronizedList(new ArrayList<>());
 
   private ExecutorService updateExecutor;
+  private ScheduledExecutorService batchFlushScheduler;
 
   public StreamingSolrClients(UpdateShardHandler updateShardHandler) {
     this.updateExecutor = updateShardHandler.getUpdateExecutor();
+    this.batchFlushScheduler = updateShardHandler.getBatchFlushScheduler();
     this.httpClient = updateShardHandler.getUpdateOnlyHttpClient();
   }
 
@@ -98,6 +101,17 @@ public class StreamingSolrClients {
     }
   }
 
+  /** Blocks until the updates streamed to the given node have been sent. */
+  public void blockUntilFinished(SolrCmdDistributor.Node node) throws IOException {
+    ConcurrentUpdateBaseSolrClient client;
+    synchronized (this) {
+      client = solrClients.get(getFullUrl(node.getUrl()));
+    }
+    if (client != null) {
+      client.blockUntilFinished();
+    }
+  }
+
   public synchronized void shutdown() {
     for (ConcurrentUpdateBaseSolrClient client : solrClients.values()) {
       client.close();
@@ -121,6 +135,10 @@ public class StreamingSolrClients {
   public ExecutorService getUpdateExecutor() {
     return updateExecutor;
   }
+
+  public ScheduledExecutorService getBatchFlushScheduler() {
+    return batchFlushScheduler;
+  }
 }
 
 class ErrorReportingConcurrentUpdateSolrClient extends ConcurrentUpdateJettySolrClient {
@@ -36,8 +36,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.compress.LZ4;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.SolrInputDocument;
@@ -71,6 +77,12 @@ public class TransactionLog implements Closeable {
 
   public static final String END_MESSAGE = "SOLR_TLOG_END";
 
+  /** The header value of a log compressing its documents with LZ4 */
+  public static final String COMPRESSION_LZ4 = "lz4";
+
+  // documents serialized to fewer bytes than this are not worth compressing
+  static final int MIN_COMPRESSED_DOC_SIZE = 128;
+
   long id;
   protected Path tlog;
   protected FileChannel channel;
@@ -85,9 +97,21 @@ public class TransactionLog implements Closeable {
   // future, recovery)
   protected volatile boolean deleteOnClose = true;
 
+  // Group commit: threads waiting for their records to be durable share a single fsync.
+  private final Object syncLock = new Object();
+  private long syncedPosition; // guarded by syncLock
+  private boolean syncing; // guarded by syncLock
+
+  // memory-mapped view of the log once no more records are written to it, see mapForReads()
+  private volatile ByteBuffer mapped;
+
   protected AtomicInteger refcount = new AtomicInteger(1);
   protected Map<String, Integer> globalStringMap = new HashMap<>();
   protected List<String> globalStringList = new ArrayList<>();
+  // whether documents are written compressed, recorded in the header
+  protected volatile boolean compressDocuments;
+  // created by the first compressed write, guarded by this
+  private DocumentCompressor compressor;
 
   // write a BytesRef as a byte array
   protected static final JavaBinCodec.ObjectResolver resolver =
@@ -156,9 +180,22 @@ public class TransactionLog implements Closeable {
       if (UUID == tagByte) {
         return new java.util.UUID(dis.readLong(), dis.readLong());
       }
+      if (COMPRESSED == tagByte) {
+        return readCompressed(dis);
+      }
       return super.readObject(dis);
     }
 
+    /** Reads a value written by {@link DocumentCompressor#writeTo(FastOutputStream)} */
+    protected Object readCompressed(DataInputInputStream dis) throws IOException {
+      int length = readVInt(dis);
+      byte[] compressed = new byte[readVInt(dis)];
+      dis.readFully(compressed);
+      byte[] bytes = new byte[length];
+      LZ4.decompress(new ByteArrayDataInput(compressed), length, bytes, 0);
+      return readVal(new FastInputStream(null, bytes, 0, length));
+    }
+
     @Override
     public boolean writePrimitive(Object val) throws IOException {
       if (val instanceof java.util.UUID uuid) {
@@ -171,6 +208,70 @@ public class TransactionLog implements Closeable {
     }
   }
 
+  /**
+   * Compresses the documents written to the log, reusing its codec, buffers and LZ4 hash table
+   * across documents. Only used under the log's monitor.
+   */
+  private class DocumentCompressor {
+    private final LogCodec codec = new LogCodec(resolver);
+    private final BytesRefBuilder raw = new BytesRefBuilder();
+    private final FastOutputStream rawOut =
+        new FastOutputStream(
+            new OutputStream() {
+              @Override
+              public void write(int b) {
+                raw.append((byte) b);
+              }
+
+              @Override
+              public void write(byte[] b, int off, int len) {
+                raw.append(b, off, len);
+              }
+            });
+    private final LZ4.FastCompressionHashTable hashTable = new LZ4.FastCompressionHashTable();
+    private byte[] compressed = BytesRef.EMPTY_BYTES;
+
+    // the length of the serialized document, and of its compressed form if it was compressed
+    private int length;
+    private int compressedLength = -1;
+
+    /**
+     * Serializes the document, and compresses it if it is large enough to be worth it. Done before
+     * anything is written to the log, so that a failure doesn't leave a partial record.
+     */
+    void compress(SolrInputDocument sdoc) throws IOException {
+      raw.clear();
+      codec.init(rawOut);
+      codec.writeSolrInputDocument(sdoc);
+      rawOut.flushBuffer();
+      length = raw.length();
+      compressedLength = -1;
+      if (length >= MIN_COMPRESSED_DOC_SIZE) {
+        // LZ4 expands incompressible input by at most one byte per 255, plus a few for the end
+        compressed = ArrayUtil.growNoCopy(compressed, length + length / 255 + 16);
+        ByteArrayDataOutput out = new ByteArrayDataOutput(compressed);
+        LZ4.compress(raw.bytes(), 0, length, out, hashTable);
+        compressedLength = out.getPosition();
+      }
+    }
+
+    /**
+     * Writes the last compressed document as a single frame holding the uncompressed and compressed
+     * lengths followed by the LZ4 compressed JavaBin, or as plain JavaBin if it was too small.
+     */
+    void writeTo(FastOutputStream out) throws IOException {
+      if (compressedLength < 0) {
+        out.write(raw.bytes(), 0, length);
+        return;
+      }
+      codec.init(out);
+      codec.writeTag(JavaBinCodec.COMPRESSED);
+      JavaBinCodec.writeVInt(length, out);
+      JavaBinCodec.writeVInt(compressedLength, out);
+      out.write(compressed, 0, compressedLength);
+    }
+  }
+
   TransactionLog(Path tlogFile, Collection<String> globalStrings) {
     this(tlogFile, globalStrings, false);
   }
@@ -295,7 +396,7 @@ public class TransactionLog implements Closeable {
     long pos = size - END_MESSAGE.length() - 4;
     if (pos < 0) return false;
     @SuppressWarnings("resource")
-    final InputStream is = channelInputStreamOpener.open(channel, pos);
+    final InputStream is = openInputStream(pos);
     int n = is.read(buf);
     if (n != buf.length) {
       return false;
@@ -322,7 +423,7 @@ public class TransactionLog implements Closeable {
   @SuppressWarnings({"unchecked"})
   private void readHeader(DataInputInputStream is) throws IOException {
     // read existing header
-    is = is != null ? is : channelInputStreamOpener.open(channel, 0);
+    is = is != null ? is : openInputStream(0);
     @SuppressWarnings("resource")
     final LogCodec codec = new LogCodec(resolver);
     Map<?, ?> header = (Map<?, ?>) codec.unmarshal(is);
@@ -331,6 +432,14 @@ public class TransactionLog implements Closeable {
 
     // needed to read other records
 
+    Object compression = header.get("compression");
+    if (compression != null && !COMPRESSION_LZ4.equals(compression)) {
+      throw new SolrException(
+          ErrorCode.SERVER_ERROR, "Unsupported tlog compression " + compression + " in " + tlog);
+    }
+    // keep the format of the log when appending to it
+    compressDocuments = compression != null;
+
     synchronized (this) {
       globalStringList = (List<String>) header.get("strings");
       globalStringMap = CollectionUtil.newHashMap(globalStringList.size());
@@ -368,6 +477,9 @@ public class TransactionLog implements Closeable {
     Map<String, Object> header = new LinkedHashMap<>();
     header.put("SOLR_TLOG", 1); // a magic string + version number
     header.put("strings", globalStringList);
+    if (compressDocuments) {
+      header.put("compression", COMPRESSION_LZ4);
+    }
     codec.marshal(header, fos);
 
     endRecord(pos);
@@ -440,12 +552,15 @@ public class TransactionLog implements Closeable {
         codec.writeLong(cmd.getVersion());
         codec.writeLong(prevPointer);
         codec.writeLong(cmd.prevVersion);
-        codec.writeSolrInputDocument(cmd.getSolrInputDocument());
       } else {
         codec.writeTag(JavaBinCodec.ARR, 3);
         codec.writeInt(UpdateLog.ADD); // should just take one byte
         codec.writeLong(cmd.getVersion());
-        codec.writeSolrInputDocument(cmd.getSolrInputDocument());
+      }
+      // the document is the last value of the record, a compressed one is appended under the lock
+      boolean compress = compressDocuments;
+      if (!compress) {
+        codec.writeSolrInputDocument(sdoc);
       }
       lastAddSize = (int) out.size();
 
@@ -460,7 +575,16 @@ public class TransactionLog implements Closeable {
         }
         */
 
+        if (compress) {
+          if (compressor == null) {
+            compressor = new DocumentCompressor();
+          }
+          compressor.compress(sdoc);
+        }
         out.writeAll(fos);
+        if (compress) {
+          compressor.writeTo(fos);
+        }
         endRecord(pos);
         // fos.flushBuffer();  // flush later
         return pos;
@@ -553,6 +677,21 @@ public class TransactionLog implements Closeable {
     }
   }
 
+  /**
+   * Makes this new log write its documents compressed. Must be called before anything is written
+   * to the log. Logs of both formats can be read regardless of this setting.
+   */
+  public void setCompressDocuments(boolean compressDocuments) {
+    synchronized (this) {
+      assert fos.size() == 0 : "the format of a log can't be changed once written to";
+      this.compressDocuments = compressDocuments;
+    }
+  }
+
+  public boolean isCompressDocuments() {
+    return compressDocuments;
+  }
+
   /* This method is thread safe */
 
   public Object lookup(long pos) {
@@ -561,6 +700,14 @@ public class TransactionLog implements Closeable {
     if (pos < 0) return null;
 
     try {
+      ByteBuffer mapped = this.mapped;
+      if (mapped != null && pos < mapped.limit()) {
+        // no need to flush, nothing is written to a mapped log anymore
+        try (LogCodec codec = new LogCodec(resolver)) {
+          return codec.readVal(new MappedFastInputStream(channel, mapped, pos));
+        }
+      }
+
       // make sure any unflushed buffer has been flushed
       synchronized (this) {
         // TODO: optimize this by keeping track of what we have flushed up to
@@ -613,18 +760,65 @@ public class TransactionLog implements Closeable {
    */
   public void closeOutput() {}
 
+  /**
+   * Maps the log into memory, so that lookups and readers decode records from the mapping instead
+   * of reading them through the file channel. Must only be called once no more records will be
+   * written to this log, e.g. after it was capped by a commit. Logs larger than 2GB are not mapped.
+   */
+  public void mapForReads() {
+    if (channelInputStreamOpener != CHANNEL_INPUT_STREAM_OPENER) {
+      return; // the records can't be read from the raw bytes of the file
+    }
+    try {
+      long size;
+      synchronized (this) {
+        fos.flush();
+        size = fos.size();
+      }
+      if (size > 0 && size <= Integer.MAX_VALUE && mapped == null) {
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+    } catch (IOException e) {
+      log.warn("Unable to map {}, reading it through its channel", tlog, e);
+    }
+  }
+
+  boolean isMapped() {
+    return mapped != null;
+  }
+
+  /** Opens a stream reading the log from the given position */
+  protected ChannelFastInputStream openInputStream(long position) throws IOException {
+    ByteBuffer mapped = this.mapped;
+    if (mapped != null) {
+      return new MappedFastInputStream(channel, mapped, position);
+    }
+    return channelInputStreamOpener.open(channel, position);
+  }
+
   public void finish(UpdateLog.SyncLevel syncLevel) {
+    finish(syncLevel, 0);
+  }
+
+  /**
+   * Makes the records written so far durable according to the sync level. With {@link
+   * UpdateLog.SyncLevel#FSYNC}, concurrent callers are grouped into a single fsync covering all
+   * their records, and this only returns once the records of the caller are on disk.
+   *
+   * @param maxWaitNanos how long a thread about to fsync waits for more callers to join it. Callers
+   *     arriving while an fsync is in progress always join the next one.
+   */
+  public void finish(UpdateLog.SyncLevel syncLevel, long maxWaitNanos) {
     if (syncLevel == UpdateLog.SyncLevel.NONE) return;
     try {
+      long position;
       synchronized (this) {
         fos.flush();
+        position = fos.size();
       }
 
       if (syncLevel == UpdateLog.SyncLevel.FSYNC) {
-        // Since fsync is outside of synchronized block, we can end up with a partial
-        // last record on power failure (which is OK, and does not represent an error...
-        // we just need to be aware of it when reading).
-        channel.force(true);
+        sync(position, maxWaitNanos);
       }
 
     } catch (IOException e) {
@@ -632,6 +826,51 @@ public class TransactionLog implements Closeable {
     }
   }
 
+  private void sync(long position, long maxWaitNanos) throws IOException {
+    synchronized (syncLock) {
+      while (syncing && syncedPosition < position) {
+        try {
+          syncLock.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while waiting for tlog sync", e);
+        }
+      }
+      if (syncedPosition >= position) {
+        return; // our records were covered by the fsync of another thread
+      }
+      syncing = true;
+    }
+
+    long synced = -1;
+    try {
+      if (maxWaitNanos > 0) {
+        LockSupport.parkNanos(maxWaitNanos);
+      }
+      long flushed;
+      synchronized (this) {
+        fos.flush(); // include the records of threads that arrived meanwhile
+        flushed = fos.size();
+      }
+      // Since fsync is outside of synchronized block, we can end up with a partial
+      // last record on power failure (which is OK, and does not represent an error...
+      // we just need to be aware of it when reading).
+      fsync();
+      synced = flushed;
+    } finally {
+      synchronized (syncLock) {
+        syncing = false;
+        syncedPosition = Math.max(syncedPosition, synced);
+        syncLock.notifyAll();
+      }
+    }
+  }
+
+  /** Forces the records written to the channel to disk. Overridden by tests to count fsyncs. */
+  void fsync() throws IOException {
+    channel.force(true);
+  }
+
   @Override
   public void close() {
     try {
@@ -643,6 +882,9 @@ public class TransactionLog implements Closeable {
         fos.flush();
         fos.close();
       }
+      // there is no safe way to unmap while readers may still use the buffer, the mapping is
+      // released once garbage collected
+      mapped = null;
 
       if (deleteOnClose) {
         try {
@@ -713,7 +955,7 @@ public class TransactionLog implements Closeable {
 
     public LogReader(long startingPos) throws IOException {
       incref();
-      fis = channelInputStreamOpener.open(channel, startingPos);
+      fis = openInputStream(startingPos);
     }
 
     // for classes that extend
@@ -728,16 +970,24 @@ public class TransactionLog implements Closeable {
     public Object next() throws IOException, InterruptedException {
       long pos = fis.position();
 
-      synchronized (TransactionLog.this) {
-        if (trace) {
-          log.trace("Reading log record.  pos={} currentSize={}", pos, fos.size());
-        }
-
-        if (pos >= fos.size()) {
+      ByteBuffer mapped = TransactionLog.this.mapped;
+      if (mapped != null) {
+        // a mapped log is complete, no need to synchronize with writers
+        if (pos >= mapped.limit()) {
           return null;
         }
+      } else {
+        synchronized (TransactionLog.this) {
+          if (trace) {
+            log.trace("Reading log record.  pos={} currentSize={}", pos, fos.size());
+          }
 
-        fos.flush();
+          if (pos >= fos.size()) {
+            return null;
+          }
+
+          fos.flush();
+        }
       }
 
       if (pos == 0) {
@@ -866,6 +1116,11 @@ public class TransactionLog implements Closeable {
             // reading it completely.
             return null;
           }
+
+          @Override
+          protected Object readCompressed(DataInputInputStream dis) {
+            return null; // a compressed document too
+          }
         };
 
     // length of the next record (the next one closer to the start of the log file)
@@ -883,7 +1138,7 @@ public class TransactionLog implements Closeable {
         assert sz == getLogFileSize();
       }
 
-      fis = channelInputStreamOpener.open(channel, 0);
+      fis = openInputStream(0);
       if (sz >= 4) {
         // readHeader(fis);  // should not be needed
         prevPos = sz - 4;
@@ -1025,6 +1280,31 @@ public class TransactionLog implements Closeable {
     }
   }
 
+  /**
+   * A {@link ChannelFastInputStream} reading from a memory-mapped view of the file, and from the
+   * channel past its end.
+   */
+  static class MappedFastInputStream extends ChannelFastInputStream {
+    private final ByteBuffer mapped;
+
+    MappedFastInputStream(FileChannel ch, ByteBuffer mapped, long chPosition) {
+      super(ch, chPosition);
+      this.mapped = mapped;
+    }
+
+    @Override
+    public int readWrappedStream(byte[] target, int offset, int len) throws IOException {
+      long remaining = mapped.limit() - readFromStream;
+      if (remaining <= 0) {
+        return super.readWrappedStream(target, offset, len);
+      }
+      int n = (int) Math.min(len, remaining);
+      // absolute get, the mapped buffer is shared by all readers
+      mapped.get((int) readFromStream, target, offset, n);
+      return n;
+    }
+  }
+
   /** Opens {@link OutputStream} from {@link FileChannel}. */
   protected interface OutputStreamOpener {
 
@@ -20,6 +20,10 @@ package org.apache.solr.update;
 import com.carrotsearch.hppc.IntObjectHashMap;
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -60,6 +64,18 @@ public class UpdateLocks {
   /** A pool of locks to avoid creating & GC'ing them too much. Must synchronize on hashToLock. */
   private final ArrayDeque<LockAndCondition> lockPool = new ArrayDeque<>(16);
 
+  /**
+   * Adds that were handed to another thread while their doc lock was held, and that may not have
+   * reached the index and the log yet. Keyed by a copy of the ID. Usually empty.
+   */
+  private final Map<BytesRef, Future<?>> pendingAdds = new ConcurrentHashMap<>();
+
+  /**
+   * Set while the current thread holds a read lock for adds it handed to other threads; finishes
+   * them and releases that lock. See {@link #setAwaitHandedOffAdds(Runnable)}.
+   */
+  private final ThreadLocal<Runnable> awaitHandedOffAdds = new ThreadLocal<>();
+
   public UpdateLocks(long docLockTimeoutMs) {
     this.docLockTimeoutMs = docLockTimeoutMs;
   }
@@ -154,7 +170,9 @@ public class UpdateLocks {
     }
     // try-finally ensuring we unlock
     try {
-      // We have the lock; do stuff with it
+      // We have the lock; wait for any earlier update of this doc still in flight
+      awaitPendingAdd(id);
+      // do stuff with it
       return function.apply(lock.condition);
     } finally {
       // Release the lock
@@ -162,6 +180,59 @@ public class UpdateLocks {
     }
   }
 
+  /**
+   * Registers an add of the given doc that will be completed by another thread. Must be called
+   * while holding the lock of that doc, before the add is started. Until {@link
+   * #removePendingAdd(BytesRef, Future)} is called, any later {@link #runWithLock(BytesRef,
+   * IOFunction)} for the same doc waits for the future to complete first, so that version order
+   * is preserved in the index and the update log.
+   */
+  public void addPendingAdd(BytesRef id, Future<?> future) {
+    pendingAdds.put(BytesRef.deepCopyOf(id), future);
+  }
+
+  /** Unregisters an add registered with {@link #addPendingAdd(BytesRef, Future)}. */
+  public void removePendingAdd(BytesRef id, Future<?> future) {
+    pendingAdds.remove(id, future);
+  }
+
+  /**
+   * Registers a callback for the current thread that waits for the adds it handed to other threads
+   * and then releases the read lock it took for them with {@link #lockForUpdate()}. {@link
+   * #blockUpdates()} calls it first on that thread, since a read lock can't be upgraded. Returns
+   * false if the thread already has such a callback.
+   */
+  public boolean setAwaitHandedOffAdds(Runnable callback) {
+    if (awaitHandedOffAdds.get() != null) {
+      return false;
+    }
+    awaitHandedOffAdds.set(callback);
+    return true;
+  }
+
+  /** Unregisters the callback set with {@link #setAwaitHandedOffAdds(Runnable)}. */
+  public void clearAwaitHandedOffAdds() {
+    awaitHandedOffAdds.remove();
+  }
+
+  private void awaitPendingAdd(BytesRef id) {
+    if (pendingAdds.isEmpty()) {
+      return;
+    }
+    Future<?> future = pendingAdds.get(id);
+    if (future == null) {
+      return;
+    }
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      // don't set interrupt status; we're ending the request
+      throw new SolrException(ErrorCode.SERVER_ERROR, "Unable to wait for doc " + id, e);
+    } catch (ExecutionException e) {
+      // the failure is reported to the request that handed off the add
+    }
+  }
+
   private static class LockAndCondition {
     final Lock lock;
     final Condition condition;
@@ -183,6 +254,10 @@ public class UpdateLocks {
   }
 
   public void blockUpdates() {
+    Runnable awaitAdds = awaitHandedOffAdds.get();
+    if (awaitAdds != null) {
+      awaitAdds.run();
+    }
     blockUpdatesLock.writeLock().lock();
   }
 
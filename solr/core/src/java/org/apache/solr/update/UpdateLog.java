@@ -46,13 +46,14 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import org.apache.commons.io.file.PathUtils;
 import org.apache.lucene.store.Directory;
@@ -70,7 +71,6 @@ import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.IOUtils;
 import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.common.util.SuppressForbidden;
-import org.apache.solr.common.util.TimeSource;
 import org.apache.solr.core.DirectoryFactory;
 import org.apache.solr.core.PluginInfo;
 import org.apache.solr.core.SolrCore;
@@ -91,7 +91,6 @@ import org.apache.solr.update.processor.UpdateRequestProcessorChain;
 import org.apache.solr.util.OrderedExecutor;
 import org.apache.solr.util.RefCounted;
 import org.apache.solr.util.TestInjection;
-import org.apache.solr.util.TimeOut;
 import org.apache.solr.util.plugin.PluginInfoInitialized;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -258,6 +257,13 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   protected VersionInfo versionInfo;
 
   protected SyncLevel defaultSyncLevel = SyncLevel.FLUSH;
+  // how long an fsync waits for concurrent update requests to join it
+  protected long syncMaxWaitNanos = 0;
+  // whether capped logs are memory-mapped for reads. Off by default: a mapping is only released
+  // once garbage collected, so it holds on to the file and address space after the log is closed.
+  protected boolean mapCappedLogs = false;
+  // whether new logs compress their documents
+  protected boolean compressDocuments = false;
 
   protected volatile UpdateHandler uhandler; // a core reload can change this reference!
   protected volatile boolean cancelApplyBufferUpdate;
@@ -380,6 +386,20 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   public void init(PluginInfo info) {
     dataDir = (String) info.initArgs.get("dir");
     defaultSyncLevel = SyncLevel.getSyncLevel((String) info.initArgs.get("syncLevel"));
+    syncMaxWaitNanos =
+        TimeUnit.MILLISECONDS.toNanos(objToInt(info.initArgs.get("syncMaxWaitMs"), 0));
+    Object mapCappedLogsArg = info.initArgs.get("mapCappedLogs");
+    if (mapCappedLogsArg != null) {
+      mapCappedLogs = Boolean.parseBoolean(mapCappedLogsArg.toString());
+    }
+    String compression = (String) info.initArgs.get("compression");
+    if (compression != null && !"none".equals(compression)) {
+      if (!TransactionLog.COMPRESSION_LZ4.equals(compression)) {
+        throw new SolrException(
+            ErrorCode.SERVER_ERROR, "Unknown updateLog compression: " + compression);
+      }
+      compressDocuments = true;
+    }
 
     numRecordsToKeep = objToInt(info.initArgs.get("numRecordsToKeep"), 100);
     maxNumLogsToKeep = objToInt(info.initArgs.get("maxNumLogsToKeep"), 10);
@@ -610,6 +630,9 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       Path path = tlogDir.resolve(oldLogName);
       try {
         oldLog = newTransactionLog(path, null, true);
+        if (mapCappedLogs) {
+          mapIfCapped(oldLog);
+        }
         // don't remove old logs on startup since more than one may be uncapped.
         addOldLog(oldLog, false);
       } catch (RuntimeException e) {
@@ -719,7 +742,12 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
    */
   public TransactionLog newTransactionLog(
       Path tlogFile, Collection<String> globalStrings, boolean openExisting) {
-    return new TransactionLog(tlogFile, globalStrings, openExisting);
+    TransactionLog newLog = new TransactionLog(tlogFile, globalStrings, openExisting);
+    if (!openExisting) {
+      // existing logs keep the format they were written with
+      newLog.setCompressDocuments(compressDocuments);
+    }
+    return newLog;
   }
 
   public String getTlogDir() {
@@ -738,6 +766,16 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     return existOldBufferLog;
   }
 
+  private void mapIfCapped(TransactionLog ll) {
+    try {
+      if (ll.endsWithCommit()) {
+        ll.mapForReads();
+      }
+    } catch (IOException e) {
+      log.warn("Unable to check whether {} is capped, not mapping it", ll, e);
+    }
+  }
+
   /* Takes over ownership of the log, keeping it until no longer needed
     and then decrementing its reference and dropping it.
   */
@@ -1095,6 +1133,10 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
         // TODO: check that this works to cap a tlog we were using to buffer so we don't replay on
         // startup.
         prevTlog.writeCommit(cmd);
+        if (mapCappedLogs) {
+          // nothing is written to a capped log anymore
+          prevTlog.mapForReads();
+        }
 
         addOldLog(prevTlog, true);
         // the old log list will decref when no longer needed
@@ -1399,7 +1441,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     }
 
     try {
-      currLog.finish(syncLevel);
+      currLog.finish(syncLevel, syncMaxWaitNanos);
     } finally {
       currLog.decref();
     }
@@ -2086,6 +2128,8 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
 
   public static Runnable testing_logReplayHook; // called before each log read
   public static Runnable testing_logReplayFinishHook; // called when log replay has finished
+  // called by the replay executor before it applies each update
+  public static Consumer<UpdateCommand> testing_replayUpdateHook;
 
   protected RecoveryInfo recoveryInfo;
 
@@ -2207,7 +2251,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
 
         OrderedExecutor<BytesRef> executor =
             inSortedOrder ? null : req.getCoreContainer().getReplayUpdatesExecutor();
-        AtomicInteger pendingTasks = new AtomicInteger(0);
+        PendingUpdates pendingTasks = new PendingUpdates();
         AtomicReference<SolrException> exceptionOnExecuteUpdate = new AtomicReference<>();
 
         long commitVersion = 0;
@@ -2396,18 +2440,10 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       }
     }
 
-    private void waitForAllUpdatesGetExecuted(AtomicInteger pendingTasks) {
-      TimeOut timeOut =
-          new TimeOut(Integer.MAX_VALUE, TimeUnit.MILLISECONDS, TimeSource.CURRENT_TIME);
+    private void waitForAllUpdatesGetExecuted(PendingUpdates pendingTasks) {
       try {
-        timeOut.waitFor(
-            "Timeout waiting for replay updates finish",
-            () -> {
-              // TODO handle the case when there are no progress after a long time
-              return pendingTasks.get() == 0;
-            });
-      } catch (TimeoutException e) {
-        throw new SolrException(ErrorCode.SERVER_ERROR, e);
+        // TODO handle the case when there are no progress after a long time
+        pendingTasks.awaitNone();
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
         throw new SolrException(ErrorCode.SERVER_ERROR, e);
@@ -2427,35 +2463,41 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     private void execute(
         UpdateCommand cmd,
         OrderedExecutor<BytesRef> executor,
-        AtomicInteger pendingTasks,
+        PendingUpdates pendingTasks,
         ThreadLocal<UpdateRequestProcessor> procTl,
         AtomicReference<SolrException> exceptionHolder) {
       assert cmd instanceof AddUpdateCommand || cmd instanceof DeleteUpdateCommand;
 
       if (executor != null) {
-        executor.execute(
-            getIndexedId(cmd),
-            () -> {
-              try {
-                // fail fast
-                if (exceptionHolder.get() != null) return;
-                invokeCmdOnProc(cmd, procTl.get());
-              } catch (IOException e) {
-                recoveryInfo.errors.incrementAndGet();
-                loglog.warn("REPLAY_ERR: IOException reading log", e);
-                // could be caused by an incomplete flush if recovering from log
-              } catch (SolrException e) {
-                if (e.code() == ErrorCode.SERVICE_UNAVAILABLE.code) {
-                  exceptionHolder.compareAndSet(null, e);
-                  return;
+        pendingTasks.add();
+        try {
+          executor.execute(
+              getIndexedId(cmd),
+              () -> {
+                try {
+                  // fail fast
+                  if (exceptionHolder.get() != null) return;
+                  if (testing_replayUpdateHook != null) testing_replayUpdateHook.accept(cmd);
+                  invokeCmdOnProc(cmd, procTl.get());
+                } catch (IOException e) {
+                  recoveryInfo.errors.incrementAndGet();
+                  loglog.warn("REPLAY_ERR: IOException reading log", e);
+                  // could be caused by an incomplete flush if recovering from log
+                } catch (SolrException e) {
+                  if (e.code() == ErrorCode.SERVICE_UNAVAILABLE.code) {
+                    exceptionHolder.compareAndSet(null, e);
+                    return;
+                  }
+                  recoveryInfo.errors.incrementAndGet();
+                  loglog.warn("REPLAY_ERR: SolrException reading log", e);
+                } finally {
+                  pendingTasks.done();
                 }
-                recoveryInfo.errors.incrementAndGet();
-                loglog.warn("REPLAY_ERR: SolrException reading log", e);
-              } finally {
-                pendingTasks.decrementAndGet();
-              }
-            });
-        pendingTasks.incrementAndGet();
+              });
+        } catch (RejectedExecutionException e) {
+          pendingTasks.done();
+          throw e;
+        }
       } else {
         try {
           invokeCmdOnProc(cmd, procTl.get());
@@ -2483,6 +2525,32 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     }
   }
 
+  /**
+   * Counts the updates handed to the replay executor that haven't been applied yet. Replay waits
+   * for them to drain before each delete by query and at the end of the log; waiting on a monitor
+   * rather than polling lets it carry on as soon as the last one is done, which matters when the
+   * log has many deletes by query.
+   */
+  private static class PendingUpdates {
+    private int pending;
+
+    synchronized void add() {
+      pending++;
+    }
+
+    synchronized void done() {
+      if (--pending == 0) {
+        notifyAll();
+      }
+    }
+
+    synchronized void awaitNone() throws InterruptedException {
+      while (pending > 0) {
+        wait();
+      }
+    }
+  }
+
   /**
    * Given a entry from the transaction log containing a document, return a new AddUpdateCommand
    * that can be applied to ADD the document or do an UPDATE_INPLACE.
@@ -21,6 +21,8 @@ import io.opentelemetry.api.common.Attributes;
 import java.lang.invoke.MethodHandles;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -56,7 +58,7 @@ public class UpdateShardHandler implements SolrInfoBean {
           60L,
           TimeUnit.SECONDS,
           new SynchronousQueue<>(),
-          new SolrNamedThreadFactory("updateExecutor"),
+          new SolrNamedThreadFactory("updateExecutor", ExecutorUtil.isVirtualThreadsEnabled()),
           // the Runnable added to this executor handles all exceptions so we disable stack trace
           // collection as an optimization
           // see SOLR-11880 for more details
@@ -64,6 +66,10 @@ public class UpdateShardHandler implements SolrInfoBean {
 
   private ExecutorService recoveryExecutor;
 
+  // sends batches of forwarded updates that were not filled in time, see SolrCmdDistributor
+  private final ScheduledExecutorService batchFlushScheduler =
+      Executors.newScheduledThreadPool(1, new SolrNamedThreadFactory("updateBatchFlush"));
+
   private final HttpJettySolrClient updateOnlyClient;
 
   private final HttpJettySolrClient recoveryOnlyClient;
@@ -207,6 +213,13 @@ public class UpdateShardHandler implements SolrInfoBean {
     return updateExecutor;
   }
 
+  /**
+   * @return scheduler for the timed sending of batched updates
+   */
+  public ScheduledExecutorService getBatchFlushScheduler() {
+    return batchFlushScheduler;
+  }
+
   /**
    * @return executor for recovery operations
    */
@@ -220,6 +233,7 @@ public class UpdateShardHandler implements SolrInfoBean {
       // do not interrupt, do not interrupt
       ExecutorUtil.shutdownAndAwaitTermination(updateExecutor);
       ExecutorUtil.shutdownAndAwaitTermination(recoveryExecutor);
+      ExecutorUtil.shutdownNowAndAwaitTermination(batchFlushScheduler);
     } catch (Exception e) {
       throw new RuntimeException(e);
     } finally {
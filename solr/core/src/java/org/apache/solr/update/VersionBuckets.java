@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import static org.apache.solr.update.PeerSync.absComparator;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.solr.common.util.Hash;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+
+/**
+ * Finds the updates that another replica has and we don't by comparing fingerprints of ranges of
+ * versions, rather than whole lists of versions. The other replica splits the recent versions in
+ * its update log into a few buckets of about the same size, and describes each by its range, the
+ * number of versions in it and a hash of them ({@link #describe}). We do the same over our versions
+ * in each range: the ranges that match are in sync, and those that don't are split again, until
+ * they are small enough for the other replica to send their versions. Those are compared one by
+ * one, like {@link PeerSync.MissedUpdatesFinderBase} does with whole lists.
+ *
+ * <p>Only the ranges that differ are ever listed, so this takes little data even when the update
+ * logs have little in common, e.g. after a replica was down while the shard was busy.
+ */
+public class VersionBuckets {
+  public static final int DEFAULT_BUCKETS = 16;
+  public static final int DEFAULT_MAX_BUCKET_VERSIONS = 64;
+
+  static final String LOW = "low";
+  static final String HIGH = "high";
+  static final String COUNT = "count";
+  static final String HASH = "hash";
+  static final String VERSIONS = "versions";
+
+  private final List<Long> ourVersions;
+
+  /**
+   * @param ourVersions our recent versions, sorted by {@link PeerSync#absComparator}
+   */
+  public VersionBuckets(List<Long> ourVersions) {
+    this.ourVersions = ourVersions;
+  }
+
+  /**
+   * Describes the given versions in the given ranges, or all of them if there are no ranges. The
+   * versions in a range are split into {@code numBuckets} buckets with their range, count and hash;
+   * if there are at most {@code maxBucketVersions} of them, they are listed instead.
+   *
+   * @param versions recent versions from the update log, in any order
+   * @param ranges ranges of versions formatted as {@code low...high}, or null
+   */
+  public static List<NamedList<Object>> describe(
+      List<Long> versions, List<String> ranges, int numBuckets, int maxBucketVersions) {
+    versions.sort(absComparator);
+    List<NamedList<Object>> buckets = new ArrayList<>();
+    if (ranges == null) {
+      addBuckets(buckets, versions, numBuckets, maxBucketVersions);
+    } else {
+      for (String range : ranges) {
+        String[] bounds = range.split("\\.{3}");
+        long low = Long.parseLong(bounds[0]);
+        long high = Long.parseLong(bounds[1]);
+        addBuckets(buckets, inRange(versions, low, high), numBuckets, maxBucketVersions);
+      }
+    }
+    return buckets;
+  }
+
+  private static void addBuckets(
+      List<NamedList<Object>> buckets, List<Long> versions, int numBuckets, int maxBucketVersions) {
+    if (versions.isEmpty()) {
+      return;
+    }
+    if (versions.size() <= maxBucketVersions) {
+      NamedList<Object> bucket = new SimpleOrderedMap<>();
+      bucket.add(LOW, versions.get(versions.size() - 1));
+      bucket.add(HIGH, versions.get(0));
+      bucket.add(VERSIONS, new ArrayList<>(versions));
+      buckets.add(bucket);
+      return;
+    }
+    int bucketSize = (versions.size() + numBuckets - 1) / Math.max(1, numBuckets);
+    for (int start = 0; start < versions.size(); start += bucketSize) {
+      List<Long> inBucket = versions.subList(start, Math.min(versions.size(), start + bucketSize));
+      NamedList<Object> bucket = new SimpleOrderedMap<>();
+      bucket.add(LOW, inBucket.get(inBucket.size() - 1));
+      bucket.add(HIGH, inBucket.get(0));
+      bucket.add(COUNT, (long) inBucket.size());
+      bucket.add(HASH, hash(inBucket));
+      buckets.add(bucket);
+    }
+  }
+
+  /**
+   * Whether the other replica's versions reach back to ours, so that the versions we may have
+   * missed are all among them.
+   */
+  public boolean overlaps(List<NamedList<Object>> otherBuckets) {
+    if (otherBuckets.isEmpty() || ourVersions.isEmpty()) {
+      return false;
+    }
+    long otherLowest = (Long) otherBuckets.get(otherBuckets.size() - 1).get(LOW);
+    return Math.abs(otherLowest) <= Math.abs(ourVersions.get(0));
+  }
+
+  /** Compares the buckets of the other replica with our versions in the same ranges. */
+  public Comparison compare(List<NamedList<Object>> otherBuckets) {
+    Comparison comparison = new Comparison();
+    if (ourVersions.isEmpty()) {
+      return comparison;
+    }
+    // we can't tell what we have beyond our update log; if we missed any of those, comparing the
+    // index fingerprints will tell
+    long ourLowest = Math.abs(ourVersions.get(ourVersions.size() - 1));
+    for (NamedList<Object> bucket : otherBuckets) {
+      long low = (Long) bucket.get(LOW);
+      long high = (Long) bucket.get(HIGH);
+      if (Math.abs(high) < ourLowest) {
+        continue;
+      }
+      List<Long> ours = inRange(ourVersions, low, high);
+      @SuppressWarnings({"unchecked"})
+      List<Long> otherVersions = (List<Long>) bucket.get(VERSIONS);
+      if (otherVersions != null) {
+        otherVersions.sort(absComparator);
+        List<Long> theirs = inRange(otherVersions, Math.max(Math.abs(low), ourLowest), high);
+        PeerSync.MissedUpdatesRequest missed =
+            PeerSync.MissedUpdatesFinderBase.handleVersionsWithRanges(theirs, true, ours, 0);
+        if (missed != PeerSync.MissedUpdatesRequest.EMPTY) {
+          comparison.missedRanges.add(missed.versionsAndRanges);
+          comparison.missedUpdates += missed.totalRequestedUpdates;
+        }
+      } else if ((Long) bucket.get(COUNT) != ours.size() || (Long) bucket.get(HASH) != hash(ours)) {
+        comparison.rangesToSplit.add(low + "..." + high);
+      }
+    }
+    return comparison;
+  }
+
+  /** The versions whose absolute value is between those of low and high, in the same order. */
+  private static List<Long> inRange(List<Long> versions, long low, long high) {
+    int from = firstAtMost(versions, Math.abs(high));
+    int to = firstAtMost(versions, Math.abs(low) - 1);
+    return versions.subList(from, Math.max(from, to));
+  }
+
+  /** The index of the first version whose absolute value is at most the given one. */
+  private static int firstAtMost(List<Long> versions, long absVersion) {
+    int lo = 0;
+    int hi = versions.size();
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (Math.abs(versions.get(mid)) > absVersion) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  static long hash(List<Long> versions) {
+    // the same as IndexFingerprint, so that the order doesn't matter
+    long hash = 0;
+    for (long version : versions) {
+      hash += Hash.fmix64(version);
+    }
+    return hash;
+  }
+
+  /** What {@link #compare} found out. */
+  public static class Comparison {
+    /** Ranges whose buckets differ from our versions, to be described in more detail. */
+    public final List<String> rangesToSplit = new ArrayList<>();
+
+    /** Ranges of versions that we don't have, in the format of the getUpdates parameter. */
+    public final List<String> missedRanges = new ArrayList<>();
+
+    public long missedUpdates;
+  }
+}
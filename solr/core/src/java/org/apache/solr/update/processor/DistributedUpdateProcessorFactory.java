@@ -29,7 +29,8 @@ import org.apache.solr.response.SolrQueryResponse;
  * @since 4.0.0
  */
 public class DistributedUpdateProcessorFactory extends UpdateRequestProcessorFactory
-    implements DistributingUpdateProcessorFactory {
+    implements DistributingUpdateProcessorFactory,
+        UpdateRequestProcessorFactory.PassesFieldValuesThrough {
 
   /**
    * By default, the {@link DistributedUpdateProcessor} is extremely conservative in the list of
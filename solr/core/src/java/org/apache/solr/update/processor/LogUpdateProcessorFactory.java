@@ -43,7 +43,8 @@ import org.slf4j.LoggerFactory;
  * @since solr 1.3
  */
 public class LogUpdateProcessorFactory extends UpdateRequestProcessorFactory
-    implements UpdateRequestProcessorFactory.RunAlways {
+    implements UpdateRequestProcessorFactory.RunAlways,
+        UpdateRequestProcessorFactory.PassesFieldValuesThrough {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   int maxNumToLog = 10;
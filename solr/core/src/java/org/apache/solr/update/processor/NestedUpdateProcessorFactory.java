@@ -35,7 +35,8 @@ import org.apache.solr.update.AddUpdateCommand;
  * @see IndexSchema#NEST_PATH_FIELD_NAME
  * @since 7.5.0
  */
-public class NestedUpdateProcessorFactory extends UpdateRequestProcessorFactory {
+public class NestedUpdateProcessorFactory extends UpdateRequestProcessorFactory
+    implements UpdateRequestProcessorFactory.PassesFieldValuesThrough {
 
   @Override
   public UpdateRequestProcessor getInstance(
@@ -17,15 +17,31 @@
 package org.apache.solr.update.processor;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import org.apache.lucene.util.BytesRef;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.SolrQueryResponse;
 import org.apache.solr.update.AddUpdateCommand;
 import org.apache.solr.update.CommitUpdateCommand;
 import org.apache.solr.update.DeleteUpdateCommand;
+import org.apache.solr.update.DirectUpdateHandler2;
 import org.apache.solr.update.MergeIndexesCommand;
 import org.apache.solr.update.RollbackUpdateCommand;
+import org.apache.solr.update.UpdateCommand;
 import org.apache.solr.update.UpdateHandler;
+import org.apache.solr.update.UpdateLocks;
+import org.apache.solr.update.UpdateLog;
+import org.apache.solr.update.processor.DistributedUpdateProcessor.DistribPhase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Executes the update commands using the underlying UpdateHandler. Almost all processor chains
@@ -33,10 +49,23 @@ import org.apache.solr.update.UpdateHandler;
  * explicitly executing the update commands in an alternative custom <code>
  * UpdateRequestProcessorFactory</code>
  *
+ * <p>When {@link DirectUpdateHandler2#getParallelAddExecutor()} is enabled, the documents of a
+ * request from a shard leader are converted and indexed on that pool instead of the request thread,
+ * with up to {@link DirectUpdateHandler2#getParallelAddMaxPending()} adds in flight per request.
+ * Adds of the same document are never in flight together, and every other command waits for the
+ * adds before it. A failed add is reported by whichever later command waited for it, as an error
+ * naming the document that failed. Other requests add on the request thread: a leader forwards
+ * each document to its replicas once it was added locally, so that add must have succeeded, and
+ * {@link TolerantUpdateProcessor} (never used on replicas) attributes a failure to the command
+ * being processed when it is thrown.
+ *
  * @since solr 1.3
  * @see DistributingUpdateProcessorFactory
  */
-public class RunUpdateProcessorFactory extends UpdateRequestProcessorFactory {
+public class RunUpdateProcessorFactory extends UpdateRequestProcessorFactory
+    implements UpdateRequestProcessorFactory.PassesFieldValuesThrough {
+
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   public static final String PRE_RUN_CHAIN_NAME = "_preRun_";
 
@@ -55,6 +84,13 @@ public class RunUpdateProcessorFactory extends UpdateRequestProcessorFactory {
   static class RunUpdateProcessor extends UpdateRequestProcessor {
     private final SolrQueryRequest req;
     private final UpdateHandler updateHandler;
+    private final ExecutorService parallelAddExecutor;
+    private final int maxPendingAdds;
+    private final UpdateLocks updateLocks;
+
+    // adds handed to parallelAddExecutor, oldest first, and the ids of the docs they add
+    private final ArrayDeque<PendingAdd> pendingAdds = new ArrayDeque<>();
+    private final Set<BytesRef> pendingIds = new HashSet<>();
 
     private boolean changesSinceCommit = false;
 
@@ -62,6 +98,18 @@ public class RunUpdateProcessorFactory extends UpdateRequestProcessorFactory {
       super(next);
       this.req = req;
       this.updateHandler = req.getCore().getUpdateHandler();
+      DistribPhase phase =
+          DistribPhase.parseParam(
+              req.getParams().get(DistributingUpdateProcessorFactory.DISTRIB_UPDATE_PARAM));
+      if (updateHandler instanceof DirectUpdateHandler2 duh2 && phase == DistribPhase.FROMLEADER) {
+        this.parallelAddExecutor = duh2.getParallelAddExecutor();
+        this.maxPendingAdds = duh2.getParallelAddMaxPending();
+      } else {
+        this.parallelAddExecutor = null;
+        this.maxPendingAdds = 0;
+      }
+      UpdateLog ulog = updateHandler.getUpdateLog();
+      this.updateLocks = ulog == null ? null : ulog.getLocks();
     }
 
     @Override
@@ -73,13 +121,139 @@ public class RunUpdateProcessorFactory extends UpdateRequestProcessorFactory {
             "RunUpdateProcessor has received an AddUpdateCommand containing a document that appears to still contain Atomic document update operations, most likely because DistributedUpdateProcessorFactory was explicitly disabled from this updateRequestProcessorChain");
       }
 
-      updateHandler.addDoc(cmd);
+      if (parallelAddExecutor != null && canAddInParallel(cmd)) {
+        addInParallel(cmd);
+      } else {
+        awaitPendingAdds();
+        updateHandler.addDoc(cmd);
+      }
       super.processAdd(cmd);
       changesSinceCommit = true;
     }
 
+    private boolean canAddInParallel(AddUpdateCommand cmd) {
+      // in-place updates depend on the previous version; replayed updates keep their own order
+      return !cmd.isInPlaceUpdate()
+          && (cmd.getFlags() & (UpdateCommand.REPLAY | UpdateCommand.PEER_SYNC)) == 0;
+    }
+
+    private void addInParallel(AddUpdateCommand cmd) throws IOException {
+      BytesRef id = cmd.getIndexedId();
+      if (id != null && pendingIds.contains(id)) {
+        // an earlier version of this doc must be added first
+        awaitPendingAdds();
+      }
+      while (pendingAdds.size() >= maxPendingAdds) {
+        awaitOldestAdd();
+      }
+      if (pendingAdds.isEmpty() && updateLocks != null) {
+        // Like an add on this thread, hold off blockUpdates() (e.g. a change to the buffering
+        // state or a delete by query) until the adds in flight are done. This thread may already
+        // hold this lock, in which case taking it again never blocks; if it calls blockUpdates()
+        // itself, the callback waits for the adds and releases the lock first.
+        if (!updateLocks.setAwaitHandedOffAdds(this::awaitPendingAddsBeforeBlock)) {
+          // another processor on this thread has adds in flight
+          updateHandler.addDoc(cmd);
+          return;
+        }
+        updateLocks.lockForUpdate();
+      }
+      // the loaders reuse the command for the next document
+      final AddUpdateCommand add = (AddUpdateCommand) cmd.clone();
+      // the pool propagates SolrRequestInfo (e.g. NOW for date math) like any MDC-aware executor
+      final FutureTask<Void> task =
+          new FutureTask<>(
+              () -> {
+                updateHandler.addDoc(add);
+                return null;
+              });
+      final PendingAdd pending =
+          new PendingAdd(id == null ? null : BytesRef.deepCopyOf(id), add, task);
+      if (pending.id() != null) {
+        pendingIds.add(pending.id());
+        if (updateLocks != null) {
+          // the caller holds the lock of this doc; later updates to it will wait for the task
+          updateLocks.addPendingAdd(pending.id(), task);
+        }
+      }
+      pendingAdds.add(pending);
+      try {
+        parallelAddExecutor.execute(task);
+      } catch (RejectedExecutionException e) {
+        // the update handler is closing
+        task.run();
+      }
+    }
+
+    private void awaitOldestAdd() throws IOException {
+      final PendingAdd pending = pendingAdds.removeFirst();
+      try {
+        pending.task().get();
+      } catch (InterruptedException e) {
+        // don't set interrupt status; we're ending the request
+        throw new SolrException(
+            SolrException.ErrorCode.SERVER_ERROR, "Interrupted while adding documents", e);
+      } catch (ExecutionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof Error err) {
+          throw err;
+        }
+        // thrown while processing a later command, so name the document that failed
+        final SolrException.ErrorCode code =
+            cause instanceof SolrException se
+                ? SolrException.ErrorCode.getErrorCode(se.code())
+                : SolrException.ErrorCode.SERVER_ERROR;
+        final String id = pending.cmd().getPrintableId();
+        throw new SolrException(
+            code, "Error adding document id=" + id + ": " + cause.getMessage(), cause);
+      } finally {
+        if (pending.id() != null) {
+          pendingIds.remove(pending.id());
+          if (updateLocks != null) {
+            updateLocks.removePendingAdd(pending.id(), pending.task());
+          }
+        }
+        if (pendingAdds.isEmpty() && updateLocks != null) {
+          updateLocks.unlockForUpdate();
+          updateLocks.clearAwaitHandedOffAdds();
+        }
+      }
+    }
+
+    /** Waits for all adds in flight, then throws the first failure if any. */
+    private void awaitPendingAdds() throws IOException {
+      Throwable failure = null;
+      while (!pendingAdds.isEmpty()) {
+        try {
+          awaitOldestAdd();
+        } catch (IOException | RuntimeException | Error e) {
+          if (failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+      if (failure instanceof IOException ioe) {
+        throw ioe;
+      } else if (failure instanceof RuntimeException re) {
+        throw re;
+      } else if (failure instanceof Error err) {
+        throw err;
+      }
+    }
+
+    private void awaitPendingAddsBeforeBlock() {
+      try {
+        awaitPendingAdds();
+      } catch (IOException e) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
+      }
+    }
+
     @Override
     public void processDelete(DeleteUpdateCommand cmd) throws IOException {
+      awaitPendingAdds();
       if (cmd.isDeleteById()) {
         updateHandler.delete(cmd);
       } else {
@@ -91,12 +265,14 @@ public class RunUpdateProcessorFactory extends UpdateRequestProcessorFactory {
 
     @Override
     public void processMergeIndexes(MergeIndexesCommand cmd) throws IOException {
+      awaitPendingAdds();
       updateHandler.mergeIndexes(cmd);
       super.processMergeIndexes(cmd);
     }
 
     @Override
     public void processCommit(CommitUpdateCommand cmd) throws IOException {
+      awaitPendingAdds();
       updateHandler.commit(cmd);
       super.processCommit(cmd);
       if (!cmd.softCommit) {
@@ -110,6 +286,7 @@ public class RunUpdateProcessorFactory extends UpdateRequestProcessorFactory {
      */
     @Override
     public void processRollback(RollbackUpdateCommand cmd) throws IOException {
+      awaitPendingAdds();
       updateHandler.rollback(cmd);
       super.processRollback(cmd);
       changesSinceCommit = false;
@@ -117,10 +294,23 @@ public class RunUpdateProcessorFactory extends UpdateRequestProcessorFactory {
 
     @Override
     public void finish() throws IOException {
+      awaitPendingAdds();
       if (changesSinceCommit && updateHandler.getUpdateLog() != null) {
         updateHandler.getUpdateLog().finish(null);
       }
       super.finish();
     }
+
+    @Override
+    protected void doClose() {
+      // only has adds left if the request failed before finish(); don't leave them running
+      try {
+        awaitPendingAdds();
+      } catch (IOException | RuntimeException e) {
+        log.warn("Error adding documents of a failed request", e);
+      }
+    }
+
+    private record PendingAdd(BytesRef id, AddUpdateCommand cmd, FutureTask<Void> task) {}
   }
 }
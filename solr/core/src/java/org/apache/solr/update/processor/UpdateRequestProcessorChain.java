@@ -245,6 +245,46 @@ public final class UpdateRequestProcessorChain implements PluginInfoInitialized
     return last;
   }
 
+  /**
+   * Whether all the processors that {@link #createProcessor(SolrQueryRequest, SolrQueryResponse)}
+   * creates for this request are from factories that are {@link
+   * UpdateRequestProcessorFactory.PassesFieldValuesThrough}.
+   *
+   * @lucene.internal
+   */
+  public boolean passesFieldValuesThrough(SolrQueryRequest req) {
+    return passesFieldValuesThrough(
+        req.getParams().get(DistributingUpdateProcessorFactory.DISTRIB_UPDATE_PARAM) != null);
+  }
+
+  private boolean passesFieldValuesThrough(boolean skipToDistrib) {
+    boolean afterDistrib = true; // like createProcessor
+    for (int i = chain.size() - 1; i >= 0; i--) {
+      UpdateRequestProcessorFactory factory = chain.get(i);
+      if (skipToDistrib) {
+        if (afterDistrib) {
+          if (factory instanceof DistributingUpdateProcessorFactory) {
+            afterDistrib = false;
+          }
+        } else if (!(factory instanceof UpdateRequestProcessorFactory.RunAlways)) {
+          continue;
+        }
+      }
+      if (!(factory instanceof UpdateRequestProcessorFactory.PassesFieldValuesThrough)) {
+        return false;
+      }
+      if (factory instanceof RunUpdateProcessorFactory && solrCore != null) {
+        // which runs the pre-run chain too
+        UpdateRequestProcessorChain preRun =
+            solrCore.getUpdateProcessingChain(RunUpdateProcessorFactory.PRE_RUN_CHAIN_NAME);
+        if (preRun != null && !preRun.passesFieldValuesThrough(false)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
   /**
    * Returns the underlying array of factories used in this chain. Modifications to the array will
    * affect future calls to <code>createProcessor</code>
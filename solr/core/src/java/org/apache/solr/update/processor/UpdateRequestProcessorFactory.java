@@ -39,6 +39,16 @@ public abstract class UpdateRequestProcessorFactory implements NamedListInitiali
    */
   public interface RunAlways {}
 
+  /**
+   * A marker interface for UpdateRequestProcessorFactory implementations whose processors pass the
+   * field values of added documents on as they are, without depending on their classes, other than
+   * for the uniqueKey, routing and version fields and for atomic updates. Loaders may then pass
+   * string values as {@link org.apache.solr.common.util.Utf8CharSequence}s.
+   *
+   * @see UpdateRequestProcessorChain#passesFieldValuesThrough(SolrQueryRequest)
+   */
+  public interface PassesFieldValuesThrough {}
+
   public abstract UpdateRequestProcessor getInstance(
       SolrQueryRequest req, SolrQueryResponse rsp, UpdateRequestProcessor next);
 }
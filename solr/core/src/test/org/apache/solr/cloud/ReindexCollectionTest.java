@@ -19,6 +19,7 @@ package org.apache.solr.cloud;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -26,10 +27,13 @@ import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.client.solrj.cloud.DistribStateManager;
 import org.apache.solr.client.solrj.cloud.SolrCloudManager;
 import org.apache.solr.client.solrj.impl.CloudSolrClient;
 import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.request.GenericSolrRequest;
 import org.apache.solr.client.solrj.response.CollectionAdminResponse;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.response.RequestStatusState;
@@ -39,8 +43,10 @@ import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.cloud.ClusterState;
 import org.apache.solr.common.cloud.DocCollection;
 import org.apache.solr.common.cloud.ImplicitDocRouter;
+import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.cloud.ZkStateReader;
 import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.TimeSource;
 import org.apache.solr.util.LogLevel;
 import org.apache.solr.util.TestInjection;
@@ -64,6 +70,8 @@ public class ReindexCollectionTest extends SolrCloudTestCase {
         .addConfig("conf2", configset("cloud-dynamic"))
         // catch-all * field, indexed+stored
         .addConfig("conf3", configset("cloud-minimal-inplace-updates"))
+        // no docValues on the unique key
+        .addConfig("conf4", configset("cloud-managed"))
         .configure();
   }
 
@@ -163,6 +171,234 @@ public class ReindexCollectionTest extends SolrCloudTestCase {
     assertEquals("copied num docs", NUM_DOCS, queryResponse.getResults().getNumFound());
   }
 
+  @Test
+  public void testParallelReindexing() throws Exception {
+    final String sourceCollection = "parallelReindexing";
+
+    createCollection(sourceCollection, "conf1", 2, 2);
+
+    indexDocs(
+        sourceCollection,
+        NUM_DOCS,
+        i -> new SolrInputDocument("id", String.valueOf(i), "string_s", String.valueOf(i)));
+
+    final String targetCollection = "parallelReindexingTarget";
+
+    CollectionAdminRequest.ReindexCollection req =
+        CollectionAdminRequest.reindexCollection(sourceCollection)
+            .setTarget(targetCollection)
+            .setWorkers(3)
+            .setMaxDocsPerSecond(1000);
+    CollectionAdminResponse rsp = req.process(solrClient);
+    @SuppressWarnings({"unchecked"})
+    Map<String, Object> status =
+        (Map<String, Object>) rsp.getResponse().get(ReindexCollectionCmd.REINDEX_STATUS);
+    assertNotNull(rsp.toString(), status);
+    assertEquals(status.toString(), "finished", status.get(ReindexCollectionCmd.STATE));
+    assertEquals(
+        status.toString(), (long) NUM_DOCS, ((Number) status.get("processedDocs")).longValue());
+
+    // verify the target docs exist
+    QueryResponse queryResponse = solrClient.query(targetCollection, params(CommonParams.Q, "*:*"));
+    assertEquals("copied num docs", NUM_DOCS, queryResponse.getResults().getNumFound());
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked"})
+  public void testStoppedWorkerResumesOnAnotherReplica() throws Exception {
+    final String sourceCollection = "resumedReindexing";
+
+    createCollection(sourceCollection, "conf1", 2, 2);
+
+    indexDocs(
+        sourceCollection,
+        NUM_DOCS,
+        i -> new SolrInputDocument("id", String.valueOf(i), "string_s", String.valueOf(i)));
+
+    final String targetCollection = "resumedReindexingTarget";
+    final int batchSize = 10;
+    final int maxDocsPerSecond = 20;
+
+    long start = System.nanoTime();
+    String asyncId =
+        CollectionAdminRequest.reindexCollection(sourceCollection)
+            .setTarget(targetCollection)
+            .setWorkers(2)
+            .setBatchSize(batchSize)
+            .setMaxDocsPerSecond(maxDocsPerSecond)
+            .processAsync(solrClient);
+
+    // wait for the first worker to checkpoint the documents it copied
+    String chkCollection = ReindexCollectionCmd.CHK_COL_PREFIX + sourceCollection;
+    String topicId = "topic_" + targetCollection + "_0";
+    TimeOut timeOut = new TimeOut(30, TimeUnit.SECONDS, TimeSource.NANO_TIME);
+    timeOut.waitFor(
+        "no checkpoint of the first worker",
+        () -> {
+          try {
+            return solrClient.getById(chkCollection, topicId) != null;
+          } catch (Exception e) {
+            return false;
+          }
+        });
+    Map<String, Object> workerStatus =
+        ((List<Map<String, Object>>)
+                ReindexCollectionCmd.getReindexingState(stateManager, sourceCollection)
+                    .get(ReindexCollectionCmd.WORKERS))
+            .get(0);
+    String daemonName = (String) workerStatus.get("daemonName");
+    String stoppedUrl = (String) workerStatus.get("daemonUrl");
+    Replica stoppedReplica =
+        getCollectionState(sourceCollection).getReplicas().stream()
+            .filter(r -> r.getCoreUrl().equals(stoppedUrl))
+            .findFirst()
+            .orElseThrow();
+
+    // stop its daemon, which finishes the batch it is copying
+    try (SolrClient client = getHttpSolrClient(stoppedReplica)) {
+      client.request(
+          new GenericSolrRequest(
+                  SolrRequest.METHOD.GET,
+                  "/stream",
+                  params("action", "stop", "id", daemonName, CommonParams.DISTRIB, "false"))
+              .setRequiresCollection(true));
+      timeOut.waitFor(
+          "daemon " + daemonName + " did not stop", () -> isStopped(client, daemonName));
+    }
+
+    // the documents copied so far
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < NUM_DOCS; i++) {
+      ids.add(String.valueOf(i));
+    }
+    Map<Object, Object> copiedVersions = new HashMap<>();
+    for (SolrDocument doc : solrClient.getById(targetCollection, ids)) {
+      copiedVersions.put(doc.getFieldValue("id"), doc.getFieldValue("_version_"));
+    }
+    assertFalse("no document was copied before the daemon stopped", copiedVersions.isEmpty());
+
+    assertEquals(
+        RequestStatusState.COMPLETED,
+        CollectionAdminRequest.requestStatus(asyncId).waitFor(solrClient, 120));
+    long elapsedNanos = System.nanoTime() - start;
+    CollectionAdminResponse rsp = CollectionAdminRequest.requestStatus(asyncId).process(solrClient);
+    Map<String, Object> status =
+        (Map<String, Object>) rsp.getResponse().get(ReindexCollectionCmd.REINDEX_STATUS);
+    assertNotNull(rsp.toString(), status);
+    assertEquals(status.toString(), "finished", status.get(ReindexCollectionCmd.STATE));
+    assertEquals(
+        status.toString(), (long) NUM_DOCS, ((Number) status.get("processedDocs")).longValue());
+    workerStatus =
+        ((List<Map<String, Object>>) status.get(ReindexCollectionCmd.WORKERS)).get(0);
+    assertEquals(status.toString(), 1, ((Number) workerStatus.get("restarts")).intValue());
+    assertNotEquals(status.toString(), stoppedUrl, workerStatus.get("daemonUrl"));
+
+    // updates were paced, about half of the documents are copied by each worker
+    assertTrue(
+        "copied too fast: " + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms",
+        elapsedNanos >= TimeUnit.SECONDS.toNanos(NUM_DOCS / maxDocsPerSecond / 2));
+
+    QueryResponse queryResponse =
+        solrClient.query(
+            targetCollection,
+            params(CommonParams.Q, "*:*", CommonParams.FL, "id,_version_", "rows", "" + NUM_DOCS));
+    assertEquals("copied num docs", NUM_DOCS, queryResponse.getResults().getNumFound());
+    // the restarted worker resumed from its checkpoint: no document was copied again
+    for (SolrDocument doc : queryResponse.getResults()) {
+      Object id = doc.getFieldValue("id");
+      if (copiedVersions.containsKey(id)) {
+        assertEquals("copied again: " + id, copiedVersions.get(id), doc.getFieldValue("_version_"));
+      }
+    }
+  }
+
+  @SuppressWarnings({"unchecked"})
+  private static boolean isStopped(SolrClient client, String daemonName) {
+    try {
+      NamedList<Object> rsp =
+          client.request(
+              new GenericSolrRequest(
+                      SolrRequest.METHOD.GET,
+                      "/stream",
+                      params("action", "list", CommonParams.DISTRIB, "false"))
+                  .setRequiresCollection(true));
+      Map<String, Object> rs = (Map<String, Object>) rsp.get("result-set");
+      for (Object o : (List<Object>) rs.get("docs")) {
+        Map<String, Object> daemon = (Map<String, Object>) o;
+        if (daemonName.equals(daemon.get("id"))) {
+          return Thread.State.TERMINATED.toString().equals(daemon.get("state"));
+        }
+      }
+      // already restarted elsewhere
+      return true;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked"})
+  public void testWorkersNeedDocValuesOnUniqueKey() throws Exception {
+    final String sourceCollection = "noDocValuesReindexing";
+
+    createCollection(sourceCollection, "conf4", 2, 1);
+
+    indexDocs(sourceCollection, NUM_DOCS, i -> new SolrInputDocument("id", String.valueOf(i)));
+
+    final String targetCollection = "noDocValuesReindexingTarget";
+
+    Exception e =
+        expectThrows(
+            Exception.class,
+            () ->
+                CollectionAdminRequest.reindexCollection(sourceCollection)
+                    .setTarget(targetCollection)
+                    .setWorkers(2)
+                    .process(solrClient));
+    assertTrue(e.toString(), e.getMessage().contains("docValues"));
+
+    // a single worker by default
+    CollectionAdminResponse rsp =
+        CollectionAdminRequest.reindexCollection(sourceCollection)
+            .setTarget(targetCollection)
+            .process(solrClient);
+    Map<String, Object> status =
+        (Map<String, Object>) rsp.getResponse().get(ReindexCollectionCmd.REINDEX_STATUS);
+    assertNotNull(rsp.toString(), status);
+    assertEquals(status.toString(), "finished", status.get(ReindexCollectionCmd.STATE));
+    assertEquals(status.toString(), 1, ((List<?>) status.get(ReindexCollectionCmd.WORKERS)).size());
+    QueryResponse queryResponse = solrClient.query(targetCollection, params(CommonParams.Q, "*:*"));
+    assertEquals("copied num docs", NUM_DOCS, queryResponse.getResults().getNumFound());
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked"})
+  public void testWorkersLimitedByMaxDocsPerSecond() throws Exception {
+    final String sourceCollection = "slowReindexing";
+
+    createCollection(sourceCollection, "conf1", 2, 1);
+
+    indexDocs(sourceCollection, NUM_DOCS, i -> new SolrInputDocument("id", String.valueOf(i)));
+
+    final String targetCollection = "slowReindexingTarget";
+
+    CollectionAdminResponse rsp =
+        CollectionAdminRequest.reindexCollection(sourceCollection)
+            .setTarget(targetCollection)
+            .setQuery("id:(0 1 2 3)")
+            .setWorkers(4)
+            .setMaxDocsPerSecond(2)
+            .process(solrClient);
+    Map<String, Object> status =
+        (Map<String, Object>) rsp.getResponse().get(ReindexCollectionCmd.REINDEX_STATUS);
+    assertNotNull(rsp.toString(), status);
+    assertEquals(status.toString(), "finished", status.get(ReindexCollectionCmd.STATE));
+    // each worker copies at least one document per second
+    assertEquals(status.toString(), 2, ((List<?>) status.get(ReindexCollectionCmd.WORKERS)).size());
+    QueryResponse queryResponse = solrClient.query(targetCollection, params(CommonParams.Q, "*:*"));
+    assertEquals("copied num docs", 4, queryResponse.getResults().getNumFound());
+  }
+
   @Test
   public void testSameTargetReindexing() throws Exception {
     doTestSameTargetReindexing(false, false);
@@ -724,6 +724,41 @@ public class TestPullReplica extends SolrCloudTestCase {
     waitForNumDocsInAllActiveReplicas(2);
   }
 
+  public void testNotifyOnCommit() throws Exception {
+    System.setProperty("solr.replication.notifyOnCommit", "true");
+    try {
+      CollectionAdminRequest.createCollection(collectionName, "conf", 1, 1, 0, 1)
+          .process(cluster.getSolrClient());
+      waitForState(
+          "Expected collection to be created with 1 shard and 2 replicas",
+          collectionName,
+          clusterShape(1, 2));
+      DocCollection docCollection = assertNumberOfReplicas(1, 0, 1, false, true);
+      Replica pullReplica =
+          docCollection.getSlice("shard1").getReplicas(EnumSet.of(Replica.Type.PULL)).get(0);
+      waitForNumDocsInAllActiveReplicas(0);
+
+      // with notifications, the replica only polls every 10 seconds in tests
+      long start = System.nanoTime();
+      cluster.getSolrClient().add(collectionName, new SolrInputDocument("id", "1", "foo", "bar"));
+      cluster.getSolrClient().commit(collectionName);
+      waitForNumDocsInAllReplicas(1, List.of(pullReplica));
+      long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      assertTrue("The replica took " + elapsedMs + "ms to fetch the commit", elapsedMs < 10000);
+
+      CoreContainer cc = cluster.getReplicaJetty(pullReplica).getCoreContainer();
+      ReplicateFromLeader replicateFromLeader =
+          cc.getZkController().getReplicateFromLeader(pullReplica.getCoreName());
+      assertNotNull(replicateFromLeader);
+      new TimeOut(REPLICATION_TIMEOUT_SECS, TimeUnit.SECONDS, TimeSource.NANO_TIME)
+          .waitFor(
+              "The replication lag wasn't recorded",
+              () -> replicateFromLeader.getReplicationHandler().getReplicationLagMs() >= 0);
+    } finally {
+      System.clearProperty("solr.replication.notifyOnCommit");
+    }
+  }
+
   public void testSkipLeaderRecoveryProperty() throws Exception {
     final int numDocsAdded = 13;
 
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.cloud.api.collections;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.client.solrj.response.RequestStatusState;
+import org.apache.solr.cloud.MiniSolrCloudCluster;
+import org.apache.solr.cloud.SolrCloudTestCase;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.util.TimeSource;
+import org.apache.solr.core.DirectoryFactory;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.core.backup.LazyRestoreDirectory;
+import org.apache.solr.handler.RestoreCore;
+import org.apache.solr.util.TimeOut;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Integration test of collection restores with {@code solr.restore.lazy}, which serve queries
+ * before the index files are copied from the backup.
+ */
+// Backups do checksum validation against a footer value not present in 'SimpleText'
+@LuceneTestCase.SuppressCodecs({"SimpleText"})
+public class LazyRestoreTest extends SolrCloudTestCase {
+
+  private static final String COLLECTION_NAME = "initial_collection";
+  private static final String BACKUP_NAME = "backup_name";
+  private static final String REPOSITORY_NAME = "local";
+  private static final int NUM_DOCS = 100;
+  private static final long ASYNC_COMMAND_WAIT_PERIOD_MILLIS = 30 * 1000;
+
+  private static String backupLocation;
+
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    System.setProperty("solr.security.allow.paths", "*");
+    System.setProperty("solr.restore.lazy", "true");
+    backupLocation = createTempDir().toAbsolutePath().toString();
+
+    String solrXml = MiniSolrCloudCluster.DEFAULT_CLOUD_SOLR_XML;
+    String local =
+        "<backup>"
+            + "<repository  name=\"local\" class=\"org.apache.solr.core.backup.repository.LocalFileSystemRepository\">"
+            + "</repository>"
+            + "</backup>";
+    solrXml = solrXml.replace("</solr>", local + "</solr>");
+
+    configureCluster(1)
+        .addConfig(
+            "conf1", TEST_PATH().resolve("configsets").resolve("cloud-minimal").resolve("conf"))
+        .withSolrXml(solrXml)
+        .configure();
+
+    CollectionAdminRequest.createCollection(COLLECTION_NAME, "conf1", 1, 1)
+        .process(cluster.getSolrClient());
+    cluster.waitForActiveCollection(COLLECTION_NAME, 1, 1);
+    UpdateRequest update = new UpdateRequest();
+    for (int i = 0; i < NUM_DOCS; i++) {
+      update.add(sdoc("id", String.valueOf(i)));
+    }
+    update.commit(cluster.getSolrClient(), COLLECTION_NAME);
+
+    final RequestStatusState backupState =
+        CollectionAdminRequest.backupCollection(COLLECTION_NAME, BACKUP_NAME)
+            .setRepositoryName(REPOSITORY_NAME)
+            .setLocation(backupLocation)
+            .processAndWait(cluster.getSolrClient(), ASYNC_COMMAND_WAIT_PERIOD_MILLIS);
+    assertEquals(RequestStatusState.COMPLETED, backupState);
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    System.clearProperty("solr.security.allow.paths");
+    System.clearProperty("solr.restore.lazy");
+  }
+
+  @After
+  public void clearHook() {
+    RestoreCore.testing_hydrationCopyHook = null;
+  }
+
+  @Test
+  public void testQueriesBeforeFilesAreCopied() throws Exception {
+    CountDownLatch copyAllowed = new CountDownLatch(1);
+    RestoreCore.testing_hydrationCopyHook =
+        fileName -> {
+          try {
+            copyAllowed.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+          }
+        };
+    String restoredName = "queried_before_copy";
+    restore(restoredName);
+
+    // no file is copied yet, the restored index is read from the backup
+    assertFalse(isHydrated(restoredName));
+    assertEquals(NUM_DOCS, count(restoredName));
+
+    copyAllowed.countDown();
+    new TimeOut(30, TimeUnit.SECONDS, TimeSource.NANO_TIME)
+        .waitFor("the files were not copied", () -> isHydrated(restoredName));
+    assertEquals(NUM_DOCS, count(restoredName));
+
+    // the restored index is written to like any other
+    new UpdateRequest()
+        .add(sdoc("id", String.valueOf(NUM_DOCS)))
+        .commit(cluster.getSolrClient(), restoredName);
+    assertEquals(NUM_DOCS + 1, count(restoredName));
+  }
+
+  @Test
+  public void testReloadDoesNotStopCopy() throws Exception {
+    CountDownLatch copyStarted = new CountDownLatch(1);
+    CountDownLatch copyAllowed = new CountDownLatch(1);
+    RestoreCore.testing_hydrationCopyHook =
+        fileName -> {
+          copyStarted.countDown();
+          try {
+            copyAllowed.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+          }
+        };
+    String restoredName = "reloaded_during_copy";
+    restore(restoredName);
+    assertTrue(copyStarted.await(30, TimeUnit.SECONDS));
+
+    // the reloaded core reads the same directory, whose files are still being copied
+    CollectionAdminRequest.reloadCollection(restoredName).process(cluster.getSolrClient());
+    assertFalse(isHydrated(restoredName));
+    assertEquals(NUM_DOCS, count(restoredName));
+
+    copyAllowed.countDown();
+    new TimeOut(30, TimeUnit.SECONDS, TimeSource.NANO_TIME)
+        .waitFor("the files were not copied", () -> isHydrated(restoredName));
+    assertAllFilesLocal(restoredName);
+    assertEquals(NUM_DOCS, count(restoredName));
+  }
+
+  @Test
+  public void testDeleteStopsCopy() throws Exception {
+    CountDownLatch copyStarted = new CountDownLatch(1);
+    AtomicBoolean copyInterrupted = new AtomicBoolean();
+    RestoreCore.testing_hydrationCopyHook =
+        fileName -> {
+          copyStarted.countDown();
+          try {
+            Thread.sleep(Long.MAX_VALUE);
+          } catch (InterruptedException e) {
+            copyInterrupted.set(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+          }
+        };
+    String restoredName = "deleted_during_copy";
+    restore(restoredName);
+    assertTrue(copyStarted.await(30, TimeUnit.SECONDS));
+    assertEquals(NUM_DOCS, count(restoredName));
+
+    // unloading the core closes the restored directory, which stops the copy
+    CollectionAdminRequest.deleteCollection(restoredName).process(cluster.getSolrClient());
+    new TimeOut(30, TimeUnit.SECONDS, TimeSource.NANO_TIME)
+        .waitFor("the copy was not stopped", copyInterrupted::get);
+  }
+
+  private static void restore(String restoredName) throws Exception {
+    final RequestStatusState restoreState =
+        CollectionAdminRequest.restoreCollection(restoredName, BACKUP_NAME)
+            .setRepositoryName(REPOSITORY_NAME)
+            .setLocation(backupLocation)
+            .processAndWait(cluster.getSolrClient(), ASYNC_COMMAND_WAIT_PERIOD_MILLIS);
+    assertEquals(RequestStatusState.COMPLETED, restoreState);
+    cluster.waitForActiveCollection(restoredName, 1, 1);
+  }
+
+  private static long count(String collectionName) throws Exception {
+    return cluster
+        .getSolrClient()
+        .query(collectionName, params("q", "*:*"))
+        .getResults()
+        .getNumFound();
+  }
+
+  private static void assertAllFilesLocal(String collectionName) throws IOException {
+    Replica replica = getCollectionState(collectionName).getReplicas().get(0);
+    try (SolrCore core =
+        cluster.getReplicaJetty(replica).getCoreContainer().getCore(replica.getCoreName())) {
+      DirectoryFactory directoryFactory = core.getDirectoryFactory();
+      Directory dir =
+          directoryFactory.get(
+              core.getIndexDir(),
+              DirectoryFactory.DirContext.DEFAULT,
+              core.getSolrConfig().indexConfig.lockType);
+      try {
+        Set<String> localFiles = Set.of(((LazyRestoreDirectory) dir).getDelegate().listAll());
+        for (String file : SegmentInfos.readLatestCommit(dir).files(true)) {
+          assertTrue(file + " is not local", localFiles.contains(file));
+        }
+      } finally {
+        directoryFactory.release(dir);
+      }
+    }
+  }
+
+  private static boolean isHydrated(String collectionName) {
+    Replica replica = getCollectionState(collectionName).getReplicas().get(0);
+    try (SolrCore core =
+        cluster.getReplicaJetty(replica).getCoreContainer().getCore(replica.getCoreName())) {
+      DirectoryFactory directoryFactory = core.getDirectoryFactory();
+      Directory dir =
+          directoryFactory.get(
+              core.getIndexDir(),
+              DirectoryFactory.DirContext.DEFAULT,
+              core.getSolrConfig().indexConfig.lockType);
+      try {
+        assertTrue(
+            "not restored lazily: " + dir.getClass(), dir instanceof LazyRestoreDirectory);
+        return ((LazyRestoreDirectory) dir).isHydrated();
+      } finally {
+        directoryFactory.release(dir);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.core.backup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.junit.Test;
+
+/** Unit tests for {@link LazyRestoreDirectory} */
+public class LazyRestoreDirectoryTest extends SolrTestCase {
+
+  @Test
+  public void testReadsFromBackupUntilCopied() throws Exception {
+    try (Directory backup = newIndex(100);
+        Directory local = new ByteBuffersDirectory();
+        LazyRestoreDirectory dir = new LazyRestoreDirectory(local, remoteFiles(backup))) {
+      for (String file : backup.listAll()) {
+        dir.addRemoteFile(file);
+      }
+      assertEquals(0, local.listAll().length);
+      assertArrayEquals(backup.listAll(), dir.listAll());
+
+      try (DirectoryReader reader = DirectoryReader.open(dir)) {
+        assertEquals(100, reader.numDocs());
+      }
+
+      ExecutorService executor =
+          ExecutorUtil.newMDCAwareFixedThreadPool(2, new SolrNamedThreadFactory("hydrate"));
+      try {
+        dir.hydrate(executor).get(30, TimeUnit.SECONDS);
+      } finally {
+        ExecutorUtil.shutdownAndAwaitTermination(executor);
+      }
+      assertTrue(dir.isHydrated());
+      // copied under their own names, with no temporary files left
+      assertArrayEquals(backup.listAll(), local.listAll());
+      try (DirectoryReader reader = DirectoryReader.open(local)) {
+        assertEquals(100, reader.numDocs());
+      }
+    }
+  }
+
+  @Test
+  public void testDeletedFileIsNotCopied() throws Exception {
+    try (Directory backup = newIndex(10);
+        Directory local = new ByteBuffersDirectory();
+        LazyRestoreDirectory dir = new LazyRestoreDirectory(local, remoteFiles(backup))) {
+      String[] files = backup.listAll();
+      for (String file : files) {
+        dir.addRemoteFile(file);
+      }
+      assertEquals(backup.fileLength(files[0]), dir.fileLength(files[0]));
+      dir.deleteFile(files[0]);
+      assertEquals(files.length - 1, dir.listAll().length);
+
+      ExecutorService executor =
+          ExecutorUtil.newMDCAwareFixedThreadPool(1, new SolrNamedThreadFactory("hydrate"));
+      try {
+        dir.hydrate(executor).get(30, TimeUnit.SECONDS);
+      } finally {
+        ExecutorUtil.shutdownAndAwaitTermination(executor);
+      }
+      assertTrue(dir.isHydrated());
+      assertFalse(List.of(local.listAll()).contains(files[0]));
+      assertEquals(files.length - 1, local.listAll().length);
+    }
+  }
+
+  private static Directory newIndex(int numDocs) throws IOException {
+    Directory dir = new ByteBuffersDirectory();
+    try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+      for (int i = 0; i < numDocs; i++) {
+        Document doc = new Document();
+        doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+        writer.addDocument(doc);
+      }
+      writer.commit();
+    }
+    return dir;
+  }
+
+  private static LazyRestoreDirectory.RemoteFiles remoteFiles(Directory backup) {
+    return new LazyRestoreDirectory.RemoteFiles() {
+      @Override
+      public IndexInput openInput(String fileName) throws IOException {
+        return backup.openInput(fileName, IOContext.DEFAULT);
+      }
+
+      @Override
+      public void copy(String fileName, Directory dest, String destFileName) throws IOException {
+        dest.copyFrom(backup, fileName, destFileName, IOContext.DEFAULT);
+      }
+
+      @Override
+      public void close() {}
+    };
+  }
+}
@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.UnaryOperator;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.SolrException;
@@ -256,6 +257,73 @@ public class JsonLoaderTest extends SolrTestCaseJ4 {
     assertEquals(2, p.addCommands.size());
   }
 
+  public void testParseThreads() throws Exception {
+    StringBuilder array = new StringBuilder("[");
+    StringBuilder lines = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      String doc = "{'id':'" + i + "', 'f1':'a \\' [{,]} " + i + "', 'f2':[" + i + ", 1]}";
+      array.append(i == 0 ? "" : ",\n").append(doc);
+      lines.append(doc).append('\n');
+    }
+    array.append("]\n{'commit':{}}");
+
+    BufferingRequestProcessor p = new BufferingRequestProcessor(null);
+    new JsonLoader()
+        .load(
+            req(JsonLoader.PARSE_THREADS, "4"),
+            new SolrQueryResponse(),
+            new ContentStreamBase.StringStream(array.toString()),
+            p);
+    assertEquals(2000, p.addCommands.size());
+    assertEquals(1, p.commitCommands.size());
+    for (int i = 0; i < 2000; i++) {
+      SolrInputDocument d = p.addCommands.get(i).solrDoc;
+      assertEquals(Integer.toString(i), d.getFieldValue("id"));
+      assertEquals("a ' [{,]} " + i, d.getFieldValue("f1"));
+      assertEquals(Arrays.asList((long) i, 1L), d.getFieldValues("f2"));
+    }
+
+    SolrQueryRequest req = req(JsonLoader.PARSE_THREADS, "4");
+    req.getContext().put("path", "/update/json/docs");
+    p = new BufferingRequestProcessor(null);
+    new JsonLoader()
+        .load(
+            req,
+            new SolrQueryResponse(),
+            new ContentStreamBase.StringStream(lines.toString()),
+            p);
+    assertEquals(2000, p.addCommands.size());
+    for (int i = 0; i < 2000; i++) {
+      assertEquals(Integer.toString(i), p.addCommands.get(i).solrDoc.getFieldValue("id"));
+    }
+
+    // the requested threads are capped, and come from the pool shared by all requests
+    p = new BufferingRequestProcessor(null);
+    new JsonLoader()
+        .load(
+            req(JsonLoader.PARSE_THREADS, "1000"),
+            new SolrQueryResponse(),
+            new ContentStreamBase.StringStream(array.toString()),
+            p);
+    assertEquals(2000, p.addCommands.size());
+    ThreadPoolExecutor parseExecutor =
+        (ThreadPoolExecutor) h.getCoreContainer().getUpdateParseExecutor();
+    assertTrue(parseExecutor.getLargestPoolSize() > 0);
+    assertTrue(parseExecutor.getLargestPoolSize() <= h.getCoreContainer().getUpdateParseThreads());
+
+    SolrException e =
+        expectThrows(
+            SolrException.class,
+            () ->
+                new JsonLoader()
+                    .load(
+                        req(JsonLoader.PARSE_THREADS, "4"),
+                        new SolrQueryResponse(),
+                        new ContentStreamBase.StringStream("[{\"id\":\"1\"}, 2]"),
+                        new BufferingRequestProcessor(null)));
+    assertEquals(SolrException.ErrorCode.BAD_REQUEST.code, e.code());
+  }
+
   public void testJsonDocFormat() throws Exception {
     String doc;
     SolrQueryRequest req;
@@ -17,10 +17,28 @@
 package org.apache.solr.handler;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.tests.util.LuceneTestCase;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.params.CoreAdminParams;
@@ -399,6 +417,158 @@ public class TestIncrementalCoreBackup extends SolrTestCaseJ4 {
     admin.close();
   }
 
+  /** Tests that backups without a previous backup in common still store each index file once */
+  public void testBackupStoresIndexFilesOnce() throws Exception {
+    assertU(adoc("id", "1"));
+    assertU(commit());
+    assertU(adoc("id", "2"));
+    assertU(commit());
+    final IndexCommit commit = h.getCore().getDeletionPolicy().getLatestCommit();
+
+    final CoreAdminHandler admin = new CoreAdminHandler(h.getCoreContainer());
+    final Path locationPath = createBackupLocation();
+    final URI locationUri = bootstrapBackupLocation(locationPath);
+
+    final ShardBackupId[] shardBackupIds = {
+      new ShardBackupId("shard1", BackupId.zero()), new ShardBackupId("shard2", BackupId.zero())
+    };
+    for (ShardBackupId shardBackupId : shardBackupIds) {
+      final SolrQueryResponse resp = new SolrQueryResponse();
+      admin.handleRequestBody(
+          req(
+              CoreAdminParams.ACTION,
+              CoreAdminParams.CoreAdminAction.BACKUPCORE.toString(),
+              "core",
+              DEFAULT_TEST_COLLECTION_NAME,
+              "location",
+              locationPath.toString(),
+              CoreAdminParams.SHARD_BACKUP_ID,
+              shardBackupId.getIdAsString()),
+          resp);
+      assertNull("Backup should have succeeded", resp.getException());
+      simpleBackupCheck(locationUri, shardBackupId, commit.getSegmentsFileName());
+    }
+
+    try (BackupRepository backupRepository = h.getCoreContainer().newBackupRepository(null)) {
+      final BackupFilePaths backupFilePaths = new BackupFilePaths(backupRepository, locationUri);
+      final URI metadataDir = backupFilePaths.getShardBackupMetadataDir();
+      assertEquals(
+          new HashSet<>(
+              ShardBackupMetadata.from(backupRepository, metadataDir, shardBackupIds[0])
+                  .listUniqueFileNames()),
+          new HashSet<>(
+              ShardBackupMetadata.from(backupRepository, metadataDir, shardBackupIds[1])
+                  .listUniqueFileNames()));
+      assertEquals(
+          commit.getFileNames().size(),
+          backupRepository.listAll(backupFilePaths.getIndexDir()).length);
+    }
+    admin.close();
+  }
+
+  /**
+   * Tests that files which keep the same header when indexes sharing a segment diverge, such as
+   * live docs, are stored apart, and that a stored file is never replaced
+   */
+  public void testBackupKeepsDivergedFilesApart() throws Exception {
+    final Path locationPath = createBackupLocation();
+    final URI locationUri = bootstrapBackupLocation(locationPath);
+    try (Directory dir1 = newFSDirectory(createTempDir());
+        Directory dir2 = newFSDirectory(createTempDir());
+        BackupRepository backupRepository = h.getCoreContainer().newBackupRepository(null)) {
+      try (IndexWriter writer = new IndexWriter(dir1, indexWriterConfig())) {
+        for (int i = 0; i < 10; i++) {
+          Document doc = new Document();
+          doc.add(new StringField("id", Integer.toString(i), Field.Store.NO));
+          writer.addDocument(doc);
+        }
+      }
+      for (String file : dir1.listAll()) {
+        if (!file.equals(IndexWriter.WRITE_LOCK_NAME)) {
+          dir2.copyFrom(dir1, file, file, IOContext.DEFAULT);
+        }
+      }
+      // both indexes now have the same segment, with different live docs
+      try (IndexWriter writer = new IndexWriter(dir1, indexWriterConfig())) {
+        writer.deleteDocuments(new Term("id", "1"));
+      }
+      try (IndexWriter writer = new IndexWriter(dir2, indexWriterConfig())) {
+        writer.deleteDocuments(new Term("id", "2"));
+      }
+
+      final BackupFilePaths backupFilePaths = new BackupFilePaths(backupRepository, locationUri);
+      final URI indexDir = backupFilePaths.getIndexDir();
+      final ShardBackupId shard1 = new ShardBackupId("shard1", BackupId.zero());
+      final ShardBackupId shard2 = new ShardBackupId("shard2", BackupId.zero());
+      final ShardBackupMetadata metadata1 = backup(backupRepository, locationUri, dir1, shard1);
+      final ShardBackupMetadata metadata2 = backup(backupRepository, locationUri, dir2, shard2);
+
+      final String segmentInfo = "_0.si";
+      assertEquals(
+          metadata1.getFile(segmentInfo).orElseThrow().uniqueFileName,
+          metadata2.getFile(segmentInfo).orElseThrow().uniqueFileName);
+      final String liveDocs = liveDocsFile(dir1);
+      assertEquals(liveDocs, liveDocsFile(dir2));
+      final String liveDocs1 = metadata1.getFile(liveDocs).orElseThrow().uniqueFileName;
+      final String liveDocs2 = metadata2.getFile(liveDocs).orElseThrow().uniqueFileName;
+      assertNotEquals(liveDocs1, liveDocs2);
+      assertStoredChecksum(backupRepository, indexDir, liveDocs2, dir2, liveDocs);
+      assertStoredChecksum(backupRepository, indexDir, liveDocs1, dir1, liveDocs);
+
+      // backup 0 never completed, so a new backup must not rely on its files, nor replace them
+      backupRepository.delete(indexDir, List.of(liveDocs1));
+      try (OutputStream os =
+          backupRepository.createOutput(backupRepository.resolve(indexDir, liveDocs1))) {
+        os.write(new byte[] {1, 2, 3});
+      }
+      final ShardBackupId nextShard1 = new ShardBackupId("shard1", new BackupId(1));
+      final ShardBackupMetadata metadata3 = backup(backupRepository, locationUri, dir1, nextShard1);
+      final String liveDocs3 = metadata3.getFile(liveDocs).orElseThrow().uniqueFileName;
+      assertNotEquals(liveDocs1, liveDocs3);
+      assertStoredChecksum(backupRepository, indexDir, liveDocs3, dir1, liveDocs);
+      try (IndexInput in = backupRepository.openInput(indexDir, liveDocs1, IOContext.DEFAULT)) {
+        assertEquals(3, in.length());
+      }
+    }
+  }
+
+  private static ShardBackupMetadata backup(
+      BackupRepository backupRepository, URI locationUri, Directory dir, ShardBackupId id)
+      throws Exception {
+    final BackupFilePaths backupFilePaths = new BackupFilePaths(backupRepository, locationUri);
+    final IncrementalShardBackup backup =
+        new IncrementalShardBackup(
+            backupRepository, h.getCore(), backupFilePaths, null, id, Optional.empty());
+    backup.incrementalCopy(SegmentInfos.readLatestCommit(dir).files(true), dir);
+    return ShardBackupMetadata.from(
+        backupRepository, backupFilePaths.getShardBackupMetadataDir(), id);
+  }
+
+  private static IndexWriterConfig indexWriterConfig() {
+    // a single segment, so that both indexes have the same one
+    return new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+  }
+
+  private static String liveDocsFile(Directory dir) throws IOException {
+    SegmentCommitInfo info = SegmentInfos.readLatestCommit(dir).info(0);
+    assertTrue(info.hasDeletions());
+    return IndexFileNames.fileNameFromGeneration(info.info.name, "liv", info.getDelGen());
+  }
+
+  private static void assertStoredChecksum(
+      BackupRepository backupRepository,
+      URI indexDir,
+      String backedFileName,
+      Directory dir,
+      String fileName)
+      throws IOException {
+    try (IndexInput stored =
+            backupRepository.openInput(indexDir, backedFileName, IOContext.DEFAULT);
+        IndexInput local = dir.openInput(fileName, IOContext.READONCE)) {
+      assertEquals(CodecUtil.retrieveChecksum(local), CodecUtil.retrieveChecksum(stored));
+    }
+  }
+
   /** Check that the backup metadata file exists, and the corresponding index files can be found. */
   private static void simpleBackupCheck(
       URI locationURI, ShardBackupId shardBackupId, String... expectedIndexFiles)
@@ -23,20 +23,29 @@ import static org.apache.solr.handler.ReplicationTestHelper.createNewSolrClient;
 import static org.apache.solr.handler.ReplicationTestHelper.invokeReplicationCommand;
 import static org.hamcrest.CoreMatchers.containsString;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
+import java.util.zip.Adler32;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.store.Directory;
@@ -478,6 +487,196 @@ public class TestReplicationHandler extends SolrTestCaseJ4 {
     */
   }
 
+  @Test
+  public void doTestIndexFetchOnSeveralThreads() throws Exception {
+    System.setProperty("solr.replication.fetchThreads", "4");
+    AtomicInteger waiting = new AtomicInteger();
+    CountDownLatch fetchAllowed = new CountDownLatch(1);
+    try {
+      followerJetty.stop();
+      followerJetty = createAndStartJetty(follower);
+      followerClient.close();
+      followerClient =
+          createNewSolrClient(buildUrl(followerJetty.getLocalPort()), DEFAULT_TEST_CORENAME);
+
+      clearIndexWithReplication();
+      // the index files wait before being downloaded, so that several of them are in flight
+      IndexFetcher.fileStreamWrapper =
+          (fileName, offset, in) -> {
+            if (fileName.startsWith("_")) {
+              waiting.incrementAndGet();
+              try {
+                fetchAllowed.await(30, TimeUnit.SECONDS);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            }
+            return in;
+          };
+      nDocs--;
+      // commit now and then, so that there are several segments to fetch
+      for (int i = 0; i < nDocs; i++) {
+        index(leaderClient, "id", i, "name", "name = " + i);
+        if (i % 100 == 99) {
+          leaderClient.commit();
+        }
+      }
+      leaderClient.commit();
+
+      new TimeOut(30, TimeUnit.SECONDS, TimeSource.NANO_TIME)
+          .waitFor("the files were not fetched on several threads", () -> waiting.get() >= 2);
+      NamedList<?> followerDetails = (NamedList<?>) getDetails(followerClient).get("follower");
+      assertEquals(followerDetails.toString(), "true", followerDetails.get("isReplicating"));
+      // the status covers every file in flight, not just the one a thread last started
+      String[] currentFiles = ((String) followerDetails.get("currentFile")).split(",");
+      assertTrue(followerDetails.toString(), currentFiles.length >= 2);
+      String currentFilePercent = (String) followerDetails.get("currentFileSizePercent");
+      assertTrue(followerDetails.toString(), Float.parseFloat(currentFilePercent) <= 100);
+      fetchAllowed.countDown();
+
+      NamedList<Object> leaderQueryRsp = rQuery(nDocs, "*:*", leaderClient);
+      SolrDocumentList leaderQueryResult = (SolrDocumentList) leaderQueryRsp.get("response");
+      NamedList<Object> followerQueryRsp = rQuery(nDocs, "*:*", followerClient);
+      SolrDocumentList followerQueryResult = (SolrDocumentList) followerQueryRsp.get("response");
+      assertEquals(nDocs, followerQueryResult.getNumFound());
+      String cmp =
+          BaseDistributedSearchTestCase.compare(leaderQueryResult, followerQueryResult, 0, null);
+      assertNull(cmp);
+      assertVersions(leaderClient, followerClient);
+    } finally {
+      fetchAllowed.countDown();
+      IndexFetcher.fileStreamWrapper = (fileName, offset, in) -> in;
+      System.clearProperty("solr.replication.fetchThreads");
+    }
+  }
+
+  @Test
+  public void doTestIndexFetchResumesInterruptedFile() throws Exception {
+    clearIndexWithReplication();
+    AtomicReference<String> interrupted = new AtomicReference<>();
+    Map<String, Long> resumedAt = new ConcurrentHashMap<>();
+    IndexFetcher.fileStreamWrapper =
+        (fileName, offset, in) -> {
+          if (offset > 0) {
+            resumedAt.put(fileName, offset);
+            return in;
+          }
+          if (!fileName.startsWith("_") || interrupted.get() != null) {
+            return in;
+          }
+          // the connection breaks once the first packet of a big index file was received
+          return new FilterInputStream(in) {
+            private long received;
+
+            @Override
+            public int read() throws IOException {
+              breakAfterFirstPacket();
+              int b = super.read();
+              received++;
+              return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+              breakAfterFirstPacket();
+              int n = super.read(b, off, len);
+              received += Math.max(0, n);
+              return n;
+            }
+
+            private void breakAfterFirstPacket() throws IOException {
+              // a packet is its size, its checksum and its bytes
+              long packet = Integer.BYTES + Long.BYTES + ReplicationAPIBase.PACKET_SZ;
+              if (received >= packet && interrupted.compareAndSet(null, fileName)) {
+                throw new IOException("Connection broken for test");
+              }
+            }
+          };
+        };
+    try {
+      // stored fields big enough to take several packets
+      int numDocs = 3000;
+      UpdateRequest update = new UpdateRequest();
+      for (int i = 0; i < numDocs; i++) {
+        update.add(sdoc("id", i, "name", TestUtil.randomSimpleString(random(), 1000, 1000)));
+      }
+      update.process(leaderClient);
+      leaderClient.commit();
+
+      assertEquals(numDocs, numFound(rQuery(numDocs, "*:*", followerClient)));
+      assertNotNull("no index file was big enough to be interrupted", interrupted.get());
+      // the download continued after the packets that were written, instead of starting over
+      Long offset = resumedAt.get(interrupted.get());
+      assertNotNull("the interrupted download was not resumed", offset);
+      assertTrue(offset >= ReplicationAPIBase.PACKET_SZ);
+      assertVersions(leaderClient, followerClient);
+    } finally {
+      IndexFetcher.fileStreamWrapper = (fileName, offset, in) -> in;
+    }
+  }
+
+  @Test
+  public void doTestIndexFetchRejectsCorruptFooter() throws Exception {
+    clearIndexWithReplication();
+    AtomicInteger corrupted = new AtomicInteger();
+    IndexFetcher.fileStreamWrapper =
+        (fileName, offset, in) -> {
+          if (!fileName.startsWith("_")) {
+            return in;
+          }
+          corrupted.incrementAndGet();
+          return corruptLastByte(in);
+        };
+    try {
+      nDocs--;
+      for (int i = 0; i < nDocs; i++) {
+        index(leaderClient, "id", i, "name", "name = " + i);
+      }
+      leaderClient.commit();
+
+      // the follower keeps polling, and keeps rejecting what it fetched
+      new TimeOut(30, TimeUnit.SECONDS, TimeSource.NANO_TIME)
+          .waitFor("no corrupted file was fetched", () -> corrupted.get() >= 2);
+      assertEquals(0, numFound(query("*:*", followerClient)));
+    } finally {
+      IndexFetcher.fileStreamWrapper = (fileName, offset, in) -> in;
+    }
+
+    // the next fetch gets intact files
+    assertEquals(nDocs, numFound(rQuery(nDocs, "*:*", followerClient)));
+    assertVersions(leaderClient, followerClient);
+  }
+
+  /**
+   * Flips the last byte of the streamed file, which is part of the checksum in its footer, and
+   * fixes the checksum of the packet so that only the footer is wrong.
+   */
+  private static InputStream corruptLastByte(InputStream in) throws IOException {
+    byte[] bytes;
+    try (in) {
+      bytes = in.readAllBytes();
+    }
+    ByteBuffer packets = ByteBuffer.wrap(bytes);
+    int lastPacket = -1;
+    while (packets.remaining() >= Integer.BYTES) {
+      int start = packets.position();
+      int size = packets.getInt();
+      if (size > 0) {
+        lastPacket = start;
+        packets.position(packets.position() + Long.BYTES + size);
+      }
+    }
+    if (lastPacket >= 0) {
+      int size = packets.getInt(lastPacket);
+      int data = lastPacket + Integer.BYTES + Long.BYTES;
+      bytes[data + size - 1] ^= 1;
+      Adler32 checksum = new Adler32();
+      checksum.update(bytes, data, size);
+      packets.putLong(lastPacket + Integer.BYTES, checksum.getValue());
+    }
+    return new ByteArrayInputStream(bytes);
+  }
+
   @Test
   public void doTestIndexAndConfigReplication() throws Exception {
 
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.cloud.SolrCloudTestCase;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.embedded.JettySolrRunner;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class DistributedResultCacheCloudTest extends SolrCloudTestCase {
+
+  private static final String COLLECTION = "resultCache";
+
+  @BeforeClass
+  public static void setupCluster() throws Exception {
+    System.setProperty("solr.distribResultCache.size", "16");
+    configureCluster(2).addConfig("conf", configset("cloud-minimal")).configure();
+    CollectionAdminRequest.createCollection(COLLECTION, "conf", 2, 1)
+        .process(cluster.getSolrClient());
+    cluster.waitForActiveCollection(COLLECTION, 2, 2);
+  }
+
+  @AfterClass
+  public static void clearProperties() {
+    System.clearProperty("solr.distribResultCache.size");
+  }
+
+  @Test
+  public void testCommitInvalidatesEntries() throws Exception {
+    UpdateRequest update = new UpdateRequest();
+    for (int i = 0; i < 10; i++) {
+      update.add(sdoc("id", String.valueOf(i)));
+    }
+    update.commit(cluster.getSolrClient(), COLLECTION);
+
+    // always ask the same coordinator, which has the cache
+    Replica coordinator = getCollectionState(COLLECTION).getReplicas().get(0);
+    DistributedResultCache cache = getResultCache(coordinator);
+    try (SolrClient client =
+        getHttpSolrClient(coordinator.getBaseUrl(), coordinator.getCoreName())) {
+      assertEquals(10, query(client));
+      assertEquals(10, query(client));
+      assertEquals(1, cache.hits.sum());
+
+      // only one of the shards opens a new searcher, and no query sees it
+      new UpdateRequest().add(sdoc("id", "10")).commit(cluster.getSolrClient(), COLLECTION);
+      assertEquals(11, query(client));
+      assertEquals(1, cache.hits.sum());
+      assertEquals(1, cache.invalidations.sum());
+
+      assertEquals(11, query(client));
+      assertEquals(2, cache.hits.sum());
+    }
+  }
+
+  private static long query(SolrClient client) throws Exception {
+    QueryResponse rsp = client.query(params("q", "*:*", "rows", "5"));
+    return rsp.getResults().getNumFound();
+  }
+
+  private static DistributedResultCache getResultCache(Replica replica) {
+    for (JettySolrRunner jetty : cluster.getJettySolrRunners()) {
+      if (jetty.getNodeName().equals(replica.getNodeName())) {
+        try (SolrCore core = jetty.getCoreContainer().getCore(replica.getCoreName())) {
+          return ((SearchHandler) core.getRequestHandler("/select")).getResultCache();
+        }
+      }
+    }
+    throw new AssertionError("no node for " + replica);
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.junit.Test;
+
+public class DistributedResultCacheTest extends SolrTestCase {
+
+  private static final String[] SLICES = {"shard1", "shard2"};
+  private static final String[] SHARDS = {"http://a/c1|http://b/c1", "http://a/c2|http://b/c2"};
+
+  @Test
+  public void testKeyIgnoresParamOrderAndReplicaOrder() {
+    ModifiableSolrParams p1 = new ModifiableSolrParams();
+    p1.add("q", "*:*");
+    p1.add("fq", "a:1", "b:2");
+    ModifiableSolrParams p2 = new ModifiableSolrParams();
+    p2.add("fq", "a:1", "b:2");
+    p2.add("q", "*:*");
+
+    String[] reversedSlices = {"shard2", "shard1"};
+    String[] shuffledShards = {"http://b/c2|http://a/c2", "http://b/c1|http://a/c1"};
+    assertEquals(
+        DistributedResultCache.computeKey("coll", p1, SLICES, SHARDS),
+        DistributedResultCache.computeKey("coll", p2, reversedSlices, shuffledShards));
+
+    assertNotEquals(
+        DistributedResultCache.computeKey("coll", p1, SLICES, SHARDS),
+        DistributedResultCache.computeKey("other", p1, SLICES, SHARDS));
+    p2.set("rows", 5);
+    assertNotEquals(
+        DistributedResultCache.computeKey("coll", p1, SLICES, SHARDS),
+        DistributedResultCache.computeKey("coll", p2, SLICES, SHARDS));
+  }
+
+  @Test
+  public void testNewerShardVersionInvalidates() throws Exception {
+    DistributedResultCache cache = new DistributedResultCache(10, 60000);
+    NamedList<Object> values = new NamedList<>();
+    values.add("response", "cached");
+
+    cache.put("k", values, Map.of("http://a/c1", 5L, "http://a/c2", 7L));
+    assertEquals(values, cache.get("k", versions -> true));
+
+    // another replica moving on does not affect the entry
+    cache.observeVersion("http://b/c1", 9L);
+    assertEquals(values, cache.get("k", versions -> true));
+
+    // the same index version was observed again
+    cache.observeVersion("http://a/c2", 7L);
+    assertEquals(values, cache.get("k", versions -> true));
+
+    cache.observeVersion("http://a/c1", 6L);
+    assertNull(
+        cache.get(
+            "k",
+            versions -> {
+              throw new AssertionError("no need to ask the replicas");
+            }));
+    assertEquals(1, cache.invalidations.sum());
+    assertEquals(3, cache.hits.sum());
+    assertEquals(1, cache.misses.sum());
+  }
+
+  @Test
+  public void testChangedIndexInvalidates() throws Exception {
+    DistributedResultCache cache = new DistributedResultCache(10, 60000);
+    NamedList<Object> values = new NamedList<>();
+    values.add("response", "cached");
+    Map<String, Long> shardVersions = Map.of("http://a/c1", 5L, "http://a/c2", 7L);
+    cache.put("k", values, shardVersions);
+
+    AtomicReference<Map<String, Long>> asked = new AtomicReference<>();
+    assertEquals(
+        values,
+        cache.get(
+            "k",
+            versions -> {
+              asked.set(versions);
+              return true;
+            }));
+    assertEquals(shardVersions, asked.get());
+
+    // a replica opened a new searcher without any request passing through this node
+    assertNull(cache.get("k", versions -> false));
+    assertNull(cache.get("k", versions -> true));
+    assertEquals(1, cache.invalidations.sum());
+    assertEquals(1, cache.hits.sum());
+    assertEquals(2, cache.misses.sum());
+  }
+
+  @Test
+  public void testHitsGetTheirOwnCopy() throws Exception {
+    DistributedResultCache cache = new DistributedResultCache(10, 60000);
+    NamedList<Object> values = new NamedList<>();
+    SimpleOrderedMap<Object> facets = new SimpleOrderedMap<>();
+    facets.add("count", 3);
+    values.add("facets", facets);
+    cache.put("k", values, Map.of("http://a/c1", 5L));
+    // the response the values were taken from is written and discarded afterwards
+    values.add("more", "values");
+
+    NamedList<Object> first = cache.get("k", versions -> true);
+    assertEquals(1, first.size());
+    ((NamedList<?>) first.get("facets")).remove("count");
+    first.add("more", "values");
+
+    NamedList<Object> second = cache.get("k", versions -> true);
+    assertNotSame(first, second);
+    assertEquals(1, second.size());
+    assertEquals(3, ((NamedList<?>) second.get("facets")).get("count"));
+  }
+
+  @Test
+  public void testNothingCachedWithoutVersions() throws Exception {
+    DistributedResultCache cache = new DistributedResultCache(10, 60000);
+    cache.put("k", new NamedList<>(), Map.of());
+    assertNull(cache.get("k", versions -> true));
+  }
+
+  @Test
+  public void testAuthenticatedRequestsNotCached() {
+    SearchHandler handler = new SearchHandler();
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.add("q", "*:*");
+    try (LocalSolrQueryRequest req = new LocalSolrQueryRequest(null, params)) {
+      ResponseBuilder rb = new ResponseBuilder(req, new SolrQueryResponse(), List.of());
+      rb.shards = SHARDS;
+      assertTrue(handler.isResultCacheable(req, rb));
+
+      // the key does not hold the user, whose results plugins may filter
+      req.setUserPrincipalName("alice");
+      assertFalse(handler.isResultCacheable(req, rb));
+    }
+  }
+
+  @Test
+  public void testFromConfig() {
+    assertNull(DistributedResultCache.fromConfig(null));
+    assertNull(DistributedResultCache.fromConfig(new NamedList<>()));
+
+    NamedList<Object> config = new NamedList<>();
+    config.add("size", 0);
+    NamedList<Object> initArgs = new NamedList<>();
+    initArgs.add(DistributedResultCache.CONFIG_NAME, config);
+    assertNull(DistributedResultCache.fromConfig(initArgs));
+
+    config.setVal(0, 16);
+    assertNotNull(DistributedResultCache.fromConfig(initArgs));
+  }
+}
@@ -20,12 +20,14 @@ import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
 import org.apache.solr.client.solrj.request.JavaBinUpdateRequestCodec;
 import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.util.ContentStreamBase;
+import org.apache.solr.common.util.Utf8CharSequence;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.SolrQueryResponse;
 import org.apache.solr.update.AddUpdateCommand;
@@ -95,6 +97,62 @@ public class JavabinLoaderTest extends SolrTestCaseJ4 {
     assertTrue(mockUpdateProcessor.addCommands.get(batch.size() - 1).isLastDocInBatch);
   }
 
+  @Test
+  public void testUtf8StringsForPassThroughChains() throws Exception {
+    SolrInputDocument doc = new SolrInputDocument();
+    doc.setField("id", "1");
+    doc.setField("foo_s", "h\u00e9llo");
+    SolrInputDocument atomicDoc = new SolrInputDocument();
+    atomicDoc.setField("id", "2");
+    atomicDoc.setField("foo_s", Map.of("set", "w\u00f6rld"));
+    UpdateRequest updateRequest = new UpdateRequest();
+    updateRequest.add(List.of(doc, atomicDoc));
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new JavaBinUpdateRequestCodec().marshal(updateRequest, os);
+
+    // the implicit default chain
+    List<AddUpdateCommand> adds = load(req(), os.toByteArray());
+    assertEquals("1", adds.get(0).solrDoc.getFieldValue("id"));
+    Object value = adds.get(0).solrDoc.getField("foo_s").getValue();
+    assertTrue(value instanceof Utf8CharSequence);
+    assertEquals("h\u00e9llo", value.toString());
+    // atomic updates get strings
+    assertEquals(Map.of("set", "w\u00f6rld"), adds.get(1).solrDoc.getFieldValue("foo_s"));
+    assertTrue(
+        ((Map<?, ?>) adds.get(1).solrDoc.getFieldValue("foo_s")).get("set") instanceof String);
+
+    adds = load(req("update.chain", "uniq-fields"), os.toByteArray());
+    assertEquals("h\u00e9llo", adds.get(0).solrDoc.getField("foo_s").getValue());
+
+    EmbeddedSolrServer solrJClient =
+        new EmbeddedSolrServer(
+            h.getCoreContainer(), "collection1", EmbeddedSolrServer.RequestWriterSupplier.JavaBin);
+    solrJClient.add(doc);
+    solrJClient.commit();
+    assertQ(req("q", "foo_s:h\u00e9llo", "fl", "foo_s"), "//result/doc[1]/str[.='h\u00e9llo']");
+  }
+
+  private List<AddUpdateCommand> load(SolrQueryRequest req, byte[] body) throws Exception {
+    BufferingRequestProcessor processor =
+        new BufferingRequestProcessor(null) {
+          @Override
+          public void processAdd(AddUpdateCommand cmd) {
+            addCommands.add((AddUpdateCommand) cmd.clone());
+          }
+        };
+    try {
+      new JavabinLoader()
+          .load(
+              req,
+              new SolrQueryResponse(),
+              new ContentStreamBase.ByteArrayStream(body, "test"),
+              processor);
+    } finally {
+      req.close();
+    }
+    return processor.addCommands;
+  }
+
   @Test
   public void javabinLoader_denseVector_shouldIndexCorrectly() throws Exception {
     SolrInputDocument doc1 = new SolrInputDocument();
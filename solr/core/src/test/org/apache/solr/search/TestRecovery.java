@@ -39,10 +39,12 @@ import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import org.apache.lucene.tests.util.TestUtil;
 import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.util.TimeSource;
 import org.apache.solr.common.util.Utils;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.update.AddUpdateCommand;
 import org.apache.solr.update.UpdateHandler;
 import org.apache.solr.update.UpdateLog;
 import org.apache.solr.update.processor.DistributedUpdateProcessor.DistribPhase;
@@ -329,6 +331,81 @@ public class TestRecovery extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  public void testDBQWaitsForPendingUpdatesDuringLogReplay() throws Exception {
+    try {
+      TestInjection.skipIndexWriterCommitOnClose = true;
+      final Semaphore logReplay = new Semaphore(0);
+      final Semaphore logReplayFinish = new Semaphore(0);
+      final Semaphore slowStarted = new Semaphore(0);
+      final Semaphore slowRelease = new Semaphore(0);
+      final Semaphore afterStarted = new Semaphore(0);
+
+      UpdateLog.testing_logReplayHook =
+          () -> {
+            try {
+              assertTrue(logReplay.tryAcquire(timeout, TimeUnit.SECONDS));
+            } catch (Exception e) {
+              throw new RuntimeException(e);
+            }
+          };
+      UpdateLog.testing_replayUpdateHook =
+          cmd -> {
+            if (!(cmd instanceof AddUpdateCommand)) return;
+            switch (cmd.getPrintableId()) {
+              case "slow":
+                slowStarted.release();
+                try {
+                  assertTrue(slowRelease.tryAcquire(timeout, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                  throw new RuntimeException(e);
+                }
+                break;
+              case "fail":
+                throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "injected");
+              case "after":
+                afterStarted.release();
+                break;
+              default:
+                break;
+            }
+          };
+      UpdateLog.testing_logReplayFinishHook = logReplayFinish::release;
+
+      clearIndex();
+      assertU(commit());
+
+      addAndGetVersion(sdoc("id", "slow"), null);
+      addAndGetVersion(sdoc("id", "fail"), null);
+      addAndGetVersion(sdoc("id", "other"), null);
+      deleteByQueryAndGetVersion("id:slow", null);
+      addAndGetVersion(sdoc("id", "after"), null);
+
+      h.close();
+      createCore();
+      assertJQ(req("q", "*:*"), "/response/numFound==0");
+
+      logReplay.release(Integer.MAX_VALUE);
+      assertTrue(slowStarted.tryAcquire(timeout, TimeUnit.SECONDS));
+      // the delete by query, and so everything after it, waits for the add that is still running
+      assertFalse(afterStarted.tryAcquire(500, TimeUnit.MILLISECONDS));
+
+      // the failed add is no longer pending, so replay carries on once the slow add is done
+      slowRelease.release();
+      assertTrue(afterStarted.tryAcquire(timeout, TimeUnit.SECONDS));
+      assertTrue(logReplayFinish.tryAcquire(timeout, TimeUnit.SECONDS));
+
+      assertU(commit());
+      assertJQ(
+          req("q", "*:*", "sort", "id asc", "fl", "id"),
+          "/response/docs==[{'id':'after'},{'id':'other'}]");
+    } finally {
+      UpdateLog.testing_logReplayHook = null;
+      UpdateLog.testing_replayUpdateHook = null;
+      UpdateLog.testing_logReplayFinishHook = null;
+    }
+  }
+
   @Test
   public void testNewDBQAndDocMatchingOldDBQDuringLogReplay() throws Exception {
     try {
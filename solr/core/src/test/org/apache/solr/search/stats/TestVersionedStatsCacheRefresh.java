@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.stats;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.cloud.SolrCloudTestCase;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.embedded.JettySolrRunner;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Checks that {@link VersionedStatsCache} reuses the stats of a shard until it commits. */
+public class TestVersionedStatsCacheRefresh extends SolrCloudTestCase {
+
+  private static final String COLLECTION = "versionedStats";
+
+  @BeforeClass
+  public static void setupCluster() throws Exception {
+    System.setProperty("solr.statsCache", VersionedStatsCache.class.getName());
+    configureCluster(2).addConfig("conf", configset("cloud-dynamic")).configure();
+    CollectionAdminRequest.createCollection(COLLECTION, "conf", 2, 1)
+        .process(cluster.getSolrClient());
+    cluster.waitForActiveCollection(COLLECTION, 2, 2);
+  }
+
+  @AfterClass
+  public static void clearProperties() {
+    System.clearProperty("solr.statsCache");
+  }
+
+  @Test
+  public void testCommitRefreshesShardStats() throws Exception {
+    UpdateRequest update = new UpdateRequest();
+    for (int i = 0; i < 10; i++) {
+      update.add(sdoc("id", String.valueOf(i), "a_t", "hello world"));
+    }
+    update.commit(cluster.getSolrClient(), COLLECTION);
+
+    // always ask the same coordinator, which keeps the stats
+    Replica coordinator = getCollectionState(COLLECTION).getReplicas().get(0);
+    try (SolrClient client =
+            getHttpSolrClient(coordinator.getBaseUrl(), coordinator.getCoreName());
+        SolrCore core = getCore(coordinator)) {
+      query(client);
+      VersionedStatsCache.ShardStatsRegistry registry = getRegistry(core);
+      Map<String, VersionedStatsCache.ShardStats> before = new HashMap<>(registry.perShardStats);
+      assertEquals(2, before.size());
+
+      long cached = useCachedGlobalStats(core);
+      query(client);
+      assertEquals(cached + 1, useCachedGlobalStats(core));
+      assertEquals(before, registry.perShardStats);
+
+      // only one of the shards gets the document and opens a newer searcher
+      new UpdateRequest()
+          .add(sdoc("id", "10", "a_t", "hello"))
+          .commit(cluster.getSolrClient(), COLLECTION);
+      // this query learns about the new version, the next one refetches that shard's stats
+      query(client);
+      query(client);
+
+      int refreshed = 0;
+      for (Map.Entry<String, VersionedStatsCache.ShardStats> e : before.entrySet()) {
+        VersionedStatsCache.ShardStats now = registry.perShardStats.get(e.getKey());
+        if (now == e.getValue()) {
+          continue;
+        }
+        refreshed++;
+        assertTrue(now + " not newer than " + e.getValue(), now.version > e.getValue().version);
+        assertTrue(now.termStats.containsKey("a_t:hello"));
+      }
+      assertEquals(1, refreshed);
+
+      // the refreshed stats are cached again
+      cached = useCachedGlobalStats(core);
+      query(client);
+      assertEquals(cached + 1, useCachedGlobalStats(core));
+    }
+  }
+
+  private static void query(SolrClient client) throws Exception {
+    assertTrue(client.query(params("q", "a_t:hello", "fl", "id,score")).getResults().size() > 0);
+  }
+
+  private static long useCachedGlobalStats(SolrCore core) throws Exception {
+    return core.withSearcher(
+        s -> s.getStatsCache().getCacheMetrics().useCachedGlobalStats.sum());
+  }
+
+  private static VersionedStatsCache.ShardStatsRegistry getRegistry(SolrCore core) {
+    String key = VersionedStatsCache.class.getName() + "/" + core.uniqueId;
+    return core.getCoreContainer()
+        .getObjectCache()
+        .get(key, VersionedStatsCache.ShardStatsRegistry.class);
+  }
+
+  private static SolrCore getCore(Replica replica) {
+    for (JettySolrRunner jetty : cluster.getJettySolrRunners()) {
+      if (jetty.getNodeName().equals(replica.getNodeName())) {
+        return jetty.getCoreContainer().getCore(replica.getCoreName());
+      }
+    }
+    throw new AssertionError("no node for " + replica);
+  }
+}
@@ -37,6 +37,7 @@ import org.apache.solr.common.SolrInputField;
 import org.apache.solr.common.util.ByteArrayUtf8CharSequence;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.schema.FieldType;
+import org.apache.solr.schema.IndexSchema;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -340,6 +341,51 @@ public class DocumentBuilderTest extends SolrTestCaseJ4 {
     assertEquals(testValue, out.get("large_max_chars"));
   }
 
+  @Test
+  public void testReusableFields() {
+    IndexSchema schema = h.getCore().getLatestSchema();
+    ReusableFields reusableFields = new ReusableFields();
+    for (int i = 0; i < 5; i++) {
+      SolrInputDocument doc = new SolrInputDocument();
+      doc.addField("id", Integer.toString(i));
+      doc.addField("a_i_dv", i);
+      doc.addField("a_l_dv", Long.toString(Long.MAX_VALUE - i));
+      doc.addField("a_dt_dv", "2024-01-0" + (i + 1) + "T00:00:00Z");
+      doc.addField("a_s_dvo", new ByteArrayUtf8CharSequence("value" + i));
+      doc.addField("a_ii_dvo", Arrays.asList(i, i + 1, i + 2));
+      doc.addField("a_is", i);
+
+      Document expected = DocumentBuilder.toDocument(doc, schema);
+      Document actual = DocumentBuilder.toDocument(doc, schema, false, true, reusableFields);
+      assertEquals(describe(expected), describe(actual));
+    }
+
+    SolrInputDocument doc = new SolrInputDocument();
+    doc.addField("id", "0");
+    doc.addField("a_s_dvo", "x");
+    Document first = DocumentBuilder.toDocument(doc, schema, false, true, reusableFields);
+    Document second = DocumentBuilder.toDocument(doc, schema, false, true, reusableFields);
+    assertSame(first.getField("a_s_dvo"), second.getField("a_s_dvo"));
+  }
+
+  private static List<String> describe(Document doc) {
+    return doc.getFields().stream()
+        .map(
+            f ->
+                f.getClass().getSimpleName()
+                    + " "
+                    + f.name()
+                    + " "
+                    + f.fieldType()
+                    + " "
+                    + f.stringValue()
+                    + " "
+                    + f.numericValue()
+                    + " "
+                    + f.binaryValue())
+        .collect(Collectors.toList());
+  }
+
   @Test
   public void denseVector_shouldReturnOneIndexableFieldAndOneStoredFieldPerVectorElement() {
     SolrCore core = h.getCore();
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.core.SearchLatencyTracker;
+import org.junit.Test;
+
+public class LatencyAwareMergeSchedulerTest extends SolrTestCase {
+
+  @Test
+  public void testSearchLatencyTracker() {
+    SearchLatencyTracker tracker = new SearchLatencyTracker();
+    assertEquals(-1, tracker.sampleMeanMillis(), 0);
+    tracker.record(TimeUnit.MILLISECONDS.toNanos(10));
+    tracker.record(TimeUnit.MILLISECONDS.toNanos(30));
+    assertEquals(20, tracker.sampleMeanMillis(), 0.001);
+    assertEquals(-1, tracker.sampleMeanMillis(), 0);
+  }
+
+  @Test
+  public void testThrottlesWhileSearchesAreSlow() throws Exception {
+    try (LatencyAwareMergeScheduler scheduler = new LatencyAwareMergeScheduler()) {
+      scheduler.setMaxMergesAndThreads(6, 3);
+      scheduler.setTargetQueryLatencyMs(100);
+      scheduler.setMaxLoadPerCpu(0);
+      scheduler.setMinMBPerSec(5);
+      assertFalse(scheduler.getAutoIOThrottle());
+
+      scheduler.adjustThrottle(50, -1);
+      assertFalse(scheduler.isThrottled());
+      assertEquals(3, scheduler.getMaxThreadCount());
+
+      // the I/O rate is halved at each check down to the minimum
+      scheduler.adjustThrottle(500, -1);
+      assertTrue(scheduler.isThrottled());
+      assertEquals(1, scheduler.getMaxThreadCount());
+      assertEquals(6, scheduler.getMaxMergeCount());
+      double unthrottledMBPerSec = 20; // where the automatic throttle starts
+      assertEquals(unthrottledMBPerSec / 2, scheduler.getIORateLimitMBPerSec(), 0);
+      scheduler.adjustThrottle(500, -1);
+      assertEquals(5, scheduler.getIORateLimitMBPerSec(), 0);
+      scheduler.adjustThrottle(500, -1);
+      assertEquals(5, scheduler.getIORateLimitMBPerSec(), 0);
+
+      // then doubled once searches are fast again, or there are none
+      scheduler.adjustThrottle(50, -1);
+      assertTrue(scheduler.isThrottled());
+      assertEquals(10, scheduler.getIORateLimitMBPerSec(), 0);
+      scheduler.adjustThrottle(-1, -1);
+      assertFalse(scheduler.isThrottled());
+      assertEquals(3, scheduler.getMaxThreadCount());
+      assertFalse(scheduler.getAutoIOThrottle());
+    }
+  }
+
+  @Test
+  public void testThrottlesWhileLoaded() throws Exception {
+    try (LatencyAwareMergeScheduler scheduler = new LatencyAwareMergeScheduler()) {
+      scheduler.setMaxMergesAndThreads(4, 2);
+      scheduler.setMaxLoadPerCpu(1.0);
+      scheduler.setThrottledMaxThreadCount(2);
+      scheduler.enableAutoIOThrottle();
+
+      scheduler.adjustThrottle(-1, 0.5);
+      assertFalse(scheduler.isThrottled());
+      scheduler.adjustThrottle(-1, 1.5);
+      assertTrue(scheduler.isThrottled());
+      assertEquals(2, scheduler.getMaxThreadCount());
+      assertEquals(10, scheduler.getIORateLimitMBPerSec(), 0);
+
+      scheduler.adjustThrottle(-1, 0.5);
+      assertFalse(scheduler.isThrottled());
+      // the throttle was configured, so it stays on
+      assertTrue(scheduler.getAutoIOThrottle());
+      assertEquals(20, scheduler.getIORateLimitMBPerSec(), 0);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.update.processor.DistributedUpdateProcessor.DistribPhase;
+import org.apache.solr.update.processor.DistributingUpdateProcessorFactory;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Tests indexing the documents of a single request from a leader on the parallel add pool. */
+public class ParallelAddTest extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    System.setProperty("solr.index.updatelog.enabled", "true");
+    System.setProperty("solr.update.parallelAdd.threads", "4");
+    System.setProperty("solr.update.parallelAdd.maxPending", "8");
+    initCore("solrconfig.xml", "schema11.xml");
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty("solr.update.parallelAdd.threads");
+    System.clearProperty("solr.update.parallelAdd.maxPending");
+    System.clearProperty("solr.index.updatelog.enabled");
+  }
+
+  @Before
+  public void clean() {
+    assertU(delQ("*:*"));
+    assertU(commit());
+  }
+
+  @Test
+  public void testLastAddOfEachDocWins() throws Exception {
+    DirectUpdateHandler2 updateHandler = (DirectUpdateHandler2) h.getCore().getUpdateHandler();
+    assertNotNull(updateHandler.getParallelAddExecutor());
+
+    StringBuilder json = new StringBuilder("{");
+    for (int i = 0; i < 1000; i++) {
+      appendAdd(json, Integer.toString(i % 100), "\"val_i\":" + i).append(',');
+    }
+    json.setLength(json.length() - 1);
+    updateJ(json.append('}').toString(), fromLeader());
+
+    // realtime get sees every add before the request returns
+    assertJQ(req("qt", "/get", "id", "42", "fl", "val_i"), "/doc/val_i==942");
+
+    assertU(commit());
+    assertQ(req("q", "*:*"), "//*[@numFound='100']");
+    assertQ(req("q", "val_i:[900 TO *]"), "//*[@numFound='100']");
+  }
+
+  @Test
+  public void testDeleteByQueryWithAddsInFlight() throws Exception {
+    StringBuilder json = new StringBuilder("{");
+    for (int i = 0; i < 100; i++) {
+      appendAdd(json, Integer.toString(i), "\"val_i\":" + i).append(',');
+    }
+    // would block forever if this thread kept its read lock for the adds in flight
+    json.append("\"delete\":{\"query\":\"val_i:[0 TO 49]\",\"_version_\":")
+        .append(-newVersion())
+        .append("},");
+    appendAdd(json, "0", "\"val_i\":1000");
+    updateJ(json.append('}').toString(), fromLeader());
+
+    assertU(commit());
+    assertQ(req("q", "*:*"), "//*[@numFound='51']");
+    assertQ(req("q", "id:0 AND val_i:1000"), "//*[@numFound='1']");
+  }
+
+  @Test
+  public void testFailedAddIsReportedForItsDocument() throws Exception {
+    StringBuilder json = new StringBuilder("{");
+    for (int i = 0; i < 50; i++) {
+      appendAdd(json, Integer.toString(i), "\"val_i\":" + (i == 3 ? "\"bad\"" : i)).append(',');
+    }
+    json.setLength(json.length() - 1);
+    // the failure is seen by a later command, but must name the document that failed
+    SolrException e =
+        expectThrows(
+            SolrException.class, () -> updateJ(json.append('}').toString(), fromLeader()));
+    assertEquals(SolrException.ErrorCode.BAD_REQUEST.code, e.code());
+    assertTrue(e.getMessage(), e.getMessage().startsWith("Error adding document id=3:"));
+
+    // the failed request released its locks: a delete by query blocks updates
+    updateJ(
+        "{\"delete\":{\"query\":\"id:0\",\"_version_\":" + -newVersion() + "}}",
+        fromLeader());
+    assertU(commit());
+    assertQ(req("q", "id:0 OR id:3"), "//*[@numFound='0']");
+    assertQ(req("q", "id:1 OR id:2"), "//*[@numFound='2']");
+  }
+
+  @Test
+  public void testLeaderAddsOnRequestThread() throws Exception {
+    // the add of a leader must succeed before the doc is forwarded, so a failure stops the request
+    SolrException e =
+        expectThrows(
+            SolrException.class,
+            () ->
+                updateJ(
+                    "["
+                        + "{\"id\":\"1\",\"val_i\":1},"
+                        + "{\"id\":\"2\",\"val_i\":\"bad\"},"
+                        + "{\"id\":\"3\",\"val_i\":3}]",
+                    null));
+    assertFalse(e.getMessage(), e.getMessage().startsWith("Error adding document id="));
+    assertU(commit());
+    assertQ(req("q", "*:*"), "//*[@numFound='1']");
+  }
+
+  @Test
+  public void testRequestInfoIsPropagated() throws Exception {
+    StringBuilder json = new StringBuilder("{");
+    for (int i = 0; i < 20; i++) {
+      appendAdd(json, Integer.toString(i), "\"when_tdt\":\"NOW\"").append(',');
+    }
+    json.setLength(json.length() - 1);
+    // date math in the conversion on the pool uses the request's NOW
+    ModifiableSolrParams params = fromLeader();
+    params.set(CommonParams.NOW, "0");
+    updateJ(json.append('}').toString(), params);
+
+    assertU(commit());
+    assertQ(req("q", "when_tdt:\"1970-01-01T00:00:00Z\""), "//*[@numFound='20']");
+  }
+
+  /** Params of an update forwarded by a shard leader, the only ones added in parallel */
+  private static ModifiableSolrParams fromLeader() {
+    return params(
+        DistributingUpdateProcessorFactory.DISTRIB_UPDATE_PARAM,
+        DistribPhase.FROMLEADER.toString());
+  }
+
+  /** Appends an add of the doc with the given fields and a new version, as a leader would send */
+  private static StringBuilder appendAdd(StringBuilder json, String id, String fields) {
+    return json.append("\"add\":{\"doc\":{\"id\":\"")
+        .append(id)
+        .append("\",\"_version_\":")
+        .append(newVersion())
+        .append(',')
+        .append(fields)
+        .append("}}");
+  }
+
+  private static long newVersion() {
+    return h.getCore().getUpdateHandler().getUpdateLog().getVersionInfo().getNewClock();
+  }
+}
@@ -392,15 +392,28 @@ public class PeerSyncTest extends BaseDistributedSearchTestCase {
       docsAdded.add(i + 11);
     }
 
-    // sync should fail since there's not enough overlap to give us confidence
-    assertSync(client1, numVersions, false, shardsArr[0]);
+    System.setProperty("solr.peerSync.versionBuckets.enabled", "false");
+    try {
+      // sync should fail since there's not enough overlap to give us confidence
+      assertSync(client1, numVersions, false, shardsArr[0]);
 
-    // add some docs that were missing... just enough to give enough overlap
-    int toAdd2 = (int) (numVersions * .25);
-    for (int i = 0; i < toAdd2; i++) {
-      add(client1, seenLeader, sdoc("id", Integer.toString(i + 11), "_version_", v + i + 1));
+      // add some docs that were missing... just enough to give enough overlap
+      int toAdd2 = (int) (numVersions * .25);
+      for (int i = 0; i < toAdd2; i++) {
+        add(client1, seenLeader, sdoc("id", Integer.toString(i + 11), "_version_", v + i + 1));
+      }
+
+      assertSync(client1, numVersions, true, shardsArr[0]);
+      validateDocs(docsAdded, client0, client1);
+    } finally {
+      System.clearProperty("solr.peerSync.versionBuckets.enabled");
     }
 
+    // comparing ranges of versions finds the missed updates even without enough overlap
+    for (int i = toAdd; i < 2 * toAdd; i++) {
+      add(client0, seenLeader, sdoc("id", Integer.toString(i + 11), "_version_", v + i + 1));
+      docsAdded.add(i + 11);
+    }
     assertSync(client1, numVersions, true, shardsArr[0]);
     validateDocs(docsAdded, client0, client1);
   }
@@ -160,6 +160,47 @@ public class SoftAutoCommitTest extends SolrTestCaseJ4 {
     monitor.clear();
   }
 
+  @Test
+  public void testAdaptiveSoftCommitTime() throws Exception {
+    final int softCommitMinMillis = 200;
+    final int softCommitMaxMillis = 60000;
+
+    CommitTracker hardTracker = updater.commitTracker;
+    CommitTracker softTracker = updater.softCommitTracker;
+
+    // wait out any leaked commits
+    monitor.hard.poll(3000, MILLISECONDS);
+    monitor.soft.poll(0, MILLISECONDS);
+    monitor.clear();
+
+    softTracker.setDocsUpperBound(-1);
+    softTracker.setTimeUpperBound(softCommitMaxMillis);
+    softTracker.setTimeLowerBound(softCommitMinMillis);
+    hardTracker.setDocsUpperBound(-1);
+    hardTracker.setTimeUpperBound(-1);
+    try {
+      // commits take far less than the max time here
+      for (int i = 0; i < 3; i++) {
+        assertU(adoc("id", "" + (9000 + i), "subject", "testAdaptive"));
+        assertNotNull(
+            "soft commit didn't adapt to its commit time", monitor.soft.poll(10, TimeUnit.SECONDS));
+        assertNotNull(monitor.searcher.poll(5000, MILLISECONDS));
+        long effective = softTracker.getEffectiveTimeUpperBound();
+        assertTrue(effective >= softCommitMinMillis && effective < softCommitMaxMillis);
+      }
+      assertQ(req("q", "subject:testAdaptive"), "//*[@numFound='3']");
+
+      // without a lower bound, there is nothing to adapt
+      softTracker.setTimeLowerBound(-1);
+      assertEquals(softCommitMaxMillis, softTracker.getEffectiveTimeUpperBound());
+      assertEquals(softCommitMaxMillis, softTracker.getAutoCommitDelay());
+    } finally {
+      softTracker.setTimeLowerBound(-1);
+      softTracker.setTimeUpperBound(-1);
+    }
+    monitor.clear();
+  }
+
   @Test
   public void testSoftAndHardCommitMaxTimeMixedAdds() throws Exception {
     doTestSoftAndHardCommitMaxTimeMixedAdds(CommitWithinType.NONE);
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.solr.BaseDistributedSearchTestCase;
@@ -33,6 +34,7 @@ import org.apache.solr.client.solrj.apache.HttpSolrClient;
 import org.apache.solr.client.solrj.request.LukeRequest;
 import org.apache.solr.client.solrj.request.SolrQuery;
 import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.cloud.ZkCoreNodeProps;
@@ -41,6 +43,8 @@ import org.apache.solr.common.cloud.ZkStateReader;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.UpdateParams;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.StrUtils;
+import org.apache.solr.common.util.TimeSource;
 import org.apache.solr.core.CoreContainer;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.core.SolrEventListener;
@@ -55,7 +59,9 @@ import org.apache.solr.update.SolrCmdDistributor.StdNode;
 import org.apache.solr.update.processor.DistributedUpdateProcessor;
 import org.apache.solr.update.processor.DistributedUpdateProcessor.LeaderRequestReplicationTracker;
 import org.apache.solr.update.processor.DistributedUpdateProcessor.RollupRequestReplicationTracker;
+import org.apache.solr.update.processor.DistributingUpdateProcessorFactory;
 import org.apache.solr.util.TestInjection;
+import org.apache.solr.util.TimeOut;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -372,6 +378,7 @@ public class SolrCmdDistributorTest extends BaseDistributedSearchTestCase {
     testDeletes(false, false);
     testDeletes(true, true);
     testDeletes(true, false);
+    testBatchedUpdates();
     getRfFromResponseShouldNotCloseTheInputStream();
     testStuckUpdates();
   }
@@ -444,6 +451,138 @@ public class SolrCmdDistributorTest extends BaseDistributedSearchTestCase {
     }
   }
 
+  private void testBatchedUpdates() throws Exception {
+    final HttpSolrClient solrclient = (HttpSolrClient) clients.get(0);
+    solrclient.commit(true, true);
+    long numFoundBefore = solrclient.query(new SolrQuery("*:*")).getResults().getNumFound();
+    ZkNodeProps nodeProps =
+        new ZkNodeProps(
+            ZkStateReader.BASE_URL_PROP,
+            solrclient.getBaseURL(),
+            ZkStateReader.CORE_NAME_PROP,
+            solrclient.getDefaultCollection());
+    List<Node> nodes = List.of(new StdNode(new ZkCoreNodeProps(nodeProps)));
+
+    System.setProperty("solr.cloud.replication.batch.maxDocs", "10");
+    // batches are only sent when full, unless a test sets a shorter time
+    System.setProperty("solr.cloud.replication.batch.maxTimeMs", "60000");
+    try {
+      try (SolrCmdDistributor cmdDistrib = new SolrCmdDistributor(updateShardHandler)) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+          AddUpdateCommand cmd = new AddUpdateCommand(null);
+          int currentId = uniqueId.incrementAndGet();
+          ids.add(currentId);
+          cmd.solrDoc = sdoc("id", currentId);
+          cmdDistrib.distribAdd(cmd, nodes, new ModifiableSolrParams());
+        }
+        // two full batches
+        assertEquals(2, cmdDistrib.getBatchesSent());
+        for (int i = 0; i < 5; i++) {
+          DeleteUpdateCommand dcmd = new DeleteUpdateCommand(null);
+          dcmd.setId(String.valueOf(ids.get(i)));
+          cmdDistrib.distribDelete(dcmd, nodes, new ModifiableSolrParams());
+        }
+
+        CommitUpdateCommand ccmd = new CommitUpdateCommand(null, false);
+        cmdDistrib.distribCommit(ccmd, nodes, new ModifiableSolrParams());
+        cmdDistrib.finish();
+
+        assertEquals(cmdDistrib.getErrors().toString(), 0, cmdDistrib.getErrors().size());
+        // the remaining 5 adds, sent before the deletes, and the deletes
+        assertEquals(4, cmdDistrib.getBatchesSent());
+        long numFoundAfter = solrclient.query(new SolrQuery("*:*")).getResults().getNumFound();
+        assertEquals(numFoundBefore + 20, numFoundAfter);
+      }
+
+      // in-place updates are not batched, and must not overtake the adds they depend on
+      System.setProperty("solr.cloud.replication.batch.maxDocs", "50");
+      try (SolrCmdDistributor cmdDistrib = new SolrCmdDistributor(updateShardHandler)) {
+        ModifiableSolrParams fromLeader = new ModifiableSolrParams();
+        fromLeader.set(
+            DistributingUpdateProcessorFactory.DISTRIB_UPDATE_PARAM,
+            DistributedUpdateProcessor.DistribPhase.FROMLEADER.toString());
+        fromLeader.set(
+            DistributedUpdateProcessor.DISTRIB_FROM,
+            solrclient.getBaseURL() + "/" + solrclient.getDefaultCollection());
+        long version = System.currentTimeMillis() << 20;
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+          AddUpdateCommand cmd = new AddUpdateCommand(null);
+          int currentId = uniqueId.incrementAndGet();
+          ids.add(currentId);
+          cmd.solrDoc = sdoc("id", currentId, "_version_", version + i, "inplace_i_dvo", 1);
+          cmdDistrib.distribAdd(cmd, nodes, new ModifiableSolrParams(fromLeader));
+        }
+        assertEquals(0, cmdDistrib.getBatchesSent());
+        for (int i = 0; i < 20; i++) {
+          AddUpdateCommand cmd = new AddUpdateCommand(null);
+          cmd.solrDoc = sdoc("id", ids.get(i), "_version_", version + 20 + i, "inplace_i_dvo", 2);
+          cmd.prevVersion = version + i;
+          cmdDistrib.distribAdd(cmd, nodes, new ModifiableSolrParams(fromLeader));
+        }
+        cmdDistrib.finish();
+
+        assertEquals(cmdDistrib.getErrors().toString(), 0, cmdDistrib.getErrors().size());
+        assertEquals(1, cmdDistrib.getBatchesSent());
+        solrclient.commit(true, true);
+        SolrDocumentList results =
+            solrclient
+                .query(new SolrQuery("id:(" + StrUtils.join(ids, ' ') + ")").setRows(20))
+                .getResults();
+        assertEquals(20, results.getNumFound());
+        for (SolrDocument doc : results) {
+          assertEquals(doc.toString(), 2, doc.getFirstValue("inplace_i_dvo"));
+        }
+      }
+
+      // a batch that doesn't fill up is sent in time, without waiting for more updates
+      System.setProperty("solr.cloud.replication.batch.maxTimeMs", "100");
+      try (SolrCmdDistributor cmdDistrib = new SolrCmdDistributor(updateShardHandler)) {
+        for (int i = 0; i < 3; i++) {
+          AddUpdateCommand cmd = new AddUpdateCommand(null);
+          cmd.solrDoc = sdoc("id", uniqueId.incrementAndGet());
+          cmdDistrib.distribAdd(cmd, nodes, new ModifiableSolrParams());
+        }
+        TimeOut timeOut = new TimeOut(30, TimeUnit.SECONDS, TimeSource.NANO_TIME);
+        timeOut.waitFor("batch was not sent", () -> cmdDistrib.getBatchesSent() == 1);
+        cmdDistrib.finish();
+        assertEquals(cmdDistrib.getErrors().toString(), 0, cmdDistrib.getErrors().size());
+        assertEquals(1, cmdDistrib.getBatchesSent());
+      }
+      System.setProperty("solr.cloud.replication.batch.maxTimeMs", "60000");
+
+      // a failed batch is sent again one update at a time, to report errors per update
+      try (SolrCmdDistributor cmdDistrib = new SolrCmdDistributor(updateShardHandler)) {
+        ZkNodeProps missingCoreProps =
+            new ZkNodeProps(
+                ZkStateReader.BASE_URL_PROP,
+                solrclient.getBaseURL(),
+                ZkStateReader.CORE_NAME_PROP,
+                "nonexistent_core");
+        List<Node> missingCore = List.of(new StdNode(new ZkCoreNodeProps(missingCoreProps)));
+
+        for (int i = 0; i < 3; i++) {
+          AddUpdateCommand cmd = new AddUpdateCommand(null);
+          cmd.solrDoc = sdoc("id", uniqueId.incrementAndGet());
+          cmdDistrib.distribAdd(cmd, missingCore, new ModifiableSolrParams());
+        }
+        cmdDistrib.finish();
+
+        List<SolrError> errors = cmdDistrib.getErrors();
+        assertFalse(errors.isEmpty());
+        assertEquals(0, cmdDistrib.getBatchesSent());
+        for (SolrError error : errors) {
+          assertTrue(error.toString(), error.req.cmd instanceof AddUpdateCommand);
+          assertEquals(1, error.req.uReq.getDocuments().size());
+        }
+      }
+    } finally {
+      System.clearProperty("solr.cloud.replication.batch.maxDocs");
+      System.clearProperty("solr.cloud.replication.batch.maxTimeMs");
+    }
+  }
+
   private void testMinRfOnRetries(NodeType nodeType) throws Exception {
     final HttpSolrClient solrclient = (HttpSolrClient) clients.get(0);
     final MockStreamingSolrClients streamingClients =
@@ -81,6 +81,16 @@ public class SolrIndexSplitterTest extends SolrTestCaseJ4 {
     doTestSplitByPaths(SolrIndexSplitter.SplitMethod.LINK);
   }
 
+  @Test
+  public void testSplitByPathsSingleThread() throws Exception {
+    System.setProperty("solr.index.split.threads", "1");
+    try {
+      doTestSplitByPaths(SolrIndexSplitter.SplitMethod.REWRITE);
+    } finally {
+      System.clearProperty("solr.index.split.threads");
+    }
+  }
+
   private void doTestSplitByPaths(SolrIndexSplitter.SplitMethod splitMethod) throws Exception {
     LocalSolrQueryRequest request = null;
     try {
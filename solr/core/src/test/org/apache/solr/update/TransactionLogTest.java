@@ -18,10 +18,14 @@
 package org.apache.solr.update;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.solr.SolrTestCase;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.update.TransactionLog.LogReader;
@@ -71,4 +75,182 @@ public class TransactionLogTest extends SolrTestCase {
       assertEquals(uuid, (UUID) doc.getFieldValue("uuid"));
     }
   }
+
+  @Test
+  public void testConcurrentFsync() throws Exception {
+    String tlogFileName =
+        String.format(
+            Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, Long.MAX_VALUE);
+    Path path = createTempDir();
+    Path logFile = path.resolve(tlogFileName);
+    int numThreads = 8;
+    int docsPerThread = 50;
+    AtomicInteger fsyncs = new AtomicInteger();
+    // the size of the log covered by the last completed fsync
+    AtomicLong durableSize = new AtomicLong();
+    AtomicInteger notDurable = new AtomicInteger();
+    try (TransactionLog tlog =
+        new TransactionLog(logFile, null) {
+          @Override
+          void fsync() throws IOException {
+            long size = channel.size();
+            fsyncs.incrementAndGet();
+            try {
+              // a slow disk, so that writers pile up behind a running fsync
+              Thread.sleep(2);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            super.fsync();
+            durableSize.accumulateAndGet(size, Math::max);
+          }
+        }) {
+      tlog.deleteOnClose = false;
+      Thread[] threads = new Thread[numThreads];
+      for (int i = 0; i < numThreads; i++) {
+        threads[i] =
+            new Thread(
+                () -> {
+                  for (int j = 0; j < docsPerThread; j++) {
+                    AddUpdateCommand updateCommand = new AddUpdateCommand(null);
+                    updateCommand.solrDoc = new SolrInputDocument();
+                    long pos = tlog.write(updateCommand);
+                    // concurrent callers share fsyncs, but each returns once its record is synced
+                    tlog.finish(UpdateLog.SyncLevel.FSYNC, TimeUnit.MICROSECONDS.toNanos(100));
+                    if (durableSize.get() <= pos) {
+                      notDurable.incrementAndGet();
+                    }
+                  }
+                });
+        threads[i].start();
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    }
+    assertEquals("records not synced when finish returned", 0, notDurable.get());
+    assertTrue(
+        "expected fewer fsyncs than writes, got " + fsyncs.get(),
+        fsyncs.get() < numThreads * docsPerThread);
+
+    try (TransactionLog tlog = new TransactionLog(logFile, null, true)) {
+      LogReader reader = tlog.getReader(0);
+      int numRecords = 0;
+      while (reader.next() != null) {
+        numRecords++;
+      }
+      reader.close();
+      assertEquals(numThreads * docsPerThread, numRecords);
+    }
+  }
+
+  @Test
+  public void testMappedReads() throws Exception {
+    String tlogFileName =
+        String.format(
+            Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, Long.MAX_VALUE);
+    Path path = createTempDir();
+    Path logFile = path.resolve(tlogFileName);
+    int numDocs = 100;
+    long[] positions = new long[numDocs];
+    try (TransactionLog tlog = new TransactionLog(logFile, null)) {
+      for (int i = 0; i < numDocs; i++) {
+        AddUpdateCommand updateCommand = new AddUpdateCommand(null);
+        SolrInputDocument doc = new SolrInputDocument();
+        doc.addField("id", "doc" + i);
+        updateCommand.solrDoc = doc;
+        updateCommand.setVersion(i + 1);
+        positions[i] = tlog.write(updateCommand);
+      }
+      tlog.writeCommit(new CommitUpdateCommand(null, false));
+      tlog.mapForReads();
+      assertTrue(tlog.isMapped());
+      assertTrue(tlog.endsWithCommit());
+
+      for (int i = numDocs - 1; i >= 0; i--) {
+        List<?> entry = (List<?>) tlog.lookup(positions[i]);
+        assertEquals((long) i + 1, entry.get(UpdateLog.VERSION_IDX));
+        assertEquals("doc" + i, ((SolrInputDocument) entry.get(2)).getFieldValue("id"));
+      }
+
+      LogReader reader = tlog.getReader(0);
+      int numRecords = 0;
+      while (reader.next() != null) {
+        numRecords++;
+      }
+      reader.close();
+      assertEquals(numDocs + 1, numRecords); // including the commit
+
+      TransactionLog.ReverseReader reverseReader = tlog.getReverseReader();
+      List<?> last = (List<?>) reverseReader.next();
+      assertEquals(UpdateLog.COMMIT, last.get(0));
+      assertEquals((long) numDocs, ((List<?>) reverseReader.next()).get(UpdateLog.VERSION_IDX));
+      reverseReader.close();
+    }
+  }
+
+  @Test
+  public void testCompressedDocuments() throws Exception {
+    Path path = createTempDir();
+    Path plainFile =
+        path.resolve(
+            String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, 1L));
+    Path compressedFile =
+        path.resolve(
+            String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, 2L));
+    int numDocs = 50;
+    long[] positions = new long[numDocs];
+    for (Path logFile : List.of(plainFile, compressedFile)) {
+      try (TransactionLog tlog = new TransactionLog(logFile, null)) {
+        tlog.deleteOnClose = false;
+        tlog.setCompressDocuments(logFile == compressedFile);
+        for (int i = 0; i < numDocs; i++) {
+          AddUpdateCommand updateCommand = new AddUpdateCommand(null);
+          SolrInputDocument doc = new SolrInputDocument();
+          doc.addField("id", "doc" + i);
+          // small docs are not compressed
+          doc.addField("text", i % 2 == 0 ? "short" : "a repetitive text ".repeat(50));
+          updateCommand.solrDoc = doc;
+          updateCommand.setVersion(i + 1);
+          positions[i] = tlog.write(updateCommand);
+        }
+        tlog.writeCommit(new CommitUpdateCommand(null, false));
+      }
+    }
+    assertTrue(Files.size(compressedFile) < Files.size(plainFile) / 2);
+
+    try (TransactionLog tlog = new TransactionLog(compressedFile, null, true)) {
+      assertTrue("the format is read from the header", tlog.isCompressDocuments());
+      assertTrue(tlog.endsWithCommit());
+      for (int i = 0; i < numDocs; i++) {
+        List<?> entry = (List<?>) tlog.lookup(positions[i]);
+        SolrInputDocument doc = (SolrInputDocument) entry.get(2);
+        assertEquals("doc" + i, doc.getFieldValue("id"));
+        // the compressor's buffers are reused, each document must still be intact
+        assertEquals(
+            i % 2 == 0 ? "short" : "a repetitive text ".repeat(50), doc.getFieldValue("text"));
+      }
+
+      LogReader reader = tlog.getReader(0);
+      int numAdds = 0;
+      Object o;
+      while ((o = reader.next()) != null) {
+        List<?> entry = (List<?>) o;
+        if (entry.get(0).equals(UpdateLog.ADD)) {
+          assertEquals("doc" + numAdds, ((SolrInputDocument) entry.get(2)).getFieldValue("id"));
+          numAdds++;
+        }
+      }
+      reader.close();
+      assertEquals(numDocs, numAdds);
+
+      TransactionLog.ReverseReader reverseReader = tlog.getReverseReader();
+      int numRecords = 0;
+      while (reverseReader.next() != null) {
+        numRecords++;
+      }
+      reverseReader.close();
+      assertEquals(numDocs + 1, numRecords);
+    }
+  }
 }
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+
+public class VersionBucketsTest extends SolrTestCase {
+
+  @Test
+  public void testInSync() {
+    List<Long> versions = versions(1, 1000);
+    VersionBuckets ours = new VersionBuckets(sorted(versions));
+    List<NamedList<Object>> buckets =
+        VersionBuckets.describe(new ArrayList<>(versions), null, 16, 64);
+    assertEquals(16, buckets.size());
+    assertTrue(ours.overlaps(buckets));
+
+    VersionBuckets.Comparison comparison = ours.compare(buckets);
+    assertTrue(comparison.rangesToSplit.isEmpty());
+    assertTrue(comparison.missedRanges.isEmpty());
+  }
+
+  @Test
+  public void testFindsMissedRanges() {
+    List<Long> theirs = versions(1, 5000);
+    theirs.set(1234, -theirs.get(1234)); // a delete
+    List<Long> ours = new ArrayList<>(theirs);
+    Set<Long> missed = new HashSet<>();
+    // a gap in the middle, a few scattered versions and everything since we went down
+    missed.addAll(ours.subList(2000, 2100));
+    missed.add(ours.get(1234));
+    missed.add(ours.get(3333));
+    missed.addAll(ours.subList(4500, 5000));
+    ours.removeAll(missed);
+    ours.add(6001L); // one that they don't have
+
+    assertEquals(missed, sync(theirs, ours));
+  }
+
+  @Test
+  public void testIgnoresVersionsOlderThanOurs() {
+    List<Long> theirs = versions(1, 1000);
+    // we don't have the oldest ones in our update log anymore, and missed the newest ones
+    List<Long> ours = new ArrayList<>(theirs.subList(600, 900));
+
+    assertEquals(new HashSet<>(theirs.subList(900, 1000)), sync(theirs, ours));
+  }
+
+  @Test
+  public void testNoOverlap() {
+    VersionBuckets ours = new VersionBuckets(sorted(versions(1, 100)));
+    assertFalse(ours.overlaps(VersionBuckets.describe(versions(200, 300), null, 16, 64)));
+    assertTrue(ours.overlaps(VersionBuckets.describe(versions(100, 300), null, 16, 64)));
+  }
+
+  /** Runs the exchange between replicas, returning the versions we'd ask the other one for. */
+  private Set<Long> sync(List<Long> theirs, List<Long> ours) {
+    VersionBuckets versionBuckets = new VersionBuckets(sorted(ours));
+    List<NamedList<Object>> buckets = VersionBuckets.describe(new ArrayList<>(theirs), null, 8, 16);
+    assertTrue(versionBuckets.overlaps(buckets));
+
+    List<String> missedRanges = new ArrayList<>();
+    long missedUpdates = 0;
+    int rounds = 0;
+    while (!buckets.isEmpty()) {
+      assertTrue("too many rounds", ++rounds < 10);
+      VersionBuckets.Comparison comparison = versionBuckets.compare(buckets);
+      missedRanges.addAll(comparison.missedRanges);
+      missedUpdates += comparison.missedUpdates;
+      buckets =
+          comparison.rangesToSplit.isEmpty()
+              ? List.of()
+              : VersionBuckets.describe(new ArrayList<>(theirs), comparison.rangesToSplit, 8, 16);
+    }
+
+    // resolve the ranges like the getUpdates request does
+    List<Long> sortedTheirs = sorted(theirs);
+    Set<Long> requested = new HashSet<>();
+    for (String range : String.join(",", missedRanges).split(",")) {
+      if (range.isEmpty()) continue;
+      String[] bounds = range.split("\\.{3}");
+      int start = sortedTheirs.indexOf(Long.valueOf(bounds[1]));
+      int end = sortedTheirs.indexOf(Long.valueOf(bounds[0]));
+      assertTrue(range, start >= 0 && end >= start);
+      requested.addAll(sortedTheirs.subList(start, end + 1));
+    }
+    assertEquals(missedUpdates, requested.size());
+    return requested;
+  }
+
+  private static List<Long> versions(long from, long to) {
+    List<Long> versions = new ArrayList<>();
+    for (long v = from; v <= to; v++) {
+      versions.add(v);
+    }
+    return versions;
+  }
+
+  private static List<Long> sorted(List<Long> versions) {
+    List<Long> sorted = new ArrayList<>(versions);
+    sorted.sort(PeerSync.absComparator);
+    return sorted;
+  }
+}
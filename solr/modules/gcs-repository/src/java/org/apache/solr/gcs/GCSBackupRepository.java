@@ -28,6 +28,7 @@ import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageException;
 import com.google.cloud.storage.StorageOptions;
+import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -42,20 +43,23 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.index.CorruptIndexException;
-import org.apache.lucene.store.BufferedIndexInput;
 import org.apache.lucene.store.ChecksumIndexInput;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.solr.common.params.CoreAdminParams;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.core.DirectoryFactory;
 import org.apache.solr.core.backup.repository.AbstractBackupRepository;
 import org.apache.solr.core.backup.repository.BackupRepository;
+import org.apache.solr.core.backup.repository.ReadAheadIndexInput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -71,7 +75,11 @@ public class GCSBackupRepository extends AbstractBackupRepository {
   protected String credentialPath = null;
   protected int writeBufferSizeBytes;
   protected int readBufferSizeBytes;
+  protected int readAheadBlocks;
   protected StorageOptions.Builder storageOptionsBuilder = null;
+  // runs the range requests of the index inputs that read ahead, as many at once as one input may
+  // have; the requests that don't fit in its queue are made when the blocks are needed instead
+  private ExecutorService readAheadExecutor;
 
   protected Storage initStorage() {
     if (storage != null) return storage;
@@ -104,8 +112,15 @@ public class GCSBackupRepository extends AbstractBackupRepository {
     this.credentialPath = parsedConfig.getCredentialPath();
     this.writeBufferSizeBytes = parsedConfig.getWriteBufferSize();
     this.readBufferSizeBytes = parsedConfig.getReadBufferSize();
+    this.readAheadBlocks = parsedConfig.getReadAheadBlocks();
     this.storageOptionsBuilder = parsedConfig.getStorageOptionsBuilder();
 
+    ExecutorUtil.shutdownAndAwaitTermination(readAheadExecutor);
+    int readAheadThreads = Math.max(1, readAheadBlocks);
+    this.readAheadExecutor =
+        ExecutorUtil.newMDCAwareCachedThreadPool(
+            readAheadThreads, readAheadThreads, new SolrNamedThreadFactory("gcsReadAhead"));
+
     initStorage();
   }
 
@@ -239,31 +254,29 @@ public class GCSBackupRepository extends AbstractBackupRepository {
 
     final BlobId blobId = BlobId.of(bucketName, blobName);
     final Blob blob = storage.get(blobId, Storage.BlobGetOption.fields(Storage.BlobField.SIZE));
-    final ReadChannel readChannel = blob.reader();
-    readChannel.setChunkSize(bufferSize);
-
-    return new BufferedIndexInput(blobName, bufferSize) {
-
-      @Override
-      public long length() {
-        return blob.getSize();
-      }
-
-      @Override
-      protected void readInternal(ByteBuffer b) throws IOException {
-        readChannel.read(b);
-      }
 
-      @Override
-      protected void seekInternal(long pos) throws IOException {
-        readChannel.seek(pos);
-      }
+    return new ReadAheadIndexInput(
+        blobName,
+        (offset, length) -> readRange(blobId, offset, length),
+        blob.getSize(),
+        bufferSize,
+        readAheadBlocks,
+        readAheadExecutor);
+  }
 
-      @Override
-      public void close() throws IOException {
-        readChannel.close();
+  private byte[] readRange(BlobId blobId, long offset, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    try (ReadChannel readChannel = storage.reader(blobId)) {
+      readChannel.setChunkSize(length);
+      readChannel.seek(offset);
+      while (buffer.hasRemaining()) {
+        if (readChannel.read(buffer) < 0) {
+          throw new EOFException(
+              "read past EOF: pos=" + (offset + buffer.position()) + " in " + blobId.getName());
+        }
       }
-    };
+    }
+    return buffer.array();
   }
 
   @Override
@@ -362,20 +375,11 @@ public class GCSBackupRepository extends AbstractBackupRepository {
       URI sourceRepo, String sourceFileName, Directory dest, String destFileName)
       throws IOException {
     try {
-      String blobName = sourceRepo.toString();
-      blobName = appendTrailingSeparatorIfNecessary(blobName);
-      blobName += sourceFileName;
-      final BlobId blobId = BlobId.of(bucketName, blobName);
-      try (final ReadChannel readChannel = storage.reader(blobId);
+      // read through an index input, to fetch blocks of the blob concurrently
+      try (IndexInput input = openInput(sourceRepo, sourceFileName, IOContext.READONCE);
           IndexOutput output =
               dest.createOutput(destFileName, DirectoryFactory.IOCONTEXT_NO_CACHE)) {
-        ByteBuffer buffer = ByteBuffer.allocate(readBufferSizeBytes);
-        while (readChannel.read(buffer) > 0) {
-          buffer.flip();
-          byte[] arr = buffer.array();
-          output.writeBytes(arr, buffer.position(), buffer.limit() - buffer.position());
-          buffer.clear();
-        }
+        output.copyBytes(input, input.length());
       }
     } catch (Exception e) {
       log.info("Here's an exception e", e);
@@ -383,7 +387,9 @@ public class GCSBackupRepository extends AbstractBackupRepository {
   }
 
   @Override
-  public void close() throws IOException {}
+  public void close() throws IOException {
+    ExecutorUtil.shutdownAndAwaitTermination(readAheadExecutor);
+  }
 
   private void writeBlobMultipart(BlobInfo blobInfo, IndexInput indexInput, int blobSize)
       throws IOException {
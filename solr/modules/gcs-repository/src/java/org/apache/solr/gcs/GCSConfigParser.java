@@ -21,6 +21,7 @@ import com.google.api.gax.retrying.RetrySettings;
 import com.google.cloud.storage.StorageOptions;
 import java.util.Map;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.backup.repository.ReadAheadIndexInput;
 import org.threeten.bp.Duration;
 
 /** Parses configuration for {@link GCSBackupRepository} from NamedList and environment variables */
@@ -32,6 +33,7 @@ public class GCSConfigParser {
   private static final String GCS_CREDENTIAL_PARAM_NAME = "gcsCredentialPath";
   private static final String GCS_WRITE_BUFFER_SIZE_PARAM_NAME = "gcsWriteBufferSizeBytes";
   private static final String GCS_READ_BUFFER_SIZE_PARAM_NAME = "gcsReadBufferSizeBytes";
+  private static final String GCS_READ_AHEAD_BLOCKS_PARAM_NAME = "gcsReadAheadBlocks";
   private static final String HTTP_CONNECT_TIMEOUT_MILLIS_NAME =
       "gcsClientHttpConnectTimeoutMillis";
   private static final String HTTP_READ_TIMEOUT_MILLIS_NAME = "gcsClientHttpReadTimeoutMillis";
@@ -74,12 +76,18 @@ public class GCSConfigParser {
     final int readBufferSizeBytes =
         getIntOrDefault(
             repoConfig, GCS_READ_BUFFER_SIZE_PARAM_NAME, DEFAULT_GCS_READ_BUFFER_SIZE_VALUE);
+    final int readAheadBlocks =
+        getIntOrDefault(
+            repoConfig,
+            GCS_READ_AHEAD_BLOCKS_PARAM_NAME,
+            ReadAheadIndexInput.DEFAULT_READ_AHEAD_BLOCKS);
     final StorageOptions.Builder storageOptionsBuilder = parseStorageOptions(repoConfig);
     return new GCSConfig(
         bucketName,
         credentialPathStr,
         writeBufferSizeBytes,
         readBufferSizeBytes,
+        readAheadBlocks,
         storageOptionsBuilder);
   }
 
@@ -195,6 +203,7 @@ public class GCSConfigParser {
     private final String gcsCredentialPath;
     private final int writeBufferSizeBytes;
     private final int readBufferSizeBytes;
+    private final int readAheadBlocks;
 
     public GCSConfig(
         String bucketName,
@@ -202,10 +211,27 @@ public class GCSConfigParser {
         int writeBufferSizeBytes,
         int readBufferSizeBytes,
         StorageOptions.Builder optionsBuilder) {
+      this(
+          bucketName,
+          gcsCredentialPath,
+          writeBufferSizeBytes,
+          readBufferSizeBytes,
+          ReadAheadIndexInput.DEFAULT_READ_AHEAD_BLOCKS,
+          optionsBuilder);
+    }
+
+    public GCSConfig(
+        String bucketName,
+        String gcsCredentialPath,
+        int writeBufferSizeBytes,
+        int readBufferSizeBytes,
+        int readAheadBlocks,
+        StorageOptions.Builder optionsBuilder) {
       this.bucketName = bucketName;
       this.gcsCredentialPath = gcsCredentialPath;
       this.writeBufferSizeBytes = writeBufferSizeBytes;
       this.readBufferSizeBytes = readBufferSizeBytes;
+      this.readAheadBlocks = readAheadBlocks;
       this.optionsBuilder = optionsBuilder;
     }
 
@@ -228,5 +254,9 @@ public class GCSConfigParser {
     public int getReadBufferSize() {
       return readBufferSizeBytes;
     }
+
+    public int getReadAheadBlocks() {
+      return readAheadBlocks;
+    }
   }
 }
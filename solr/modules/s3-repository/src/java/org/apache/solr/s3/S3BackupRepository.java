@@ -17,7 +17,6 @@
 package org.apache.solr.s3;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
@@ -25,8 +24,10 @@ import java.net.URISyntaxException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.index.CorruptIndexException;
@@ -36,10 +37,13 @@ import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.common.util.StrUtils;
 import org.apache.solr.core.backup.repository.AbstractBackupRepository;
 import org.apache.solr.core.backup.repository.BackupRepository;
+import org.apache.solr.core.backup.repository.ReadAheadIndexInput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,6 +59,11 @@ public class S3BackupRepository extends AbstractBackupRepository {
   static final String S3_SCHEME = "s3";
 
   private S3StorageClient client;
+  private int readBlockSize = ReadAheadIndexInput.DEFAULT_BLOCK_SIZE;
+  private int readAheadBlocks = ReadAheadIndexInput.DEFAULT_READ_AHEAD_BLOCKS;
+  // runs the range requests of the index inputs that read ahead, as many at once as one input may
+  // have; the requests that don't fit in its queue are made when the blocks are needed instead
+  private ExecutorService readAheadExecutor;
 
   @Override
   public void init(NamedList<?> args) {
@@ -66,6 +75,14 @@ public class S3BackupRepository extends AbstractBackupRepository {
       client.close();
     }
     this.client = backupConfig.buildClient();
+    this.readBlockSize = backupConfig.getReadBlockSize();
+    this.readAheadBlocks = backupConfig.getReadAheadBlocks();
+
+    ExecutorUtil.shutdownAndAwaitTermination(readAheadExecutor);
+    int readAheadThreads = Math.max(1, readAheadBlocks);
+    this.readAheadExecutor =
+        ExecutorUtil.newMDCAwareCachedThreadPool(
+            readAheadThreads, readAheadThreads, new SolrNamedThreadFactory("s3ReadAhead"));
   }
 
   @Override
@@ -204,7 +221,13 @@ public class S3BackupRepository extends AbstractBackupRepository {
       log.debug("Read from S3 '{}'", s3Path);
     }
 
-    return new S3IndexInput(client.pullStream(s3Path), s3Path, client.length(s3Path));
+    return new S3IndexInput(
+        (offset, length) -> client.pullRange(s3Path, offset, length),
+        s3Path,
+        client.length(s3Path),
+        readBlockSize,
+        readAheadBlocks,
+        readAheadExecutor);
   }
 
   @Override
@@ -277,10 +300,12 @@ public class S3BackupRepository extends AbstractBackupRepository {
       log.debug("Upload started to S3 '{}'", s3Path);
     }
 
+    long length;
     try (IndexInput indexInput =
         shouldVerifyChecksum
             ? sourceDir.openChecksumInput(sourceFileName)
             : sourceDir.openInput(sourceFileName, IOContext.READONCE)) {
+      length = indexInput.length();
       if (indexInput.length() <= CodecUtil.footerLength()) {
         throw new CorruptIndexException("file is too small:" + indexInput.length(), indexInput);
       }
@@ -311,7 +336,12 @@ public class S3BackupRepository extends AbstractBackupRepository {
 
     long timeElapsed = Duration.between(start, Instant.now()).toMillis();
     if (log.isInfoEnabled()) {
-      log.info("Upload to S3: '{}' finished in {}ms", s3Path, timeElapsed);
+      log.info(
+          "Upload to S3: '{}' of {} bytes finished in {}ms ({} MB/s)",
+          s3Path,
+          length,
+          timeElapsed,
+          String.format(Locale.ROOT, "%.2f", throughputMBs(length, timeElapsed)));
     }
   }
 
@@ -341,13 +371,10 @@ public class S3BackupRepository extends AbstractBackupRepository {
       log.debug("Download started from S3 '{}'", s3Path);
     }
 
-    try (InputStream inputStream = client.pullStream(s3Path);
+    // read through an index input, to fetch blocks of the file concurrently
+    try (IndexInput indexInput = openInput(sourceDir, sourceFileName, IOContext.READONCE);
         IndexOutput indexOutput = dest.createOutput(destFileName, IOContext.DEFAULT)) {
-      byte[] buffer = new byte[CHUNK_SIZE];
-      int len;
-      while ((len = inputStream.read(buffer)) != -1) {
-        indexOutput.writeBytes(buffer, 0, len);
-      }
+      indexOutput.copyBytes(indexInput, indexInput.length());
     }
 
     long timeElapsed = Duration.between(start, Instant.now()).toMillis();
@@ -360,6 +387,11 @@ public class S3BackupRepository extends AbstractBackupRepository {
   @Override
   public void close() {
     client.close();
+    ExecutorUtil.shutdownAndAwaitTermination(readAheadExecutor);
+  }
+
+  private static double throughputMBs(long bytes, long millis) {
+    return bytes / (1024.0 * 1024.0) / (Math.max(1, millis) / 1000.0);
   }
 
   /** Return the path to use in S3. */
@@ -18,6 +18,7 @@ package org.apache.solr.s3;
 
 import org.apache.solr.common.util.EnvUtils;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.backup.repository.ReadAheadIndexInput;
 
 /**
  * Class representing the {@code backup} S3 config bundle specified in solr.xml. All user-provided
@@ -32,6 +33,9 @@ public class S3BackupRepositoryConfig {
   public static final String PROXY_URL = "s3.proxy.url";
   public static final String PROXY_USE_SYSTEM_SETTINGS = "s3.proxy.useSystemSettings";
   public static final String RETRIES_DISABLE = "s3.retries.disable";
+  public static final String READ_BLOCK_SIZE = "s3.read.blockSize";
+  public static final String READ_AHEAD_BLOCKS = "s3.read.aheadBlocks";
+  public static final String UPLOAD_MAX_CONCURRENT_PARTS = "s3.upload.maxConcurrentParts";
 
   private final String profile;
   private final String bucketName;
@@ -40,6 +44,9 @@ public class S3BackupRepositoryConfig {
   private final boolean proxyUseSystemSettings;
   private final String endpoint;
   private final boolean disableRetries;
+  private final int readBlockSize;
+  private final int readAheadBlocks;
+  private final int maxConcurrentParts;
 
   public S3BackupRepositoryConfig(NamedList<?> config) {
     profile = getStringConfig(config, PROFILE);
@@ -49,12 +56,35 @@ public class S3BackupRepositoryConfig {
     proxyUseSystemSettings = getBooleanConfig(config, PROXY_USE_SYSTEM_SETTINGS, true);
     endpoint = getStringConfig(config, ENDPOINT);
     disableRetries = getBooleanConfig(config, RETRIES_DISABLE, false);
+    readBlockSize = getIntConfig(config, READ_BLOCK_SIZE, ReadAheadIndexInput.DEFAULT_BLOCK_SIZE);
+    readAheadBlocks =
+        getIntConfig(config, READ_AHEAD_BLOCKS, ReadAheadIndexInput.DEFAULT_READ_AHEAD_BLOCKS);
+    maxConcurrentParts =
+        getIntConfig(
+            config, UPLOAD_MAX_CONCURRENT_PARTS, S3StorageClient.DEFAULT_MAX_CONCURRENT_PARTS);
   }
 
   /** Construct a {@link S3StorageClient} from the provided config. */
   public S3StorageClient buildClient() {
     return new S3StorageClient(
-        bucketName, profile, region, proxyURL, proxyUseSystemSettings, endpoint, disableRetries);
+        bucketName,
+        profile,
+        region,
+        proxyURL,
+        proxyUseSystemSettings,
+        endpoint,
+        disableRetries,
+        maxConcurrentParts);
+  }
+
+  /** The size of the ranges of files read with each request. */
+  public int getReadBlockSize() {
+    return readBlockSize;
+  }
+
+  /** How many blocks of a file read sequentially are fetched ahead, concurrently. */
+  public int getReadAheadBlocks() {
+    return readAheadBlocks;
   }
 
   static String getStringConfig(NamedList<?> config, String property) {
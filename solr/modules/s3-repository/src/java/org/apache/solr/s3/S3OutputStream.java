@@ -21,8 +21,15 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.core.exception.SdkException;
@@ -39,6 +46,12 @@ import software.amazon.awssdk.services.s3.model.UploadPartResponse;
  *
  * <p>More recent versions of the kafka-connect-storage-cloud implementation use the CCL license,
  * but this class was based off of the ASLv2 version.
+ *
+ * <p>A file is buffered in memory, and uploaded in parts of {@link #PART_SIZE} bytes. With an
+ * executor, up to {@code maxConcurrentParts} parts are uploaded at once while the next one is
+ * filled, so a stream holds up to {@code (maxConcurrentParts + 1) * PART_SIZE} bytes: 80 MB with
+ * the default of 4. A failed part is sent again by the S3 client, following its retry policy. Any
+ * failure aborts the upload once the parts in flight are done or interrupted.
  */
 public class S3OutputStream extends OutputStream {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
@@ -51,16 +64,41 @@ public class S3OutputStream extends OutputStream {
   private final S3Client s3Client;
   private final String bucketName;
   private final String key;
+  private final Executor executor;
+  private final PartBufferPool bufferPool;
+  private final Semaphore partPermits;
+  // the threads uploading the parts of this stream, guarded by itself
+  private final Set<Thread> partUploaders = new HashSet<>();
+  private final int maxConcurrentParts;
   private volatile boolean closed;
-  private final ByteBuffer buffer;
+  private ByteBuffer buffer;
   private MultipartUpload multiPartUpload;
 
   public S3OutputStream(S3Client s3Client, String key, String bucketName) {
+    this(s3Client, key, bucketName, null, 1, new PartBufferPool(0));
+  }
+
+  /**
+   * @param executor uploads the parts, up to {@code maxConcurrentParts} at a time, or null to
+   *     upload them on the writing thread
+   * @param bufferPool the buffers to reuse for the parts
+   */
+  S3OutputStream(
+      S3Client s3Client,
+      String key,
+      String bucketName,
+      Executor executor,
+      int maxConcurrentParts,
+      PartBufferPool bufferPool) {
     this.s3Client = s3Client;
     this.bucketName = bucketName;
     this.key = key;
+    this.executor = executor;
+    this.bufferPool = bufferPool;
+    this.maxConcurrentParts = Math.max(1, maxConcurrentParts);
+    this.partPermits = new Semaphore(this.maxConcurrentParts);
     this.closed = false;
-    this.buffer = ByteBuffer.allocate(PART_SIZE);
+    this.buffer = bufferPool.get();
     this.multiPartUpload = null;
 
     if (log.isDebugEnabled()) {
@@ -127,23 +165,124 @@ public class S3OutputStream extends OutputStream {
       }
       multiPartUpload = newMultipartUpload();
     }
-    try (ByteArrayInputStream inputStream =
-        new ByteArrayInputStream(buffer.array(), buffer.arrayOffset(), size)) {
-      multiPartUpload.uploadPart(inputStream, size);
-    } catch (Exception e) {
-      if (multiPartUpload != null) {
-        multiPartUpload.abort();
-        if (log.isDebugEnabled()) {
-          log.debug("Multipart upload aborted for bucketName '{}' key '{}'.", bucketName, key);
+    try {
+      if (executor == null) {
+        multiPartUpload.checkNotFailed();
+        multiPartUpload.uploadPart(multiPartUpload.nextPartNumber(), buffer.array(), size);
+      } else {
+        // wait for a part upload to finish if there are too many in flight
+        partPermits.acquire();
+        try {
+          multiPartUpload.checkNotFailed();
+        } catch (Exception e) {
+          partPermits.release();
+          throw e;
+        }
+        ByteBuffer partBuffer = buffer;
+        int partNumber = multiPartUpload.nextPartNumber();
+        try {
+          executor.execute(() -> uploadPartAsync(partNumber, partBuffer, size));
+        } catch (RejectedExecutionException e) {
+          partPermits.release();
+          throw e;
         }
+        // the part's buffer goes back to the pool once it was sent
+        buffer = bufferPool.get();
+        return;
       }
-      throw new S3Exception("Part upload failed: ", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      abortOnFailure(e);
+    } catch (Exception e) {
+      abortOnFailure(e);
     }
 
     // reset the buffer for eventual next write operation
     buffer.clear();
   }
 
+  private void uploadPartAsync(int partNumber, ByteBuffer partBuffer, int size) {
+    Thread thread = Thread.currentThread();
+    synchronized (partUploaders) {
+      partUploaders.add(thread);
+    }
+    try {
+      // once a part failed, the upload is aborted and the next parts aren't needed
+      if (multiPartUpload.failure == null) {
+        multiPartUpload.uploadPart(partNumber, partBuffer.array(), size);
+      }
+    } catch (Exception e) {
+      multiPartUpload.failed(e);
+    } finally {
+      synchronized (partUploaders) {
+        partUploaders.remove(thread);
+      }
+      // in case the part was cancelled once it was done
+      Thread.interrupted();
+      bufferPool.release(partBuffer);
+      partPermits.release();
+    }
+  }
+
+  /** Waits for the parts being uploaded, and fails if any of them failed. */
+  private void awaitParts() throws IOException {
+    try {
+      awaitPartsInFlight();
+      if (multiPartUpload != null) {
+        multiPartUpload.checkNotFailed();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      abortOnFailure(e);
+    } catch (Exception e) {
+      abortOnFailure(e);
+    }
+  }
+
+  /** Waits for the parts in flight to be done, or for one of them to fail. */
+  private void awaitPartsInFlight() throws InterruptedException {
+    if (executor != null) {
+      // each part done releases a permit, so a failure is seen without waiting for the others
+      int acquired = 0;
+      try {
+        while (acquired < maxConcurrentParts
+            && (multiPartUpload == null || multiPartUpload.failure == null)) {
+          partPermits.acquire();
+          acquired++;
+        }
+      } finally {
+        partPermits.release(acquired);
+      }
+    }
+  }
+
+  /** Interrupts the parts being uploaded, and waits for them to be done. */
+  private void cancelPartsInFlight(Exception cause) {
+    if (executor != null) {
+      // so that the parts not started yet are skipped
+      multiPartUpload.failed(cause);
+      synchronized (partUploaders) {
+        for (Thread thread : partUploaders) {
+          thread.interrupt();
+        }
+      }
+      partPermits.acquireUninterruptibly(maxConcurrentParts);
+      partPermits.release(maxConcurrentParts);
+    }
+  }
+
+  private void abortOnFailure(Exception e) throws S3Exception {
+    if (multiPartUpload != null) {
+      // S3 may keep the parts that are still being uploaded when the upload is aborted
+      cancelPartsInFlight(e);
+      multiPartUpload.abort();
+      if (log.isDebugEnabled()) {
+        log.debug("Multipart upload aborted for bucketName '{}' key '{}'.", bucketName, key);
+      }
+    }
+    throw new S3Exception("Part upload failed: ", e);
+  }
+
   @Override
   public void flush() throws IOException {
     if (closed) {
@@ -163,20 +302,28 @@ public class S3OutputStream extends OutputStream {
       return;
     }
 
-    if (multiPartUpload != null && multiPartUpload.aborted) {
-      multiPartUpload = null;
-      closed = true;
-      return;
-    }
+    try {
+      if (multiPartUpload != null && multiPartUpload.aborted) {
+        // the parts in flight were done before aborting
+        multiPartUpload = null;
+        closed = true;
+        return;
+      }
 
-    // flush first
-    uploadPart();
+      // flush first
+      uploadPart();
+      awaitParts();
 
-    if (multiPartUpload != null) {
-      multiPartUpload.complete();
+      if (multiPartUpload != null) {
+        multiPartUpload.complete();
+      }
+      multiPartUpload = null;
+      closed = true;
+    } finally {
+      if (closed) {
+        bufferPool.release(buffer);
+      }
     }
-    multiPartUpload = null;
-    closed = true;
   }
 
   private MultipartUpload newMultipartUpload() throws IOException {
@@ -188,14 +335,47 @@ public class S3OutputStream extends OutputStream {
     }
   }
 
+  /**
+   * Buffers for the parts, kept after their upload to be reused for the next parts of any stream
+   * of the same client. Only up to a few free buffers are kept, until the pool is cleared.
+   */
+  static class PartBufferPool {
+    private final BlockingQueue<ByteBuffer> free;
+
+    PartBufferPool(int maxFreeBuffers) {
+      free = maxFreeBuffers > 0 ? new ArrayBlockingQueue<>(maxFreeBuffers) : null;
+    }
+
+    ByteBuffer get() {
+      ByteBuffer buffer = free == null ? null : free.poll();
+      return buffer == null ? ByteBuffer.allocate(PART_SIZE) : buffer;
+    }
+
+    void release(ByteBuffer buffer) {
+      if (free != null) {
+        buffer.clear();
+        free.offer(buffer);
+      }
+    }
+
+    /** Drops the free buffers. */
+    void clear() {
+      if (free != null) {
+        free.clear();
+      }
+    }
+  }
+
   private class MultipartUpload {
     private final String uploadId;
-    private final List<CompletedPart> completedParts;
-    private boolean aborted = false;
+    private final Map<Integer, CompletedPart> completedParts;
+    private int partCount;
+    private volatile boolean aborted = false;
+    private volatile Exception failure;
 
     public MultipartUpload(String uploadId) {
       this.uploadId = uploadId;
-      this.completedParts = new ArrayList<>();
+      this.completedParts = new ConcurrentSkipListMap<>();
       if (log.isDebugEnabled()) {
         log.debug(
             "Initiated multi-part upload for bucketName '{}' key '{}' with id '{}'",
@@ -205,28 +385,46 @@ public class S3OutputStream extends OutputStream {
       }
     }
 
-    void uploadPart(ByteArrayInputStream inputStream, long partSize) {
+    int nextPartNumber() {
+      return ++partCount;
+    }
+
+    void uploadPart(int partNumber, byte[] bytes, int partSize) {
       if (aborted) {
         throw new IllegalStateException(
             "Can't upload new parts on a MultipartUpload that was aborted. id '" + uploadId + "'");
       }
-      int currentPartNumber = completedParts.size() + 1;
 
       UploadPartRequest request =
           UploadPartRequest.builder()
               .key(key)
               .bucket(bucketName)
               .uploadId(uploadId)
-              .partNumber(currentPartNumber)
+              .partNumber(partNumber)
               .build();
 
       if (log.isDebugEnabled()) {
-        log.debug("Uploading part {} for id '{}'", currentPartNumber, uploadId);
+        log.debug("Uploading part {} for id '{}'", partNumber, uploadId);
       }
       UploadPartResponse response =
-          s3Client.uploadPart(request, RequestBody.fromInputStream(inputStream, partSize));
-      completedParts.add(
-          CompletedPart.builder().partNumber(currentPartNumber).eTag(response.eTag()).build());
+          s3Client.uploadPart(
+              request,
+              RequestBody.fromInputStream(new ByteArrayInputStream(bytes, 0, partSize), partSize));
+      completedParts.put(
+          partNumber, CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build());
+    }
+
+    /** Records the failure of a part uploaded in the background, to fail the stream. */
+    void failed(Exception e) {
+      if (failure == null) {
+        failure = e;
+      }
+    }
+
+    void checkNotFailed() throws Exception {
+      if (failure != null) {
+        throw failure;
+      }
     }
 
     /** To be invoked when closing the stream to mark upload is done. */
@@ -243,7 +441,7 @@ public class S3OutputStream extends OutputStream {
               b.bucket(bucketName)
                   .key(key)
                   .uploadId(uploadId)
-                  .multipartUpload(mub -> mub.parts(completedParts)));
+                  .multipartUpload(mub -> mub.parts(completedParts.values())));
     }
 
     public void abort() {
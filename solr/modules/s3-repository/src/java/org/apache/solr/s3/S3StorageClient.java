@@ -29,9 +29,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.ResumableInputStream;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.common.util.StrUtils;
 import org.apache.solr.common.util.SuppressForbidden;
 import org.slf4j.Logger;
@@ -87,11 +90,19 @@ public class S3StorageClient {
   // Error messages returned by S3 for a key not found.
   private static final Set<String> NOT_FOUND_CODES = Set.of("NoSuchKey", "404 Not Found");
 
+  static final int DEFAULT_MAX_CONCURRENT_PARTS = 4;
+
   private final S3Client s3Client;
 
   /** The S3 bucket where we read/write all data. */
   private final String bucketName;
 
+  /** How many parts of each file are uploaded at once. */
+  private final int maxConcurrentParts;
+
+  private final ExecutorService partUploadExecutor;
+  private final S3OutputStream.PartBufferPool partBufferPool;
+
   S3StorageClient(
       String bucketName,
       String profile,
@@ -100,16 +111,46 @@ public class S3StorageClient {
       boolean proxyUseSystemSettings,
       String endpoint,
       boolean disableRetries) {
+    this(
+        bucketName,
+        profile,
+        region,
+        proxyUrl,
+        proxyUseSystemSettings,
+        endpoint,
+        disableRetries,
+        DEFAULT_MAX_CONCURRENT_PARTS);
+  }
+
+  S3StorageClient(
+      String bucketName,
+      String profile,
+      String region,
+      String proxyUrl,
+      boolean proxyUseSystemSettings,
+      String endpoint,
+      boolean disableRetries,
+      int maxConcurrentParts) {
     this(
         createInternalClient(
             profile, region, proxyUrl, proxyUseSystemSettings, endpoint, disableRetries),
-        bucketName);
+        bucketName,
+        maxConcurrentParts);
   }
 
   @VisibleForTesting
   S3StorageClient(S3Client s3Client, String bucketName) {
+    this(s3Client, bucketName, DEFAULT_MAX_CONCURRENT_PARTS);
+  }
+
+  private S3StorageClient(S3Client s3Client, String bucketName, int maxConcurrentParts) {
     this.s3Client = s3Client;
     this.bucketName = bucketName;
+    this.maxConcurrentParts = Math.max(1, maxConcurrentParts);
+    this.partUploadExecutor =
+        ExecutorUtil.newMDCAwareCachedThreadPool(new SolrNamedThreadFactory("s3PartUpload"));
+    // enough free buffers for the parts of one more file, dropped when the client is closed
+    this.partBufferPool = new S3OutputStream.PartBufferPool(this.maxConcurrentParts + 1);
   }
 
   private static S3Client createInternalClient(
@@ -396,6 +437,41 @@ public class S3StorageClient {
     }
   }
 
+  /**
+   * Read a range of bytes of a file with a single request.
+   *
+   * @param path to file in S3.
+   * @param offset of the first byte to read.
+   * @param length number of bytes to read, which must all be within the file.
+   * @return the bytes read.
+   */
+  byte[] pullRange(String path, long offset, int length) throws S3Exception {
+    final String s3Path = sanitizedFilePath(path);
+
+    try {
+      GetObjectRequest request =
+          GetObjectRequest.builder()
+              .bucket(bucketName)
+              .key(s3Path)
+              .range(String.format(Locale.ROOT, "bytes=%d-%d", offset, offset + length - 1))
+              .build();
+      byte[] bytes = s3Client.getObjectAsBytes(request).asByteArray();
+      if (bytes.length != length) {
+        throw new S3Exception(
+            String.format(
+                Locale.ROOT,
+                "Failed to read %d bytes at %d of %s; got %d",
+                length,
+                offset,
+                s3Path,
+                bytes.length));
+      }
+      return bytes;
+    } catch (SdkException sdke) {
+      throw handleAmazonException(sdke);
+    }
+  }
+
   /**
    * Open a new {@link OutputStream} to file for write. Caller needs to close the stream.
    *
@@ -410,7 +486,13 @@ public class S3StorageClient {
     }
 
     try {
-      return new S3OutputStream(s3Client, path, bucketName);
+      return new S3OutputStream(
+          s3Client,
+          path,
+          bucketName,
+          partUploadExecutor,
+          maxConcurrentParts,
+          partBufferPool);
     } catch (SdkException sdke) {
       throw handleAmazonException(sdke);
     }
@@ -418,6 +500,8 @@ public class S3StorageClient {
 
   /** Override {@link Closeable} since we throw no exception. */
   void close() {
+    ExecutorUtil.shutdownAndAwaitTermination(partUploadExecutor);
+    partBufferPool.clear();
     s3Client.close();
   }
 
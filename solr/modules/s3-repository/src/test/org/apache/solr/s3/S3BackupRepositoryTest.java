@@ -296,9 +296,12 @@ public class S3BackupRepositoryTest extends AbstractBackupRepositoryTest {
       input.readBytes(buffer, 0, BufferedIndexInput.BUFFER_SIZE * 2);
 
       // Seek back to the 5th byte.
-      // It is not any more in the internal buffer, so we should fail
-      IOException exception = assertThrows(IOException.class, () -> input.seek(5));
-      assertEquals("Cannot seek backward", exception.getMessage());
+      // It is not any more in the internal buffer, but in the cached block
+      input.seek(5);
+      byte[] bytes = new byte[12];
+      input.readBytes(bytes, 0, bytes.length);
+      assertEquals("is the file ", new String(bytes, StandardCharsets.UTF_8));
+      input.close();
     }
   }
 
@@ -16,127 +16,203 @@
  */
 package org.apache.solr.s3;
 
-import com.carrotsearch.randomizedtesting.generators.RandomStrings;
+import com.carrotsearch.randomizedtesting.generators.RandomBytes;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.IndexInput;
 import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.core.backup.repository.ReadAheadIndexInput;
+import org.apache.solr.core.backup.repository.ReadAheadIndexInput.BlockCache;
+import org.apache.solr.core.backup.repository.ReadAheadIndexInput.RangeReader;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 /** Test for reading files from S3 'the Solr way'. */
 public class S3IndexInputTest extends SolrTestCaseJ4 {
 
-  public Path temporaryFolder;
+  private static final int BLOCK_SIZE = 4096;
+
+  private ExecutorService executor;
+  private byte[] content;
+  private final Set<Long> offsetsRead = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger rangeReads = new AtomicInteger();
 
   @Before
   @Override
   public void setUp() throws Exception {
     super.setUp();
-    temporaryFolder = createTempDir("junit");
+    executor = ExecutorUtil.newMDCAwareCachedThreadPool(new SolrNamedThreadFactory("s3ReadAhead"));
+    content = RandomBytes.randomBytesOfLength(random(), BLOCK_SIZE * 10 + 5);
+    offsetsRead.clear();
+    rangeReads.set(0);
   }
 
-  /** Simulates fetching a file from S3 in more than one read operation. */
-  @Test
-  public void testPartialReadSmallSlice() throws IOException {
-    String content = "This is much too large for a single slice";
-    int slice = 5;
+  @After
+  @Override
+  public void tearDown() throws Exception {
+    ExecutorUtil.shutdownAndAwaitTermination(executor);
+    super.tearDown();
+  }
 
-    doTestPartialRead(false, content, slice);
-    doTestPartialRead(true, content, slice);
+  /** Simulates fetching a file from S3 in more than one range request. */
+  @Test
+  public void testReadsEachBlockOnce() throws IOException {
+    doTestRead(executor);
+    doTestRead(null);
   }
 
-  /**
-   * Simulates fetching a file from S3 in more than one read operation, reading larger than internal
-   * buffer size.
-   */
   @Test
-  public void testPartialReadBigSlice() throws IOException {
-    // Large text, be sure we can't read in a single I/O call
-    int length = S3IndexInput.LOCAL_BUFFER_SIZE * 10 + 5;
-    String content = RandomStrings.randomAsciiAlphanumOfLength(random(), length);
-
-    int slice = S3IndexInput.LOCAL_BUFFER_SIZE * 2;
-    doTestPartialRead(false, content, slice);
-    doTestPartialRead(true, content, slice);
+  public void testSeekBackward() throws IOException {
+    try (IndexInput input = newInput(executor)) {
+      byte[] bytes = new byte[content.length];
+      input.readBytes(bytes, 0, bytes.length);
+      assertArrayEquals(content, bytes);
+
+      input.seek(5);
+      assertEquals(content[5], input.readByte());
+      assertEquals("blocks should be read from the cache", 11, rangeReads.get());
+    }
   }
 
-  private void doTestPartialRead(boolean directBuffer, String content, int slice)
-      throws IOException {
+  @Test
+  public void testReadsOnlyTheBlocksNeeded() throws IOException {
+    try (IndexInput input = newInput(executor)) {
+      // like a footer check
+      input.seek(content.length - 3);
+      assertEquals(content[content.length - 3], input.readByte());
+      assertEquals(1, rangeReads.get());
+
+      // a slice starting in the middle of a block only reads from there
+      IndexInput slice = input.slice("slice", 3L * BLOCK_SIZE + 10, 2 * BLOCK_SIZE);
+      byte[] bytes = new byte[2 * BLOCK_SIZE];
+      slice.readBytes(bytes, 0, bytes.length);
+      int from = 3 * BLOCK_SIZE + 10;
+      assertArrayEquals(Arrays.copyOfRange(content, from, from + bytes.length), bytes);
+      assertFalse(offsetsRead.contains(0L));
+    }
+  }
 
-    Path tmp = Files.createTempDirectory(temporaryFolder, "junit");
+  @Test
+  public void testFailedReadIsRetried() throws IOException {
+    AtomicInteger failures = new AtomicInteger(1);
+    RangeReader reader =
+        (offset, length) -> {
+          if (offset == 0 && failures.getAndDecrement() > 0) {
+            throw new S3Exception("simulated failure");
+          }
+          return Arrays.copyOfRange(content, (int) offset, (int) offset + length);
+        };
+    try (IndexInput input =
+        new S3IndexInput(reader, "path", content.length, BLOCK_SIZE, 4, executor)) {
+      expectThrows(S3Exception.class, input::readByte);
+      input.seek(0);
+      assertEquals(content[0], input.readByte());
+    }
+  }
 
-    Path file = tmp.resolve("content");
-    Files.writeString(file, content, StandardCharsets.UTF_8);
+  @Test
+  public void testCacheIsBoundedAcrossInputs() throws IOException {
+    BlockCache cache = new BlockCache(3 * BLOCK_SIZE);
+    try (IndexInput input1 = newInput(executor, cache);
+        IndexInput input2 = newInput(executor, cache)) {
+      byte[] bytes = new byte[content.length];
+      input1.readBytes(bytes, 0, bytes.length);
+      assertArrayEquals(content, bytes);
+      input2.readBytes(bytes, 0, bytes.length);
+      assertArrayEquals(content, bytes);
+      assertTrue(cache.sizeInBytes() <= 3 * BLOCK_SIZE);
+
+      // closing an input leaves the blocks of the others
+      input1.close();
+      assertTrue(cache.sizeInBytes() > 0);
+    }
+    assertEquals(0, cache.sizeInBytes());
+  }
 
-    try (SliceInputStream slicedStream = new SliceInputStream(Files.newInputStream(file), slice);
-        S3IndexInput input = new S3IndexInput(slicedStream, "path", Files.size(file))) {
+  @Test
+  public void testCloseCancelsReadAhead() throws Exception {
+    CountDownLatch readingAhead = new CountDownLatch(1);
+    CountDownLatch interrupted = new CountDownLatch(1);
+    RangeReader reader =
+        (offset, length) -> {
+          if (offset > 0) {
+            readingAhead.countDown();
+            try {
+              Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+              interrupted.countDown();
+              throw new InterruptedIOException();
+            }
+          }
+          return Arrays.copyOfRange(content, (int) offset, (int) offset + length);
+        };
+    BlockCache cache = new BlockCache(100 * BLOCK_SIZE);
+    IndexInput input =
+        new ReadAheadIndexInput("path", reader, content.length, BLOCK_SIZE, 4, executor, cache);
+    IndexInput clone = input.clone();
+    // reading the first block reads the next one ahead
+    assertEquals(content[0], input.readByte());
+    Future<?> cloneRead =
+        executor.submit(
+            () -> {
+              clone.seek(BLOCK_SIZE + 1);
+              return clone.readByte();
+            });
+    assertTrue(readingAhead.await(10, TimeUnit.SECONDS));
+
+    input.close();
+    assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    Throwable cause = expectThrows(ExecutionException.class, cloneRead::get).getCause();
+    assertTrue(cause instanceof IOException || cause instanceof AlreadyClosedException);
+    assertEquals(0, cache.sizeInBytes());
+  }
 
-      // Now read the file
-      ByteBuffer buffer;
-      if (directBuffer) {
-        buffer = ByteBuffer.allocateDirect((int) Files.size(file));
-      } else {
-        buffer = ByteBuffer.allocate((int) Files.size(file));
-      }
-      input.readInternal(buffer);
-
-      // Check the buffer content, in a way that works for both heap and direct buffers
-      buffer.position(0);
-      byte[] bytes = new byte[buffer.remaining()];
-      buffer.get(bytes);
-      assertEquals(content, new String(bytes, Charset.defaultCharset()));
-
-      // Ensure we actually made many calls
-      int expectedReadCount;
-      if (directBuffer) {
-        // For direct buffer, we may be caped by internal buffer if it's smaller than the size
-        // defined by the test
-        expectedReadCount = content.length() / Math.min(slice, S3IndexInput.LOCAL_BUFFER_SIZE) + 1;
-      } else {
-        expectedReadCount = content.length() / slice + 1;
+  private void doTestRead(ExecutorService executor) throws IOException {
+    rangeReads.set(0);
+    try (S3IndexInput input = newInput(executor)) {
+      // Read more than a block at once, then byte by byte
+      byte[] bytes = new byte[content.length];
+      input.readBytes(bytes, 0, 3 * BLOCK_SIZE + 7);
+      for (int i = 3 * BLOCK_SIZE + 7; i < bytes.length; i++) {
+        bytes[i] = input.readByte();
       }
+      assertArrayEquals(content, bytes);
+
+      // Ensure each block was fetched exactly once, even when fetched ahead
       assertEquals(
           "S3IndexInput did an unexpected number of reads",
-          expectedReadCount,
-          slicedStream.readCount);
+          content.length / BLOCK_SIZE + 1,
+          rangeReads.get());
     }
   }
 
-  /** Input stream that reads, but not too much in a single call. */
-  private static class SliceInputStream extends InputStream {
-
-    private final InputStream input;
-    private final int slice;
-
-    // for testing, number of calls to read() method.
-    private int readCount;
-
-    SliceInputStream(InputStream input, int slice) {
-      this.input = input;
-      this.slice = slice;
-    }
-
-    @Override
-    public int read() throws IOException {
-      return input.read();
-    }
-
-    @Override
-    public int read(byte[] b, int off, int length) throws IOException {
-      readCount++;
-      int slicedLength = Math.min(slice, length);
-      return super.read(b, off, slicedLength);
-    }
+  private IndexInput newInput(ExecutorService executor, BlockCache cache) {
+    RangeReader reader =
+        (offset, length) -> Arrays.copyOfRange(content, (int) offset, (int) offset + length);
+    return new ReadAheadIndexInput("path", reader, content.length, BLOCK_SIZE, 4, executor, cache);
+  }
 
-    @Override
-    public void close() throws IOException {
-      input.close();
-      super.close();
-    }
+  private S3IndexInput newInput(ExecutorService executor) {
+    RangeReader reader =
+        (offset, length) -> {
+          rangeReads.incrementAndGet();
+          offsetsRead.add(offset);
+          assertTrue(offset + length <= content.length);
+          return Arrays.copyOfRange(content, (int) offset, (int) offset + length);
+        };
+    return new S3IndexInput(reader, "path", content.length, BLOCK_SIZE, 4, executor);
   }
 }
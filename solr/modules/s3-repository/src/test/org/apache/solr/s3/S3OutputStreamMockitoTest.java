@@ -26,13 +26,19 @@ import static org.mockito.internal.verification.VerificationModeFactory.times;
 import com.carrotsearch.randomizedtesting.generators.RandomStrings;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
+import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
@@ -127,4 +133,84 @@ public class S3OutputStreamMockitoTest extends SolrTestCaseJ4 {
     verify(clientMock, never())
         .completeMultipartUpload((Consumer<CompleteMultipartUploadRequest.Builder>) any());
   }
+
+  @SuppressWarnings("unchecked")
+  public void testParallelMultiPartUploadCompleted() throws IOException {
+    when(clientMock.createMultipartUpload((Consumer<CreateMultipartUploadRequest.Builder>) any()))
+        .thenReturn(CreateMultipartUploadResponse.builder().build());
+    when(clientMock.uploadPart((UploadPartRequest) any(), (RequestBody) any()))
+        .thenReturn(UploadPartResponse.builder().build());
+    ExecutorService executor =
+        ExecutorUtil.newMDCAwareCachedThreadPool(new SolrNamedThreadFactory("s3PartUpload"));
+    try {
+      S3OutputStream stream =
+          new S3OutputStream(
+              clientMock, "key", "bucket", executor, 2, new S3OutputStream.PartBufferPool(3));
+      for (int i = 0; i < 3; i++) {
+        stream.write(largeBuffer);
+      }
+      stream.close();
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+    // three full parts, and the rest when closing
+    verify(clientMock, times(4)).uploadPart((UploadPartRequest) any(), (RequestBody) any());
+    verify(clientMock)
+        .completeMultipartUpload((Consumer<CompleteMultipartUploadRequest.Builder>) any());
+    verify(clientMock, never())
+        .abortMultipartUpload((Consumer<AbortMultipartUploadRequest.Builder>) any());
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testUploadAbortedOnceThePartsInFlightAreDone() throws IOException {
+    when(clientMock.createMultipartUpload((Consumer<CreateMultipartUploadRequest.Builder>) any()))
+        .thenReturn(CreateMultipartUploadResponse.builder().build());
+    AtomicBoolean firstPartDone = new AtomicBoolean();
+    when(clientMock.uploadPart((UploadPartRequest) any(), (RequestBody) any()))
+        .thenAnswer(
+            invocation -> {
+              UploadPartRequest request = invocation.getArgument(0);
+              if (request.partNumber() == 2) {
+                throw S3Exception.builder().message("fake exception").build();
+              }
+              // the first part is slow, until the upload is cancelled
+              try {
+                Thread.sleep(Long.MAX_VALUE);
+                return UploadPartResponse.builder().build();
+              } catch (InterruptedException e) {
+                throw SdkClientException.create("interrupted");
+              } finally {
+                firstPartDone.set(true);
+              }
+            });
+    AtomicBoolean abortedAfterParts = new AtomicBoolean();
+    when(clientMock.abortMultipartUpload((Consumer<AbortMultipartUploadRequest.Builder>) any()))
+        .thenAnswer(
+            invocation -> {
+              abortedAfterParts.set(firstPartDone.get());
+              return AbortMultipartUploadResponse.builder().build();
+            });
+    ExecutorService executor =
+        ExecutorUtil.newMDCAwareCachedThreadPool(new SolrNamedThreadFactory("s3PartUpload"));
+    try {
+      S3OutputStream stream =
+          new S3OutputStream(
+              clientMock, "key", "bucket", executor, 2, new S3OutputStream.PartBufferPool(3));
+      stream.write(largeBuffer);
+      stream.write(largeBuffer);
+      org.apache.solr.s3.S3Exception solrS3Exception =
+          assertThrows(org.apache.solr.s3.S3Exception.class, stream::close);
+      assertEquals("fake exception", solrS3Exception.getCause().getMessage());
+      stream.close();
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+
+    // the failed part was not sent again by the stream, the S3 client retries it
+    verify(clientMock, times(2)).uploadPart((UploadPartRequest) any(), (RequestBody) any());
+    verify(clientMock).abortMultipartUpload((Consumer<AbortMultipartUploadRequest.Builder>) any());
+    assertTrue("aborted while a part was in flight", abortedAfterParts.get());
+    verify(clientMock, never())
+        .completeMultipartUpload((Consumer<CompleteMultipartUploadRequest.Builder>) any());
+  }
 }
@@ -0,0 +1,8 @@
+[description]
+Runs blocking request handling on virtual threads instead of the platform threads of the server's thread pool.
+
+[depend]
+server
+
+[xml]
+etc/jetty-virtual-threads.xml
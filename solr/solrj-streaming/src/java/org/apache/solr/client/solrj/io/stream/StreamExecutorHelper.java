@@ -42,7 +42,8 @@ public class StreamExecutorHelper {
   public static <T> Collection<T> submitAllAndAwaitAggregatingExceptions(
       List<? extends Callable<T>> tasks, String threadsName) throws IOException {
     ExecutorService service =
-        ExecutorUtil.newMDCAwareCachedThreadPool(new SolrNamedThreadFactory(threadsName));
+        ExecutorUtil.newMDCAwareCachedThreadPool(
+            new SolrNamedThreadFactory(threadsName, ExecutorUtil.isVirtualThreadsEnabled()));
     try {
       return ExecutorUtil.submitAllAndAwaitAggregatingExceptions(service, tasks).stream()
           .collect(Collectors.toList());
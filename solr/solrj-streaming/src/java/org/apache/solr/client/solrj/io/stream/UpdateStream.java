@@ -21,6 +21,7 @@ import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.io.SolrClientCache;
 import org.apache.solr.client.solrj.io.Tuple;
@@ -59,6 +60,14 @@ public class UpdateStream extends TupleStream implements Expressible {
    */
   private boolean pruneVersionField;
 
+  /**
+   * The maximum number of documents sent per second, or 0 for no limit. May be set per expression
+   * using the <code>"maxDocsPerSecond"</code> named operand.
+   */
+  private int maxDocsPerSecond;
+
+  // when the next batch may be sent without exceeding maxDocsPerSecond
+  private long nextBatchNanos;
   private int batchNumber;
   private long totalDocsIndex;
   private PushBackStream tupleSource;
@@ -78,6 +87,15 @@ public class UpdateStream extends TupleStream implements Expressible {
     int updateBatchSize = extractBatchSize(expression, factory);
     pruneVersionField =
         factory.getBooleanOperand(expression, "pruneVersionField", defaultPruneVersionField());
+    maxDocsPerSecond = factory.getIntOperand(expression, "maxDocsPerSecond", 0);
+    if (maxDocsPerSecond < 0) {
+      throw new IOException(
+          String.format(
+              Locale.ROOT,
+              "invalid expression %s - maxDocsPerSecond '%d' must not be negative.",
+              expression,
+              maxDocsPerSecond));
+    }
 
     // Extract underlying TupleStream.
     List<StreamExpression> streamExpressions =
@@ -140,6 +158,7 @@ public class UpdateStream extends TupleStream implements Expressible {
           return tuple;
         } else {
           tupleSource.pushBack(tuple);
+          throttle(documentBatch.size());
           uploadBatchToCollection(documentBatch);
           int b = documentBatch.size();
           documentBatch.clear();
@@ -149,12 +168,32 @@ public class UpdateStream extends TupleStream implements Expressible {
       documentBatch.add(convertTupleToSolrDocument(tuple));
     }
 
+    throttle(documentBatch.size());
     uploadBatchToCollection(documentBatch);
     int b = documentBatch.size();
     documentBatch.clear();
     return createBatchSummaryTuple(b);
   }
 
+  /** Waits until a batch of this size can be sent without exceeding maxDocsPerSecond. */
+  private void throttle(int batchSize) throws IOException {
+    if (maxDocsPerSecond <= 0) {
+      return;
+    }
+    long now = System.nanoTime();
+    long waitNanos = nextBatchNanos - now;
+    if (batchNumber > 0 && waitNanos > 0) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while throttling updates to " + collection, e);
+      }
+      now = nextBatchNanos;
+    }
+    nextBatchNanos = now + TimeUnit.SECONDS.toNanos(batchSize) / maxDocsPerSecond;
+  }
+
   @Override
   public void close() throws IOException {
     if (doCloseCache) {
@@ -187,6 +226,11 @@ public class UpdateStream extends TupleStream implements Expressible {
     expression.addParameter(new StreamExpressionNamedParameter("zkHost", zkHost));
     expression.addParameter(
         new StreamExpressionNamedParameter("batchSize", Integer.toString(updateBatchSize)));
+    if (maxDocsPerSecond > 0) {
+      expression.addParameter(
+          new StreamExpressionNamedParameter(
+              "maxDocsPerSecond", Integer.toString(maxDocsPerSecond)));
+    }
 
     if (includeStreams) {
       if (tupleSource != null) {
@@ -281,6 +281,28 @@ public class StreamExpressionToExpressionTest extends SolrTestCase {
     }
   }
 
+  @Test
+  public void testThrottledUpdateStream() throws Exception {
+    StreamExpression expression =
+        StreamExpressionParser.parse(
+            "update("
+                + "collection2, "
+                + "batchSize=5, "
+                + "maxDocsPerSecond=100, "
+                + "search("
+                + "collection1, "
+                + "q=*:*, "
+                + "fl=\"id,a_s,a_i,a_f\", "
+                + "sort=\"a_f asc, a_i asc\"))");
+
+    try (UpdateStream updateStream = new UpdateStream(expression, factory)) {
+      String expressionString = updateStream.toExpression(factory).toString();
+
+      assertTrue(expressionString.contains("batchSize=5"));
+      assertTrue(expressionString.contains("maxDocsPerSecond=100"));
+    }
+  }
+
   @Test
   public void testFacetStream() throws Exception {
 
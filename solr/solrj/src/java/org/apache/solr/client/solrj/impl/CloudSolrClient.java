@@ -38,14 +38,17 @@ import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
@@ -1115,6 +1118,16 @@ public abstract class CloudSolrClient extends SolrClient {
   @Override
   public NamedList<Object> request(SolrRequest<?> request, String collection)
       throws SolrServerException, IOException {
+    return requestWithRetryOnStaleState(
+        request,
+        0,
+        getInputCollections(request, collection),
+        /*skipStateVersion*/ false,
+        Map.of(),
+        /*waitedForRefresh*/ false);
+  }
+
+  private List<String> getInputCollections(SolrRequest<?> request, String collection) {
     // the collection parameter of the request overrides that of the parameter to this method
     String requestCollection = request.getCollection();
     if (requestCollection != null) {
@@ -1123,15 +1136,240 @@ public abstract class CloudSolrClient extends SolrClient {
       collection = defaultCollection;
     }
 
-    List<String> inputCollections =
-        collection == null ? Collections.emptyList() : StrUtils.splitSmart(collection, ",", true);
-    return requestWithRetryOnStaleState(
-        request,
-        0,
-        inputCollections,
-        /*skipStateVersion*/ false,
-        Map.of(),
-        /*waitedForRefresh*/ false);
+    return collection == null
+        ? Collections.emptyList()
+        : StrUtils.splitSmart(collection, ",", true);
+  }
+
+  /**
+   * Execute an asynchronous request against a collection. It is routed like {@link
+   * #request(SolrRequest, String)} and retried in the same cases, e.g. when the cached state of the
+   * collection turns out to be stale. The request is written and the response parsed with the
+   * {@link RequestWriter} and {@link ResponseParser} of the request or else of this client.
+   *
+   * <p>No thread is held while the request is in flight if the load balancing client is an {@link
+   * LBAsyncSolrClient}, which is the case with the default Jetty based HTTP client. Otherwise, and
+   * for update requests that this client splits by shard leader, the request is run on an internal
+   * executor. States of collections that are not cached yet are loaded on that executor as well,
+   * and retries after a failed attempt are sent from it.
+   *
+   * @param request the request to execute
+   * @param collection the collection to execute the request against, if the request does not
+   *     specify one. Null to use the default collection.
+   * @return a {@link CompletableFuture} that completes with the response from the server, or
+   *     exceptionally with a {@link SolrServerException}, {@link IOException} or {@link
+   *     SolrException}. Cancelling it cancels the request in flight.
+   */
+  public CompletableFuture<NamedList<Object>> requestAsync(
+      SolrRequest<?> request, String collection) {
+    if (!(getLbClient() instanceof LBAsyncSolrClient lbClient)
+        || (isSendToLeaders(request) && request instanceof UpdateRequest)) {
+      return requestOnExecutor(request, collection);
+    }
+    AsyncRequest asyncRequest =
+        new AsyncRequest(lbClient, request, getInputCollections(request, collection));
+    loadUncachedStates(asyncRequest.inputCollections)
+        .whenComplete(
+            (v, t) -> {
+              if (t == null) {
+                asyncRequest.send(0);
+              } else {
+                asyncRequest.fail(t instanceof CompletionException ? t.getCause() : t);
+              }
+            });
+    return asyncRequest.result;
+  }
+
+  /**
+   * Execute an asynchronous request against the default collection.
+   *
+   * @see #requestAsync(SolrRequest, String)
+   */
+  public CompletableFuture<NamedList<Object>> requestAsync(SolrRequest<?> request) {
+    return requestAsync(request, null);
+  }
+
+  private CompletableFuture<NamedList<Object>> requestOnExecutor(
+      SolrRequest<?> request, String collection) {
+    CompletableFuture<NamedList<Object>> future = new CompletableFuture<>();
+    ExecutorService executor = threadPool;
+    if (executor == null || ExecutorUtil.isShutdown(executor)) {
+      future.completeExceptionally(new SolrServerException("The client has been closed"));
+      return future;
+    }
+    try {
+      executor.execute(
+          () -> {
+            if (future.isDone()) {
+              return; // cancelled
+            }
+            try {
+              future.complete(request(request, collection));
+            } catch (Exception e) {
+              future.completeExceptionally(e);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      future.completeExceptionally(new SolrServerException(e));
+    }
+    return future;
+  }
+
+  /** Loads the states of the collections that are not cached, without waiting for them. */
+  private CompletableFuture<Void> loadUncachedStates(List<String> collections) {
+    List<CompletableFuture<DocCollection>> refreshes = new ArrayList<>();
+    for (String collection : collections) {
+      ExpiringCachedDocCollection cacheEntry = collectionStateCache.peek(collection);
+      if (cacheEntry == null || cacheEntry.isExpired(collectionStateCache.timeToLiveMs)) {
+        refreshes.add(triggerCollectionRefresh(collection));
+      }
+    }
+    return CompletableFuture.allOf(refreshes.toArray(new CompletableFuture<?>[0]));
+  }
+
+  /**
+   * The asynchronous counterpart of {@link #requestWithRetryOnStaleState}. Instead of waiting for
+   * collection states to be refreshed, retries are chained to the refreshes.
+   */
+  private class AsyncRequest {
+    final LBAsyncSolrClient lbClient;
+    final SolrRequest<?> request;
+    final List<String> inputCollections;
+    final CompletableFuture<NamedList<Object>> result = new CompletableFuture<>();
+    final AtomicReference<CompletableFuture<LBSolrClient.Rsp>> inFlight = new AtomicReference<>();
+
+    AsyncRequest(
+        LBAsyncSolrClient lbClient, SolrRequest<?> request, List<String> inputCollections) {
+      this.lbClient = lbClient;
+      this.request = request;
+      this.inputCollections = inputCollections;
+      result.whenComplete(
+          (rsp, t) -> {
+            CompletableFuture<LBSolrClient.Rsp> future = inFlight.get();
+            if (result.isCancelled() && future != null) {
+              future.cancel(true);
+            }
+          });
+    }
+
+    void send(int retryCount) {
+      if (result.isDone()) {
+        return; // cancelled
+      }
+      List<DocCollection> requestedCollections;
+      CompletableFuture<LBSolrClient.Rsp> future;
+      try {
+        requestedCollections = setStateVersion(request, inputCollections, false);
+        List<LBSolrClient.Endpoint> endpoints =
+            getEndpoints(request, inputCollections, isSendToLeaders(request));
+        future = lbClient.requestAsync(new LBSolrClient.Req(request, endpoints));
+      } catch (Exception e) {
+        fail(e);
+        return;
+      }
+      inFlight.set(future);
+      if (result.isCancelled()) {
+        future.cancel(true);
+        return;
+      }
+      future.whenComplete(
+          (rsp, t) -> {
+            if (t == null) {
+              NamedList<Object> resp = rsp.getResponse();
+              Map<?, ?> invalidStates = removeInvalidStates(resp);
+              if (invalidStates != null) {
+                for (Object staleCollection : invalidStates.keySet()) {
+                  triggerCollectionRefresh((String) staleCollection);
+                }
+              }
+              result.complete(resp);
+            } else if (!future.isCancelled()) {
+              Throwable cause = t instanceof CompletionException ? t.getCause() : t;
+              onFailure(cause, requestedCollections, retryCount);
+            }
+          });
+    }
+
+    void onFailure(Throwable exc, List<DocCollection> requestedCollections, int retryCount) {
+      boolean isAdmin =
+          request.getRequestType() == SolrRequestType.ADMIN && !request.requiresCollection();
+      // don't do retry support for admin requests
+      // or if the request doesn't have a collection specified
+      // or request is v2 api and its method is not GET
+      if (inputCollections.isEmpty()
+          || isAdmin
+          || (request.getApiVersion() == SolrRequest.ApiVersion.V2
+              && request.getMethod() != SolrRequest.METHOD.GET)
+          || retryCount >= MAX_STALE_RETRIES) {
+        fail(exc);
+        return;
+      }
+
+      Throwable rootCause = SolrException.getRootCause(exc);
+      int errorCode =
+          (rootCause instanceof SolrException)
+              ? ((SolrException) rootCause).code()
+              : SolrException.ErrorCode.UNKNOWN.code;
+
+      if (wasCommError(rootCause)) {
+        // the node may be down, mark the state as possibly stale and try again
+        expireState(requestedCollections, true);
+        log.info(
+            "Async request to collection {} failed due to {}, retry={} maxRetries={} - retrying",
+            inputCollections,
+            rootCause,
+            retryCount,
+            MAX_STALE_RETRIES);
+        resend(retryCount + 1);
+      } else if (requestedCollections != null
+          && !requestedCollections.isEmpty()
+          && (SolrException.ErrorCode.getErrorCode(errorCode)
+                  == SolrException.ErrorCode.INVALID_STATE
+              || errorCode == 404)) {
+        // cached state for one or more external collections was stale, re-issue the request once
+        // the state has been refreshed
+        log.warn(
+            "Re-trying async request to collection(s) {} after stale state error from server.",
+            inputCollections);
+        List<CompletableFuture<DocCollection>> refreshes = new ArrayList<>();
+        for (DocCollection ext : requestedCollections) {
+          collectionStateCache.remove(ext.getName());
+          refreshes.add(triggerCollectionRefresh(ext.getName()));
+        }
+        CompletableFuture.allOf(refreshes.toArray(new CompletableFuture<?>[0]))
+            .whenComplete((v, t) -> resend(retryCount + 1));
+      } else {
+        fail(exc);
+      }
+    }
+
+    /**
+     * Sends the request again on the internal executor. Retries are not sent from the thread that
+     * completed the failed attempt, an HTTP client thread, since sending may load expired
+     * collection states synchronously.
+     */
+    void resend(int retryCount) {
+      ExecutorService executor = threadPool;
+      if (executor == null || ExecutorUtil.isShutdown(executor)) {
+        fail(new SolrServerException("The client has been closed"));
+        return;
+      }
+      try {
+        executor.execute(() -> send(retryCount));
+      } catch (RejectedExecutionException e) {
+        fail(new SolrServerException(e));
+      }
+    }
+
+    void fail(Throwable exc) {
+      if (exc instanceof SolrException
+          || exc instanceof SolrServerException
+          || exc instanceof IOException) {
+        result.completeExceptionally(exc);
+      } else {
+        result.completeExceptionally(new SolrServerException(SolrException.getRootCause(exc)));
+      }
+    }
   }
 
   /**
@@ -1152,65 +1390,16 @@ public abstract class CloudSolrClient extends SolrClient {
     // the server to notify us that our cached state for one or more of the external
     // collections is stale and needs to be refreshed ... this code has no impact on internal
     // collections
-    String stateVerParam = null;
-    List<DocCollection> requestedCollections = null;
-    boolean isCollectionRequestOfV2 = false;
-    if (request instanceof V2Request) {
-      isCollectionRequestOfV2 = ((V2Request) request).isPerCollectionRequest();
-    }
+    List<DocCollection> requestedCollections =
+        setStateVersion(request, inputCollections, skipStateVersion);
     boolean isAdmin =
         request.getRequestType() == SolrRequestType.ADMIN && !request.requiresCollection();
-    if (!inputCollections.isEmpty()
-        && !isAdmin
-        && !isCollectionRequestOfV2) { // don't do _stateVer_ checking for admin, v2 api requests
-      Set<String> requestedCollectionNames = resolveAliases(inputCollections);
-
-      StringBuilder stateVerParamBuilder = null;
-      for (String requestedCollection : requestedCollectionNames) {
-        // track the version of state we're using on the client side using the _stateVer_ param
-        DocCollection coll = getDocCollection(requestedCollection, null);
-        if (coll == null) {
-          throw new SolrException(
-              SolrException.ErrorCode.BAD_REQUEST, "Collection not found: " + requestedCollection);
-        }
-        int collVer = coll.getZNodeVersion();
-        if (requestedCollections == null)
-          requestedCollections = new ArrayList<>(requestedCollectionNames.size());
-        requestedCollections.add(coll);
-
-        if (stateVerParamBuilder == null) {
-          stateVerParamBuilder = new StringBuilder();
-        } else {
-          stateVerParamBuilder.append(
-              "|"); // hopefully pipe is not an allowed char in a collection name
-        }
-
-        stateVerParamBuilder.append(coll.getName()).append(":").append(collVer);
-      }
-
-      if (stateVerParamBuilder != null) {
-        stateVerParam = stateVerParamBuilder.toString();
-      }
-    }
-
-    if (request.getParams() instanceof ModifiableSolrParams params) {
-      if (!skipStateVersion && stateVerParam != null) {
-        params.set(STATE_VERSION, stateVerParam);
-      } else {
-        params.remove(STATE_VERSION);
-      }
-    } // else: ??? how to set this ???
 
     NamedList<Object> resp = null;
     try {
       resp = sendRequest(request, inputCollections);
-      // to avoid an O(n) operation we always add STATE_VERSION to the last and try to read it from
-      // there
-      Object o = resp == null || resp.size() == 0 ? null : resp.get(STATE_VERSION, resp.size() - 1);
-      if (o != null && o instanceof Map<?, ?> invalidStates) {
-        // remove this because no one else needs this and tests would fail if they are comparing
-        // responses
-        resp.remove(resp.size() - 1);
+      Map<?, ?> invalidStates = removeInvalidStates(resp);
+      if (invalidStates != null) {
         for (Map.Entry<?, ?> e : invalidStates.entrySet()) {
           getDocCollection((String) e.getKey(), (Integer) e.getValue());
         }
@@ -1249,30 +1438,7 @@ public abstract class CloudSolrClient extends SolrClient {
       // TODO there are other reasons for 404. We need to change the solr response format from HTML
       // to structured data to know that
       ) {
-        // it was a communication error. it is likely that
-        // the node to which the request to be sent is down . So , expire the state
-        // so that the next attempt would fetch the fresh state
-        // just re-read state for all of them, if it has not been retried
-        // in retryExpiryTime time
-        if (requestedCollections != null) {
-          for (DocCollection ext : requestedCollections) {
-            String name = ext.getName();
-            ExpiringCachedDocCollection cacheEntry = collectionStateCache.peek(name);
-            if (cacheEntry != null) {
-              if (wasCommError) {
-                cacheEntry.maybeStale = true;
-              } else {
-                boolean markedStale =
-                    cacheEntry.markMaybeStaleIfOutsideBackoff(retryExpiryTimeNano);
-                if (markedStale && cacheEntry.shouldRetry()) {
-                  triggerCollectionRefresh(name);
-                }
-              }
-            } else {
-              triggerCollectionRefresh(name);
-            }
-          }
-        }
+        expireState(requestedCollections, wasCommError);
         if (retryCount < MAX_STALE_RETRIES) { // if it is a communication error , we must try again
           // may be, we have a stale version of the collection state,
           // and we could not get any information from the server
@@ -1414,37 +1580,151 @@ public abstract class CloudSolrClient extends SolrClient {
     return resp;
   }
 
-  protected NamedList<Object> sendRequest(SolrRequest<?> request, List<String> inputCollections)
-      throws SolrServerException, IOException {
-    boolean sendToLeaders = false;
-
-    if (request.getRequestType() == SolrRequestType.UPDATE) {
-      sendToLeaders = this.isUpdatesToLeaders();
-
-      if (sendToLeaders && request instanceof UpdateRequest updateRequest) {
-        sendToLeaders = sendToLeaders && updateRequest.isSendToLeaders();
-
-        // Check if we can do a "directUpdate" ...
-        if (sendToLeaders) {
-          if (inputCollections.size() > 1) {
-            throw new SolrException(
-                SolrException.ErrorCode.BAD_REQUEST,
-                "Update request must be sent to a single collection "
-                    + "or an alias: "
-                    + inputCollections);
-          }
-          String collection =
-              inputCollections.isEmpty()
-                  ? null
-                  : inputCollections.get(0); // getting first mimics HttpSolrCall
-          NamedList<Object> response = directUpdate(updateRequest, collection);
-          if (response != null) {
-            return response;
+  /**
+   * Builds up a _stateVer_ param to pass to the server containing all the external collection state
+   * versions involved in this request, which allows the server to notify us that our cached state
+   * for one or more of the external collections is stale and needs to be refreshed.
+   *
+   * @return the states of the requested collections, or null if the request is not checked
+   */
+  private List<DocCollection> setStateVersion(
+      SolrRequest<?> request, List<String> inputCollections, boolean skipStateVersion) {
+    String stateVerParam = null;
+    List<DocCollection> requestedCollections = null;
+    boolean isCollectionRequestOfV2 = false;
+    if (request instanceof V2Request) {
+      isCollectionRequestOfV2 = ((V2Request) request).isPerCollectionRequest();
+    }
+    boolean isAdmin =
+        request.getRequestType() == SolrRequestType.ADMIN && !request.requiresCollection();
+    if (!inputCollections.isEmpty()
+        && !isAdmin
+        && !isCollectionRequestOfV2) { // don't do _stateVer_ checking for admin, v2 api requests
+      Set<String> requestedCollectionNames = resolveAliases(inputCollections);
+
+      StringBuilder stateVerParamBuilder = null;
+      for (String requestedCollection : requestedCollectionNames) {
+        // track the version of state we're using on the client side using the _stateVer_ param
+        DocCollection coll = getDocCollection(requestedCollection, null);
+        if (coll == null) {
+          throw new SolrException(
+              SolrException.ErrorCode.BAD_REQUEST, "Collection not found: " + requestedCollection);
+        }
+        int collVer = coll.getZNodeVersion();
+        if (requestedCollections == null)
+          requestedCollections = new ArrayList<>(requestedCollectionNames.size());
+        requestedCollections.add(coll);
+
+        if (stateVerParamBuilder == null) {
+          stateVerParamBuilder = new StringBuilder();
+        } else {
+          stateVerParamBuilder.append(
+              "|"); // hopefully pipe is not an allowed char in a collection name
+        }
+
+        stateVerParamBuilder.append(coll.getName()).append(":").append(collVer);
+      }
+
+      if (stateVerParamBuilder != null) {
+        stateVerParam = stateVerParamBuilder.toString();
+      }
+    }
+
+    if (request.getParams() instanceof ModifiableSolrParams params) {
+      if (!skipStateVersion && stateVerParam != null) {
+        params.set(STATE_VERSION, stateVerParam);
+      } else {
+        params.remove(STATE_VERSION);
+      }
+    } // else: ??? how to set this ???
+    return requestedCollections;
+  }
+
+  /**
+   * Removes the collection states the server reported as stale from the response.
+   *
+   * @return the names of the stale collections mapped to their current versions, or null
+   */
+  private Map<?, ?> removeInvalidStates(NamedList<Object> resp) {
+    // to avoid an O(n) operation we always add STATE_VERSION to the last and try to read it from
+    // there
+    Object o = resp == null || resp.size() == 0 ? null : resp.get(STATE_VERSION, resp.size() - 1);
+    if (o != null && o instanceof Map<?, ?> invalidStates) {
+      // remove this because no one else needs this and tests would fail if they are comparing
+      // responses
+      resp.remove(resp.size() - 1);
+      return invalidStates;
+    }
+    return null;
+  }
+
+  /**
+   * Called after a communication error or an unavailable service. It is likely that the node to
+   * which the request was sent is down. So, expire the state so that the next attempt would fetch
+   * the fresh state. Just re-read state for all of them, if it has not been retried in
+   * retryExpiryTime time.
+   */
+  private void expireState(List<DocCollection> requestedCollections, boolean wasCommError) {
+    if (requestedCollections == null) {
+      return;
+    }
+    for (DocCollection ext : requestedCollections) {
+      String name = ext.getName();
+      ExpiringCachedDocCollection cacheEntry = collectionStateCache.peek(name);
+      if (cacheEntry != null) {
+        if (wasCommError) {
+          cacheEntry.maybeStale = true;
+        } else {
+          boolean markedStale = cacheEntry.markMaybeStaleIfOutsideBackoff(retryExpiryTimeNano);
+          if (markedStale && cacheEntry.shouldRetry()) {
+            triggerCollectionRefresh(name);
           }
         }
+      } else {
+        triggerCollectionRefresh(name);
+      }
+    }
+  }
+
+  protected NamedList<Object> sendRequest(SolrRequest<?> request, List<String> inputCollections)
+      throws SolrServerException, IOException {
+    boolean sendToLeaders = isSendToLeaders(request);
+
+    // Check if we can do a "directUpdate" ...
+    if (sendToLeaders && request instanceof UpdateRequest updateRequest) {
+      if (inputCollections.size() > 1) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST,
+            "Update request must be sent to a single collection "
+                + "or an alias: "
+                + inputCollections);
+      }
+      String collection =
+          inputCollections.isEmpty()
+              ? null
+              : inputCollections.get(0); // getting first mimics HttpSolrCall
+      NamedList<Object> response = directUpdate(updateRequest, collection);
+      if (response != null) {
+        return response;
       }
     }
 
+    LBSolrClient.Req req =
+        new LBSolrClient.Req(request, getEndpoints(request, inputCollections, sendToLeaders));
+    LBSolrClient.Rsp rsp = getLbClient().request(req);
+    return rsp.getResponse();
+  }
+
+  private boolean isSendToLeaders(SolrRequest<?> request) {
+    if (request.getRequestType() != SolrRequestType.UPDATE || !isUpdatesToLeaders()) {
+      return false;
+    }
+    return !(request instanceof UpdateRequest updateRequest) || updateRequest.isSendToLeaders();
+  }
+
+  /** Returns the endpoints a request that is not a direct update can be sent to, in order. */
+  private List<LBSolrClient.Endpoint> getEndpoints(
+      SolrRequest<?> request, List<String> inputCollections, boolean sendToLeaders) {
     SolrParams reqParams = request.getParams();
     assert reqParams != null;
 
@@ -1490,9 +1770,7 @@ public abstract class CloudSolrClient extends SolrClient {
                 .map(nodeUrl -> new LBSolrClient.Endpoint(nodeUrl, joinedInputCollections))
                 .collect(Collectors.toList());
         if (!endpoints.isEmpty()) {
-          LBSolrClient.Req req = new LBSolrClient.Req(request, endpoints);
-          LBSolrClient.Rsp rsp = getLbClient().request(req);
-          return rsp.getResponse();
+          return endpoints;
         }
       }
 
@@ -1566,10 +1844,7 @@ public abstract class CloudSolrClient extends SolrClient {
             "Could not find a healthy node to handle the request.");
       }
     }
-
-    LBSolrClient.Req req = new LBSolrClient.Req(request, requestEndpoints);
-    LBSolrClient.Rsp rsp = getLbClient().request(req);
-    return rsp.getResponse();
+    return requestEndpoints;
   }
 
   /**
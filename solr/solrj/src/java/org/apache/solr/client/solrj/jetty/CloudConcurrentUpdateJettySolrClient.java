@@ -0,0 +1,416 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.jetty;
+
+import static org.apache.solr.common.params.CommonParams.ID;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.ClusterStateProvider;
+import org.apache.solr.client.solrj.impl.LBSolrClient;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.client.solrj.util.ClientUtils;
+import org.apache.solr.common.cloud.ClusterState;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.Slice;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.params.UpdateParams;
+import org.apache.solr.common.util.IOUtils;
+import org.apache.solr.common.util.NamedList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A SolrCloud aware variant of {@link ConcurrentUpdateJettySolrClient}. Added documents and deletes
+ * by id are split by shard leader, like {@link CloudJettySolrClient} does, and then streamed to
+ * each leader by a dedicated {@link ConcurrentUpdateJettySolrClient}. So every leader gets its own
+ * bounded queue and long-lived streaming connection, and all shards are indexed into at once.
+ *
+ * <p>Adding to the queue of a leader that falls behind blocks the caller, which applies
+ * backpressure to the indexing application. Routing uses the collection state cached by this
+ * client, which is refreshed periodically and after any error. Updates for a shard whose leader
+ * changed are thus sent to the new leader after the next refresh, while updates that were already
+ * queued for the former leader are forwarded by it as usual. Once a refresh shows that a core is no
+ * longer the leader of any shard, its queue is flushed and its client closed.
+ *
+ * <p>Other requests, including commits, deletes by query and updates that can't be routed, first
+ * wait for all queues to be flushed and are then sent with the {@link CloudJettySolrClient}.
+ *
+ * <p>Like with {@link ConcurrentUpdateJettySolrClient}, streamed updates are acknowledged before
+ * they are sent, and errors are reported to {@link #handleError(Throwable, String)}.
+ */
+public class CloudConcurrentUpdateJettySolrClient extends SolrClient {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /** Parameters that must not be streamed to the leaders, but sent once the queues are flushed */
+  private static final Set<String> NON_ROUTABLE_PARAMS =
+      Set.of(
+          UpdateParams.EXPUNGE_DELETES,
+          UpdateParams.MAX_OPTIMIZE_SEGMENTS,
+          UpdateParams.COMMIT,
+          UpdateParams.WAIT_SEARCHER,
+          UpdateParams.OPEN_SEARCHER,
+          UpdateParams.SOFT_COMMIT,
+          UpdateParams.PREPARE_COMMIT,
+          UpdateParams.OPTIMIZE);
+
+  private final CloudJettySolrClient cloudClient;
+  private final HttpJettySolrClient httpClient;
+  private final boolean closeCloudClient;
+  private final int queueSize;
+  private final int threadCount;
+  private final long pollQueueTimeMillis;
+  private final long stateTtlNanos;
+
+  private final Map<String, ConcurrentUpdateJettySolrClient> leaderClients =
+      new ConcurrentHashMap<>();
+  private final Map<String, CachedState> states = new ConcurrentHashMap<>();
+  // core URLs of the shard leaders of each collection, as of its last refresh
+  private final Map<String, Set<String>> leaderUrls = new ConcurrentHashMap<>();
+  // held to queue updates or flush, and exclusively to remove clients of former leaders
+  private final ReadWriteLock leaderClientsLock = new ReentrantReadWriteLock();
+  private volatile boolean closed;
+
+  private record CachedState(DocCollection collection, long fetchedAtNanos) {}
+
+  protected CloudConcurrentUpdateJettySolrClient(Builder builder) {
+    this.cloudClient = builder.cloudClient;
+    this.httpClient = builder.cloudClient.getHttpClient();
+    this.closeCloudClient = builder.closeCloudClient;
+    this.queueSize = builder.queueSize;
+    this.threadCount = builder.threadCount;
+    this.pollQueueTimeMillis = builder.pollQueueTimeMillis;
+    this.stateTtlNanos = TimeUnit.MILLISECONDS.toNanos(builder.stateTtlMillis);
+    this.defaultCollection = builder.defaultCollection;
+  }
+
+  @Override
+  public NamedList<Object> request(SolrRequest<?> request, String collection)
+      throws SolrServerException, IOException {
+    if (closed) {
+      throw new IllegalStateException("This client has been closed");
+    }
+    final String effectiveCollection =
+        ClientUtils.shouldApplyDefaultCollection(collection, request)
+            ? defaultCollection
+            : collection;
+    if (!(request instanceof UpdateRequest updateRequest)) {
+      return cloudClient.request(request, effectiveCollection);
+    }
+
+    Map<String, LBSolrClient.Req> routes =
+        isRoutable(updateRequest) ? getRoutes(updateRequest, effectiveCollection) : null;
+    if (routes == null) {
+      // commits, deletes by query etc. must only be sent once everything queued before was sent
+      blockUntilFinished();
+      return cloudClient.request(request, effectiveCollection);
+    }
+
+    leaderClientsLock.readLock().lock();
+    try {
+      for (Map.Entry<String, LBSolrClient.Req> route : routes.entrySet()) {
+        // blocks if the queue of this leader is full
+        getLeaderClient(route.getKey()).request(route.getValue().getRequest());
+      }
+    } finally {
+      leaderClientsLock.readLock().unlock();
+    }
+
+    // RETURN A DUMMY result
+    NamedList<Object> dummy = new NamedList<>();
+    dummy.add("NOTE", "the request is processed in a background stream");
+    return dummy;
+  }
+
+  private static boolean isRoutable(UpdateRequest request) {
+    if (request.getDeleteQuery() != null && !request.getDeleteQuery().isEmpty()) {
+      return false;
+    }
+    SolrParams params = request.getParams();
+    if (params != null) {
+      for (String param : NON_ROUTABLE_PARAMS) {
+        if (params.get(param) != null) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Splits the documents and deletes by id of the request by shard leader core URL, or returns null
+   * if they can't all be routed.
+   */
+  private Map<String, LBSolrClient.Req> getRoutes(UpdateRequest request, String collection) {
+    DocCollection col = getDocCollection(collection);
+    if (col == null) {
+      return null;
+    }
+    Map<String, List<String>> urlMap = new HashMap<>();
+    Set<String> liveNodes = cloudClient.getClusterStateProvider().getLiveNodes();
+    for (Slice slice : col.getActiveSlices()) {
+      Replica leader = slice.getLeader();
+      if (leader == null || !leader.isActive(liveNodes)) {
+        // no leader to stream to yet, take the slow path
+        states.remove(collection);
+        return null;
+      }
+      urlMap.put(slice.getName(), List.of(leader.getCoreUrl()));
+    }
+    String routeField = col.getRouter().getRouteField(col);
+    ModifiableSolrParams params = new ModifiableSolrParams(request.getParams());
+    return request.getRoutesToCollection(
+        col.getRouter(), col, urlMap, params, routeField == null ? ID : routeField);
+  }
+
+  private DocCollection getDocCollection(String collection) {
+    if (collection == null) {
+      return null;
+    }
+    CachedState cached = states.get(collection);
+    if (cached != null && System.nanoTime() - cached.fetchedAtNanos < stateTtlNanos) {
+      return cached.collection;
+    }
+    ClusterStateProvider provider = cloudClient.getClusterStateProvider();
+    List<String> resolved = provider.resolveAlias(collection);
+    if (resolved.size() != 1) {
+      // updates to routed and multi-collection aliases are left to the CloudJettySolrClient
+      return null;
+    }
+    ClusterState.CollectionRef ref = provider.getState(resolved.get(0));
+    DocCollection col = ref == null ? null : ref.get();
+    if (col != null) {
+      states.put(collection, new CachedState(col, System.nanoTime()));
+      updateLeaders(collection, col);
+    }
+    return col;
+  }
+
+  /** Flushes and closes the clients of cores that are no longer the leader of any shard. */
+  private void updateLeaders(String collection, DocCollection col) {
+    Set<String> leaders = new HashSet<>();
+    for (Slice slice : col.getActiveSlices()) {
+      Replica leader = slice.getLeader();
+      if (leader != null) {
+        leaders.add(leader.getCoreUrl());
+      }
+    }
+    leaderUrls.put(collection, leaders);
+
+    Set<String> allLeaders = new HashSet<>();
+    for (Set<String> urls : leaderUrls.values()) {
+      allLeaders.addAll(urls);
+    }
+    if (allLeaders.containsAll(leaderClients.keySet())) {
+      return;
+    }
+    // nothing is queued or flushed meanwhile, so a later commit can't overtake the evicted queues
+    leaderClientsLock.writeLock().lock();
+    try {
+      Iterator<Map.Entry<String, ConcurrentUpdateJettySolrClient>> it =
+          leaderClients.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<String, ConcurrentUpdateJettySolrClient> entry = it.next();
+        if (allLeaders.contains(entry.getKey())) {
+          continue;
+        }
+        it.remove();
+        log.debug("Closing the client of former leader {}", entry.getKey());
+        try {
+          entry.getValue().blockUntilFinished();
+        } catch (IOException e) {
+          handleError(e, entry.getKey());
+        } finally {
+          IOUtils.closeQuietly(entry.getValue());
+        }
+      }
+    } finally {
+      leaderClientsLock.writeLock().unlock();
+    }
+  }
+
+  /** The core URLs of the shard leaders that updates are currently streamed to. */
+  Set<String> getLeaderClientUrls() {
+    return Set.copyOf(leaderClients.keySet());
+  }
+
+  private ConcurrentUpdateJettySolrClient getLeaderClient(String leaderUrl) {
+    return leaderClients.computeIfAbsent(
+        leaderUrl,
+        url -> {
+          var builder = new ConcurrentUpdateJettySolrClient.Builder(url, httpClient);
+          builder
+              .withQueueSize(queueSize)
+              .withThreadCount(threadCount)
+              .setPollQueueTime(pollQueueTimeMillis, TimeUnit.MILLISECONDS)
+              .neverStreamDeletes();
+          return new LeaderClient(url, builder);
+        });
+  }
+
+  /** Streams to a single shard leader and reports its errors. */
+  private class LeaderClient extends ConcurrentUpdateJettySolrClient {
+    private final String leaderUrl;
+
+    LeaderClient(String leaderUrl, ConcurrentUpdateJettySolrClient.Builder builder) {
+      super(builder);
+      this.leaderUrl = leaderUrl;
+    }
+
+    @Override
+    public void handleError(Throwable ex) {
+      // the leader may have changed, route the next updates with a fresh state
+      states.clear();
+      CloudConcurrentUpdateJettySolrClient.this.handleError(ex, leaderUrl);
+    }
+  }
+
+  /**
+   * Called when streaming updates to a shard leader failed. The updates of the failed stream are
+   * not retried. Override to collect or handle errors.
+   *
+   * @param ex the error
+   * @param leaderUrl the core URL of the shard leader the updates were sent to
+   */
+  public void handleError(Throwable ex, String leaderUrl) {
+    log.error("Error streaming updates to {}", leaderUrl, ex);
+  }
+
+  /** Blocks until the queues of all shard leaders have been sent. */
+  public void blockUntilFinished() throws IOException {
+    leaderClientsLock.readLock().lock();
+    try {
+      for (ConcurrentUpdateJettySolrClient client : leaderClients.values()) {
+        client.blockUntilFinished();
+      }
+    } finally {
+      leaderClientsLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      for (ConcurrentUpdateJettySolrClient client : leaderClients.values()) {
+        IOUtils.closeQuietly(client);
+      }
+      leaderClients.clear();
+    } finally {
+      if (closeCloudClient) {
+        IOUtils.closeQuietly(cloudClient);
+      }
+    }
+  }
+
+  /** Constructs {@link CloudConcurrentUpdateJettySolrClient} instances. */
+  public static class Builder {
+    protected final CloudJettySolrClient cloudClient;
+    protected final boolean closeCloudClient;
+    protected String defaultCollection;
+    protected int queueSize = 10;
+    protected int threadCount = 1;
+    protected long pollQueueTimeMillis = 250;
+    protected long stateTtlMillis = 5000;
+
+    /**
+     * @param cloudClient the client used to look up the cluster state and to send requests that
+     *     are not streamed. Callers are responsible for closing it after closing any clients
+     *     created by this builder.
+     */
+    public Builder(CloudJettySolrClient cloudClient) {
+      this(cloudClient, false);
+    }
+
+    /**
+     * @param cloudClient the client used to look up the cluster state and to send requests that
+     *     are not streamed.
+     * @param closeCloudClient whether the created client should close the provided cloudClient
+     */
+    public Builder(CloudJettySolrClient cloudClient, boolean closeCloudClient) {
+      this.cloudClient = cloudClient;
+      this.closeCloudClient = closeCloudClient;
+    }
+
+    /** Sets a default for collection based requests. */
+    public Builder withDefaultCollection(String defaultCollection) {
+      this.defaultCollection = defaultCollection;
+      return this;
+    }
+
+    /**
+     * The maximum number of requests buffered for each shard leader. Adding to a full queue blocks
+     * until the queue drains. Defaults to 10.
+     */
+    public Builder withQueueSize(int queueSize) {
+      if (queueSize <= 0) {
+        throw new IllegalArgumentException("queueSize must be a positive integer.");
+      }
+      this.queueSize = queueSize;
+      return this;
+    }
+
+    /** The maximum number of streaming connections to each shard leader. Defaults to 1. */
+    public Builder withThreadCount(int threadCount) {
+      if (threadCount <= 0) {
+        throw new IllegalArgumentException("threadCount must be a positive integer.");
+      }
+      this.threadCount = threadCount;
+      return this;
+    }
+
+    /**
+     * Time for an open connection to wait for updates when the queue of its leader is empty.
+     * Defaults to 250 milliseconds.
+     */
+    public Builder setPollQueueTime(long pollQueueTime, TimeUnit unit) {
+      this.pollQueueTimeMillis = TimeUnit.MILLISECONDS.convert(pollQueueTime, unit);
+      return this;
+    }
+
+    /**
+     * How long the shard leaders of a collection are used for routing before they are looked up
+     * again. Defaults to 5 seconds. They are also looked up again after any error.
+     */
+    public Builder withCollectionStateTtl(long timeToLive, TimeUnit unit) {
+      this.stateTtlMillis = TimeUnit.MILLISECONDS.convert(timeToLive, unit);
+      return this;
+    }
+
+    public CloudConcurrentUpdateJettySolrClient build() {
+      return new CloudConcurrentUpdateJettySolrClient(this);
+    }
+  }
+}
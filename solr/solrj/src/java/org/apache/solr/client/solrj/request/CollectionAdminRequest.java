@@ -910,6 +910,8 @@ public abstract class CollectionAdminRequest<T extends CollectionAdminResponse>
     Boolean removeSource;
     String cmd;
     Integer batchSize;
+    Integer workers;
+    Integer maxDocsPerSecond;
     Map<String, Object> collectionParams = new HashMap<>();
 
     private ReindexCollection(String collection) {
@@ -952,6 +954,18 @@ public abstract class CollectionAdminRequest<T extends CollectionAdminResponse>
       return this;
     }
 
+    /** Copy documents with this many workers in parallel. Default is the number of shards. */
+    public ReindexCollection setWorkers(int workers) {
+      this.workers = workers;
+      return this;
+    }
+
+    /** Copy at most this many documents per second in total. Default is 0, no limit. */
+    public ReindexCollection setMaxDocsPerSecond(int maxDocsPerSecond) {
+      this.maxDocsPerSecond = maxDocsPerSecond;
+      return this;
+    }
+
     /** Config name for the target collection. Default is the same as source. */
     public ReindexCollection setConfigName(String configName) {
       this.configName = configName;
@@ -974,6 +988,8 @@ public abstract class CollectionAdminRequest<T extends CollectionAdminResponse>
       params.setNonNull(CommonParams.FL, fields);
       params.setNonNull("removeSource", removeSource);
       params.setNonNull(CommonParams.ROWS, batchSize);
+      params.setNonNull("workers", workers);
+      params.setNonNull("maxDocsPerSecond", maxDocsPerSecond);
       collectionParams.forEach((k, v) -> params.setNonNull(k, v));
       return params;
     }
@@ -45,6 +45,19 @@ import org.apache.solr.common.util.NamedList;
  */
 public class JavaBinUpdateRequestCodec {
 
+  private boolean readDocStringsAsCharSeq;
+
+  /**
+   * Whether {@link #unmarshal} reads the string values of documents as {@link
+   * org.apache.solr.common.util.Utf8CharSequence}s that refer to the UTF-8 bytes of the request,
+   * instead of decoding them to {@link String}s. Field names and everything else are always read as
+   * strings.
+   */
+  public JavaBinUpdateRequestCodec setReadDocStringsAsCharSeq(boolean flag) {
+    readDocStringsAsCharSeq = flag;
+    return this;
+  }
+
   /**
    * Converts an UpdateRequest to a NamedList which can be serialized to the given OutputStream in
    * the javabin format
@@ -105,7 +118,7 @@ public class JavaBinUpdateRequestCodec {
     // process documents:
 
     // reads documents, sending to handler.  Other data is in NamedList
-    try (var codec = new StreamingCodec(handler)) {
+    try (var codec = new StreamingCodec(handler, readDocStringsAsCharSeq)) {
       codec.readMapAsNamedList(false);
       namedList = codec.unmarshal(is);
     }
@@ -168,13 +181,15 @@ public class JavaBinUpdateRequestCodec {
 
     private NamedList<Object> resultNamedList;
     private final StreamingUpdateHandler handler;
+    private final boolean readDocStringsAsCharSeq;
     // NOTE: this only works because this is an anonymous inner class
     // which will only ever be used on a single stream -- if this class
     // is ever refactored, this will not work.
     private boolean seenOuterMostDocIterator = false;
 
-    StreamingCodec(StreamingUpdateHandler handler) {
+    StreamingCodec(StreamingUpdateHandler handler, boolean readDocStringsAsCharSeq) {
       this.handler = handler;
+      this.readDocStringsAsCharSeq = readDocStringsAsCharSeq;
     }
 
     @Override
@@ -224,6 +239,7 @@ public class JavaBinUpdateRequestCodec {
         updateRequest.setParams(ModifiableSolrParams.of(params.toSolrParams()));
       }
 
+      readStringAsCharSeq = readDocStringsAsCharSeq;
       Object o = readVal(fis);
       while (o != END_OBJ) {
         Integer commitWithin = null;
@@ -258,6 +274,7 @@ public class JavaBinUpdateRequestCodec {
 
         handler.update(sdoc, updateRequest, commitWithin, overwrite);
       }
+      readStringAsCharSeq = false;
     }
 
     private SolrInputDocument convertMapToSolrInputDoc(Map<?, ?> m) {
@@ -104,6 +104,27 @@ public interface ShardParams {
   /** Force a single-pass distributed query? (true/false) */
   String DISTRIB_SINGLE_PASS = "distrib.singlePass";
 
+  /**
+   * Whether the coordinator may answer this request from, and store it in, its distributed result
+   * cache, if one is configured (true/false)
+   */
+  String DISTRIB_RESULT_CACHE = "distrib.resultCache";
+
+  /** Ask a shard to report the version of its index reader in the response header (true/false) */
+  String SHARDS_INDEX_VERSION = "shards.indexVersion";
+
+  /**
+   * Ask a shard to only report the version of its index reader, without processing the request
+   * (true/false)
+   */
+  String SHARDS_INDEX_VERSION_ONLY = "shards.indexVersion.only";
+
+  /**
+   * Key of the index version that a shard reports in the response header when asked with {@value
+   * ShardParams#SHARDS_INDEX_VERSION}
+   */
+  String INDEX_VERSION = "indexVersion";
+
   /**
    * Throw an error from search requests when the {@value ShardParams#SHARDS_TOLERANT} param has
    * this value and ZooKeeper is not connected.
@@ -18,6 +18,7 @@ package org.apache.solr.common.util;
 
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -260,6 +261,66 @@ public class ExecutorUtil {
     return executor;
   }
 
+  /**
+   * System property (or {@code SOLR_THREADS_VIRTUAL_ENABLED} env var) that makes Solr's IO bound
+   * pools, such as the shard request and update forwarding executors, run their tasks on virtual
+   * threads. Ignored when the JVM does not support virtual threads.
+   */
+  public static final String VIRTUAL_THREADS_ENABLED_PROP = "solr.threads.virtual.enabled";
+
+  // Thread.Builder only exists as of Java 21 while SolrJ targets Java 17, hence the reflection
+  private static final Method OF_VIRTUAL = lookupMethod(Thread.class, "ofVirtual");
+  private static final Method BUILDER_NAME =
+      lookupMethod("java.lang.Thread$Builder", "name", String.class, long.class);
+  private static final Method BUILDER_FACTORY = lookupMethod("java.lang.Thread$Builder", "factory");
+
+  private static Method lookupMethod(String className, String name, Class<?>... parameterTypes) {
+    try {
+      return lookupMethod(Class.forName(className), name, parameterTypes);
+    } catch (ClassNotFoundException e) {
+      return null;
+    }
+  }
+
+  private static Method lookupMethod(Class<?> clazz, String name, Class<?>... parameterTypes) {
+    try {
+      return clazz.getMethod(name, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  /** Whether the running JVM can create virtual threads. */
+  public static boolean isVirtualThreadsSupported() {
+    return OF_VIRTUAL != null && BUILDER_NAME != null && BUILDER_FACTORY != null;
+  }
+
+  /**
+   * Whether virtual threads were requested with {@link #VIRTUAL_THREADS_ENABLED_PROP} and are
+   * supported by the running JVM.
+   */
+  public static boolean isVirtualThreadsEnabled() {
+    return EnvUtils.getPropertyAsBool(VIRTUAL_THREADS_ENABLED_PROP, false)
+        && isVirtualThreadsSupported();
+  }
+
+  /**
+   * Returns a factory of virtual threads named {@code prefix} followed by a counter, or null if the
+   * running JVM does not support virtual threads.
+   */
+  public static ThreadFactory newVirtualThreadFactory(String prefix) {
+    if (!isVirtualThreadsSupported()) {
+      return null;
+    }
+    try {
+      Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 1L);
+      return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      log.warn("Unable to create a virtual thread factory, using platform threads", e);
+      return null;
+    }
+  }
+
   @SuppressForbidden(reason = "class customizes ThreadPoolExecutor so it can be used instead")
   public static class MDCAwareThreadPoolExecutor extends ThreadPoolExecutor {
 
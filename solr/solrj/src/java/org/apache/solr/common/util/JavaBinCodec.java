@@ -104,6 +104,7 @@ public class JavaBinCodec implements PushWriter {
       UUID = 20, // This is reserved to be used only in LogCodec
       // types that combine tag + length (or other info) in a single byte
       PRIMITIVE_ARR = 21,
+      COMPRESSED = 22, // This is reserved to be used only in LogCodec
       TAG_AND_LEN = (byte) (1 << 5),
       STR = (byte) (1 << 5),
       SINT = (byte) (2 << 5),
@@ -798,12 +799,12 @@ public class JavaBinCodec implements PushWriter {
             log.debug(message);
           }
         }
-        fieldName = (String) readVal(dis);
+        fieldName = (String) convertCharSeq(readVal(dis));
       } else if (obj instanceof SolrInputDocument) {
         sdoc.addChildDocument((SolrInputDocument) obj);
         continue;
       } else {
-        fieldName = (String) obj;
+        fieldName = (String) convertCharSeq(obj);
       }
       Object fieldVal = readVal(dis);
       sdoc.setField(fieldName, fieldVal);
@@ -19,16 +19,38 @@ package org.apache.solr.common.util;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
-/** A {@link ThreadFactory} that names threads with the given prefix. */
+/**
+ * A {@link ThreadFactory} that names threads with the given prefix. It optionally creates virtual
+ * threads, see {@link ExecutorUtil#isVirtualThreadsEnabled()}.
+ */
 public class SolrNamedThreadFactory implements ThreadFactory {
   private static final AtomicInteger poolNumber = new AtomicInteger(1);
   private final ThreadGroup group;
   private final AtomicInteger threadNumber = new AtomicInteger(1);
   private final String prefix;
+  private final ThreadFactory virtualThreadFactory;
 
   public SolrNamedThreadFactory(String namePrefix) {
+    this(namePrefix, false);
+  }
+
+  /**
+   * Creates a factory of threads named with the given prefix.
+   *
+   * @param virtual whether to create virtual threads. Platform threads are created anyway if the
+   *     running JVM does not support virtual threads.
+   */
+  public SolrNamedThreadFactory(String namePrefix, boolean virtual) {
     group = getThreadGroup();
-    prefix = namePrefix + "-" + poolNumber.getAndIncrement() + "-thread-";
+    String poolPrefix = namePrefix + "-" + poolNumber.getAndIncrement();
+    prefix = poolPrefix + "-thread-";
+    virtualThreadFactory =
+        virtual ? ExecutorUtil.newVirtualThreadFactory(poolPrefix + "-vthread-") : null;
+  }
+
+  /** Whether this factory creates virtual threads. */
+  public boolean isVirtual() {
+    return virtualThreadFactory != null;
   }
 
   @SuppressWarnings("removal")
@@ -40,6 +62,10 @@ public class SolrNamedThreadFactory implements ThreadFactory {
 
   @Override
   public Thread newThread(Runnable r) {
+    if (virtualThreadFactory != null) {
+      // virtual threads are always daemon threads with normal priority
+      return virtualThreadFactory.newThread(r);
+    }
     Thread t = new Thread(group, r, prefix + threadNumber.getAndIncrement(), 0);
 
     t.setDaemon(false);
@@ -35,6 +35,9 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.lucene.tests.util.TestUtil;
@@ -232,6 +235,47 @@ public class CloudHttp2SolrClientTest extends SolrCloudTestCase {
         resp.getResults().getNumFound());
   }
 
+  @Test
+  public void testRequestAsync() throws Exception {
+    String COLLECTION = getSaferTestName();
+    CollectionAdminRequest.createCollection(COLLECTION, "conf", 2, 1)
+        .process(cluster.getSolrClient());
+    cluster.waitForActiveCollection(COLLECTION, 2, 2);
+
+    for (CloudSolrClient client :
+        List.of(
+            zkBasedCloudSolrClient, httpJettyBasedCloudSolrClient, httpJdkBasedCloudSolrClient)) {
+      // updates split by shard leader, and queries sent without blocking a thread
+      UpdateRequest update = new UpdateRequest();
+      for (int i = 0; i < 10; i++) {
+        update.add(id, String.valueOf(i), "a_t", "hello" + i);
+      }
+      update.setAction(AbstractUpdateRequest.ACTION.COMMIT, true, true);
+      client.requestAsync(update, COLLECTION).get(TIMEOUT, TimeUnit.SECONDS);
+
+      List<CompletableFuture<NamedList<Object>>> futures = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        futures.add(client.requestAsync(new QueryRequest(params("q", "*:*")), COLLECTION));
+      }
+      for (CompletableFuture<NamedList<Object>> future : futures) {
+        SolrDocumentList results =
+            (SolrDocumentList) future.get(TIMEOUT, TimeUnit.SECONDS).get("response");
+        assertEquals(10, results.getNumFound());
+      }
+
+      ExecutionException e =
+          expectThrows(
+              ExecutionException.class,
+              () ->
+                  client
+                      .requestAsync(new QueryRequest(params("q", "*:*")), "nonexistent")
+                      .get(TIMEOUT, TimeUnit.SECONDS));
+      assertTrue(e.getCause().toString(), e.getCause() instanceof SolrException);
+
+      new UpdateRequest().deleteByQuery("*:*").commit(client, COLLECTION);
+    }
+  }
+
   @Test
   public void testAliasHandling() throws Exception {
     String COLLECTION = getSaferTestName();
@@ -34,10 +34,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -297,6 +300,127 @@ public class CloudSolrClientCacheTest extends SolrTestCaseJ4 {
     }
   }
 
+  public void testRequestAsyncRetriesOnStaleState() throws Exception {
+    String collName = "gettingstarted";
+    Set<String> liveNodes = new HashSet<>(Set.of("192.168.1.108:8983_solr"));
+    AtomicInteger refGets = new AtomicInteger();
+    AtomicReference<DocCollection> currentDoc = new AtomicReference<>(loadCollection(collName, 1));
+    Map<String, ClusterState.CollectionRef> refs =
+        Map.of(collName, new TestCollectionRef(currentDoc::get, refGets, null, null, -1));
+    BlockingQueue<InFlightRequest> inFlight = new LinkedBlockingQueue<>();
+    try (ClusterStateProvider provider = getStateProvider(liveNodes, refs);
+        RecordingCloudSolrClient client = new RecordingCloudSolrClient(provider, 3)) {
+      client.setLbClient(getMockLbAsyncSolrClient(inFlight));
+
+      CompletableFuture<NamedList<Object>> result =
+          client.requestAsync(new DummyRequest(collName), collName);
+      InFlightRequest first = inFlight.poll(30, TimeUnit.SECONDS);
+      assertNotNull("First attempt was not sent", first);
+      assertEquals(collName + ":" + currentDoc.get().getZNodeVersion(), first.stateVersion);
+
+      // the collection changed while the request was in flight, and the server says so
+      currentDoc.set(loadCollection(collName, 2));
+      int getsBeforeRetry = refGets.get();
+      first.future.completeExceptionally(
+          new SolrException(SolrException.ErrorCode.INVALID_STATE, "stale"));
+
+      InFlightRequest second = inFlight.poll(30, TimeUnit.SECONDS);
+      assertNotNull("Request was not retried", second);
+      assertTrue("State should have been refreshed", refGets.get() > getsBeforeRetry);
+      assertEquals(collName + ":" + currentDoc.get().getZNodeVersion(), second.stateVersion);
+      assertNotEquals(first.stateVersion, second.stateVersion);
+      assertFalse("Result completed before the retry", result.isDone());
+
+      second.complete(okResponse());
+      assertNotNull(result.get(30, TimeUnit.SECONDS).get("responseHeader"));
+      assertTrue("No more attempts expected", inFlight.isEmpty());
+    }
+  }
+
+  public void testRequestAsyncFollowsLeaderChange() throws Exception {
+    String collName = "gettingstarted";
+    Set<String> liveNodes =
+        new HashSet<>(Set.of("192.168.1.108:8983_solr", "192.168.1.108:7574_solr"));
+    AtomicReference<DocCollection> currentDoc = new AtomicReference<>(loadCollection(collName, 1));
+    Map<String, ClusterState.CollectionRef> refs =
+        Map.of(
+            collName, new TestCollectionRef(currentDoc::get, new AtomicInteger(), null, null, -1));
+    BlockingQueue<InFlightRequest> inFlight = new LinkedBlockingQueue<>();
+    try (ClusterStateProvider provider = getStateProvider(liveNodes, refs);
+        RecordingCloudSolrClient client = new RecordingCloudSolrClient(provider, 3)) {
+      client.setLbClient(getMockLbAsyncSolrClient(inFlight));
+
+      // updates that are not split by this client go to the shard leaders first
+      CompletableFuture<NamedList<Object>> result =
+          client.requestAsync(new DummyUpdateRequest(collName), collName);
+      InFlightRequest first = inFlight.poll(30, TimeUnit.SECONDS);
+      assertNotNull("First attempt was not sent", first);
+      assertEquals("http://192.168.1.108:8983/solr", first.endpoints.get(0).getBaseUrl());
+
+      // both leaders move to the other node while the update is in flight
+      currentDoc.set(loadCollection(collName, 2, movedLeadersState()));
+      first.future.completeExceptionally(
+          new SolrException(SolrException.ErrorCode.INVALID_STATE, "stale"));
+
+      InFlightRequest second = inFlight.poll(30, TimeUnit.SECONDS);
+      assertNotNull("Request was not retried", second);
+      assertEquals("http://192.168.1.108:7574/solr", second.endpoints.get(0).getBaseUrl());
+      assertEquals(collName + ":" + currentDoc.get().getZNodeVersion(), second.stateVersion);
+
+      second.complete(okResponse());
+      assertNotNull(result.get(30, TimeUnit.SECONDS));
+      assertTrue("No more attempts expected", inFlight.isEmpty());
+    }
+  }
+
+  /** An attempt made through the mock load balancer, completed by the test. */
+  private static class InFlightRequest {
+    final List<LBSolrClient.Endpoint> endpoints;
+    final String stateVersion;
+    final CompletableFuture<LBSolrClient.Rsp> future = new CompletableFuture<>();
+
+    InFlightRequest(LBSolrClient.Req req) {
+      this.endpoints = new ArrayList<>(req.getEndpoints());
+      this.stateVersion = req.getRequest().getParams().get(CloudSolrClient.STATE_VERSION);
+    }
+
+    void complete(NamedList<Object> response) {
+      LBSolrClient.Rsp rsp = new LBSolrClient.Rsp();
+      rsp.rsp = response;
+      rsp.server = endpoints.get(0).toString();
+      future.complete(rsp);
+    }
+  }
+
+  private LBAsyncSolrClient getMockLbAsyncSolrClient(BlockingQueue<InFlightRequest> inFlight) {
+    LBAsyncSolrClient mockLbClient = mock(LBAsyncSolrClient.class);
+    when(mockLbClient.requestAsync(any(LBSolrClient.Req.class)))
+        .then(
+            invocationOnMock -> {
+              InFlightRequest request = new InFlightRequest(invocationOnMock.getArgument(0));
+              inFlight.add(request);
+              return request.future;
+            });
+    return mockLbClient;
+  }
+
+  private static NamedList<Object> okResponse() {
+    NamedList<Object> header = new NamedList<>();
+    header.add("status", 0);
+    NamedList<Object> response = new NamedList<>();
+    response.add("responseHeader", header);
+    return response;
+  }
+
+  /** The state of {@link #COLL1_STATE} with the leaders of both shards on the other node. */
+  private static String movedLeadersState() {
+    return COLL1_STATE
+        .replace(",\n            'leader':'true'", "")
+        .replace(
+            "7574_solr',\n            'state':'active'}",
+            "7574_solr',\n            'state':'active',\n            'leader':'true'}");
+  }
+
   @SuppressWarnings({"unchecked"})
   private LBHttpSolrClient getMockLbHttpSolrClient(Map<String, Function<?, ?>> responses)
       throws Exception {
@@ -344,9 +468,14 @@ public class CloudSolrClientCacheTest extends SolrTestCaseJ4 {
   }
 
   private DocCollection loadCollection(String collection, int version) throws Exception {
+    return loadCollection(collection, version, COLL1_STATE);
+  }
+
+  private DocCollection loadCollection(String collection, int version, String json)
+      throws Exception {
     ClusterState state =
         ClusterState.createFromJson(
-            version, COLL1_STATE.getBytes(UTF_8), Collections.emptySet(), Instant.now(), null);
+            version, json.getBytes(UTF_8), Collections.emptySet(), Instant.now(), null);
     return state.getCollectionOrNull(collection);
   }
 
@@ -356,6 +485,7 @@ public class CloudSolrClientCacheTest extends SolrTestCaseJ4 {
     private volatile Invocation defaultInvocation;
     private final List<String> stateHistory = Collections.synchronizedList(new ArrayList<>());
     private final NamedList<Object> okResponse;
+    private volatile LBSolrClient lbClient;
 
     RecordingCloudSolrClient(ClusterStateProvider provider, int refreshThreads) {
       this(provider, true, true, false, refreshThreads);
@@ -412,9 +542,16 @@ public class CloudSolrClientCacheTest extends SolrTestCaseJ4 {
       }
     }
 
+    void setLbClient(LBSolrClient lbClient) {
+      this.lbClient = lbClient;
+    }
+
     @Override
     protected LBSolrClient getLbClient() {
-      throw new UnsupportedOperationException("LB client not used in test harness");
+      if (lbClient == null) {
+        throw new UnsupportedOperationException("LB client not used in test harness");
+      }
+      return lbClient;
     }
 
     @Override
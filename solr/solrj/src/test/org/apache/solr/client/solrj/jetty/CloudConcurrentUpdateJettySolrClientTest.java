@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.client.solrj.jetty;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.request.SolrQuery;
+import org.apache.solr.cloud.SolrCloudTestCase;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.Slice;
+import org.apache.solr.util.ExternalPaths;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CloudConcurrentUpdateJettySolrClientTest extends SolrCloudTestCase {
+
+  private static final String COLLECTION = "routed_streaming";
+  private static final int NUM_SHARDS = 3;
+
+  @BeforeClass
+  public static void setupCluster() throws Exception {
+    configureCluster(2).addConfig("conf", ExternalPaths.TECHPRODUCTS_CONFIGSET).configure();
+    CollectionAdminRequest.createCollection(COLLECTION, "conf", NUM_SHARDS, 1)
+        .process(cluster.getSolrClient());
+    cluster.waitForActiveCollection(COLLECTION, NUM_SHARDS, NUM_SHARDS);
+  }
+
+  @Test
+  public void testDocumentsStreamedToShardLeaders() throws Exception {
+    int numDocs = 1000;
+    AtomicInteger errors = new AtomicInteger();
+    String solrUrl = cluster.getJettySolrRunner(0).getBaseUrl().toString();
+    try (var cloudClient = new CloudJettySolrClient.Builder(List.of(solrUrl)).build();
+        var client =
+            new CloudConcurrentUpdateJettySolrClient.Builder(cloudClient) {
+              @Override
+              public CloudConcurrentUpdateJettySolrClient build() {
+                return new CloudConcurrentUpdateJettySolrClient(this) {
+                  @Override
+                  public void handleError(Throwable ex, String leaderUrl) {
+                    errors.incrementAndGet();
+                  }
+                };
+              }
+            }.withDefaultCollection(COLLECTION).withQueueSize(10).build()) {
+      for (int i = 0; i < numDocs; i++) {
+        SolrInputDocument doc = new SolrInputDocument();
+        doc.addField("id", "doc" + i);
+        client.add(doc);
+      }
+      client.deleteById("doc0");
+      // commit is sent only once all queues are flushed
+      client.commit();
+
+      assertEquals(0, errors.get());
+      assertEquals(numDocs - 1, client.query(new SolrQuery("*:*")).getResults().getNumFound());
+
+      // every shard got its part of the documents directly from the client
+      DocCollection collection = cloudClient.getClusterState().getCollection(COLLECTION);
+      long sum = 0;
+      for (Slice slice : collection.getActiveSlices()) {
+        Replica leader = slice.getLeader();
+        try (var leaderClient =
+            new HttpJettySolrClient.Builder(leader.getBaseUrl())
+                .withDefaultCollection(leader.getCoreName())
+                .build()) {
+          SolrQuery query = new SolrQuery("*:*");
+          query.set("distrib", false);
+          long numFound = leaderClient.query(query).getResults().getNumFound();
+          assertTrue("no documents on " + slice.getName(), numFound > 0);
+          sum += numFound;
+        }
+      }
+      assertEquals(numDocs - 1, sum);
+
+      // deletes by query are not streamed but wait for the queues
+      client.add(new SolrInputDocument("id", "last"));
+      client.deleteByQuery("*:*");
+      client.commit();
+      assertEquals(0, client.query(new SolrQuery("*:*")).getResults().getNumFound());
+    }
+  }
+
+  @Test
+  public void testClientsOfFormerLeadersAreClosed() throws Exception {
+    String collection = "leader_change";
+    CollectionAdminRequest.createCollection(collection, "conf", 1, 2)
+        .process(cluster.getSolrClient());
+    cluster.waitForActiveCollection(collection, 1, 2);
+
+    String solrUrl = cluster.getJettySolrRunner(0).getBaseUrl().toString();
+    try (var cloudClient = new CloudJettySolrClient.Builder(List.of(solrUrl)).build();
+        var client =
+            new CloudConcurrentUpdateJettySolrClient.Builder(cloudClient)
+                .withDefaultCollection(collection)
+                .withCollectionStateTtl(0, TimeUnit.MILLISECONDS)
+                .build()) {
+      for (int i = 0; i < 10; i++) {
+        client.add(new SolrInputDocument("id", "before" + i));
+      }
+      client.commit();
+      Replica oldLeader = getCollectionState(collection).getSlice("shard1").getLeader();
+      assertEquals(Set.of(oldLeader.getCoreUrl()), client.getLeaderClientUrls());
+
+      CollectionAdminRequest.deleteReplica(collection, "shard1", oldLeader.getName())
+          .process(cluster.getSolrClient());
+      waitForState(
+          "no new leader",
+          collection,
+          (liveNodes, state) -> {
+            Replica leader = state.getSlice("shard1").getLeader();
+            return state.getReplicas().size() == 1
+                && leader != null
+                && leader.isActive(liveNodes)
+                && !leader.getName().equals(oldLeader.getName());
+          });
+      Replica newLeader = getCollectionState(collection).getSlice("shard1").getLeader();
+
+      for (int i = 0; i < 10; i++) {
+        client.add(new SolrInputDocument("id", "after" + i));
+      }
+      client.commit();
+      assertEquals(Set.of(newLeader.getCoreUrl()), client.getLeaderClientUrls());
+      assertEquals(20, client.query(new SolrQuery("*:*")).getResults().getNumFound());
+    }
+  }
+}
@@ -76,6 +76,16 @@ public class ShardParamsTest extends SolrTestCase {
     assertEquals(ShardParams.DISTRIB_SINGLE_PASS, "distrib.singlePass");
   }
 
+  public void testDistribResultCache() {
+    assertEquals(ShardParams.DISTRIB_RESULT_CACHE, "distrib.resultCache");
+  }
+
+  public void testShardsIndexVersion() {
+    assertEquals(ShardParams.SHARDS_INDEX_VERSION, "shards.indexVersion");
+    assertEquals(ShardParams.SHARDS_INDEX_VERSION_ONLY, "shards.indexVersion.only");
+    assertEquals(ShardParams.INDEX_VERSION, "indexVersion");
+  }
+
   @Test
   public void testGetShardsTolerantAsBool() {
     ModifiableSolrParams params = new ModifiableSolrParams();
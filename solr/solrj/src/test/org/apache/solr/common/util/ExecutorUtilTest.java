@@ -224,6 +224,31 @@ public class ExecutorUtilTest extends SolrTestCase {
     }
   }
 
+  @Test
+  public void testVirtualThreadsKeepMDC() throws Exception {
+    assumeTrue("JVM lacks virtual threads", ExecutorUtil.isVirtualThreadsSupported());
+    SolrNamedThreadFactory threadFactory = new SolrNamedThreadFactory("test", true);
+    assertTrue(threadFactory.isVirtual());
+
+    ExecutorService executor = ExecutorUtil.newMDCAwareCachedThreadPool(threadFactory);
+    try {
+      String core = "id_" + random().nextLong();
+      MDCLoggingContext.setCoreName(core);
+      Future<String[]> future =
+          executor.submit(
+              () -> new String[] {MDC.get("core"), Thread.currentThread().getName()});
+      String[] result = future.get();
+      assertEquals(core, result[0]);
+      assertTrue(result[1], result[1].startsWith("test-"));
+      assertTrue(result[1], result[1].contains("-vthread-"));
+    } finally {
+      MDCLoggingContext.clear();
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+
+    assertFalse(new SolrNamedThreadFactory("test", false).isVirtual());
+  }
+
   @Test
   public void submitAllTest() throws IOException {
     AtomicLong idx = new AtomicLong();